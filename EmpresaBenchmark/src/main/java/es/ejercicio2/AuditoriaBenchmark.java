@@ -0,0 +1,127 @@
+package es.ejercicio2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark del coste de la auditoría sobre los descuentos y las subidas de
+ * sueldo: sin auditoría, con cada política de saturación y esperando al
+ * disco en cada operación, que es lo que costaría escribir el evento de
+ * forma síncrona.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuditoriaBenchmark {
+
+    /** Número de empleados */
+    private static final int TAMANO = 10000;
+
+    /** Modo de la auditoría: "ninguno", "bloquear", "descartar" o "sincrono" */
+    @Param({"ninguno", "bloquear", "descartar", "sincrono"})
+    public String modo;
+
+    /** Registro sobre el que se cambian los sueldos */
+    private Registro registro;
+
+    /** Jefe que sube los sueldos */
+    private Jefe jefe;
+
+    /** Empleados registrados */
+    private Empleado[] empleados;
+
+    /** Fichero de la auditoría */
+    private Path fichero;
+
+    /** Auditoría enganchada al registro, o null en el modo "ninguno" */
+    private Auditoria auditoria;
+
+    /**
+     * Crea el registro y engancha la auditoría. Cada iteración empieza con
+     * una auditoría vacía para que los ficheros no crezcan sin límite.
+     *
+     * @throws IOException si no se puede crear la auditoría
+     */
+    @Setup(Level.Iteration)
+    public void preparar() throws IOException {
+        registro = new Registro();
+        jefe = new Jefe("Jefe", Persona.Sexo.MASCULINO, null, 3000, "Ventas");
+        registro.registrarEmpleado(jefe);
+        empleados = new Empleado[TAMANO];
+        for (int i = 0; i < TAMANO; i++) {
+            empleados[i] = new Empleado("Empleado" + i, Persona.Sexo.FEMENINO, null, 1000);
+            registro.registrarEmpleado(empleados[i]);
+        }
+        if (!"ninguno".equals(modo)) {
+            fichero = Files.createTempFile("empresa", ".auditoria");
+            Files.delete(fichero);
+            Auditoria.PoliticaSaturacion politica = "descartar".equals(modo)
+                    ? Auditoria.PoliticaSaturacion.DESCARTAR : Auditoria.PoliticaSaturacion.BLOQUEAR;
+            auditoria = Auditoria.abrir(fichero, Auditoria.CAPACIDAD_POR_DEFECTO, politica,
+                    Auditoria.TAMANO_MAXIMO_POR_DEFECTO, 0);
+            registro.setAuditoria(auditoria);
+        }
+    }
+
+    /**
+     * Cierra y borra la auditoría.
+     *
+     * @throws IOException si falla el cierre o el borrado
+     */
+    @TearDown(Level.Iteration)
+    public void limpiar() throws IOException {
+        if (auditoria != null) {
+            registro.setAuditoria(null);
+            auditoria.close();
+            Files.deleteIfExists(fichero);
+            auditoria = null;
+        }
+    }
+
+    @Benchmark
+    public void descontarPorcentaje() throws IOException {
+        Empleado e = empleados[ThreadLocalRandom.current().nextInt(TAMANO)];
+        registro.descontarPorcentaje(e);
+        if (e.getSueldo() < 1.0) {
+            e.setSueldo(1000);
+        }
+        if ("sincrono".equals(modo)) {
+            auditoria.sincronizar();
+        }
+    }
+
+    @Benchmark
+    public boolean subirSueldo() throws IOException {
+        Empleado e = empleados[ThreadLocalRandom.current().nextInt(TAMANO)];
+        if (e.getSueldo() > 1000000) {
+            e.setSueldo(1000);
+        }
+        boolean subido = jefe.subirSueldo(e, 1);
+        if ("sincrono".equals(modo)) {
+            auditoria.sincronizar();
+        }
+        return subido;
+    }
+}
@@ -0,0 +1,98 @@
+package es.ejercicio2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de la exportación e importación en CSV de una plantilla
+ * completa a un fichero temporal. La importación carga un registro nuevo en
+ * cada llamada, así que incluye el coste de crear y registrar los empleados.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CodecCSVBenchmark {
+
+    /** Número de empleados */
+    @Param({"1000", "100000", "1000000"})
+    public int tamano;
+
+    /** Empleados de la plantilla */
+    private List<Empleado> empleados;
+
+    /** Fichero en el que se exporta */
+    private Path salida;
+
+    /** Fichero ya exportado que se importa */
+    private Path entrada;
+
+    /**
+     * Crea la plantilla y el fichero de entrada.
+     *
+     * @throws IOException si falla la escritura del fichero
+     */
+    @Setup
+    public void preparar() throws IOException {
+        Random aleatorio = new Random(42);
+        Empleado[] array = new Empleado[tamano];
+        for (int i = 0; i < tamano; i++) {
+            Empleado e = (i % 10 == 0)
+                    ? new Jefe("Jefe" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1 + i % 12, 2000), 2000 + aleatorio.nextInt(3000), "dep" + (i % 20))
+                    : new Empleado("Empleado" + i, Persona.Sexo.FEMENINO, Fecha.de(1, 1 + i % 12, 2010), (90000 + aleatorio.nextInt(200000)) / 100.0);
+            e.setIrpf(0.15);
+            e.setCargo("Cargo" + (i % 50));
+            e.setDni(String.valueOf(10000000 + i));
+            array[i] = e;
+        }
+        empleados = Arrays.asList(array);
+        salida = Files.createTempFile("empresa", ".csv");
+        entrada = Files.createTempFile("empresa", ".csv");
+        CodecCSV.exportar(empleados, entrada);
+    }
+
+    /**
+     * Borra los ficheros temporales.
+     *
+     * @throws IOException si falla el borrado
+     */
+    @TearDown
+    public void limpiar() throws IOException {
+        Files.deleteIfExists(salida);
+        Files.deleteIfExists(entrada);
+    }
+
+    @Benchmark
+    public int exportar() throws IOException {
+        return CodecCSV.exportar(empleados, salida);
+    }
+
+    @Benchmark
+    public Registro importar() throws IOException {
+        Registro registro = new Registro();
+        CodecCSV.importar(entrada, registro);
+        return registro;
+    }
+}
@@ -0,0 +1,90 @@
+package es.ejercicio2;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark de la creación de una plantilla completa: construcción de
+ * empleados y jefes y asignación de sus números de empleado con los
+ * generadores globales. Cada invocación crea {@code tamano} empleados, por lo
+ * que el resultado es el tiempo medio por plantilla.
+ * <p>
+ * Todos los hilos comparten los generadores globales, que se reinician al
+ * principio de cada iteración para no agotar el rango de códigos. Las
+ * iteraciones son cortas por el mismo motivo, y más aún en
+ * {@link #asignarCodigos}, que reparte cientos de millones de códigos por
+ * segundo y núcleo.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ConstruccionBenchmark {
+
+    /** Número de empleados de la plantilla */
+    @Param({"1000", "100000", "1000000"})
+    public int tamano;
+
+    /** Fecha de contratación común, para medir solo la construcción */
+    private Fecha fecha;
+
+    /**
+     * Prepara los datos comunes.
+     */
+    @Setup(Level.Trial)
+    public void preparar() {
+        fecha = new Fecha(1, 1, 2010);
+    }
+
+    /**
+     * Reinicia los generadores globales de códigos.
+     */
+    @Setup(Level.Iteration)
+    public void reiniciarCodigos() {
+        GeneradorCodigos.reiniciarCodigos();
+    }
+
+    /**
+     * Crea la plantilla con un jefe de cada diez empleados.
+     */
+    @Benchmark
+    public void construirPlantilla(Blackhole bh) {
+        for (int i = 0; i < tamano; i++) {
+            bh.consume((i % 10 == 0)
+                    ? new Jefe("Jefe", Persona.Sexo.DESCONOCIDO, fecha, 2500.0, "Ventas")
+                    : new Empleado("Empleado", Persona.Sexo.DESCONOCIDO, fecha, 1200.0));
+        }
+    }
+
+    /**
+     * Asigna solo los números de empleado de la plantilla, sin crear objetos.
+     */
+    @Benchmark
+    @Warmup(iterations = 10, time = 50, timeUnit = TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 20, time = 50, timeUnit = TimeUnit.MILLISECONDS)
+    public void asignarCodigos(Blackhole bh) {
+        for (int i = 0; i < tamano; i++) {
+            bh.consume((i % 10 == 0)
+                    ? GeneradorCodigos.siguienteCodigoJefe()
+                    : GeneradorCodigos.siguienteCodigoEmpleado());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package es.ejercicio2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark del coste del diario sobre los cambios de sueldo: sin diario,
+ * con el diario en escritura agrupada y esperando al disco en cada cambio.
+ * Con varios hilos, las esperas simultáneas comparten un mismo volcado.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiarioBenchmark {
+
+    /** Número de empleados */
+    private static final int TAMANO = 10000;
+
+    /** Modo del diario: "ninguno", "agrupado" o "sincrono" */
+    @Param({"ninguno", "agrupado", "sincrono"})
+    public String modo;
+
+    /** Registro sobre el que se cambian los sueldos */
+    private Registro registro;
+
+    /** Empleados registrados */
+    private Empleado[] empleados;
+
+    /** Fichero del diario */
+    private Path fichero;
+
+    /** Diario enganchado al registro, o null en el modo "ninguno" */
+    private Diario diario;
+
+    /**
+     * Crea el registro y engancha el diario. Cada iteración empieza con un
+     * diario vacío para que el fichero no crezca sin límite.
+     *
+     * @throws IOException si no se puede crear el diario
+     */
+    @Setup(Level.Iteration)
+    public void preparar() throws IOException {
+        registro = new Registro();
+        empleados = new Empleado[TAMANO];
+        for (int i = 0; i < TAMANO; i++) {
+            empleados[i] = new Empleado("Empleado" + i, Persona.Sexo.FEMENINO, null, 1000);
+            registro.registrarEmpleado(empleados[i]);
+        }
+        if (!"ninguno".equals(modo)) {
+            fichero = Files.createTempFile("empresa", ".diario");
+            Files.delete(fichero);
+            diario = Diario.abrir(fichero);
+            registro.agregarObservador(diario);
+        }
+    }
+
+    /**
+     * Cierra y borra el diario.
+     *
+     * @throws IOException si falla el cierre o el borrado
+     */
+    @TearDown(Level.Iteration)
+    public void limpiar() throws IOException {
+        if (diario != null) {
+            registro.eliminarObservador(diario);
+            diario.close();
+            Files.deleteIfExists(fichero);
+            diario = null;
+        }
+    }
+
+    @Benchmark
+    public void cambiarSueldo() throws IOException {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        empleados[aleatorio.nextInt(TAMANO)].setSueldo(1000 + aleatorio.nextInt(2000));
+        if ("sincrono".equals(modo)) {
+            diario.sincronizar();
+        }
+    }
+
+    @Benchmark
+    public void descontarPorcentaje() throws IOException {
+        Empleado e = empleados[ThreadLocalRandom.current().nextInt(TAMANO)];
+        registro.descontarPorcentaje(e);
+        if (e.getSueldo() < 1.0) {
+            e.setSueldo(1000);
+        }
+        if ("sincrono".equals(modo)) {
+            diario.sincronizar();
+        }
+    }
+}
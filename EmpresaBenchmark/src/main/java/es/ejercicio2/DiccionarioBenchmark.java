@@ -0,0 +1,129 @@
+package es.ejercicio2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de filtros y agrupaciones por departamento: comparando los
+ * nombres (equals y un HashMap por String) frente a los códigos de
+ * {@link Diccionario} (comparación de ints y un array indexado por código),
+ * tanto sobre los objetos como sobre {@link PlantillaColumnar}. El nombre
+ * buscado se construye aparte, como llegaría de una consulta, de modo que
+ * equals tiene que comparar el contenido.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DiccionarioBenchmark {
+
+    /** Número de departamentos distintos */
+    private static final int DEPARTAMENTOS = 40;
+
+    /** Número de empleados */
+    @Param({"10000", "1000000"})
+    public int tamano;
+
+    /** Empleados en orden barajado (todos jefes, para que tengan departamento) */
+    private Jefe[] jefes;
+
+    /** Los mismos empleados en columnas */
+    private PlantillaColumnar columnar;
+
+    /** Departamento buscado, como un String distinto del que guardan los jefes */
+    private String buscado;
+
+    /**
+     * Crea los jefes y su copia columnar.
+     */
+    @Setup
+    public void preparar() {
+        Random aleatorio = new Random(42);
+        List<Jefe> lista = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            lista.add(new Jefe("Jefe" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1 + i % 12, 2000),
+                    900 + aleatorio.nextInt(3000), "departamento-" + (i % DEPARTAMENTOS)));
+        }
+        Collections.shuffle(lista, aleatorio);
+        jefes = lista.toArray(new Jefe[0]);
+        columnar = PlantillaColumnar.desde(jefes);
+        buscado = new StringBuilder("departamento-").append(DEPARTAMENTOS / 2).toString();
+    }
+
+    @Benchmark
+    public long nombresFiltrarPorDepartamento() {
+        long total = 0;
+        for (Jefe j : jefes) {
+            if (buscado.equals(j.getDepartamento())) {
+                total += j.getSueldoCentimos();
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long codigosFiltrarPorDepartamento() {
+        int c = Diccionario.DEPARTAMENTOS.buscar(buscado);
+        long total = 0;
+        for (Jefe j : jefes) {
+            if (j.getCodigoDepartamento() == c) {
+                total += j.getSueldoCentimos();
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double columnarFiltrarPorDepartamento() {
+        return columnar.totalizarSueldosDepartamento(buscado);
+    }
+
+    @Benchmark
+    public Map<String, Long> nombresAgruparPorDepartamento() {
+        Map<String, Long> totales = new HashMap<>();
+        for (Jefe j : jefes) {
+            totales.merge(j.getDepartamento(), j.getSueldoCentimos(), Long::sum);
+        }
+        return totales;
+    }
+
+    @Benchmark
+    public long[] codigosAgruparPorDepartamento() {
+        long[] totales = new long[Diccionario.DEPARTAMENTOS.tamano()];
+        for (Jefe j : jefes) {
+            totales[j.getCodigoDepartamento()] += j.getSueldoCentimos();
+        }
+        return totales;
+    }
+
+    @Benchmark
+    public Map<String, Double> columnarAgruparPorDepartamento() {
+        return columnar.totalizarSueldosPorDepartamento();
+    }
+
+    @Benchmark
+    public int buscarCodigo() {
+        return Diccionario.DEPARTAMENTOS.buscar(buscado);
+    }
+}
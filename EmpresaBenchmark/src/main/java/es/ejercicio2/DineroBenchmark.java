@@ -0,0 +1,107 @@
+package es.ejercicio2;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark del cálculo de la retención de IRPF de una nómina con las tres
+ * representaciones posibles del dinero: double (sin redondear al céntimo,
+ * como hacía antes la plantilla), céntimos y puntos básicos en primitivos
+ * con {@link Dinero}, y BigDecimal con redondeo al céntimo. Las dos últimas
+ * dan el mismo resultado exacto; la primera acumula error de redondeo.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DineroBenchmark {
+
+    /** Número de nóminas */
+    @Param({"10000", "1000000"})
+    public int tamano;
+
+    /** Sueldos en euros */
+    private double[] sueldos;
+
+    /** IRPF de cada nómina como tasa */
+    private double[] tasas;
+
+    /** Sueldos en céntimos */
+    private long[] centimos;
+
+    /** IRPF de cada nómina en puntos básicos */
+    private int[] puntosBasicos;
+
+    /** Sueldos como BigDecimal */
+    private BigDecimal[] importes;
+
+    /** IRPF de cada nómina como BigDecimal */
+    private BigDecimal[] porcentajes;
+
+    /**
+     * Genera las nóminas en las tres representaciones.
+     */
+    @Setup
+    public void preparar() {
+        Random aleatorio = new Random(42);
+        sueldos = new double[tamano];
+        tasas = new double[tamano];
+        centimos = new long[tamano];
+        puntosBasicos = new int[tamano];
+        importes = new BigDecimal[tamano];
+        porcentajes = new BigDecimal[tamano];
+        for (int i = 0; i < tamano; i++) {
+            centimos[i] = 90000 + aleatorio.nextInt(400000);
+            puntosBasicos[i] = 1000 + aleatorio.nextInt(3500);
+            sueldos[i] = Dinero.euros(centimos[i]);
+            tasas[i] = Dinero.tasa(puntosBasicos[i]);
+            importes[i] = BigDecimal.valueOf(centimos[i], 2);
+            porcentajes[i] = BigDecimal.valueOf(puntosBasicos[i], 4);
+        }
+    }
+
+    @Benchmark
+    public double irpfDouble() {
+        double total = 0.0;
+        for (int i = 0; i < tamano; i++) {
+            total += sueldos[i] * tasas[i];
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long irpfCentimos() {
+        long total = 0;
+        for (int i = 0; i < tamano; i++) {
+            total += Dinero.porcentaje(centimos[i], puntosBasicos[i]);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal irpfBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < tamano; i++) {
+            total = total.add(importes[i].multiply(porcentajes[i]).setScale(2, RoundingMode.HALF_UP));
+        }
+        return total;
+    }
+}
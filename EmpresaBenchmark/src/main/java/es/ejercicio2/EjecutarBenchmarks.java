@@ -0,0 +1,70 @@
+package es.ejercicio2;
+
+import java.io.File;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Lanzador de los benchmarks para varios números de hilos. JMH solo admite un
+ * número de hilos por ejecución, así que se repite la ejecución para cada
+ * valor y se guarda un fichero JSON por cada una, con la versión en el
+ * nombre para poder comparar los resultados entre versiones:
+ * <pre>
+ * java -cp target/benchmarks.jar es.ejercicio2.EjecutarBenchmarks [filtro]
+ * </pre>
+ * Propiedades del sistema admitidas:
+ * <ul>
+ * <li>{@code hilos}: lista de números de hilos separados por comas
+ * (por defecto 1 y el número de procesadores).</li>
+ * <li>{@code tamano}: lista de tamaños de plantilla que sustituye a los de
+ * cada benchmark.</li>
+ * <li>{@code version}: etiqueta de la versión medida (por defecto "dev").</li>
+ * <li>{@code resultados}: directorio de salida (por defecto "resultados").</li>
+ * </ul>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public final class EjecutarBenchmarks {
+
+    /**
+     * Constructor privado: clase de utilidad.
+     */
+    private EjecutarBenchmarks() {
+    }
+
+    /**
+     * Ejecuta los benchmarks que coinciden con el filtro para cada número de hilos.
+     *
+     * @param args Expresión regular opcional con los benchmarks a ejecutar
+     * @throws RunnerException si falla la ejecución de JMH
+     */
+    public static void main(String[] args) throws RunnerException {
+        String filtro = args.length > 0 ? args[0] : "es.ejercicio2.*";
+        int procesadores = Runtime.getRuntime().availableProcessors();
+        String hilos = System.getProperty("hilos", procesadores > 1 ? "1," + procesadores : "1");
+        String tamanos = System.getProperty("tamano");
+        String version = System.getProperty("version", "dev");
+        File directorio = new File(System.getProperty("resultados", "resultados"));
+        if (!directorio.isDirectory() && !directorio.mkdirs()) {
+            throw new IllegalStateException("No se puede crear el directorio " + directorio);
+        }
+
+        for (String valor : hilos.split(",")) {
+            int numHilos = Integer.parseInt(valor.trim());
+            File fichero = new File(directorio, "empresa-" + version + "-" + numHilos + "hilos.json");
+            ChainedOptionsBuilder opciones = new OptionsBuilder()
+                    .include(filtro)
+                    .threads(numHilos)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(fichero.getPath());
+            if (tamanos != null) {
+                opciones.param("tamano", tamanos.split(","));
+            }
+            new Runner(opciones.build()).run();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package es.ejercicio2;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prueba de estrés de los cambios de sueldo concurrentes: varios hilos suben
+ * y descuentan el sueldo de unos pocos empleados a la vez y al final se
+ * comprueba que no se ha perdido ninguna actualización.
+ * <pre>
+ * java -cp target/benchmarks.jar es.ejercicio2.EstresSueldos [hilos] [operaciones]
+ * </pre>
+ * También se suben sueldos mientras otros hilos cambian a los empleados de
+ * jefe, para comprobar que el presupuesto de cada jefe sigue cuadrando con
+ * sus subordinados. Las comprobaciones son exactas: las subidas son de cantidades enteras (que
+ * un double suma sin redondeo) y todos los descuentos de un empleado son del
+ * mismo porcentaje, así que el resultado no depende del orden en que se
+ * apliquen. Como contraste, se mide también cuántas subidas se pierden con
+ * la lectura y escritura por separado de getSueldo() y setSueldo().
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public final class EstresSueldos {
+
+    /** Número de empleados sobre los que compiten los hilos */
+    private static final int NUM_EMPLEADOS = 4;
+
+    /** Sueldo inicial de los empleados */
+    private static final double SUELDO_INICIAL = 1000.0;
+
+    /**
+     * Constructor privado: clase de utilidad.
+     */
+    private EstresSueldos() {
+    }
+
+    /**
+     * Ejecuta la prueba.
+     *
+     * @param args Número de hilos y de operaciones por hilo (opcionales)
+     * @throws InterruptedException si se interrumpe la espera de los hilos
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int hilos = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, Runtime.getRuntime().availableProcessors());
+        int operaciones = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+        boolean correcto = true;
+        correcto &= probarSubidas(hilos, operaciones);
+        correcto &= probarDescuentos(hilos, Math.min(operaciones, 200));
+        correcto &= probarComparacionOptimista(hilos, operaciones);
+        correcto &= probarSubidasAlVincular(hilos, Math.min(operaciones, 50000));
+        medirSubidasPerdidas(hilos, operaciones);
+        System.out.println(correcto ? "CORRECTO" : "FALLO");
+        if (!correcto) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Sube el sueldo a la vez desde todos los hilos, mezclando
+     * {@link Jefe#subirSueldo(Empleado, double)} e
+     * {@link Empleado#incrementarSueldo(double)}, con los empleados colgados
+     * de un jefe para comprobar también su presupuesto.
+     *
+     * @param hilos Número de hilos
+     * @param operaciones Subidas por hilo
+     * @return true si no se ha perdido ninguna subida
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    private static boolean probarSubidas(int hilos, int operaciones) throws InterruptedException {
+        Registro registro = new Registro();
+        Jefe jefe = new Jefe("Jefe", Persona.Sexo.DESCONOCIDO, null, SUELDO_INICIAL, "dep");
+        Empleado[] empleados = crearEmpleados(registro);
+        for (Empleado e : empleados) {
+            jefe.agregarSubordinado(e);
+        }
+        ejecutar(hilos, () -> {
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            for (int i = 0; i < operaciones; i++) {
+                Empleado e = empleados[aleatorio.nextInt(NUM_EMPLEADOS)];
+                if ((i & 1) == 0) {
+                    jefe.subirSueldo(e, 1.0);
+                } else {
+                    e.incrementarSueldo(1.0);
+                }
+            }
+        });
+        double esperado = NUM_EMPLEADOS * SUELDO_INICIAL + (double) hilos * operaciones;
+        double total = 0.0;
+        for (Empleado e : empleados) {
+            total += e.getSueldo();
+        }
+        return comprobar("subidas", esperado, total)
+                & comprobar("presupuesto del jefe", esperado, jefe.calcularPresupuestoDepartamento());
+    }
+
+    /**
+     * Descuenta a la vez desde todos los hilos con
+     * {@link Registro#descontarPorcentaje(Empleado)} y con el descuento en
+     * lote, y comprueba sueldos y contadores.
+     *
+     * @param hilos Número de hilos
+     * @param operaciones Descuentos por hilo
+     * @return true si no se ha perdido ningún descuento
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    private static boolean probarDescuentos(int hilos, int operaciones) throws InterruptedException {
+        Registro registro = new Registro();
+        Empleado[] empleados = crearEmpleados(registro);
+        ejecutar(hilos, () -> {
+            for (int i = 0; i < operaciones; i++) {
+                if ((i & 1) == 0) {
+                    registro.descontarPorcentaje(empleados[i % NUM_EMPLEADOS]);
+                } else {
+                    registro.descontarPorcentaje(new Empleado[] {empleados[i % NUM_EMPLEADOS]});
+                }
+            }
+        });
+        boolean correcto = true;
+        for (Empleado e : empleados) {
+            int numDescuentos = registro.obtenerNumeroDescuentos(e);
+            long esperado = Dinero.centimos(SUELDO_INICIAL);
+            for (int i = 0; i < numDescuentos; i++) {
+                esperado = Dinero.descontar(esperado, 1000);
+            }
+            correcto &= comprobar("descuentos de " + e.getNumEmpleado(), esperado, e.getSueldoCentimos());
+            correcto &= comprobar("contador de " + e.getNumEmpleado(),
+                    (double) hilos * operaciones / NUM_EMPLEADOS, numDescuentos);
+        }
+        return correcto;
+    }
+
+    /**
+     * Sube el sueldo a la vez desde todos los hilos con el bucle optimista
+     * de {@link Empleado#compararYAsignarSueldo(double, double)}.
+     *
+     * @param hilos Número de hilos
+     * @param operaciones Subidas por hilo
+     * @return true si no se ha perdido ninguna subida
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    private static boolean probarComparacionOptimista(int hilos, int operaciones) throws InterruptedException {
+        Empleado[] empleados = crearEmpleados(new Registro());
+        AtomicLong reintentos = new AtomicLong();
+        ejecutar(hilos, () -> {
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            for (int i = 0; i < operaciones; i++) {
+                Empleado e = empleados[aleatorio.nextInt(NUM_EMPLEADOS)];
+                double leido = e.getSueldo();
+                while (!e.compararYAsignarSueldo(leido, leido + 2.0)) {
+                    reintentos.incrementAndGet();
+                    leido = e.getSueldo();
+                }
+            }
+        });
+        double total = 0.0;
+        for (Empleado e : empleados) {
+            total += e.getSueldo();
+        }
+        System.out.println("comparación optimista: " + reintentos.get() + " reintentos");
+        return comprobar("comparación optimista", NUM_EMPLEADOS * SUELDO_INICIAL + 2.0 * hilos * operaciones, total);
+    }
+
+    /**
+     * Sube sueldos desde todos los hilos mientras los mismos hilos pasan
+     * empleados de un jefe a otro con {@link Jefe#agregarSubordinado(Empleado)}.
+     * Al terminar, el presupuesto de cada jefe debe ser la suma de los
+     * sueldos de {@link Jefe#listarSubordinados()}: una subida que coincida
+     * con el cambio de jefe no puede quedarse sin contabilizar.
+     *
+     * @param hilos Número de hilos
+     * @param operaciones Operaciones por hilo
+     * @return true si los presupuestos cuadran con los subordinados
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    private static boolean probarSubidasAlVincular(int hilos, int operaciones) throws InterruptedException {
+        Registro registro = new Registro();
+        Jefe[] jefes = {
+            new Jefe("JefeA", Persona.Sexo.DESCONOCIDO, null, SUELDO_INICIAL, "depA"),
+            new Jefe("JefeB", Persona.Sexo.DESCONOCIDO, null, SUELDO_INICIAL, "depB")
+        };
+        Empleado[] empleados = crearEmpleados(registro);
+        ejecutar(hilos, () -> {
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            for (int i = 0; i < operaciones; i++) {
+                Empleado e = empleados[aleatorio.nextInt(NUM_EMPLEADOS)];
+                if ((i & 7) == 0) {
+                    jefes[aleatorio.nextInt(jefes.length)].agregarSubordinado(e);
+                } else {
+                    e.incrementarSueldo(1.0);
+                }
+            }
+        });
+        boolean correcto = true;
+        for (Jefe jefe : jefes) {
+            double suma = 0.0;
+            for (Empleado e : jefe.listarSubordinados()) {
+                suma += e.getSueldo();
+            }
+            correcto &= comprobar("presupuesto de " + jefe.getNombre() + " al vincular", suma,
+                    jefe.calcularPresupuestoDepartamento());
+        }
+        return correcto;
+    }
+
+    /**
+     * Mide las subidas que se pierden al leer y escribir el sueldo por
+     * separado, como hacía antes Jefe.subirSueldo(). Solo informa: con un
+     * único procesador puede no perderse ninguna.
+     *
+     * @param hilos Número de hilos
+     * @param operaciones Subidas por hilo
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    private static void medirSubidasPerdidas(int hilos, int operaciones) throws InterruptedException {
+        Empleado[] empleados = crearEmpleados(new Registro());
+        ejecutar(hilos, () -> {
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            for (int i = 0; i < operaciones; i++) {
+                Empleado e = empleados[aleatorio.nextInt(NUM_EMPLEADOS)];
+                e.setSueldo(e.getSueldo() + 1.0);
+            }
+        });
+        double total = 0.0;
+        for (Empleado e : empleados) {
+            total += e.getSueldo();
+        }
+        long perdidas = (long) (NUM_EMPLEADOS * SUELDO_INICIAL + (double) hilos * operaciones - total);
+        System.out.println("leer y asignar por separado: " + perdidas + " subidas perdidas de " + (long) hilos * operaciones);
+    }
+
+    /**
+     * Crea los empleados de la prueba y los da de alta en un registro.
+     *
+     * @param registro Registro donde darlos de alta
+     * @return Empleados creados
+     */
+    private static Empleado[] crearEmpleados(Registro registro) {
+        Empleado[] empleados = new Empleado[NUM_EMPLEADOS];
+        for (int i = 0; i < NUM_EMPLEADOS; i++) {
+            empleados[i] = new Empleado("Empleado" + i, Persona.Sexo.DESCONOCIDO, null, SUELDO_INICIAL);
+            registro.registrarEmpleado(empleados[i]);
+        }
+        return empleados;
+    }
+
+    /**
+     * Ejecuta una tarea en varios hilos que arrancan a la vez y espera a que terminen.
+     *
+     * @param hilos Número de hilos
+     * @param tarea Tarea que ejecuta cada hilo
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    private static void ejecutar(int hilos, Runnable tarea) throws InterruptedException {
+        CountDownLatch salida = new CountDownLatch(1);
+        Thread[] trabajadores = new Thread[hilos];
+        for (int i = 0; i < hilos; i++) {
+            trabajadores[i] = new Thread(() -> {
+                try {
+                    salida.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                tarea.run();
+            });
+            trabajadores[i].start();
+        }
+        salida.countDown();
+        for (Thread t : trabajadores) {
+            t.join();
+        }
+    }
+
+    /**
+     * Compara un valor con el esperado e imprime el resultado.
+     *
+     * @param prueba Nombre de la comprobación
+     * @param esperado Valor esperado
+     * @param obtenido Valor obtenido
+     * @return true si coinciden
+     */
+    private static boolean comprobar(String prueba, double esperado, double obtenido) {
+        boolean correcto = esperado == obtenido;
+        System.out.println(prueba + ": esperado " + esperado + ", obtenido " + obtenido + (correcto ? "" : "  <-- FALLO"));
+        return correcto;
+    }
+}
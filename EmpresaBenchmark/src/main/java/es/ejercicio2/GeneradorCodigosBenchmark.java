@@ -0,0 +1,74 @@
+package es.ejercicio2;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de la asignación de números de empleado.
+ * Compara el generador por bloques con un contador atómico compartido y con
+ * un contador sincronizado. Para ver el escalado con el número de núcleos se
+ * ejecuta con distintos valores de hilos, por ejemplo:
+ * <pre>
+ * java -jar target/benchmarks.jar GeneradorCodigosBenchmark -t 1
+ * java -jar target/benchmarks.jar GeneradorCodigosBenchmark -t 4
+ * </pre>
+ * Las iteraciones son cortas y el generador se recrea en cada una para no
+ * agotar el rango de códigos con los hilos más rápidos.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 200, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+public class GeneradorCodigosBenchmark {
+
+    /** Generador por bloques bajo prueba */
+    private GeneradorCodigos generador;
+
+    /** Contador atómico compartido por todos los hilos (sin bloques) */
+    private AtomicInteger contadorAtomico;
+
+    /** Contador protegido por un monitor global */
+    private int contadorSincronizado;
+
+    /**
+     * Recrea los contadores al inicio de cada iteración.
+     */
+    @Setup(Level.Iteration)
+    public void preparar() {
+        generador = new GeneradorCodigos("Benchmark", 0, Integer.MAX_VALUE,
+                GeneradorCodigos.TAMANO_BLOQUE_POR_DEFECTO);
+        contadorAtomico = new AtomicInteger();
+        contadorSincronizado = 0;
+    }
+
+    @Benchmark
+    public int generadorPorBloques() {
+        return generador.siguiente();
+    }
+
+    @Benchmark
+    public int contadorAtomicoCompartido() {
+        return contadorAtomico.getAndIncrement();
+    }
+
+    @Benchmark
+    public synchronized int contadorSincronizado() {
+        return contadorSincronizado++;
+    }
+}
@@ -0,0 +1,186 @@
+package es.ejercicio2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de las consultas filtradas: recorrido completo del registro
+ * frente a los índices de {@link IndicesPlantilla}, estadísticos de orden
+ * (mediana, percentil 99 y mejor pagados) calculados con una pasada y
+ * ordenación frente al índice de sueldos, y coste que añaden los índices a
+ * cada cambio de sueldo.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IndicesPlantillaBenchmark {
+
+    /** Número de empleados */
+    @Param({"100000", "1000000"})
+    public int tamano;
+
+    /** Registro sin índices */
+    private Registro registro;
+
+    /** Registro con los índices como observador */
+    private Registro registroIndexado;
+
+    /** Índices del registro indexado */
+    private IndicesPlantilla indices;
+
+    /** Empleados del registro indexado */
+    private Empleado[] indexados;
+
+    /** Sueldo que supera aproximadamente uno de cada mil empleados */
+    private double umbral;
+
+    /** Generador para los cambios de sueldo */
+    private final Random aleatorio = new Random(7);
+
+    /**
+     * Crea los dos registros con los mismos datos.
+     */
+    @Setup
+    public void preparar() {
+        registro = new Registro();
+        registroIndexado = new Registro();
+        registrar(registro);
+        List<Empleado> lista = registrar(registroIndexado);
+        indexados = lista.toArray(new Empleado[0]);
+        indices = new IndicesPlantilla(tamano);
+        registroIndexado.agregarObservador(indices);
+        umbral = 900 + 5000 * 0.999;
+    }
+
+    /**
+     * Da de alta los empleados de prueba en un registro.
+     *
+     * @param destino Registro a rellenar
+     * @return Empleados registrados
+     */
+    private List<Empleado> registrar(Registro destino) {
+        Random datos = new Random(42);
+        List<Empleado> lista = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            Empleado e = (i % 100 == 0)
+                    ? new Jefe("Jefe" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1 + i % 12, 2000), 900 + datos.nextInt(5000), "dep" + (i % 1000))
+                    : new Empleado("Empleado" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1 + i % 12, 2010), 900 + datos.nextInt(5000));
+            e.setCargo("cargo" + (i % 200));
+            destino.registrarEmpleado(e);
+            lista.add(e);
+        }
+        return lista;
+    }
+
+    @Benchmark
+    public int recorridoPorDepartamento() {
+        int cuenta = 0;
+        for (Empleado e : registro.obtenerEmpleados()) {
+            if (e instanceof Jefe && "dep500".equals(((Jefe) e).getDepartamento())) {
+                cuenta++;
+            }
+        }
+        return cuenta;
+    }
+
+    @Benchmark
+    public int indicePorDepartamento() {
+        return indices.obtenerEmpleadosPorDepartamento("dep500").size();
+    }
+
+    @Benchmark
+    public int recorridoPorCargo() {
+        int cuenta = 0;
+        for (Empleado e : registro.obtenerEmpleados()) {
+            if ("cargo50".equals(e.getCargo())) {
+                cuenta++;
+            }
+        }
+        return cuenta;
+    }
+
+    @Benchmark
+    public int indicePorCargo() {
+        return indices.obtenerEmpleadosPorCargo("cargo50").size();
+    }
+
+    @Benchmark
+    public int recorridoSueldoMayorA() {
+        int cuenta = 0;
+        for (Empleado e : registro.obtenerEmpleados()) {
+            if (e.getSueldo() > umbral) {
+                cuenta++;
+            }
+        }
+        return cuenta;
+    }
+
+    @Benchmark
+    public int indiceSueldoMayorA() {
+        return indices.obtenerEmpleadosConSueldoMayorA(umbral).size();
+    }
+
+    @Benchmark
+    public double estadisticasMediana() {
+        return registro.calcularEstadisticas().getMediana();
+    }
+
+    @Benchmark
+    public double indiceMediana() {
+        return indices.calcularMedianaSueldos();
+    }
+
+    @Benchmark
+    public double ordenarPercentil99() {
+        List<Empleado> lista = registro.obtenerEmpleados();
+        double[] sueldos = new double[lista.size()];
+        for (int i = 0; i < sueldos.length; i++) {
+            sueldos[i] = lista.get(i).getSueldo();
+        }
+        Arrays.sort(sueldos);
+        return sueldos[Math.max(0, (int) Math.ceil(0.99 * sueldos.length) - 1)];
+    }
+
+    @Benchmark
+    public double indicePercentil99() {
+        return indices.calcularPercentilSueldo(99);
+    }
+
+    @Benchmark
+    public Empleado ordenarMejorPagados() {
+        List<Empleado> lista = registro.obtenerEmpleados();
+        lista.sort(Comparator.comparingDouble(Empleado::getSueldo).reversed());
+        return lista.get(9);
+    }
+
+    @Benchmark
+    public List<Empleado> indiceMejorPagados() {
+        return indices.obtenerMejorPagados(10);
+    }
+
+    @Benchmark
+    public void cambiarSueldoIndexado() {
+        indexados[aleatorio.nextInt(indexados.length)].setSueldo(900 + aleatorio.nextInt(5000));
+    }
+}
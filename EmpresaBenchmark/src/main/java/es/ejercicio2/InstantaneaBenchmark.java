@@ -0,0 +1,130 @@
+package es.ejercicio2;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark del arranque a partir de una instantánea binaria, comparado con
+ * la importación del mismo contenido en CSV. Cada llamada carga un registro
+ * nuevo y consulta unos pocos empleados, como haría un servicio recién
+ * arrancado; la carga completa mide además el coste de materializarlos todos.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class InstantaneaBenchmark {
+
+    /** Número de empleados */
+    @Param({"1000", "100000", "1000000"})
+    public int tamano;
+
+    /** Número de empleados consultados tras cada carga */
+    private static final int CONSULTAS = 100;
+
+    /** Instantánea de la plantilla */
+    private Path instantanea;
+
+    /** La misma plantilla en CSV */
+    private Path csv;
+
+    /** Números de empleado que se consultan */
+    private int[] numeros;
+
+    /**
+     * Crea la plantilla y escribe los dos ficheros.
+     *
+     * @throws IOException si falla la escritura de los ficheros
+     */
+    @Setup
+    public void preparar() throws IOException {
+        Random aleatorio = new Random(42);
+        Empleado[] array = new Empleado[tamano];
+        for (int i = 0; i < tamano; i++) {
+            Empleado e = (i % 10 == 0)
+                    ? new Jefe("Jefe" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1 + i % 12, 2000), 2000 + aleatorio.nextInt(3000), "dep" + (i % 20))
+                    : new Empleado("Empleado" + i, Persona.Sexo.FEMENINO, Fecha.de(1, 1 + i % 12, 2010), (90000 + aleatorio.nextInt(200000)) / 100.0);
+            e.setIrpf(0.15);
+            e.setCargo("Cargo" + (i % 50));
+            e.setDni(String.valueOf(10000000 + i));
+            array[i] = e;
+        }
+        List<Empleado> empleados = Arrays.asList(array);
+        instantanea = Files.createTempFile("empresa", ".bin");
+        csv = Files.createTempFile("empresa", ".csv");
+        Instantanea.escribir(empleados, instantanea);
+        CodecCSV.exportar(empleados, csv);
+        numeros = new int[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            numeros[i] = array[aleatorio.nextInt(tamano)].getNumEmpleado();
+        }
+    }
+
+    /**
+     * Borra los ficheros temporales.
+     *
+     * @throws IOException si falla el borrado
+     */
+    @TearDown
+    public void limpiar() throws IOException {
+        Files.deleteIfExists(instantanea);
+        Files.deleteIfExists(csv);
+    }
+
+    /**
+     * Consulta los empleados elegidos en el registro recién cargado.
+     *
+     * @param registro Registro cargado
+     * @return Suma de los sueldos consultados
+     */
+    private double consultar(Registro registro) {
+        double total = 0.0;
+        for (int num : numeros) {
+            total += registro.obtenerEmpleado(num).getSueldo();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double arrancarCSV() throws IOException {
+        Registro registro = new Registro();
+        CodecCSV.importar(csv, registro);
+        return consultar(registro);
+    }
+
+    @Benchmark
+    public double arrancarInstantanea() throws IOException {
+        Registro registro = new Registro();
+        registro.cargarInstantanea(Instantanea.abrir(instantanea));
+        return consultar(registro);
+    }
+
+    @Benchmark
+    public int cargarInstantaneaCompleta() throws IOException {
+        Registro registro = new Registro();
+        registro.cargarInstantanea(Instantanea.abrir(instantanea));
+        return registro.obtenerEmpleados().size();
+    }
+}
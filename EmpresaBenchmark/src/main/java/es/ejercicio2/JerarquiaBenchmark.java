@@ -0,0 +1,107 @@
+package es.ejercicio2;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de la jerarquía de jefes: presupuesto mantenido de forma
+ * incremental frente a recorrer todos los empleados, y coste que añade la
+ * jerarquía a cada cambio de sueldo. El organigrama tiene tres niveles: un
+ * director, cien jefes de departamento y el resto de empleados repartidos
+ * entre ellos.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class JerarquiaBenchmark {
+
+    /** Número de empleados sin contar a los jefes */
+    @Param({"100000", "1000000"})
+    public int tamano;
+
+    /** Director del organigrama */
+    private Jefe director;
+
+    /** Jefe de departamento cuyo presupuesto se consulta */
+    private Jefe jefe;
+
+    /** Empleados del organigrama */
+    private Empleado[] empleados;
+
+    /** Empleados iguales pero sin jefe */
+    private Empleado[] sueltos;
+
+    /** Generador para los cambios de sueldo */
+    private final Random aleatorio = new Random(7);
+
+    /**
+     * Crea el organigrama.
+     */
+    @Setup
+    public void preparar() {
+        Random datos = new Random(42);
+        director = new Jefe("Director", Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1, 2000), 9000, "direccion");
+        Jefe[] jefes = new Jefe[100];
+        for (int i = 0; i < jefes.length; i++) {
+            jefes[i] = new Jefe("Jefe" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1, 2000), 4000, "dep" + i);
+            director.agregarSubordinado(jefes[i]);
+        }
+        jefe = jefes[50];
+        empleados = new Empleado[tamano];
+        sueltos = new Empleado[tamano];
+        for (int i = 0; i < tamano; i++) {
+            double sueldo = 900 + datos.nextInt(2000);
+            empleados[i] = new Empleado("Empleado" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1, 2010), sueldo);
+            sueltos[i] = new Empleado("Suelto" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1, 2010), sueldo);
+            jefes[datos.nextInt(jefes.length)].agregarSubordinado(empleados[i]);
+        }
+    }
+
+    @Benchmark
+    public double presupuestoIncremental() {
+        return jefe.calcularPresupuestoDepartamento();
+    }
+
+    @Benchmark
+    public double presupuestoRecorrido() {
+        double total = 0.0;
+        for (Empleado e : empleados) {
+            if (e.getSuperior() == jefe) {
+                total += e.getSueldo();
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double estructuraIncremental() {
+        return director.calcularPresupuestoEstructura();
+    }
+
+    @Benchmark
+    public void cambiarSueldoConJerarquia() {
+        empleados[aleatorio.nextInt(tamano)].setSueldo(900 + aleatorio.nextInt(2000));
+    }
+
+    @Benchmark
+    public void cambiarSueldoSinJerarquia() {
+        sueltos[aleatorio.nextInt(tamano)].setSueldo(900 + aleatorio.nextInt(2000));
+    }
+}
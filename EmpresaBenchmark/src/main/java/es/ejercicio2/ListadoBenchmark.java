@@ -0,0 +1,100 @@
+package es.ejercicio2;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark del volcado de un listado completo de la plantilla: un
+ * {@code toString()} por empleado escrito en un Writer con buffer, frente a
+ * {@link EscritorListado}, que reutiliza un único buffer. El destino descarta
+ * los caracteres para medir solo la generación del texto. Conviene
+ * ejecutarlo con {@code -prof gc} para comparar la basura generada.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ListadoBenchmark {
+
+    /** Número de empleados */
+    @Param({"1000", "100000", "1000000"})
+    public int tamano;
+
+    /** Empleados de la plantilla */
+    private Empleado[] empleados;
+
+    /**
+     * Writer que descarta todo lo que recibe.
+     */
+    private static final class Descartar extends Writer {
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Crea la plantilla.
+     */
+    @Setup
+    public void preparar() {
+        Random aleatorio = new Random(42);
+        empleados = new Empleado[tamano];
+        for (int i = 0; i < tamano; i++) {
+            Empleado e = (i % 10 == 0)
+                    ? new Jefe("Jefe" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1 + i % 12, 2000), 2000 + aleatorio.nextInt(3000), "dep" + (i % 20))
+                    : new Empleado("Empleado" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1 + i % 12, 2010), 900 + aleatorio.nextInt(2000));
+            e.setIrpf(0.15);
+            e.setCargo("Cargo" + (i % 50));
+            empleados[i] = e;
+        }
+    }
+
+    @Benchmark
+    public void listadoToString() throws IOException {
+        try (Writer w = new BufferedWriter(new Descartar(), EscritorListado.TAMANO_BUFFER_POR_DEFECTO)) {
+            for (Empleado e : empleados) {
+                w.write(e.toString());
+                w.write('\n');
+            }
+        }
+    }
+
+    @Benchmark
+    public void listadoEscritor() throws IOException {
+        try (EscritorListado escritor = new EscritorListado(new Descartar())) {
+            escritor.escribir(empleados);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package es.ejercicio2;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de búsquedas por número de empleado: {@code HashMap<Integer, V>}
+ * frente a {@link MapaEnteros} y {@link MapaContadores}. Las claves siguen la
+ * numeración real (consecutivas desde 100000000) y se consultan en orden
+ * aleatorio, la mitad existentes y la mitad no.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MapaEnterosBenchmark {
+
+    /** Número de búsquedas por invocación */
+    private static final int BUSQUEDAS = 1024;
+
+    /** Número de entradas de las tablas */
+    @Param({"10000", "1000000", "10000000"})
+    public int tamano;
+
+    /** Mapa estándar con claves Integer */
+    private Map<Integer, Object> hashMap;
+
+    /** Mapa estándar de contadores con claves y valores Integer */
+    private Map<Integer, Integer> hashMapContadores;
+
+    /** Mapa de claves primitivas */
+    private MapaEnteros<Object> mapaEnteros;
+
+    /** Mapa de contadores primitivos */
+    private MapaContadores mapaContadores;
+
+    /** Claves a consultar */
+    private int[] consultas;
+
+    /**
+     * Rellena los mapas con las mismas claves y valores.
+     */
+    @Setup
+    public void preparar() {
+        Object valor = new Object();
+        hashMap = new HashMap<>();
+        hashMapContadores = new HashMap<>();
+        mapaEnteros = new MapaEnteros<>();
+        mapaContadores = new MapaContadores();
+        for (int i = 0; i < tamano; i++) {
+            int clave = GeneradorCodigos.CODIGO_INICIAL_EMPLEADO + i;
+            hashMap.put(clave, valor);
+            hashMapContadores.put(clave, i & 7);
+            mapaEnteros.insertar(clave, valor);
+            mapaContadores.incrementar(clave, i & 7);
+        }
+        Random aleatorio = new Random(42);
+        consultas = new int[BUSQUEDAS];
+        for (int i = 0; i < BUSQUEDAS; i++) {
+            consultas[i] = GeneradorCodigos.CODIGO_INICIAL_EMPLEADO + aleatorio.nextInt(tamano * 2);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BUSQUEDAS)
+    public int hashMapObtener() {
+        int encontrados = 0;
+        for (int clave : consultas) {
+            if (hashMap.get(clave) != null) encontrados++;
+        }
+        return encontrados;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BUSQUEDAS)
+    public int mapaEnterosObtener() {
+        int encontrados = 0;
+        for (int clave : consultas) {
+            if (mapaEnteros.obtener(clave) != null) encontrados++;
+        }
+        return encontrados;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BUSQUEDAS)
+    public int hashMapContadoresIncrementar() {
+        int total = 0;
+        for (int clave : consultas) {
+            Integer anterior = hashMapContadores.get(clave);
+            int nuevo = anterior == null ? 1 : anterior + 1;
+            hashMapContadores.put(clave, nuevo);
+            total += nuevo;
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BUSQUEDAS)
+    public int mapaContadoresIncrementar() {
+        int total = 0;
+        for (int clave : consultas) {
+            total += mapaContadores.incrementar(clave, 1);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,87 @@
+package es.ejercicio2;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark del coste de las {@link Metricas} en las operaciones más
+ * frecuentes: consulta de un empleado y subida de sueldo, sin métricas
+ * ("sin"), con métricas desactivadas ("desactivadas") y recogiéndolas
+ * ("activas"). Con métricas desactivadas el coste debe ser el de leer un
+ * campo volatile.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class MetricasBenchmark {
+
+    /** Número de empleados */
+    @Param({"100000"})
+    public int tamano;
+
+    /** Estado de las métricas */
+    @Param({"sin", "desactivadas", "activas"})
+    public String modo;
+
+    /** Registro medido */
+    private Registro registro;
+
+    /** Números de los empleados registrados */
+    private int[] numeros;
+
+    /** Empleados registrados */
+    private Empleado[] empleados;
+
+    /** Jefe que sube los sueldos */
+    private Jefe jefe;
+
+    /**
+     * Crea el registro y le pone las métricas según el modo.
+     */
+    @Setup
+    public void preparar() {
+        registro = new Registro();
+        numeros = new int[tamano];
+        empleados = new Empleado[tamano];
+        for (int i = 0; i < tamano; i++) {
+            Empleado e = new Empleado("Empleado" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1, 2010), 1000);
+            registro.registrarEmpleado(e);
+            numeros[i] = e.getNumEmpleado();
+            empleados[i] = e;
+        }
+        jefe = new Jefe("Jefe", Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1, 2000), 3000, "dep");
+        registro.registrarEmpleado(jefe);
+        if (!"sin".equals(modo)) {
+            Metricas metricas = new Metricas();
+            metricas.setActivas("activas".equals(modo));
+            registro.setMetricas(metricas);
+        }
+    }
+
+    @Benchmark
+    public Empleado obtenerEmpleado() {
+        return registro.obtenerEmpleado(numeros[ThreadLocalRandom.current().nextInt(tamano)]);
+    }
+
+    @Benchmark
+    public boolean subirSueldo() {
+        return jefe.subirSueldo(empleados[ThreadLocalRandom.current().nextInt(tamano)], 0.01);
+    }
+}
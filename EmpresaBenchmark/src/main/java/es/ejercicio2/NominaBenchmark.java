@@ -0,0 +1,117 @@
+package es.ejercicio2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de la liquidación de nóminas de toda la plantilla: recorrido de
+ * los objetos Empleado ({@link Nomina#calcular(Empleado[])}) frente al
+ * cálculo por lotes sobre arrays primitivos, con y sin guardar el neto de
+ * cada fila, y sobre las columnas de {@link PlantillaColumnar}. El array de
+ * empleados se baraja para que el orden de recorrido no coincida con el
+ * orden de creación en el heap.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class NominaBenchmark {
+
+    /** Número de empleados */
+    @Param({"10000", "1000000"})
+    public int tamano;
+
+    /** Empleados en orden barajado */
+    private Empleado[] empleados;
+
+    /** Sueldos brutos en céntimos */
+    private long[] brutos;
+
+    /** IRPF en puntos básicos */
+    private int[] irpf;
+
+    /** Descuento por tipo en puntos básicos */
+    private int[] descuentos;
+
+    /** Netos calculados por el lote */
+    private long[] netos;
+
+    /** Los mismos empleados en columnas */
+    private PlantillaColumnar columnar;
+
+    /**
+     * Crea la plantilla y sus copias en arrays y en columnas.
+     */
+    @Setup
+    public void preparar() {
+        Random aleatorio = new Random(42);
+        List<Empleado> lista = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            Empleado e = (i % 10 == 0)
+                    ? new Jefe("Jefe" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1 + i % 12, 2000), 2000 + aleatorio.nextInt(300000) / 100.0, "dep" + (i % 20))
+                    : new Empleado("Empleado" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1 + i % 12, 2010), 900 + aleatorio.nextInt(200000) / 100.0);
+            e.setIrpf((1000 + aleatorio.nextInt(3500)) / 10000.0);
+            lista.add(e);
+        }
+        Collections.shuffle(lista, aleatorio);
+        empleados = lista.toArray(new Empleado[0]);
+        brutos = new long[tamano];
+        irpf = new int[tamano];
+        descuentos = new int[tamano];
+        netos = new long[tamano];
+        for (int i = 0; i < tamano; i++) {
+            brutos[i] = empleados[i].getSueldoCentimos();
+            irpf[i] = empleados[i].getIrpfPuntosBasicos();
+            descuentos[i] = ReglasNomina.DESCUENTOS.evaluar(empleados[i]);
+        }
+        columnar = PlantillaColumnar.desde(empleados);
+    }
+
+    @Benchmark
+    public Nomina objetos() {
+        return Nomina.calcular(empleados);
+    }
+
+    @Benchmark
+    public double objetosSueldoNeto() {
+        double total = 0.0;
+        for (Empleado e : empleados) {
+            total += e.calcularSueldoNeto();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Nomina lote() {
+        return Nomina.calcular(brutos, irpf, descuentos, null, tamano);
+    }
+
+    @Benchmark
+    public Nomina loteConNetos() {
+        return Nomina.calcular(brutos, irpf, descuentos, netos, tamano);
+    }
+
+    @Benchmark
+    public Nomina columnar() {
+        return columnar.calcularNomina();
+    }
+}
@@ -0,0 +1,160 @@
+package es.ejercicio2;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de las operaciones de la plantilla sobre un {@link Registro} ya
+ * cargado: altas, consultas y bajas, totalización de sueldos (sobre un array
+ * y sobre el registro), descuentos, subidas de sueldo de un jefe y
+ * representación en texto. Las operaciones individuales eligen un empleado al
+ * azar en cada llamada; los recorridos completos miden la plantilla entera.
+ * <p>
+ * Todos los hilos comparten el mismo registro, de modo que al ejecutarlo con
+ * varios hilos ({@code -t}) se mide también la contención entre segmentos.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PlantillaBenchmark {
+
+    /** Sueldo inicial de los empleados normales */
+    private static final double SUELDO_BASE = 1200.0;
+
+    /** Número de empleados de la plantilla */
+    @Param({"1000", "100000", "1000000"})
+    public int tamano;
+
+    /** Empleados de la plantilla, uno de cada diez es jefe */
+    private Empleado[] empleados;
+
+    /** Registro con todos los empleados de la plantilla */
+    private Registro registro;
+
+    /** Jefe que sube los sueldos */
+    private Jefe jefe;
+
+    /**
+     * Empleados propios de cada hilo que no están en el registro, para medir
+     * altas y bajas sin que los hilos se pisen entre sí.
+     */
+    @State(Scope.Thread)
+    public static class Pendientes {
+
+        /** Número de empleados de reserva por hilo (potencia de dos) */
+        private static final int NUM_PENDIENTES = 1024;
+
+        /** Empleados de reserva */
+        private final Empleado[] empleados = new Empleado[NUM_PENDIENTES];
+
+        /** Posición del siguiente empleado a dar de alta */
+        private int siguiente;
+
+        /**
+         * Crea los empleados de reserva.
+         */
+        @Setup(Level.Trial)
+        public void preparar() {
+            Fecha fecha = new Fecha(1, 1, 2015);
+            for (int i = 0; i < NUM_PENDIENTES; i++) {
+                empleados[i] = new Empleado("Pendiente" + i, Persona.Sexo.DESCONOCIDO, fecha, SUELDO_BASE);
+            }
+        }
+
+        /**
+         * Devuelve el siguiente empleado de reserva, de forma circular.
+         */
+        Empleado siguiente() {
+            return empleados[siguiente++ & (NUM_PENDIENTES - 1)];
+        }
+    }
+
+    /**
+     * Crea la plantilla y la registra.
+     */
+    @Setup(Level.Trial)
+    public void preparar() {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        empleados = new Empleado[tamano];
+        registro = new Registro();
+        for (int i = 0; i < tamano; i++) {
+            Empleado e = (i % 10 == 0)
+                    ? new Jefe("Jefe" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1 + i % 12, 2000), 2000 + aleatorio.nextInt(3000), "dep" + (i % 20))
+                    : new Empleado("Empleado" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1 + i % 12, 2010), SUELDO_BASE);
+            e.setCargo("Cargo" + (i % 50));
+            e.setIrpf(0.15);
+            empleados[i] = e;
+            registro.registrarEmpleado(e);
+        }
+        jefe = (Jefe) empleados[0];
+    }
+
+    /**
+     * Elige un empleado de la plantilla al azar.
+     */
+    private Empleado aleatorio() {
+        return empleados[ThreadLocalRandom.current().nextInt(tamano)];
+    }
+
+    @Benchmark
+    public Empleado obtenerEmpleado() {
+        return registro.obtenerEmpleado(aleatorio().getNumEmpleado());
+    }
+
+    @Benchmark
+    public Empleado registrarYEliminar(Pendientes pendientes) {
+        Empleado e = pendientes.siguiente();
+        registro.registrarEmpleado(e);
+        return registro.eliminarEmpleado(e.getNumEmpleado());
+    }
+
+    @Benchmark
+    public double totalizarSueldosArray() {
+        return Plantilla.totalizarSueldos(empleados);
+    }
+
+    @Benchmark
+    public double totalizarSueldosRegistro() {
+        return registro.totalizarSueldos();
+    }
+
+    /**
+     * Restaura el sueldo antes de descontar para que los sueldos no tiendan a
+     * cero durante la medición; el coste de {@code setSueldo} queda incluido.
+     */
+    @Benchmark
+    public void descontarPorcentaje() {
+        Empleado e = aleatorio();
+        e.setSueldo(SUELDO_BASE);
+        registro.descontarPorcentaje(e);
+    }
+
+    @Benchmark
+    public boolean subirSueldo() {
+        return jefe.subirSueldo(aleatorio(), 1.0);
+    }
+
+    @Benchmark
+    public String toStringEmpleado() {
+        return aleatorio().toString();
+    }
+}
@@ -0,0 +1,123 @@
+package es.ejercicio2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de agregados de nómina: recorrido del grafo de objetos
+ * ({@link Plantilla#totalizarSueldos(Empleado[])}) frente al almacén columnar
+ * ({@link PlantillaColumnar}). El array de empleados se baraja para que el
+ * orden de recorrido no coincida con el orden de creación en el heap, como
+ * ocurre en un registro real tras altas y bajas.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PlantillaColumnarBenchmark {
+
+    /** Número de empleados */
+    @Param({"10000", "1000000"})
+    public int tamano;
+
+    /** Empleados en orden barajado */
+    private Empleado[] empleados;
+
+    /** Los mismos empleados en columnas */
+    private PlantillaColumnar columnar;
+
+    /**
+     * Crea la plantilla y su copia columnar.
+     */
+    @Setup
+    public void preparar() {
+        Random aleatorio = new Random(42);
+        List<Empleado> lista = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            Empleado e = (i % 10 == 0)
+                    ? new Jefe("Jefe" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1 + i % 12, 2000), 2000 + aleatorio.nextInt(3000), "dep" + (i % 20))
+                    : new Empleado("Empleado" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1 + i % 12, 2010), 900 + aleatorio.nextInt(2000));
+            e.setIrpf(0.15);
+            lista.add(e);
+        }
+        Collections.shuffle(lista, aleatorio);
+        empleados = lista.toArray(new Empleado[0]);
+        columnar = PlantillaColumnar.desde(empleados);
+    }
+
+    @Benchmark
+    public double objetosTotalizarSueldos() {
+        return Plantilla.totalizarSueldos(empleados);
+    }
+
+    @Benchmark
+    public double columnarTotalizarSueldos() {
+        return columnar.totalizarSueldos();
+    }
+
+    @Benchmark
+    public double objetosTotalIRPF() {
+        double total = 0.0;
+        for (Empleado e : empleados) {
+            total += e.getSueldo() * e.getIrpf();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double columnarTotalIRPF() {
+        return columnar.calcularTotalIRPF();
+    }
+
+    @Benchmark
+    public double objetosSueldoMaximo() {
+        double maximo = 0.0;
+        for (Empleado e : empleados) {
+            maximo = Math.max(maximo, e.getSueldo());
+        }
+        return maximo;
+    }
+
+    @Benchmark
+    public double columnarSueldoMaximo() {
+        return columnar.obtenerSueldoMaximo();
+    }
+
+    @Benchmark
+    public int objetosContratadosEntre() {
+        Fecha desde = Fecha.de(1, 3, 2000);
+        Fecha hasta = Fecha.de(30, 9, 2010);
+        int cuenta = 0;
+        for (Empleado e : empleados) {
+            Fecha f = e.getFechaContratacion();
+            if (f.compareTo(desde) >= 0 && f.compareTo(hasta) <= 0) {
+                cuenta++;
+            }
+        }
+        return cuenta;
+    }
+
+    @Benchmark
+    public int columnarContratadosEntre() {
+        return columnar.contarContratadosEntre(Fecha.de(1, 3, 2000), Fecha.de(30, 9, 2010));
+    }
+}
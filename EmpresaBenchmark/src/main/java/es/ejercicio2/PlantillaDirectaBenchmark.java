@@ -0,0 +1,124 @@
+package es.ejercicio2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark del almacén fuera del heap ({@link PlantillaDirecta}) frente al
+ * registro de objetos: totales recorriendo los bloques de memoria directa y
+ * búsquedas por número de empleado leyendo el sueldo con una vista
+ * reutilizable en lugar de un objeto Empleado.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PlantillaDirectaBenchmark {
+
+    /** Número de empleados */
+    @Param({"10000", "1000000"})
+    public int tamano;
+
+    /** Registro con los empleados como objetos */
+    private Registro registro;
+
+    /** Los mismos empleados fuera del heap */
+    private PlantillaDirecta directa;
+
+    /** Números de empleado en orden barajado */
+    private int[] numeros;
+
+    /**
+     * Crea el registro y su copia fuera del heap.
+     */
+    @Setup
+    public void preparar() {
+        Random aleatorio = new Random(42);
+        List<Empleado> lista = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            Empleado e = (i % 10 == 0)
+                    ? new Jefe("Jefe" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1 + i % 12, 2000), 2000 + aleatorio.nextInt(3000), "dep" + (i % 20))
+                    : new Empleado("Empleado" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1 + i % 12, 2010), 900 + aleatorio.nextInt(2000));
+            e.setIrpf(0.15);
+            lista.add(e);
+        }
+        Collections.shuffle(lista, aleatorio);
+        registro = new Registro();
+        for (Empleado e : lista) {
+            registro.registrarEmpleado(e);
+        }
+        directa = PlantillaDirecta.desde(lista);
+        numeros = new int[tamano];
+        for (int i = 0; i < tamano; i++) {
+            numeros[i] = lista.get(i).getNumEmpleado();
+        }
+    }
+
+    @Benchmark
+    public double registroTotalizarSueldos() {
+        return registro.totalizarSueldos();
+    }
+
+    @Benchmark
+    public double directaTotalizarSueldos() {
+        return directa.totalizarSueldos();
+    }
+
+    @Benchmark
+    public double directaTotalIRPF() {
+        return directa.calcularTotalIRPF();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long registroBuscarSueldo() {
+        return registro.obtenerEmpleado(numeros[ThreadLocalRandom.current().nextInt(tamano)]).getSueldoCentimos();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long directaBuscarSueldo(Hilo hilo) {
+        PlantillaDirecta.Vista vista = hilo.vista;
+        return vista.mover(numeros[ThreadLocalRandom.current().nextInt(tamano)]) ? vista.getSueldoCentimos() : -1;
+    }
+
+    /**
+     * Estado de cada hilo: la vista no se comparte entre hilos.
+     */
+    @State(Scope.Thread)
+    public static class Hilo {
+
+        /** Vista reutilizada en las búsquedas del hilo */
+        private PlantillaDirecta.Vista vista;
+
+        /**
+         * Crea la vista del hilo.
+         *
+         * @param estado Estado del benchmark
+         */
+        @Setup
+        public void preparar(PlantillaDirectaBenchmark estado) {
+            vista = estado.directa.crearVista();
+        }
+    }
+}
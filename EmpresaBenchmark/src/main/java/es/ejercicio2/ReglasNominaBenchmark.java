@@ -0,0 +1,144 @@
+package es.ejercicio2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de la elección del porcentaje de descuento de toda la plantilla:
+ * la rama fija con instanceof que había antes, la tabla compilada por
+ * defecto ({@link ReglasNomina#DESCUENTOS}) y una tabla con reglas por
+ * departamento, antigüedad y tramo de sueldo.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReglasNominaBenchmark {
+
+    /** Número de empleados */
+    @Param({"10000", "1000000"})
+    public int tamano;
+
+    /** Empleados en orden barajado */
+    private Empleado[] empleados;
+
+    /** Tabla con reglas por departamento, antigüedad y sueldo */
+    private ReglasNomina reglasCompuestas;
+
+    /** Fecha con la que se calcula la antigüedad */
+    private Fecha hoy;
+
+    /**
+     * Crea la plantilla, con los empleados repartidos entre los jefes de
+     * varios departamentos, y la tabla de reglas compuestas.
+     */
+    @Setup
+    public void preparar() {
+        Random aleatorio = new Random(42);
+        List<Empleado> lista = new ArrayList<>(tamano);
+        List<Jefe> jefes = new ArrayList<>();
+        for (int i = 0; i < tamano; i++) {
+            Fecha contratacion = Fecha.de(1, 1 + i % 12, 1995 + aleatorio.nextInt(30));
+            if (i % 10 == 0) {
+                Jefe j = new Jefe("Jefe" + i, Persona.Sexo.DESCONOCIDO, contratacion,
+                        2000 + aleatorio.nextInt(3000), "dep" + (i % 20));
+                jefes.add(j);
+                lista.add(j);
+            } else {
+                Empleado e = new Empleado("Empleado" + i, Persona.Sexo.DESCONOCIDO, contratacion,
+                        900 + aleatorio.nextInt(2000));
+                jefes.get(jefes.size() - 1).agregarSubordinado(e);
+                lista.add(e);
+            }
+        }
+        Collections.shuffle(lista, aleatorio);
+        empleados = lista.toArray(new Empleado[0]);
+        hoy = Fecha.de(1, 1, 2025);
+        reglasCompuestas = ReglasNomina.compilar(Arrays.asList(
+                new ReglaNomina(300).paraTipo(ReglaNomina.Tipo.JEFE).conDepartamento("dep0"),
+                new ReglaNomina(500).paraTipo(ReglaNomina.Tipo.JEFE),
+                new ReglaNomina(600).conDepartamento("dep3").conAntiguedadEntre(20, 99),
+                new ReglaNomina(800).conAntiguedadEntre(10, 99).conSueldoEntre(0, 1500),
+                new ReglaNomina(1200).conSueldoEntre(2500, 1e9)), 1000);
+    }
+
+    /**
+     * Las mismas reglas que la tabla compuesta, escritas a mano como una
+     * cadena de condiciones.
+     *
+     * @param e Empleado
+     * @return Descuento en puntos básicos
+     */
+    private int descuentoCompuesto(Empleado e) {
+        long sueldo = e.getSueldoCentimos();
+        if (e instanceof Jefe) {
+            return "dep0".equals(((Jefe) e).getDepartamento()) ? 300 : 500;
+        }
+        int antiguedad = e.calcularAntiguedad(hoy);
+        Jefe superior = e.getSuperior();
+        if (antiguedad >= 20 && antiguedad <= 99 && superior != null && "dep3".equals(superior.getDepartamento())) {
+            return 600;
+        }
+        if (antiguedad >= 10 && antiguedad <= 99 && sueldo <= 150000) {
+            return 800;
+        }
+        return (sueldo >= 250000) ? 1200 : 1000;
+    }
+
+    @Benchmark
+    public long ramaFija() {
+        long total = 0;
+        for (Empleado e : empleados) {
+            total += (e instanceof Jefe) ? 500 : 1000;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long tablaPorDefecto() {
+        ReglasNomina reglas = ReglasNomina.DESCUENTOS;
+        long total = 0;
+        for (Empleado e : empleados) {
+            total += reglas.evaluar(e);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long ramaCompuestaFija() {
+        long total = 0;
+        for (Empleado e : empleados) {
+            total += descuentoCompuesto(e);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long tablaCompuesta() {
+        long total = 0;
+        for (Empleado e : empleados) {
+            total += reglasCompuestas.evaluar(e, hoy);
+        }
+        return total;
+    }
+}
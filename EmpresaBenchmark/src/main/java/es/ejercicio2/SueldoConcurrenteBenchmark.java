@@ -0,0 +1,118 @@
+package es.ejercicio2;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de subidas de sueldo con contención: todos los hilos suben el
+ * sueldo de unos pocos empleados. Compara la subida atómica con
+ * compareAndSet, el bucle optimista hecho por el llamante, la lectura y
+ * escritura por separado (rápida, pero pierde subidas) y una subida
+ * protegida con un cerrojo global. Con organigrama "jefes" los empleados
+ * dependen de un jefe que a su vez depende de un director, así que cada
+ * subida actualiza también sus presupuestos. El número de hilos se elige
+ * con la opción -t de JMH o con {@link EjecutarBenchmarks}.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SueldoConcurrenteBenchmark {
+
+    /** Número de empleados sobre los que compiten los hilos */
+    @Param({"1", "16"})
+    public int calientes;
+
+    /** Organigrama de los empleados: "plano" (sin jefes) o "jefes" */
+    @Param({"plano", "jefes"})
+    public String organigrama;
+
+    /** Empleados registrados */
+    private Empleado[] empleados;
+
+    /** Jefe que hace las subidas */
+    private Jefe jefe;
+
+    /** Cerrojo global de la variante con cerrojo */
+    private final Object cerrojo = new Object();
+
+    /**
+     * Crea los empleados y los da de alta en un registro.
+     */
+    @Setup
+    public void preparar() {
+        Registro registro = new Registro();
+        jefe = new Jefe("Jefe", Persona.Sexo.DESCONOCIDO, null, 3000, "dep");
+        empleados = new Empleado[calientes];
+        for (int i = 0; i < calientes; i++) {
+            empleados[i] = new Empleado("Empleado" + i, Persona.Sexo.DESCONOCIDO, null, 1000);
+            registro.registrarEmpleado(empleados[i]);
+        }
+        if ("jefes".equals(organigrama)) {
+            Jefe director = new Jefe("Director", Persona.Sexo.DESCONOCIDO, null, 5000, "dir");
+            director.agregarSubordinado(jefe);
+            for (Empleado e : empleados) {
+                jefe.agregarSubordinado(e);
+            }
+        }
+    }
+
+    /**
+     * Elige un empleado al azar.
+     *
+     * @return Empleado
+     */
+    private Empleado elegir() {
+        return empleados[ThreadLocalRandom.current().nextInt(calientes)];
+    }
+
+    @Benchmark
+    public double incrementarSueldo() {
+        return elegir().incrementarSueldo(1.0);
+    }
+
+    @Benchmark
+    public boolean subirSueldoJefe() {
+        return jefe.subirSueldo(elegir(), 1.0);
+    }
+
+    @Benchmark
+    public double comparacionOptimista() {
+        Empleado e = elegir();
+        double leido = e.getSueldo();
+        while (!e.compararYAsignarSueldo(leido, leido + 1.0)) {
+            leido = e.getSueldo();
+        }
+        return leido;
+    }
+
+    @Benchmark
+    public void leerYAsignar() {
+        Empleado e = elegir();
+        e.setSueldo(e.getSueldo() + 1.0);
+    }
+
+    @Benchmark
+    public void cerrojoGlobal() {
+        Empleado e = elegir();
+        synchronized (cerrojo) {
+            e.setSueldo(e.getSueldo() + 1.0);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package es.ejercicio2;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de los {@link TotalesRegistro}: consulta del total de sueldos
+ * mantenido con cada cambio frente al recorrido completo del registro (el de
+ * {@link Registro#conciliarTotales()}, que es lo que costaba antes
+ * totalizarSueldos), y coste añadido a un cambio de sueldo.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TotalesRegistroBenchmark {
+
+    /** Número de empleados */
+    @Param({"10000", "1000000"})
+    public int tamano;
+
+    /** Registro medido */
+    private Registro registro;
+
+    /** Empleados registrados */
+    private Empleado[] empleados;
+
+    /**
+     * Crea el registro con empleados y jefes de varios departamentos.
+     */
+    @Setup
+    public void preparar() {
+        String[] departamentos = {"Ventas", "Compras", "Sistemas", "Personal"};
+        registro = new Registro();
+        empleados = new Empleado[tamano];
+        for (int i = 0; i < tamano; i++) {
+            Empleado e = (i % 10 == 0)
+                    ? new Jefe("Jefe" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1, 2000), 3000,
+                            departamentos[i % departamentos.length])
+                    : new Empleado("Empleado" + i, Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1, 2010), 1000 + i % 1000);
+            registro.registrarEmpleado(e);
+            empleados[i] = e;
+        }
+    }
+
+    @Benchmark
+    public double totalMantenido() {
+        return registro.totalizarSueldos();
+    }
+
+    @Benchmark
+    public boolean recorridoCompleto() {
+        return registro.conciliarTotales();
+    }
+
+    @Benchmark
+    public long incrementarSueldo() {
+        return empleados[ThreadLocalRandom.current().nextInt(tamano)].incrementarSueldoCentimos(1);
+    }
+}
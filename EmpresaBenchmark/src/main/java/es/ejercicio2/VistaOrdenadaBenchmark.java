@@ -0,0 +1,119 @@
+package es.ejercicio2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark de ordenación de empleados por sueldo, antigüedad y nombre:
+ * {@link VistaOrdenada} (claves primitivas y ordenación por base sobre una
+ * permutación) frente a Arrays.sort con un Comparator sobre una copia del
+ * array. La copia forma parte de la medida de Arrays.sort porque ordena el
+ * array en su sitio, mientras que la vista deja el original como está.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class VistaOrdenadaBenchmark {
+
+    /** Orden por sueldo */
+    private static final Comparator<Empleado> POR_SUELDO = Comparator.comparingLong(Empleado::getSueldoCentimos);
+
+    /** Orden por antigüedad (sin fecha al final) */
+    private static final Comparator<Empleado> POR_ANTIGUEDAD = Comparator.comparing(
+            Empleado::getFechaContratacion, Comparator.nullsLast(Comparator.<Fecha>reverseOrder()));
+
+    /** Orden por nombre (sin nombre al principio) */
+    private static final Comparator<Empleado> POR_NOMBRE = Comparator.comparing(
+            Empleado::getNombre, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+
+    /** Número de empleados */
+    @Param({"10000", "1000000"})
+    public int tamano;
+
+    /** Empleados en orden barajado */
+    private Empleado[] empleados;
+
+    /**
+     * Crea la plantilla con sueldos, fechas y nombres aleatorios.
+     */
+    @Setup
+    public void preparar() {
+        Random aleatorio = new Random(42);
+        String[] nombres = {"Ana", "Antonio", "Carmen", "José", "Lucía", "Manuel", "María", "Pablo"};
+        String[] apellidos = {"García", "González", "López", "Martínez", "Rodríguez", "Sánchez"};
+        List<Empleado> lista = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            String nombre = nombres[aleatorio.nextInt(nombres.length)] + " "
+                    + apellidos[aleatorio.nextInt(apellidos.length)] + " " + aleatorio.nextInt(100000);
+            lista.add(new Empleado(nombre, Persona.Sexo.DESCONOCIDO,
+                    Fecha.deDiaEpoch(10000 + aleatorio.nextInt(10000)), 900 + aleatorio.nextInt(400000) / 100.0));
+        }
+        Collections.shuffle(lista, aleatorio);
+        empleados = lista.toArray(new Empleado[0]);
+    }
+
+    @Benchmark
+    public Empleado[] comparadorPorSueldo() {
+        Empleado[] copia = empleados.clone();
+        Arrays.sort(copia, POR_SUELDO);
+        return copia;
+    }
+
+    @Benchmark
+    public List<Empleado> vistaPorSueldo() {
+        return VistaOrdenada.porSueldo(empleados);
+    }
+
+    @Benchmark
+    public Empleado[] comparadorPorAntiguedad() {
+        Empleado[] copia = empleados.clone();
+        Arrays.sort(copia, POR_ANTIGUEDAD);
+        return copia;
+    }
+
+    @Benchmark
+    public List<Empleado> vistaPorAntiguedad() {
+        return VistaOrdenada.porAntiguedad(empleados);
+    }
+
+    @Benchmark
+    public Empleado[] comparadorPorNombre() {
+        Empleado[] copia = empleados.clone();
+        Arrays.sort(copia, POR_NOMBRE);
+        return copia;
+    }
+
+    @Benchmark
+    public List<Empleado> vistaPorNombre() {
+        return VistaOrdenada.porNombre(empleados);
+    }
+
+    @Benchmark
+    public Empleado[] comparadorParaleloPorSueldo() {
+        Empleado[] copia = empleados.clone();
+        Arrays.parallelSort(copia, POR_SUELDO);
+        return copia;
+    }
+}
@@ -0,0 +1,655 @@
+package es.ejercicio2;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Clase Auditoria que guarda en ficheros rotativos un evento por cada
+ * descuento y cada subida de sueldo: fecha y hora, número del empleado que
+ * hace la operación (0 si la hace el sistema), número del empleado afectado,
+ * sueldo anterior y nuevo en céntimos y tipo de operación. Se activa con
+ * {@link Registro#setAuditoria(Auditoria)}.
+ * <p>
+ * Registrar un evento no espera al disco ni crea ningún objeto: el evento se
+ * copia en una posición de un buffer circular de capacidad fija, repartido
+ * en arrays primitivos paralelos. Cada hilo productor reserva su posición
+ * con un compareAndSet sobre el contador de eventos y la publica
+ * escribiendo su número de secuencia, sin ningún cerrojo. Un hilo escritor
+ * recoge los eventos publicados en orden, los escribe por lotes y libera sus
+ * posiciones.
+ * </p>
+ * <p>
+ * Si el buffer se llena, la {@link PoliticaSaturacion} decide si el
+ * productor espera a que el escritor libere sitio o si el evento se
+ * descarta (y se cuenta en {@link #getEventosDescartados()}).
+ * </p>
+ * <p>
+ * Formato de cada fichero (little-endian): cabecera de
+ * {@value #TAMANO_CABECERA} bytes con la marca "EMPA" y la versión, seguida
+ * de eventos de {@value #TAMANO_EVENTO} bytes con un CRC32 al final. Cuando
+ * el fichero llega al tamaño máximo se renombra a fichero.1 (y el .1 a .2,
+ * etc.), se borra el más antiguo y se empieza uno nuevo.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public final class Auditoria implements Closeable, Flushable {
+
+    /**
+     * Tipos de operación auditados.
+     */
+    public enum Operacion {
+        /** Descuento porcentual del registro */
+        DESCUENTO,
+        /** Subida de sueldo hecha por un Jefe */
+        SUBIDA
+    }
+
+    /**
+     * Qué hacer con un evento cuando el buffer está lleno.
+     */
+    public enum PoliticaSaturacion {
+        /** El productor espera a que el escritor libere sitio (no se pierde ningún evento) */
+        BLOQUEAR,
+        /** El evento se descarta y se cuenta (la operación auditada nunca espera) */
+        DESCARTAR
+    }
+
+    /** Versión del formato que escribe y lee esta clase */
+    public static final int VERSION = 1;
+
+    /** Número de empleado que se usa como actor de las operaciones del sistema */
+    public static final int ACTOR_SISTEMA = 0;
+
+    /** Capacidad por defecto del buffer, en eventos */
+    public static final int CAPACIDAD_POR_DEFECTO = 1 << 16;
+
+    /** Tamaño máximo por defecto de cada fichero, en bytes */
+    public static final long TAMANO_MAXIMO_POR_DEFECTO = 64L << 20;
+
+    /** Número por defecto de ficheros rotados que se conservan */
+    public static final int FICHEROS_ROTADOS_POR_DEFECTO = 5;
+
+    /** Marca de los ficheros de auditoría ("EMPA") */
+    private static final int MARCA = 0x454D5041;
+
+    /** Tamaño de la cabecera de cada fichero */
+    static final int TAMANO_CABECERA = 8;
+
+    /** Tamaño de cada evento */
+    static final int TAMANO_EVENTO = 40;
+
+    /** Bytes de cada evento cubiertos por el CRC */
+    private static final int TAMANO_DATOS = TAMANO_EVENTO - 4;
+
+    /** Máximo de eventos que el escritor recoge en cada lote */
+    private static final int TAMANO_LOTE = 4096;
+
+    /** Intervalo entre revisiones del buffer cuando el escritor no tiene trabajo */
+    private static final long ESPERA_ESCRITOR_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /** Pausa de un productor o de {@link #sincronizar()} mientras esperan al escritor */
+    private static final long ESPERA_CORTA_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /** Fichero actual */
+    private final Path fichero;
+
+    /** Política cuando el buffer está lleno */
+    private final PoliticaSaturacion politica;
+
+    /** Tamaño máximo de cada fichero, en bytes */
+    private final long tamanoMaximo;
+
+    /** Número de ficheros rotados que se conservan */
+    private final int numFicherosRotados;
+
+    /** Máscara para pasar de secuencia a posición del buffer */
+    private final int mascara;
+
+    /** Máscara de las secuencias que despiertan al escritor */
+    private final long mascaraAviso;
+
+    /** Fecha y hora de cada posición, en milisegundos desde 1970 */
+    private final long[] tiempo;
+
+    /** Sueldo anterior de cada posición, en céntimos */
+    private final long[] anterior;
+
+    /** Sueldo nuevo de cada posición, en céntimos */
+    private final long[] nuevo;
+
+    /** Actor de cada posición */
+    private final int[] actor;
+
+    /** Empleado afectado de cada posición */
+    private final int[] objetivo;
+
+    /** Operación de cada posición */
+    private final byte[] operacion;
+
+    /** Secuencia del evento publicado en cada posición */
+    private final AtomicLongArray publicado;
+
+    /** Siguiente secuencia que se reservará */
+    private final AtomicLong siguiente = new AtomicLong();
+
+    /** Eventos descartados por tener el buffer lleno */
+    private final AtomicLong descartados = new AtomicLong();
+
+    /** Siguiente secuencia que leerá el escritor; las anteriores ya están libres */
+    private volatile long consumido;
+
+    /** Secuencia hasta la que los eventos están escritos en el fichero */
+    private volatile long escrito;
+
+    /** Secuencia hasta la que los eventos están escritos y forzados al disco */
+    private volatile long durable;
+
+    /** Secuencia hasta la que se ha pedido forzar al disco */
+    private volatile long forzarHasta;
+
+    /** Indica si se ha cerrado la auditoría */
+    private volatile boolean cerrada;
+
+    /** Error del hilo escritor; a partir de él se descartan los eventos */
+    private volatile IOException fallo;
+
+    /** Canal del fichero actual (solo lo usa el escritor) */
+    private FileChannel canal;
+
+    /** Tamaño del fichero actual (solo lo usa el escritor) */
+    private long tamanoFichero;
+
+    /** Hilo que escribe los eventos */
+    private final Thread escritor;
+
+    /**
+     * Constructor privado: usar {@link #abrir(Path)}.
+     *
+     * @param fichero Fichero actual
+     * @param canal Canal ya posicionado al final
+     * @param capacidad Capacidad del buffer (potencia de dos)
+     * @param politica Política cuando el buffer está lleno
+     * @param tamanoMaximo Tamaño máximo de cada fichero
+     * @param numFicherosRotados Número de ficheros rotados que se conservan
+     * @throws IOException si no se puede obtener el tamaño del fichero
+     */
+    private Auditoria(Path fichero, FileChannel canal, int capacidad, PoliticaSaturacion politica,
+            long tamanoMaximo, int numFicherosRotados) throws IOException {
+        this.fichero = fichero;
+        this.canal = canal;
+        this.tamanoFichero = canal.size();
+        this.politica = politica;
+        this.tamanoMaximo = tamanoMaximo;
+        this.numFicherosRotados = numFicherosRotados;
+        this.mascara = capacidad - 1;
+        this.mascaraAviso = Math.max(capacidad / 4, 1) - 1;
+        this.tiempo = new long[capacidad];
+        this.anterior = new long[capacidad];
+        this.nuevo = new long[capacidad];
+        this.actor = new int[capacidad];
+        this.objetivo = new int[capacidad];
+        this.operacion = new byte[capacidad];
+        this.publicado = new AtomicLongArray(capacidad);
+        for (int i = 0; i < capacidad; i++) {
+            publicado.set(i, -1);
+        }
+        this.escritor = new Thread(this::escribirEnBucle, "Auditoria-" + fichero.getFileName());
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    /**
+     * Abre la auditoría con la configuración por defecto. Ver
+     * {@link #abrir(Path, int, PoliticaSaturacion, long, int)}.
+     *
+     * @param fichero Fichero actual de la auditoría
+     * @return Auditoría abierta
+     * @throws IOException si el fichero no se puede abrir o no es de auditoría
+     */
+    public static Auditoria abrir(Path fichero) throws IOException {
+        return abrir(fichero, CAPACIDAD_POR_DEFECTO, PoliticaSaturacion.BLOQUEAR,
+                TAMANO_MAXIMO_POR_DEFECTO, FICHEROS_ROTADOS_POR_DEFECTO);
+    }
+
+    /**
+     * Abre la auditoría para seguir añadiendo eventos al final del fichero.
+     * Si no existe se crea vacío; si termina en un evento a medias, se recorta.
+     *
+     * @param fichero Fichero actual de la auditoría
+     * @param capacidad Capacidad del buffer en eventos (potencia de dos, al menos 2)
+     * @param politica Qué hacer cuando el buffer está lleno (no puede ser null)
+     * @param tamanoMaximo Tamaño máximo de cada fichero en bytes (al menos un evento)
+     * @param numFicherosRotados Número de ficheros rotados que se conservan (debe ser >= 0)
+     * @return Auditoría abierta
+     * @throws IOException si el fichero no se puede abrir o no es de auditoría
+     * @throws IllegalArgumentException si algún parámetro no es válido
+     */
+    public static Auditoria abrir(Path fichero, int capacidad, PoliticaSaturacion politica,
+            long tamanoMaximo, int numFicherosRotados) throws IOException {
+        if (capacidad < 2 || Integer.bitCount(capacidad) != 1) {
+            throw new IllegalArgumentException("La capacidad debe ser una potencia de dos: " + capacidad);
+        }
+        if (politica == null) {
+            throw new IllegalArgumentException("La política no puede ser null");
+        }
+        if (tamanoMaximo < TAMANO_CABECERA + TAMANO_EVENTO) {
+            throw new IllegalArgumentException("Tamaño máximo de fichero demasiado pequeño: " + tamanoMaximo);
+        }
+        if (numFicherosRotados < 0) {
+            throw new IllegalArgumentException("El número de ficheros rotados no puede ser negativo: " + numFicherosRotados);
+        }
+        FileChannel canal = abrirCanal(fichero);
+        try {
+            return new Auditoria(fichero, canal, capacidad, politica, tamanoMaximo, numFicherosRotados);
+        } catch (IOException | RuntimeException ex) {
+            canal.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Registra un evento. No espera al disco; con la política BLOQUEAR
+     * puede esperar a que el escritor libere sitio en el buffer.
+     *
+     * @param op Operación (no puede ser null)
+     * @param numActor Número del empleado que hace la operación, o ACTOR_SISTEMA
+     * @param numObjetivo Número del empleado afectado
+     * @param sueldoAnterior Sueldo antes de la operación, en céntimos
+     * @param sueldoNuevo Sueldo después de la operación, en céntimos
+     * @return true si el evento se ha registrado, false si se ha descartado
+     *         (buffer lleno con DESCARTAR, auditoría cerrada o escritor caído)
+     */
+    public boolean registrar(Operacion op, int numActor, int numObjetivo, long sueldoAnterior, long sueldoNuevo) {
+        long seq;
+        while (true) {
+            if (cerrada || fallo != null) {
+                descartados.incrementAndGet();
+                return false;
+            }
+            seq = siguiente.get();
+            if (seq - consumido > mascara) {
+                if (politica == PoliticaSaturacion.DESCARTAR) {
+                    descartados.incrementAndGet();
+                    return false;
+                }
+                LockSupport.unpark(escritor);
+                LockSupport.parkNanos(this, ESPERA_CORTA_NANOS);
+            } else if (siguiente.compareAndSet(seq, seq + 1)) {
+                break;
+            }
+        }
+        int i = (int) seq & mascara;
+        tiempo[i] = System.currentTimeMillis();
+        anterior[i] = sueldoAnterior;
+        nuevo[i] = sueldoNuevo;
+        actor[i] = numActor;
+        objetivo[i] = numObjetivo;
+        operacion[i] = (byte) op.ordinal();
+        // Escritura ordenada: el escritor ve los campos antes que la secuencia
+        publicado.lazySet(i, seq);
+        if ((seq & mascaraAviso) == 0) {
+            // Cada cuarto de buffer se despierta al escritor para que no se llene
+            LockSupport.unpark(escritor);
+        }
+        return true;
+    }
+
+    /**
+     * Espera a que todos los eventos registrados hasta ahora estén escritos
+     * y forzados al disco.
+     *
+     * @throws IOException si el escritor no ha podido escribir en el fichero
+     * @throws InterruptedIOException si se interrumpe el hilo mientras espera
+     */
+    public void sincronizar() throws IOException {
+        long objetivoSeq = siguiente.get();
+        synchronized (this) {
+            if (forzarHasta < objetivoSeq) {
+                forzarHasta = objetivoSeq;
+            }
+        }
+        while (durable < objetivoSeq && fallo == null && escritor.isAlive()) {
+            LockSupport.unpark(escritor);
+            LockSupport.parkNanos(this, ESPERA_CORTA_NANOS);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrumpido esperando a la auditoría");
+            }
+        }
+        if (fallo != null) {
+            throw new IOException("No se ha podido escribir la auditoría " + fichero, fallo);
+        }
+    }
+
+    /**
+     * Equivale a {@link #sincronizar()}.
+     *
+     * @throws IOException si el escritor no ha podido escribir en el fichero
+     */
+    @Override
+    public void flush() throws IOException {
+        sincronizar();
+    }
+
+    /**
+     * Deja de aceptar eventos, escribe los pendientes, los fuerza al disco y
+     * cierra el fichero. Los eventos registrados a la vez que se cierra
+     * pueden perderse.
+     *
+     * @throws IOException si el escritor no ha podido escribir en el fichero
+     */
+    @Override
+    public void close() throws IOException {
+        cerrada = true;
+        LockSupport.unpark(escritor);
+        boolean interrumpido = false;
+        while (true) {
+            try {
+                escritor.join();
+                break;
+            } catch (InterruptedException ex) {
+                interrumpido = true;
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+        if (fallo != null) {
+            throw new IOException("No se ha podido escribir la auditoría " + fichero, fallo);
+        }
+    }
+
+    /**
+     * Obtiene el número de eventos registrados (no descartados).
+     *
+     * @return Número de eventos registrados
+     */
+    public long getEventosRegistrados() {
+        return siguiente.get();
+    }
+
+    /**
+     * Obtiene el número de eventos ya escritos en el fichero.
+     *
+     * @return Número de eventos escritos
+     */
+    public long getEventosEscritos() {
+        return escrito;
+    }
+
+    /**
+     * Obtiene el número de eventos descartados.
+     *
+     * @return Número de eventos descartados
+     */
+    public long getEventosDescartados() {
+        return descartados.get();
+    }
+
+    /**
+     * Obtiene la política que se aplica cuando el buffer está lleno.
+     *
+     * @return Política de saturación
+     */
+    public PoliticaSaturacion getPolitica() {
+        return politica;
+    }
+
+    /**
+     * Recibe los eventos válidos de un fichero de auditoría al recorrerlo.
+     */
+    public interface Lector {
+
+        /**
+         * Procesa un evento.
+         *
+         * @param tiempo Fecha y hora en milisegundos desde 1970
+         * @param operacion Operación
+         * @param actor Número del empleado que hizo la operación, o ACTOR_SISTEMA
+         * @param objetivo Número del empleado afectado
+         * @param anterior Sueldo anterior, en céntimos
+         * @param nuevo Sueldo nuevo, en céntimos
+         */
+        void evento(long tiempo, Operacion operacion, int actor, int objetivo, long anterior, long nuevo);
+    }
+
+    /**
+     * Recorre los eventos de un fichero de auditoría (el actual o uno
+     * rotado), hasta el final o hasta el primer evento incompleto o dañado.
+     *
+     * @param fichero Fichero a leer
+     * @param lector Receptor de los eventos
+     * @return Número de eventos leídos
+     * @throws IOException si el fichero no se puede leer o no es de auditoría
+     */
+    public static long recorrer(Path fichero, Lector lector) throws IOException {
+        try (FileChannel c = FileChannel.open(fichero, StandardOpenOption.READ)) {
+            leerCabecera(c, fichero);
+            ByteBuffer buffer = ByteBuffer.allocate(TAMANO_LOTE * TAMANO_EVENTO).order(ByteOrder.LITTLE_ENDIAN);
+            CRC32 crc = new CRC32();
+            Operacion[] operaciones = Operacion.values();
+            long leidos = 0;
+            c.position(TAMANO_CABECERA);
+            while (c.read(buffer) > 0 || buffer.position() > 0) {
+                buffer.flip();
+                while (buffer.remaining() >= TAMANO_EVENTO) {
+                    int p = buffer.position();
+                    crc.reset();
+                    crc.update(buffer.array(), p, TAMANO_DATOS);
+                    int op = buffer.get(p + 32);
+                    if (buffer.getInt(p + TAMANO_DATOS) != (int) crc.getValue() || op < 0 || op >= operaciones.length) {
+                        return leidos;
+                    }
+                    lector.evento(buffer.getLong(p), operaciones[op], buffer.getInt(p + 24), buffer.getInt(p + 28),
+                            buffer.getLong(p + 8), buffer.getLong(p + 16));
+                    leidos++;
+                    buffer.position(p + TAMANO_EVENTO);
+                }
+                if (buffer.hasRemaining() && c.position() >= c.size()) {
+                    return leidos;
+                }
+                buffer.compact();
+            }
+            return leidos;
+        }
+    }
+
+    /**
+     * Obtiene el fichero rotado que ocupa una posición.
+     *
+     * @param fichero Fichero actual de la auditoría
+     * @param n Posición (1 el más reciente)
+     * @return Ruta del fichero rotado
+     */
+    public static Path ficheroRotado(Path fichero, int n) {
+        return fichero.resolveSibling(fichero.getFileName() + "." + n);
+    }
+
+    /**
+     * Bucle del hilo escritor: recoge en orden los eventos publicados, los
+     * copia a un lote, libera sus posiciones y escribe el lote. Cuando no hay
+     * eventos duerme un intervalo corto o hasta que un productor lo despierta.
+     */
+    private void escribirEnBucle() {
+        ByteBuffer lote = ByteBuffer.allocate(TAMANO_LOTE * TAMANO_EVENTO).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32 crc = new CRC32();
+        long seq = consumido;
+        try {
+            while (true) {
+                int n = 0;
+                while (n < TAMANO_LOTE) {
+                    int i = (int) seq & mascara;
+                    if (publicado.get(i) != seq) {
+                        break;
+                    }
+                    int p = lote.position();
+                    lote.putLong(tiempo[i]).putLong(anterior[i]).putLong(nuevo[i])
+                        .putInt(actor[i]).putInt(objetivo[i])
+                        .put(operacion[i]).put((byte) 0).putShort((short) 0);
+                    crc.reset();
+                    crc.update(lote.array(), p, TAMANO_DATOS);
+                    lote.putInt((int) crc.getValue());
+                    seq++;
+                    n++;
+                }
+                if (n > 0) {
+                    // Las posiciones ya copiadas quedan libres para los productores
+                    consumido = seq;
+                    lote.flip();
+                    escribirLote(lote);
+                    lote.clear();
+                    escrito = seq;
+                }
+                long pedido = forzarHasta;
+                if (durable < pedido && escrito >= Math.min(pedido, siguiente.get())) {
+                    canal.force(false);
+                    durable = escrito;
+                }
+                if (n == TAMANO_LOTE) {
+                    continue;
+                }
+                if (cerrada) {
+                    if (n > 0 || siguiente.get() != seq) {
+                        // Quedan eventos reservados antes del cierre
+                        Thread.yield();
+                        continue;
+                    }
+                    canal.force(false);
+                    durable = escrito;
+                    return;
+                }
+                if (n == 0) {
+                    LockSupport.parkNanos(this, ESPERA_ESCRITOR_NANOS);
+                }
+            }
+        } catch (IOException ex) {
+            fallo = ex;
+        } finally {
+            try {
+                canal.close();
+            } catch (IOException ex) {
+                if (fallo == null) fallo = ex;
+            }
+        }
+    }
+
+    /**
+     * Escribe un lote de eventos en el fichero actual, rotándolo cuando
+     * llega al tamaño máximo. Solo lo llama el escritor.
+     *
+     * @param lote Eventos a escribir
+     * @throws IOException si falla la escritura o la rotación
+     */
+    private void escribirLote(ByteBuffer lote) throws IOException {
+        while (lote.hasRemaining()) {
+            long cabida = (tamanoMaximo - tamanoFichero) / TAMANO_EVENTO * TAMANO_EVENTO;
+            if (cabida <= 0) {
+                rotar();
+                continue;
+            }
+            int limite = lote.limit();
+            lote.limit((int) Math.min(limite, lote.position() + cabida));
+            while (lote.hasRemaining()) {
+                tamanoFichero += canal.write(lote);
+            }
+            lote.limit(limite);
+        }
+    }
+
+    /**
+     * Cierra el fichero actual, desplaza los rotados una posición (borrando
+     * el más antiguo) y abre un fichero nuevo. Solo lo llama el escritor.
+     *
+     * @throws IOException si falla algún renombrado o la creación del fichero
+     */
+    private void rotar() throws IOException {
+        canal.force(false);
+        durable = escrito;
+        canal.close();
+        if (numFicherosRotados == 0) {
+            Files.delete(fichero);
+        } else {
+            Files.deleteIfExists(ficheroRotado(fichero, numFicherosRotados));
+            for (int n = numFicherosRotados - 1; n >= 1; n--) {
+                Path origen = ficheroRotado(fichero, n);
+                if (Files.exists(origen)) {
+                    Files.move(origen, ficheroRotado(fichero, n + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(fichero, ficheroRotado(fichero, 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        canal = abrirCanal(fichero);
+        tamanoFichero = canal.size();
+    }
+
+    /**
+     * Abre un fichero de auditoría para añadir: lo crea con su cabecera si
+     * está vacío y, si termina en un evento a medias, lo recorta.
+     *
+     * @param fichero Fichero a abrir
+     * @return Canal posicionado al final de los eventos
+     * @throws IOException si el fichero no se puede abrir o no es de auditoría
+     */
+    private static FileChannel abrirCanal(Path fichero) throws IOException {
+        FileChannel c = FileChannel.open(fichero, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (c.size() == 0) {
+                ByteBuffer cabecera = ByteBuffer.allocate(TAMANO_CABECERA).order(ByteOrder.LITTLE_ENDIAN);
+                cabecera.putInt(MARCA).putInt(VERSION).flip();
+                while (cabecera.hasRemaining()) {
+                    c.write(cabecera);
+                }
+            } else {
+                leerCabecera(c, fichero);
+                long eventos = (c.size() - TAMANO_CABECERA) / TAMANO_EVENTO;
+                long fin = TAMANO_CABECERA + eventos * TAMANO_EVENTO;
+                if (fin < c.size()) {
+                    c.truncate(fin);
+                }
+            }
+            c.position(c.size());
+            return c;
+        } catch (IOException | RuntimeException ex) {
+            c.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Comprueba la cabecera de un fichero de auditoría.
+     *
+     * @param c Canal del fichero
+     * @param fichero Ruta del fichero, para los mensajes de error
+     * @throws IOException si la cabecera no es válida
+     */
+    private static void leerCabecera(FileChannel c, Path fichero) throws IOException {
+        ByteBuffer cabecera = ByteBuffer.allocate(TAMANO_CABECERA).order(ByteOrder.LITTLE_ENDIAN);
+        while (cabecera.hasRemaining() && c.read(cabecera, cabecera.position()) > 0) {
+            // Lectura completa de la cabecera
+        }
+        if (cabecera.hasRemaining() || cabecera.getInt(0) != MARCA) {
+            throw new IOException("El fichero " + fichero + " no es de auditoría");
+        }
+        int version = cabecera.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Versión de auditoría no soportada: " + version + " (se esperaba " + VERSION + ")");
+        }
+    }
+}
@@ -0,0 +1,787 @@
+package es.ejercicio2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Clase CodecCSV que exporta e importa empleados y jefes en formato CSV
+ * (RFC 4180, codificado en UTF-8) sobre canales NIO, en memoria constante
+ * aunque el fichero tenga millones de filas.
+ * <p>
+ * Cada fila contiene las columnas de {@link #CABECERA}; la última es el
+ * número de empleado del jefe del que depende (vacía si no depende de
+ * ninguno), para volver a montar el organigrama al importar. Los textos que
+ * contienen comas, comillas o saltos de línea van entre comillas dobles, con
+ * las comillas interiores duplicadas. Un campo vacío sin comillas representa
+ * null y {@code ""} representa la cadena vacía. Las fechas van en formato
+ * yyyy-MM-dd y los decimales con punto, tal como los escribe Java.
+ * </p>
+ * <p>
+ * La lectura no usa {@code String.split} ni crea Strings para los campos
+ * numéricos, las fechas o el sexo: los números y las fechas se interpretan
+ * directamente sobre el buffer de caracteres, y solo se crean Strings para
+ * los campos de texto que guarda el empleado. Los empleados se restauran con
+ * su número de empleado original, que se reserva en {@link GeneradorCodigos}.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public final class CodecCSV {
+
+    /** Línea de cabecera con los nombres de las columnas */
+    public static final String CABECERA = "tipo,numEmpleado,nss,nombre,sexo,dni,fechaNac,"
+            + "fechaContratacion,irpf,cargo,sueldo,departamento,numSubordinados,superior";
+
+    /** Número de columnas de cada fila */
+    private static final int NUM_COLUMNAS = 14;
+
+    /** Tipo de fila de un empleado normal */
+    private static final char TIPO_EMPLEADO = 'E';
+
+    /** Tipo de fila de un jefe */
+    private static final char TIPO_JEFE = 'J';
+
+    /** Posibles valores del sexo, para no recrear el array en cada fila */
+    private static final Persona.Sexo[] SEXOS = Persona.Sexo.values();
+
+    /** Potencias de diez representables exactamente en un double */
+    private static final double[] POTENCIAS_DIEZ = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** Mayor mantisa que un double representa exactamente (2^53) */
+    private static final long MANTISA_EXACTA = 1L << 53;
+
+    /** Tamaño del buffer de lectura, en bytes y en caracteres */
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    /**
+     * Constructor privado: clase de utilidad.
+     */
+    private CodecCSV() {
+    }
+
+    // ------------------------------------------------------------------
+    // Exportación
+    // ------------------------------------------------------------------
+
+    /**
+     * Exporta los empleados de un registro a un fichero, que se crea o se
+     * sobrescribe.
+     *
+     * @param registro Registro a exportar
+     * @param fichero Ruta del fichero CSV
+     * @return Número de filas escritas (sin contar la cabecera)
+     * @throws IOException si falla la escritura
+     */
+    public static int exportar(Registro registro, Path fichero) throws IOException {
+        return exportar(registro.obtenerEmpleados(), fichero);
+    }
+
+    /**
+     * Exporta una colección de empleados a un fichero, que se crea o se
+     * sobrescribe.
+     *
+     * @param empleados Empleados a exportar (se ignoran los null)
+     * @param fichero Ruta del fichero CSV
+     * @return Número de filas escritas (sin contar la cabecera)
+     * @throws IOException si falla la escritura
+     */
+    public static int exportar(Iterable<? extends Empleado> empleados, Path fichero) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            return exportar(empleados, canal);
+        }
+    }
+
+    /**
+     * Exporta una colección de empleados a un canal. El canal no se cierra.
+     *
+     * @param empleados Empleados a exportar (se ignoran los null)
+     * @param canal Canal de destino
+     * @return Número de filas escritas (sin contar la cabecera)
+     * @throws IOException si falla la escritura
+     */
+    public static int exportar(Iterable<? extends Empleado> empleados, WritableByteChannel canal)
+            throws IOException {
+        EscritorListado escritor = new EscritorListado(canal);
+        escritor.buffer().append(CABECERA);
+        escritor.terminarLinea();
+        int filas = 0;
+        for (Empleado e : empleados) {
+            if (e == null) continue;
+            escribirFila(escritor.buffer(), e);
+            escritor.terminarLinea();
+            filas++;
+        }
+        escritor.flush();
+        return filas;
+    }
+
+    /**
+     * Escribe la fila de un empleado, sin el salto de línea final.
+     *
+     * @param sb Destino de la fila
+     * @param e Empleado a escribir
+     */
+    private static void escribirFila(StringBuilder sb, Empleado e) {
+        Jefe jefe = (e instanceof Jefe) ? (Jefe) e : null;
+        sb.append(jefe != null ? TIPO_JEFE : TIPO_EMPLEADO).append(',')
+                .append(e.getNumEmpleado()).append(',');
+        escribirTexto(sb, e.getNss()).append(',');
+        escribirTexto(sb, e.getNombre()).append(',');
+        if (e.getSexo() != null) {
+            sb.append(e.getSexo());
+        }
+        sb.append(',');
+        escribirTexto(sb, e.getDni()).append(',');
+        escribirFecha(sb, e.getFechaNac()).append(',');
+        escribirFecha(sb, e.getFechaContratacion()).append(',')
+                .append(e.getIrpf()).append(',');
+        escribirTexto(sb, e.getCargo()).append(',')
+                .append(e.getSueldo()).append(',');
+        if (jefe != null) {
+            escribirTexto(sb, jefe.getDepartamento()).append(',')
+                    .append(jefe.getNumSubordinados());
+        } else {
+            sb.append(',');
+        }
+        sb.append(',');
+        Jefe superior = e.getSuperior();
+        if (superior != null) {
+            sb.append(superior.getNumEmpleado());
+        }
+    }
+
+    /**
+     * Escribe un campo de texto, entre comillas solo si hace falta.
+     *
+     * @param sb Destino del campo
+     * @param texto Texto a escribir (null se escribe como campo vacío)
+     * @return El mismo StringBuilder
+     */
+    private static StringBuilder escribirTexto(StringBuilder sb, String texto) {
+        if (texto == null) {
+            return sb;
+        }
+        boolean comillas = texto.isEmpty();
+        for (int i = 0, n = texto.length(); i < n && !comillas; i++) {
+            char c = texto.charAt(i);
+            comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!comillas) {
+            return sb.append(texto);
+        }
+        sb.append('"');
+        for (int i = 0, n = texto.length(); i < n; i++) {
+            char c = texto.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        return sb.append('"');
+    }
+
+    /**
+     * Escribe una fecha en formato yyyy-MM-dd (null se escribe como campo vacío).
+     *
+     * @param sb Destino del campo
+     * @param fecha Fecha a escribir
+     * @return El mismo StringBuilder
+     */
+    private static StringBuilder escribirFecha(StringBuilder sb, Fecha fecha) {
+        return (fecha == null) ? sb : fecha.appendTo(sb);
+    }
+
+    // ------------------------------------------------------------------
+    // Importación
+    // ------------------------------------------------------------------
+
+    /**
+     * Importa un fichero CSV y registra cada empleado en el registro a medida
+     * que se lee. Si una fila no es válida se lanza una excepción y los
+     * empleados de las filas anteriores quedan registrados. Al terminar se
+     * vuelve a vincular cada empleado con su jefe, si el jefe está en el
+     * registro; el número de subordinados de cada jefe es el del fichero.
+     *
+     * @param fichero Ruta del fichero CSV
+     * @param registro Registro en el que se dan de alta los empleados
+     * @return Número de empleados importados
+     * @throws IOException si falla la lectura o el fichero no está en UTF-8
+     * @throws IllegalArgumentException si el contenido del fichero no es válido
+     */
+    public static int importar(Path fichero, Registro registro) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ)) {
+            return importar(canal, registro);
+        }
+    }
+
+    /**
+     * Importa empleados en CSV desde un canal, registrándolos a medida que se
+     * leen. El canal no se cierra.
+     *
+     * @param canal Canal de origen
+     * @param registro Registro en el que se dan de alta los empleados
+     * @return Número de empleados importados
+     * @throws IOException si falla la lectura o el contenido no está en UTF-8
+     * @throws IllegalArgumentException si el contenido no es válido
+     */
+    public static int importar(ReadableByteChannel canal, Registro registro) throws IOException {
+        return new Lector(canal).importar(registro);
+    }
+
+    /**
+     * Lector de filas CSV sobre un canal. Decodifica los bytes en un buffer
+     * de caracteres y localiza los campos de cada fila guardando solo sus
+     * posiciones; una fila que queda partida al final del buffer se vuelve a
+     * analizar entera después de rellenarlo.
+     */
+    private static final class Lector {
+
+        /** Resultado de analizar: hay una fila completa */
+        private static final int FILA = 0;
+
+        /** Resultado de analizar: la fila sigue en datos aún no leídos */
+        private static final int FALTAN_DATOS = 1;
+
+        /** Resultado de analizar: no quedan más filas */
+        private static final int FIN = 2;
+
+        /** Canal de origen */
+        private final ReadableByteChannel canal;
+
+        /** Decodificador UTF-8 que rechaza las secuencias no válidas */
+        private final CharsetDecoder decodificador = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+        /** Bytes leídos pendientes de decodificar */
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(TAMANO_BUFFER);
+
+        /** Caracteres decodificados (crece si una fila no cabe) */
+        private char[] caracteres = new char[TAMANO_BUFFER];
+
+        /** Vista de los caracteres para el decodificador */
+        private CharBuffer vista = CharBuffer.wrap(caracteres);
+
+        /** Inicio de la fila actual en el buffer de caracteres */
+        private int inicio;
+
+        /** Fin de los caracteres válidos del buffer */
+        private int limite;
+
+        /** Posición que sigue a la fila analizada */
+        private int siguiente;
+
+        /** Indica que el canal no tiene más bytes */
+        private boolean finBytes;
+
+        /** Indica que no se van a decodificar más caracteres */
+        private boolean finCaracteres;
+
+        /** Inicio de cada campo de la fila actual */
+        private final int[] inicioCampo = new int[NUM_COLUMNAS];
+
+        /** Fin (excluido) de cada campo de la fila actual */
+        private final int[] finCampo = new int[NUM_COLUMNAS];
+
+        /** Indica si cada campo iba entre comillas */
+        private final boolean[] entreComillas = new boolean[NUM_COLUMNAS];
+
+        /** Indica si cada campo contiene comillas duplicadas */
+        private final boolean[] conEscapes = new boolean[NUM_COLUMNAS];
+
+        /** Número de campos de la fila actual */
+        private int numCampos;
+
+        /** Número de la fila actual (la cabecera es la 1, las líneas en blanco cuentan), para los mensajes de error */
+        private int numFila;
+
+        /** Buffer para los textos con comillas duplicadas */
+        private final StringBuilder auxiliar = new StringBuilder();
+
+        /**
+         * Constructor.
+         *
+         * @param canal Canal de origen
+         */
+        Lector(ReadableByteChannel canal) {
+            this.canal = canal;
+            bytes.flip();
+        }
+
+        /**
+         * Lee todas las filas y registra sus empleados.
+         *
+         * @param registro Registro de destino
+         * @return Número de empleados registrados
+         * @throws IOException si falla la lectura
+         */
+        int importar(Registro registro) throws IOException {
+            if (!siguienteFila()) {
+                return 0;
+            }
+            comprobarCabecera();
+            int importados = 0;
+            // Pares (empleado, jefe) que se vinculan cuando ya están todos los jefes
+            int[] vinculos = new int[16];
+            int numVinculos = 0;
+            while (siguienteFila()) {
+                Empleado empleado = crearEmpleado();
+                registro.registrarEmpleado(empleado);
+                importados++;
+                if (finCampo[13] > inicioCampo[13]) {
+                    int superior = entero(13);
+                    if (!GeneradorCodigos.esCodigoJefe(superior)) {
+                        throw error("el superior " + superior + " no es un número de jefe");
+                    }
+                    if (numVinculos == vinculos.length) {
+                        vinculos = Arrays.copyOf(vinculos, numVinculos * 2);
+                    }
+                    vinculos[numVinculos++] = empleado.getNumEmpleado();
+                    vinculos[numVinculos++] = superior;
+                }
+            }
+            for (int i = 0; i < numVinculos; i += 2) {
+                Empleado empleado = registro.obtenerEmpleado(vinculos[i]);
+                Empleado superior = registro.obtenerEmpleado(vinculos[i + 1]);
+                if (superior instanceof Jefe && empleado != null) {
+                    try {
+                        ((Jefe) superior).restaurarSubordinado(empleado);
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Jerarquía no válida en el CSV: " + e.getMessage(), e);
+                    }
+                }
+            }
+            return importados;
+        }
+
+        /**
+         * Avanza hasta la siguiente fila no vacía, leyendo del canal lo que haga falta.
+         *
+         * @return true si hay una fila, false al final del fichero
+         * @throws IOException si falla la lectura
+         */
+        private boolean siguienteFila() throws IOException {
+            while (true) {
+                inicio = siguiente;
+                numFila++;
+                int resultado = analizar();
+                if (resultado == FIN) {
+                    numFila--;
+                    return false;
+                }
+                if (resultado == FALTAN_DATOS) {
+                    numFila--;
+                    rellenar();
+                    siguiente = inicio;
+                    continue;
+                }
+                if (numCampos > 1 || finCampo[0] > inicioCampo[0] || entreComillas[0]) {
+                    return true;
+                }
+                // Línea en blanco: se ignora
+            }
+        }
+
+        /**
+         * Localiza los campos de la fila que empieza en {@code inicio}.
+         *
+         * @return FILA, FALTAN_DATOS o FIN
+         */
+        private int analizar() {
+            char[] c = caracteres;
+            int pos = inicio;
+            if (pos == limite) {
+                return finCaracteres ? FIN : FALTAN_DATOS;
+            }
+            numCampos = 0;
+            while (true) {
+                if (numCampos == NUM_COLUMNAS) {
+                    throw error("hay más de " + NUM_COLUMNAS + " columnas");
+                }
+                int campo = numCampos++;
+                boolean escapes = false;
+                int fin;
+                if (pos < limite && c[pos] == '"') {
+                    int i = pos + 1;
+                    while (true) {
+                        if (i == limite) {
+                            if (!finCaracteres) return FALTAN_DATOS;
+                            throw error("comillas sin cerrar");
+                        }
+                        if (c[i] == '"') {
+                            if (i + 1 == limite && !finCaracteres) return FALTAN_DATOS;
+                            if (i + 1 < limite && c[i + 1] == '"') {
+                                escapes = true;
+                                i += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        i++;
+                    }
+                    inicioCampo[campo] = pos + 1;
+                    finCampo[campo] = i;
+                    entreComillas[campo] = true;
+                    fin = i + 1;
+                } else {
+                    int i = pos;
+                    while (i < limite && c[i] != ',' && c[i] != '\n' && c[i] != '\r') {
+                        i++;
+                    }
+                    inicioCampo[campo] = pos;
+                    finCampo[campo] = i;
+                    entreComillas[campo] = false;
+                    fin = i;
+                }
+                conEscapes[campo] = escapes;
+
+                // Separador tras el campo: coma, fin de línea o fin de datos
+                if (fin == limite) {
+                    if (!finCaracteres) return FALTAN_DATOS;
+                    siguiente = fin;
+                    return FILA;
+                }
+                char separador = c[fin];
+                if (separador == ',') {
+                    pos = fin + 1;
+                    continue;
+                }
+                if (separador == '\n') {
+                    siguiente = fin + 1;
+                    return FILA;
+                }
+                if (separador == '\r') {
+                    if (fin + 1 == limite && !finCaracteres) return FALTAN_DATOS;
+                    siguiente = (fin + 1 < limite && c[fin + 1] == '\n') ? fin + 2 : fin + 1;
+                    return FILA;
+                }
+                throw error("carácter inesperado después de las comillas en la columna " + (campo + 1));
+            }
+        }
+
+        /**
+         * Descarta las filas ya procesadas, mueve al principio del buffer la
+         * fila incompleta y decodifica más caracteres a continuación.
+         *
+         * @throws IOException si falla la lectura o los bytes no son UTF-8
+         */
+        private void rellenar() throws IOException {
+            if (inicio > 0) {
+                System.arraycopy(caracteres, inicio, caracteres, 0, limite - inicio);
+                limite -= inicio;
+                inicio = 0;
+            }
+            // Siempre deben quedar al menos dos huecos para un par sustituto
+            if (caracteres.length - limite < 2) {
+                caracteres = Arrays.copyOf(caracteres, caracteres.length * 2);
+                vista = CharBuffer.wrap(caracteres);
+            }
+            vista.limit(caracteres.length).position(limite);
+            while (vista.position() == limite && !finCaracteres) {
+                CoderResult resultado = decodificador.decode(bytes, vista, finBytes);
+                if (resultado.isError()) {
+                    resultado.throwException();
+                }
+                if (resultado.isOverflow()) {
+                    break;
+                }
+                if (finBytes) {
+                    decodificador.flush(vista);
+                    finCaracteres = true;
+                    break;
+                }
+                bytes.compact();
+                int leidos = canal.read(bytes);
+                bytes.flip();
+                if (leidos < 0) {
+                    finBytes = true;
+                }
+            }
+            limite = vista.position();
+        }
+
+        /**
+         * Comprueba que la primera fila es la cabecera esperada.
+         */
+        private void comprobarCabecera() {
+            int longitud = finCampo[numCampos - 1] - inicioCampo[0];
+            if (numCampos != NUM_COLUMNAS || !coincide(CABECERA, inicioCampo[0], longitud)) {
+                throw error("la cabecera no es \"" + CABECERA + "\"");
+            }
+        }
+
+        /**
+         * Crea el empleado o el jefe de la fila actual.
+         *
+         * @return Empleado restaurado con su número original
+         */
+        private Empleado crearEmpleado() {
+            if (numCampos != NUM_COLUMNAS) {
+                throw error("se esperaban " + NUM_COLUMNAS + " columnas y hay " + numCampos);
+            }
+            if (finCampo[0] - inicioCampo[0] != 1) {
+                throw error("tipo de empleado no válido");
+            }
+            char tipo = caracteres[inicioCampo[0]];
+            int numEmpleado = entero(1);
+            String nss = texto(2);
+            String nombre = texto(3);
+            Persona.Sexo sexo = sexo(4);
+            String dni = texto(5);
+            Fecha fechaNac = fecha(6);
+            Fecha fechaContratacion = fecha(7);
+            double irpf = decimal(8);
+            String cargo = texto(9);
+            double sueldo = decimal(10);
+            boolean esJefe = tipo == TIPO_JEFE;
+            String departamento = esJefe ? texto(11) : null;
+            int numSubordinados = esJefe ? entero(12) : 0;
+            try {
+                if (esJefe) {
+                    return new Jefe(numEmpleado, nss, fechaContratacion, irpf, cargo, nombre, sexo, dni,
+                            fechaNac, sueldo, departamento, numSubordinados);
+                }
+                if (tipo == TIPO_EMPLEADO) {
+                    return new Empleado(numEmpleado, nss, fechaContratacion, irpf, cargo, nombre, sexo, dni,
+                            fechaNac, sueldo);
+                }
+            } catch (IllegalArgumentException e) {
+                throw error(e.getMessage());
+            }
+            throw error("tipo de empleado no válido: " + tipo);
+        }
+
+        /**
+         * Obtiene un campo de texto.
+         *
+         * @param campo Índice del campo
+         * @return Texto, o null si el campo está vacío y sin comillas
+         */
+        private String texto(int campo) {
+            int desde = inicioCampo[campo];
+            int hasta = finCampo[campo];
+            if (desde == hasta && !entreComillas[campo]) {
+                return null;
+            }
+            if (!conEscapes[campo]) {
+                return new String(caracteres, desde, hasta - desde);
+            }
+            auxiliar.setLength(0);
+            for (int i = desde; i < hasta; i++) {
+                char c = caracteres[i];
+                auxiliar.append(c);
+                if (c == '"') {
+                    i++;
+                }
+            }
+            return auxiliar.toString();
+        }
+
+        /**
+         * Interpreta un campo entero.
+         *
+         * @param campo Índice del campo
+         * @return Valor del campo
+         */
+        private int entero(int campo) {
+            int desde = inicioCampo[campo];
+            int hasta = finCampo[campo];
+            boolean negativo = desde < hasta && caracteres[desde] == '-';
+            if (negativo) desde++;
+            if (desde == hasta) {
+                throw error("la columna " + (campo + 1) + " debe ser un número entero");
+            }
+            long valor = 0;
+            for (int i = desde; i < hasta; i++) {
+                int d = caracteres[i] - '0';
+                if (d < 0 || d > 9 || valor > Integer.MAX_VALUE) {
+                    throw error("la columna " + (campo + 1) + " debe ser un número entero");
+                }
+                valor = valor * 10 + d;
+            }
+            valor = negativo ? -valor : valor;
+            if (valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE) {
+                throw error("la columna " + (campo + 1) + " está fuera de rango");
+            }
+            return (int) valor;
+        }
+
+        /**
+         * Interpreta un campo decimal. Los valores con hasta 15 cifras
+         * significativas y exponentes pequeños (todos los sueldos e IRPF
+         * habituales) se calculan con una sola multiplicación o división
+         * exacta, que da el mismo double que {@code Double.parseDouble}; el
+         * resto se delega en {@code Double.parseDouble}.
+         *
+         * @param campo Índice del campo
+         * @return Valor del campo
+         */
+        private double decimal(int campo) {
+            int desde = inicioCampo[campo];
+            int hasta = finCampo[campo];
+            int i = desde;
+            boolean negativo = i < hasta && caracteres[i] == '-';
+            if (negativo) i++;
+            long mantisa = 0;
+            int cifras = 0;
+            int exponente = 0;
+            boolean punto = false;
+            boolean rapido = i < hasta;
+            for (; i < hasta && rapido; i++) {
+                char c = caracteres[i];
+                if (c >= '0' && c <= '9') {
+                    if (mantisa < MANTISA_EXACTA / 10) {
+                        mantisa = mantisa * 10 + (c - '0');
+                        cifras++;
+                        if (punto) exponente--;
+                    } else {
+                        rapido = false;
+                    }
+                } else if (c == '.' && !punto) {
+                    punto = true;
+                } else if ((c == 'E' || c == 'e') && cifras > 0) {
+                    int e = i + 1;
+                    boolean negativoExp = e < hasta && caracteres[e] == '-';
+                    if (negativoExp) e++;
+                    int valorExp = 0;
+                    rapido = e < hasta && hasta - e <= 3;
+                    for (; e < hasta && rapido; e++) {
+                        int d = caracteres[e] - '0';
+                        rapido = d >= 0 && d <= 9;
+                        valorExp = valorExp * 10 + d;
+                    }
+                    exponente += negativoExp ? -valorExp : valorExp;
+                    i = hasta;
+                    break;
+                } else {
+                    rapido = false;
+                }
+            }
+            if (rapido && cifras > 0 && exponente >= -22 && exponente <= 22) {
+                double valor = (exponente < 0) ? mantisa / POTENCIAS_DIEZ[-exponente]
+                        : mantisa * POTENCIAS_DIEZ[exponente];
+                return negativo ? -valor : valor;
+            }
+            try {
+                return Double.parseDouble(new String(caracteres, desde, hasta - desde));
+            } catch (NumberFormatException e) {
+                throw error("la columna " + (campo + 1) + " debe ser un número decimal");
+            }
+        }
+
+        /**
+         * Interpreta un campo de fecha en formato yyyy-MM-dd.
+         *
+         * @param campo Índice del campo
+         * @return Fecha (compartida si está en la caché), o null si el campo está vacío
+         */
+        private Fecha fecha(int campo) {
+            int desde = inicioCampo[campo];
+            int hasta = finCampo[campo];
+            if (desde == hasta) {
+                return null;
+            }
+            int guion = hasta - 6;
+            if (guion <= desde || caracteres[guion] != '-' || caracteres[hasta - 3] != '-') {
+                throw error("la columna " + (campo + 1) + " debe ser una fecha yyyy-MM-dd");
+            }
+            int año = cifras(campo, desde, guion);
+            int mes = cifras(campo, guion + 1, hasta - 3);
+            int dia = cifras(campo, hasta - 2, hasta);
+            try {
+                return Fecha.de(dia, mes, año);
+            } catch (IllegalArgumentException e) {
+                throw error(e.getMessage());
+            }
+        }
+
+        /**
+         * Interpreta una secuencia corta de cifras de una fecha.
+         *
+         * @param campo Índice del campo, para el mensaje de error
+         * @param desde Inicio de las cifras
+         * @param hasta Fin de las cifras (excluido)
+         * @return Valor de las cifras
+         */
+        private int cifras(int campo, int desde, int hasta) {
+            if (hasta - desde > 4) {
+                throw error("la columna " + (campo + 1) + " debe ser una fecha yyyy-MM-dd");
+            }
+            int valor = 0;
+            for (int i = desde; i < hasta; i++) {
+                int d = caracteres[i] - '0';
+                if (d < 0 || d > 9) {
+                    throw error("la columna " + (campo + 1) + " debe ser una fecha yyyy-MM-dd");
+                }
+                valor = valor * 10 + d;
+            }
+            return valor;
+        }
+
+        /**
+         * Interpreta el campo del sexo comparándolo con los nombres del enum.
+         *
+         * @param campo Índice del campo
+         * @return Sexo correspondiente (DESCONOCIDO si el campo está vacío)
+         */
+        private Persona.Sexo sexo(int campo) {
+            int desde = inicioCampo[campo];
+            int longitud = finCampo[campo] - desde;
+            if (longitud == 0) {
+                return Persona.Sexo.DESCONOCIDO;
+            }
+            for (Persona.Sexo s : SEXOS) {
+                if (coincide(s.name(), desde, longitud)) {
+                    return s;
+                }
+            }
+            throw error("sexo no válido: " + new String(caracteres, desde, longitud));
+        }
+
+        /**
+         * Compara un texto con una zona del buffer sin crear objetos.
+         *
+         * @param texto Texto esperado
+         * @param desde Inicio de la zona
+         * @param longitud Longitud de la zona
+         * @return true si coinciden carácter a carácter
+         */
+        private boolean coincide(String texto, int desde, int longitud) {
+            if (texto.length() != longitud) {
+                return false;
+            }
+            for (int i = 0; i < longitud; i++) {
+                if (texto.charAt(i) != caracteres[desde + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Crea la excepción de un error de formato con el número de fila.
+         *
+         * @param mensaje Descripción del error
+         * @return Excepción a lanzar
+         */
+        private IllegalArgumentException error(String mensaje) {
+            return new IllegalArgumentException("CSV no válido en la fila " + numFila + ": " + mensaje);
+        }
+    }
+}
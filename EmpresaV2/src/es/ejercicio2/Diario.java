@@ -0,0 +1,623 @@
+package es.ejercicio2;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Clase Diario que anota en un fichero de solo añadido todos los cambios de
+ * sueldo y de descuentos de un {@link Registro}, para poder recuperarlos
+ * tras una caída del proceso. Se engancha al registro como un
+ * {@link ObservadorRegistro} más.
+ * <p>
+ * Cada entrada guarda el valor final (el sueldo, o el sueldo y el contador
+ * de descuentos tras un descuento) y no la operación, de modo que
+ * reproducir una entrada dos veces no cambia el resultado. Un descuento
+ * ocupa una sola entrada, así que tras una caída nunca se recupera el
+ * sueldo descontado sin su contador ni al revés.
+ * </p>
+ * <p>
+ * Los avisos solo copian la entrada a un buffer en memoria. Un hilo escritor
+ * vuelca el buffer al fichero y hace un único {@code force} por lote
+ * (escritura agrupada) cada {@link #INTERVALO_POR_DEFECTO_MS} ms, o antes si
+ * el buffer se llena o si alguien llama a {@link #sincronizar()}. Un cambio
+ * solo es duradero cuando se ha sincronizado: si el proceso cae antes se
+ * pierden como mucho los cambios del último intervalo.
+ * </p>
+ * <p>
+ * Formato (little-endian): cabecera de {@value #TAMANO_CABECERA} bytes con
+ * la marca "EMPJ" y la versión, seguida de entradas de
+ * {@value #TAMANO_ENTRADA} bytes: tipo, número de empleado, sueldo en céntimos, número
+ * de descuentos y un CRC32 de todo lo anterior. Al leer, la primera entrada
+ * incompleta o con el CRC incorrecto marca el final del diario (la escritura
+ * que se quedó a medias al caer el proceso).
+ * </p>
+ * <p>
+ * Solo se anotan los sueldos y los descuentos. Las altas, bajas y cambios de
+ * otros datos se guardan al compactar el diario en una {@link Instantanea}.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public final class Diario implements ObservadorRegistro, Closeable, Flushable {
+
+    /** Versión del formato que escribe esta clase */
+    public static final int VERSION = 2;
+
+    /** Intervalo por defecto entre volcados al disco, en milisegundos */
+    public static final long INTERVALO_POR_DEFECTO_MS = 10;
+
+    /** Marca de los ficheros de diario ("EMPJ") */
+    private static final int MARCA = 0x454D504A;
+
+    /** Tamaño de la cabecera del fichero */
+    static final int TAMANO_CABECERA = 8;
+
+    /** Tamaño de cada entrada */
+    static final int TAMANO_ENTRADA = 24;
+
+    /** Bytes de cada entrada cubiertos por el CRC */
+    private static final int TAMANO_DATOS = TAMANO_ENTRADA - 4;
+
+    /** Entrada con un nuevo sueldo */
+    private static final byte TIPO_SUELDO = 1;
+
+    /** Entrada con el sueldo y el contador tras un descuento */
+    private static final byte TIPO_DESCUENTO = 2;
+
+    /** Capacidad de cada uno de los dos buffers de entradas */
+    private static final int TAMANO_BUFFER = 4096 * TAMANO_ENTRADA;
+
+    /** Ocupación del buffer a partir de la cual se vuelca sin esperar al intervalo */
+    private static final int UMBRAL_VOLCADO = TAMANO_BUFFER / 2;
+
+    /** Fichero del diario */
+    private final Path fichero;
+
+    /** Intervalo entre volcados, en nanosegundos */
+    private final long intervaloNanos;
+
+    /** Protege el buffer de entradas, las secuencias y el estado del diario */
+    private final ReentrantLock cerrojo = new ReentrantLock();
+
+    /** Avisa al escritor de que hay entradas o alguien espera un volcado */
+    private final Condition hayEntradas = cerrojo.newCondition();
+
+    /** Avisa a los avisos bloqueados de que el buffer vuelve a tener sitio */
+    private final Condition hayEspacio = cerrojo.newCondition();
+
+    /** Avisa a los hilos de {@link #sincronizar()} de que ha terminado un volcado */
+    private final Condition volcado = cerrojo.newCondition();
+
+    /** Protege el canal, para que la compactación no lo cambie a mitad de un volcado */
+    private final Object cerrojoCanal = new Object();
+
+    /** Buffer en el que se anotan las entradas nuevas */
+    private ByteBuffer pendiente = crearBuffer();
+
+    /** CRC de las entradas, usado con el cerrojo tomado */
+    private final CRC32 crc = new CRC32();
+
+    /** Número de entradas anotadas desde que se abrió el diario */
+    private long secuenciaAnotada;
+
+    /** Número de entradas anotadas que ya están en el disco */
+    private long secuenciaDurable;
+
+    /** Número de hilos esperando en {@link #sincronizar()} */
+    private int esperando;
+
+    /** Indica si se ha cerrado el diario */
+    private boolean cerrado;
+
+    /** Error del hilo escritor; a partir de él se descartan las entradas */
+    private IOException fallo;
+
+    /** Canal del fichero, abierto para añadir */
+    private FileChannel canal;
+
+    /** Secuencia de la primera entrada del fichero actual (negativa si ya tenía entradas al abrirlo) */
+    private long secuenciaInicioFichero;
+
+    /** Hilo que vuelca las entradas al disco */
+    private final Thread escritor;
+
+    /**
+     * Constructor privado: usar {@link #abrir(Path)}.
+     *
+     * @param fichero Fichero del diario
+     * @param canal Canal ya posicionado al final de las entradas válidas
+     * @param entradasPrevias Número de entradas que ya tenía el fichero
+     * @param intervaloMs Intervalo entre volcados, en milisegundos
+     */
+    private Diario(Path fichero, FileChannel canal, long entradasPrevias, long intervaloMs) {
+        this.fichero = fichero;
+        this.canal = canal;
+        this.secuenciaInicioFichero = -entradasPrevias;
+        this.intervaloNanos = TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+        this.escritor = new Thread(this::volcarEnBucle, "Diario-" + fichero.getFileName());
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    /**
+     * Abre un diario para seguir anotando al final, con el intervalo por
+     * defecto. Ver {@link #abrir(Path, long)}.
+     *
+     * @param fichero Fichero del diario
+     * @return Diario abierto
+     * @throws IOException si el fichero no se puede abrir o no es un diario válido
+     */
+    public static Diario abrir(Path fichero) throws IOException {
+        return abrir(fichero, INTERVALO_POR_DEFECTO_MS);
+    }
+
+    /**
+     * Abre un diario para seguir anotando al final. Si el fichero no existe
+     * se crea vacío; si termina en una entrada a medias, se recorta. Las
+     * entradas que ya contiene no se aplican: para eso está
+     * {@link #reproducir(Path, Registro)}, que debe llamarse antes de
+     * añadir el diario al registro.
+     *
+     * @param fichero Fichero del diario
+     * @param intervaloMs Intervalo máximo entre volcados al disco, en milisegundos (debe ser > 0)
+     * @return Diario abierto
+     * @throws IOException si el fichero no se puede abrir o no es un diario válido
+     * @throws IllegalArgumentException si el intervalo no es positivo
+     */
+    public static Diario abrir(Path fichero, long intervaloMs) throws IOException {
+        if (intervaloMs <= 0) {
+            throw new IllegalArgumentException("El intervalo debe ser positivo: " + intervaloMs);
+        }
+        FileChannel canal = FileChannel.open(fichero, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long fin;
+            if (canal.size() == 0) {
+                escribirCabecera(canal);
+                canal.force(true);
+                fin = TAMANO_CABECERA;
+            } else {
+                fin = recorrer(canal, fichero, null);
+                if (fin < canal.size()) {
+                    canal.truncate(fin);
+                    canal.force(true);
+                }
+            }
+            canal.position(fin);
+            return new Diario(fichero, canal, (fin - TAMANO_CABECERA) / TAMANO_ENTRADA, intervaloMs);
+        } catch (IOException | RuntimeException ex) {
+            canal.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Aplica a un registro las entradas de un diario, en orden. Las entradas
+     * de empleados que no están en el registro se ignoran. Normalmente el
+     * registro se acaba de cargar de la instantánea con la que se compactó
+     * el diario por última vez.
+     *
+     * @param fichero Fichero del diario
+     * @param registro Registro en el que se aplican las entradas
+     * @return Número de entradas aplicadas (0 si el fichero no existe)
+     * @throws IOException si el fichero no se puede leer o no es un diario válido
+     */
+    public static int reproducir(Path fichero, Registro registro) throws IOException {
+        if (!Files.exists(fichero)) {
+            return 0;
+        }
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ)) {
+            int[] aplicadas = new int[1];
+            recorrer(canal, fichero, (numEmpleado, tipo, sueldo, numDescuentos) -> {
+                Empleado e = registro.obtenerEmpleado(numEmpleado);
+                if (e == null) {
+                    return;
+                }
+                if (tipo == TIPO_SUELDO) {
+                    e.setSueldoCentimos(sueldo);
+                } else {
+                    registro.restaurarDescuentos(e, sueldo, numDescuentos);
+                }
+                aplicadas[0]++;
+            });
+            return aplicadas[0];
+        }
+    }
+
+    /**
+     * Recibe las entradas válidas de un diario al recorrerlo.
+     */
+    private interface Lector {
+
+        /**
+         * Procesa una entrada.
+         *
+         * @param numEmpleado Número de empleado
+         * @param tipo Tipo de entrada
+         * @param sueldo Sueldo anotado, en céntimos
+         * @param numDescuentos Número de descuentos anotado
+         */
+        void entrada(int numEmpleado, byte tipo, long sueldo, int numDescuentos);
+    }
+
+    /**
+     * Recorre las entradas válidas de un diario desde el principio.
+     *
+     * @param canal Canal del fichero
+     * @param fichero Ruta del fichero, para los mensajes de error
+     * @param lector Destino de las entradas, o null para solo recorrerlas
+     * @return Posición del final de la última entrada válida
+     * @throws IOException si falla la lectura, la cabecera no es válida o una entrada íntegra tiene datos imposibles
+     */
+    private static long recorrer(FileChannel canal, Path fichero, Lector lector) throws IOException {
+        ByteBuffer buffer = crearBuffer();
+        buffer.limit(TAMANO_CABECERA);
+        long posicion = 0;
+        while (buffer.hasRemaining() && canal.read(buffer, posicion + buffer.position()) >= 0) {
+            // Lee la cabecera completa
+        }
+        if (buffer.hasRemaining() || buffer.getInt(0) != MARCA) {
+            throw new IOException("El fichero " + fichero + " no es un diario de empleados");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Versión de diario no soportada en " + fichero + ": " + version);
+        }
+        posicion = TAMANO_CABECERA;
+        CRC32 crc = new CRC32();
+        byte[] datos = buffer.array();
+        buffer.clear();
+        while (true) {
+            int leidos = canal.read(buffer, posicion + buffer.position());
+            buffer.flip();
+            int p = 0;
+            while (buffer.limit() - p >= TAMANO_ENTRADA) {
+                crc.reset();
+                crc.update(datos, p, TAMANO_DATOS);
+                if ((int) crc.getValue() != buffer.getInt(p + TAMANO_DATOS)) {
+                    return posicion;
+                }
+                byte tipo = buffer.get(p);
+                int numEmpleado = buffer.getInt(p + 4);
+                long sueldo = buffer.getLong(p + 8);
+                int numDescuentos = buffer.getInt(p + 16);
+                if ((tipo != TIPO_SUELDO && tipo != TIPO_DESCUENTO) || sueldo < 0 || numDescuentos < 0) {
+                    throw new IOException("Entrada no válida en " + fichero + " en la posición " + posicion);
+                }
+                if (lector != null) {
+                    lector.entrada(numEmpleado, tipo, sueldo, numDescuentos);
+                }
+                p += TAMANO_ENTRADA;
+                posicion += TAMANO_ENTRADA;
+            }
+            if (leidos < 0) {
+                return posicion;
+            }
+            // Conserva la entrada incompleta para la siguiente lectura
+            buffer.position(p);
+            buffer.compact();
+        }
+    }
+
+    /**
+     * Crea un buffer de entradas.
+     *
+     * @return Buffer en little-endian
+     */
+    private static ByteBuffer crearBuffer() {
+        return ByteBuffer.allocate(TAMANO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Escribe la cabecera al principio de un canal vacío.
+     *
+     * @param canal Canal del fichero
+     * @throws IOException si falla la escritura
+     */
+    private static void escribirCabecera(FileChannel canal) throws IOException {
+        ByteBuffer cabecera = ByteBuffer.allocate(TAMANO_CABECERA).order(ByteOrder.LITTLE_ENDIAN);
+        cabecera.putInt(MARCA).putInt(VERSION).flip();
+        while (cabecera.hasRemaining()) {
+            canal.write(cabecera);
+        }
+    }
+
+    /**
+     * Anota un cambio de sueldo.
+     */
+    @Override
+    public void sueldoModificado(Empleado empleado, double anterior, double nuevo) {
+        anotar(TIPO_SUELDO, empleado, 0);
+    }
+
+    /**
+     * Anota el sueldo y el contador de un descuento en una sola entrada.
+     */
+    @Override
+    public void sueldoDescontado(Empleado empleado, double anterior, double nuevo, int numDescuentos) {
+        anotar(TIPO_DESCUENTO, empleado, numDescuentos);
+    }
+
+    /**
+     * Copia una entrada al buffer pendiente. Si el buffer está lleno, espera
+     * a que el escritor lo vuelque. Nunca lanza excepciones, porque se llama
+     * desde los avisos del registro: si el diario está cerrado o el escritor
+     * ha fallado, la entrada se descarta y el fallo se informa en
+     * {@link #sincronizar()}.
+     * <p>
+     * El sueldo no se toma del aviso sino del empleado, ya con el cerrojo
+     * tomado: los avisos de dos cambios simultáneos pueden llegar en orden
+     * distinto al de las escrituras, pero la última entrada de cada empleado
+     * siempre lleva un sueldo igual o posterior al de la última escritura.
+     * </p>
+     *
+     * @param tipo Tipo de entrada
+     * @param empleado Empleado modificado
+     * @param numDescuentos Número de descuentos a anotar
+     */
+    private void anotar(byte tipo, Empleado empleado, int numDescuentos) {
+        cerrojo.lock();
+        try {
+            while (pendiente.remaining() < TAMANO_ENTRADA && !cerrado && fallo == null) {
+                hayEntradas.signal();
+                hayEspacio.awaitUninterruptibly();
+            }
+            if (cerrado || fallo != null) {
+                return;
+            }
+            ByteBuffer b = pendiente;
+            int inicio = b.position();
+            b.put(tipo).put((byte) 0).putShort((short) 0)
+             .putInt(empleado.getNumEmpleado()).putLong(empleado.getSueldoCentimos()).putInt(numDescuentos);
+            crc.reset();
+            crc.update(b.array(), inicio, TAMANO_DATOS);
+            b.putInt((int) crc.getValue());
+            secuenciaAnotada++;
+            if (inicio == 0 || b.position() >= UMBRAL_VOLCADO) {
+                hayEntradas.signal();
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Espera a que todas las entradas anotadas hasta ahora estén en el
+     * disco. Las llamadas simultáneas de varios hilos se resuelven con un
+     * mismo volcado.
+     *
+     * @throws IOException si el escritor no ha podido escribir en el fichero
+     * @throws InterruptedIOException si se interrumpe el hilo mientras espera
+     */
+    public void sincronizar() throws IOException {
+        cerrojo.lock();
+        try {
+            long objetivo = secuenciaAnotada;
+            esperando++;
+            try {
+                hayEntradas.signal();
+                while (secuenciaDurable < objetivo && fallo == null) {
+                    volcado.await();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrumpido esperando al diario");
+            } finally {
+                esperando--;
+            }
+            if (fallo != null) {
+                throw new IOException("No se ha podido escribir el diario " + fichero, fallo);
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Equivale a {@link #sincronizar()}.
+     *
+     * @throws IOException si el escritor no ha podido escribir en el fichero
+     */
+    @Override
+    public void flush() throws IOException {
+        sincronizar();
+    }
+
+    /**
+     * Obtiene el número de entradas anotadas desde que se abrió el diario.
+     *
+     * @return Número de entradas anotadas
+     */
+    public long getEntradasAnotadas() {
+        cerrojo.lock();
+        try {
+            return secuenciaAnotada;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Obtiene el número de entradas anotadas que ya están en el disco.
+     *
+     * @return Número de entradas duraderas
+     */
+    public long getEntradasDuraderas() {
+        cerrojo.lock();
+        try {
+            return secuenciaDurable;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Bucle del hilo escritor: espera a que haya un lote, lo intercambia
+     * por el buffer vacío para que los avisos sigan anotando, lo escribe y
+     * hace un único {@code force} para todo el lote.
+     */
+    private void volcarEnBucle() {
+        ByteBuffer lote = crearBuffer();
+        try {
+            while (true) {
+                long hasta;
+                cerrojo.lock();
+                try {
+                    while (pendiente.position() == 0 && !cerrado) {
+                        hayEntradas.await();
+                    }
+                    // Deja que se acumule un lote, salvo que alguien espere o el buffer se llene
+                    long resto = intervaloNanos;
+                    while (!cerrado && esperando == 0 && pendiente.position() < UMBRAL_VOLCADO && resto > 0) {
+                        resto = hayEntradas.awaitNanos(resto);
+                    }
+                    if (pendiente.position() == 0) {
+                        return;
+                    }
+                    ByteBuffer lleno = pendiente;
+                    pendiente = lote;
+                    lote = lleno;
+                    hasta = secuenciaAnotada;
+                    hayEspacio.signalAll();
+                } finally {
+                    cerrojo.unlock();
+                }
+                lote.flip();
+                synchronized (cerrojoCanal) {
+                    while (lote.hasRemaining()) {
+                        canal.write(lote);
+                    }
+                    canal.force(false);
+                }
+                lote.clear();
+                cerrojo.lock();
+                try {
+                    secuenciaDurable = hasta;
+                    volcado.signalAll();
+                } finally {
+                    cerrojo.unlock();
+                }
+            }
+        } catch (IOException ex) {
+            terminarConFallo(ex);
+        } catch (InterruptedException ex) {
+            terminarConFallo(new InterruptedIOException("Escritor del diario interrumpido"));
+        }
+    }
+
+    /**
+     * Anota el fallo del escritor y despierta a todos los que esperan.
+     *
+     * @param ex Error del escritor
+     */
+    private void terminarConFallo(IOException ex) {
+        cerrojo.lock();
+        try {
+            fallo = ex;
+            hayEspacio.signalAll();
+            volcado.signalAll();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Compacta el diario: guarda el registro en una instantánea y quita del
+     * diario las entradas que ya recoge. El registro puede seguir
+     * modificándose mientras tanto; las entradas anotadas durante la
+     * compactación se conservan. Para recuperar el estado basta con cargar
+     * la instantánea y reproducir el diario.
+     * <p>
+     * Si el proceso cae a mitad de la compactación, quedan la instantánea
+     * nueva (o la anterior) y el diario completo; como las entradas guardan
+     * valores finales, reproducirlo entero sobre la instantánea nueva lleva
+     * al mismo estado.
+     * </p>
+     *
+     * @param registro Registro al que está enganchado el diario
+     * @param instantanea Fichero de la instantánea, que se sustituye
+     * @return Número de empleados guardados en la instantánea
+     * @throws IOException si falla la escritura de la instantánea o del diario
+     */
+    public synchronized int compactar(Registro registro, Path instantanea) throws IOException {
+        sincronizar();
+        long corte = getEntradasDuraderas();
+        int guardados = Instantanea.escribir(registro, instantanea);
+        Path temporal = fichero.resolveSibling(fichero.getFileName() + ".tmp");
+        synchronized (cerrojoCanal) {
+            long desde = TAMANO_CABECERA + (corte - secuenciaInicioFichero) * TAMANO_ENTRADA;
+            FileChannel nuevo = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                escribirCabecera(nuevo);
+                long fin = canal.size();
+                while (desde < fin) {
+                    desde += canal.transferTo(desde, fin - desde, nuevo);
+                }
+                nuevo.force(true);
+                Files.move(temporal, fichero, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException | RuntimeException ex) {
+                nuevo.close();
+                Files.deleteIfExists(temporal);
+                throw ex;
+            }
+            canal.close();
+            canal = nuevo;
+            secuenciaInicioFichero = corte;
+        }
+        return guardados;
+    }
+
+    /**
+     * Vuelca las entradas pendientes y cierra el diario. Las entradas que
+     * lleguen después se descartan, así que conviene quitar antes el diario
+     * del registro con {@link Registro#eliminarObservador(ObservadorRegistro)}.
+     *
+     * @throws IOException si el escritor no ha podido escribir en el fichero
+     */
+    @Override
+    public void close() throws IOException {
+        cerrojo.lock();
+        try {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            hayEntradas.signal();
+            hayEspacio.signalAll();
+        } finally {
+            cerrojo.unlock();
+        }
+        boolean interrumpido = false;
+        while (escritor.isAlive()) {
+            try {
+                escritor.join();
+            } catch (InterruptedException ex) {
+                interrumpido = true;
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (cerrojoCanal) {
+            canal.close();
+        }
+        if (fallo != null) {
+            throw new IOException("No se ha podido escribir el diario " + fichero, fallo);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package es.ejercicio2;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Clase Diccionario que asigna un código int a cada texto distinto de un
+ * campo que se repite mucho, como el cargo de los empleados o el
+ * departamento de los jefes. Los objetos guardan el código en lugar del
+ * String, así que millones de empleados comparten unas pocas decenas de
+ * textos, y comparar o agrupar por departamento o cargo es comparar ints.
+ * <p>
+ * Los códigos son consecutivos desde 0 y no se liberan nunca: un código
+ * sigue siendo válido mientras exista el diccionario, aunque ya ningún
+ * empleado lo use. Por eso solo conviene para campos con pocos valores
+ * distintos; el nombre, el DNI o el NSS no se codifican porque son casi
+ * únicos por persona y la tabla crecería con cada empleado creado sin
+ * ahorrar nada.
+ * </p>
+ * <p>
+ * Es segura entre hilos: consultar un código o un texto ya registrado no
+ * toma ningún cerrojo, y solo el registro de un texto nuevo se serializa.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public final class Diccionario {
+
+    /** Código que representa un texto null */
+    public static final int SIN_CODIGO = -1;
+
+    /** Diccionario de los cargos de los empleados */
+    public static final Diccionario CARGOS = new Diccionario();
+
+    /** Diccionario de los departamentos de los jefes */
+    public static final Diccionario DEPARTAMENTOS = new Diccionario();
+
+    /** Capacidad inicial de la tabla de textos */
+    private static final int CAPACIDAD_INICIAL = 16;
+
+    /** Código de cada texto registrado */
+    private final ConcurrentHashMap<String, Integer> codigos = new ConcurrentHashMap<>();
+
+    /** Texto de cada código (se sustituye el array entero al crecer) */
+    private volatile String[] textos = new String[CAPACIDAD_INICIAL];
+
+    /** Número de textos registrados */
+    private volatile int tamano;
+
+    /**
+     * Constructor de un diccionario vacío. Para los campos de los empleados
+     * se usan los diccionarios compartidos {@link #CARGOS} y
+     * {@link #DEPARTAMENTOS}.
+     */
+    public Diccionario() {
+    }
+
+    /**
+     * Obtiene el código de un texto, registrándolo si es nuevo.
+     *
+     * @param texto Texto a codificar (puede ser null)
+     * @return Código del texto, o SIN_CODIGO si es null
+     */
+    public int codificar(String texto) {
+        if (texto == null) {
+            return SIN_CODIGO;
+        }
+        Integer codigo = codigos.get(texto);
+        return (codigo != null) ? codigo : registrar(texto);
+    }
+
+    /**
+     * Obtiene el código de un texto sin registrarlo.
+     *
+     * @param texto Texto a buscar (puede ser null)
+     * @return Código del texto, o SIN_CODIGO si es null o no está registrado
+     */
+    public int buscar(String texto) {
+        if (texto == null) {
+            return SIN_CODIGO;
+        }
+        Integer codigo = codigos.get(texto);
+        return (codigo == null) ? SIN_CODIGO : codigo;
+    }
+
+    /**
+     * Obtiene el texto de un código. Todos los objetos con el mismo código
+     * reciben la misma instancia de String.
+     *
+     * @param codigo Código registrado, o SIN_CODIGO
+     * @return Texto, o null si el código es SIN_CODIGO
+     * @throws IllegalArgumentException si el código no está registrado
+     */
+    public String texto(int codigo) {
+        if (codigo == SIN_CODIGO) {
+            return null;
+        }
+        String[] t = textos;
+        if (codigo < 0 || codigo >= t.length || t[codigo] == null) {
+            throw new IllegalArgumentException("Código no registrado: " + codigo);
+        }
+        return t[codigo];
+    }
+
+    /**
+     * Obtiene el número de textos registrados, que es también el primer
+     * código sin usar.
+     *
+     * @return Número de textos
+     */
+    public int tamano() {
+        return tamano;
+    }
+
+    /**
+     * Registra un texto nuevo con el siguiente código. El texto se publica
+     * en la tabla antes que el código en el mapa, de modo que quien obtiene
+     * el código ya puede leer su texto.
+     *
+     * @param texto Texto a registrar
+     * @return Código del texto (el que ya tenía si otro hilo lo ha registrado antes)
+     */
+    private synchronized int registrar(String texto) {
+        Integer existente = codigos.get(texto);
+        if (existente != null) {
+            return existente;
+        }
+        int codigo = tamano;
+        String[] t = textos;
+        if (codigo == t.length) {
+            t = Arrays.copyOf(t, t.length << 1);
+        }
+        t[codigo] = texto;
+        textos = t;
+        tamano = codigo + 1;
+        codigos.put(texto, codigo);
+        return codigo;
+    }
+}
@@ -0,0 +1,123 @@
+package es.ejercicio2;
+
+/**
+ * Clase Dinero con la aritmética de punto fijo de los importes y las tasas
+ * de la nómina. Los importes se guardan como un long de céntimos y las tasas
+ * (IRPF, porcentajes de descuento) como un int de puntos básicos
+ * (centésimas de punto porcentual: 10000 = 100 %).
+ * <p>
+ * Las sumas de céntimos son exactas, así que un total no depende del orden
+ * ni del reparto en tramos con que se calcule, y un porcentaje se redondea
+ * una sola vez, al céntimo más próximo y con los empates alejándose de cero
+ * (redondeo comercial). Todo son métodos estáticos sobre tipos primitivos:
+ * no se crea ningún objeto, a diferencia de BigDecimal.
+ * </p>
+ * <p>
+ * Las conversiones desde double redondean al céntimo o al punto básico más
+ * próximo; las conversiones a double devuelven el double más cercano al
+ * valor decimal exacto, por lo que ida y vuelta siempre dan el mismo
+ * número de céntimos.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public final class Dinero {
+
+    /** Céntimos que tiene un euro */
+    public static final int CENTIMOS_POR_EURO = 100;
+
+    /** Puntos básicos que forman la tasa del 100 % */
+    public static final int PUNTOS_BASICOS_TOTAL = 10000;
+
+    /**
+     * Mayor importe en euros que se puede convertir a céntimos sin perder
+     * precisión (los céntimos caben en la mantisa de un double)
+     */
+    public static final double MAXIMO_EUROS = (double) (1L << 52) / CENTIMOS_POR_EURO;
+
+    /**
+     * Constructor privado: clase de utilidad.
+     */
+    private Dinero() {
+    }
+
+    /**
+     * Convierte un importe en euros a céntimos, redondeando al más próximo.
+     *
+     * @param euros Importe en euros
+     * @return Importe en céntimos
+     * @throws IllegalArgumentException si el importe no es un número finito o
+     *         supera en valor absoluto {@link #MAXIMO_EUROS}
+     */
+    public static long centimos(double euros) {
+        if (!(Math.abs(euros) <= MAXIMO_EUROS)) {
+            throw new IllegalArgumentException("Importe fuera de rango: " + euros);
+        }
+        return Math.round(euros * CENTIMOS_POR_EURO);
+    }
+
+    /**
+     * Convierte un importe en céntimos a euros.
+     *
+     * @param centimos Importe en céntimos
+     * @return Importe en euros
+     */
+    public static double euros(long centimos) {
+        return (double) centimos / CENTIMOS_POR_EURO;
+    }
+
+    /**
+     * Convierte una tasa (0.15 = 15 %) a puntos básicos, redondeando al más próximo.
+     *
+     * @param tasa Tasa entre 0.0 y 1.0
+     * @return Tasa en puntos básicos, entre 0 y {@value #PUNTOS_BASICOS_TOTAL}
+     * @throws IllegalArgumentException si la tasa no está entre 0.0 y 1.0
+     */
+    public static int puntosBasicos(double tasa) {
+        if (!(tasa >= 0.0 && tasa <= 1.0)) {
+            throw new IllegalArgumentException("La tasa debe estar entre 0.0 y 1.0: " + tasa);
+        }
+        return (int) Math.round(tasa * PUNTOS_BASICOS_TOTAL);
+    }
+
+    /**
+     * Convierte una tasa en puntos básicos a su valor decimal.
+     *
+     * @param puntosBasicos Tasa en puntos básicos
+     * @return Tasa (0.15 = 15 %)
+     */
+    public static double tasa(int puntosBasicos) {
+        return (double) puntosBasicos / PUNTOS_BASICOS_TOTAL;
+    }
+
+    /**
+     * Calcula un porcentaje de un importe, redondeado al céntimo más próximo
+     * (los empates se alejan de cero).
+     *
+     * @param centimos Importe en céntimos
+     * @param puntosBasicos Tasa en puntos básicos
+     * @return Porcentaje del importe, en céntimos
+     * @throws ArithmeticException si el producto desborda un long
+     */
+    public static long porcentaje(long centimos, int puntosBasicos) {
+        long producto = Math.multiplyExact(centimos, (long) puntosBasicos);
+        // La división trunca hacia cero: sumar medio divisor con el signo
+        // del producto redondea los empates alejándose de cero
+        return (producto >= 0)
+                ? Math.addExact(producto, PUNTOS_BASICOS_TOTAL / 2) / PUNTOS_BASICOS_TOTAL
+                : Math.subtractExact(producto, PUNTOS_BASICOS_TOTAL / 2) / PUNTOS_BASICOS_TOTAL;
+    }
+
+    /**
+     * Resta a un importe un porcentaje de sí mismo.
+     *
+     * @param centimos Importe en céntimos
+     * @param puntosBasicos Tasa del descuento en puntos básicos
+     * @return Importe descontado, en céntimos
+     * @throws ArithmeticException si el cálculo desborda un long
+     */
+    public static long descontar(long centimos, int puntosBasicos) {
+        return centimos - porcentaje(centimos, puntosBasicos);
+    }
+}
@@ -1,14 +1,32 @@
 package es.ejercicio2;
 
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
 /**
  * Clase Empleado que extiende Persona. Representa a un empleado de la empresa
  * con sus datos laborales. El numEmpleado se asigna automáticamente mediante
- * contadores estáticos.
+ * {@link GeneradorCodigos}, de forma segura aunque se creen empleados desde
+ * varios hilos a la vez.
+ * <p>
+ * El sueldo se guarda en céntimos y el IRPF en puntos básicos (ver
+ * {@link Dinero}); los métodos que reciben o devuelven double convierten al
+ * céntimo y al punto básico más próximos. El sueldo es un long volatile y
+ * todas las modificaciones que dependen del sueldo anterior (subidas,
+ * descuentos) son lecturas-modificaciones-escrituras atómicas con
+ * compareAndSet: si otro hilo cambia el sueldo entre la lectura y la
+ * escritura, se vuelve a calcular sobre el sueldo nuevo, así que ninguna
+ * actualización se pierde y no hace falta ningún cerrojo.
+ * </p>
+ * <p>
+ * El orden natural de los empleados es el de su número de empleado. Para
+ * ordenar muchos empleados por sueldo, antigüedad o nombre, ver
+ * {@link VistaOrdenada}.
+ * </p>
  *
  * @author diegowolder
  * @version 1.0
  */
-public class Empleado extends Persona {
+public class Empleado extends Persona implements Comparable<Empleado> {
 
     /**
      * Número de la Seguridad Social del empleado
@@ -26,53 +44,69 @@ public class Empleado extends Persona {
     private Fecha fechaContratacion;
 
     /**
-     * IRPF aplicable al empleado
+     * IRPF aplicable al empleado, en puntos básicos. Volatile para que
+     * {@link TotalesRegistro} lea siempre el último al contabilizarlo.
      */
-    private double irpf;
+    private volatile int irpf;
 
     /**
-     * Cargo del empleado
+     * Cargo del empleado, como código de {@link Diccionario#CARGOS}
      */
-    private String cargo;
+    private int cargo;
 
     /**
-     * Sueldo bruto del empleado
+     * Sueldo bruto del empleado, en céntimos. Volatile para que {@link Jefe}
+     * lea siempre el último sueldo al contabilizarlo en la jerarquía; se
+     * modifica con {@link #SUELDO}.
      */
-    private double sueldo;
+    private volatile long sueldo;
 
     /**
-     * Código inicial para empleados normales
+     * Acceso atómico al sueldo
      */
-    private static final int CODIGO_INICIAL_EMPLEADO = 100000000;
+    private static final AtomicLongFieldUpdater<Empleado> SUELDO =
+            AtomicLongFieldUpdater.newUpdater(Empleado.class, "sueldo");
 
     /**
-     * Código inicial para jefes
+     * Registro en el que está dado de alta el empleado, al que se avisa de los
+     * cambios de sueldo y de datos (null si no está registrado)
      */
-    private static final int CODIGO_INICIAL_JEFE = 200000000;
+    private volatile Registro registro;
 
     /**
-     * IRPF mínimo permitido (0%)
+     * Jefe del que depende el empleado (null si no depende de ninguno). Solo
+     * lo cambia {@link Jefe} con el cerrojo de la jerarquía tomado.
      */
-    private static final double IRPF_MINIMO = 0.0;
+    volatile Jefe superior;
 
     /**
-     * IRPF máximo permitido (100%)
+     * Posición del empleado en la lista de subordinados de su jefe
      */
-    private static final double IRPF_MAXIMO = 1.0;
+    int posicionEnSuperior;
+
+    /**
+     * Sueldo (en céntimos) con el que el empleado está sumado en los
+     * presupuestos de sus jefes; {@link Jefe} lo pone al día con una
+     * comparación atómica
+     */
+    volatile long sueldoContabilizado;
+
+    /**
+     * Datos con los que el empleado está sumado en los totales de su
+     * registro (null si no está sumado en ninguno); {@link TotalesRegistro}
+     * la sustituye con una comparación atómica
+     */
+    volatile TotalesRegistro.Aportacion aportacion;
 
     /**
-     * Contador estático para asignación automática de códigos de empleados
-     * normales. Los empleados normales empiezan en 100 millones.
+     * IRPF mínimo permitido (0%)
      */
-    private static int NEXT_CODIGO_EMPLEADO = CODIGO_INICIAL_EMPLEADO;
+    private static final double IRPF_MINIMO = 0.0;
 
     /**
-     * Contador estático para asignación automática de códigos de jefes. Los
-     * jefes empiezan en 200 millones. Nota: En algún momento puede llegar a
-     * solaparse el código de Empleado con el de los Jefes, pero es muy
-     * improbable con tal cantidad de números.
+     * IRPF máximo permitido (100%)
      */
-    private static int NEXT_CODIGO_JEFE = CODIGO_INICIAL_JEFE;
+    private static final double IRPF_MAXIMO = 1.0;
 
     /**
      * Constructor por defecto que inicializa los atributos con valores nulos o
@@ -83,9 +117,9 @@ public class Empleado extends Persona {
         this.nss = null;
         asignarNumEmpleadoAutomatico();
         this.fechaContratacion = null;
-        this.irpf = 0.0;
-        this.cargo = null;
-        this.sueldo = 0.0;
+        this.irpf = 0;
+        this.cargo = Diccionario.SIN_CODIGO;
+        this.sueldo = 0L;
     }
 
     /**
@@ -106,9 +140,9 @@ public class Empleado extends Persona {
         this.nss = null;
         asignarNumEmpleadoAutomatico();
         this.fechaContratacion = fechaContratacion;
-        this.irpf = 0.0;
-        this.cargo = null;
-        this.sueldo = sueldo;
+        this.irpf = 0;
+        this.cargo = Diccionario.SIN_CODIGO;
+        this.sueldo = Dinero.centimos(sueldo);
     }
 
     /**
@@ -149,33 +183,62 @@ public class Empleado extends Persona {
         this.nss = nss;
         asignarNumEmpleadoAutomatico();
         this.fechaContratacion = fechaContratacion;
-        this.irpf = irpf;
-        this.cargo = cargo;
-        this.sueldo = 0.0;
+        this.irpf = Dinero.puntosBasicos(irpf);
+        this.cargo = Diccionario.CARGOS.codificar(cargo);
+        this.sueldo = 0L;
     }
 
     /**
-     * Asigna automáticamente el número de empleado según el tipo. Si es un
-     * Jefe, asigna códigos desde 200000000. Si es un Empleado normal, asigna
-     * códigos desde 100000000.
+     * Constructor que restaura un empleado con un número de empleado ya
+     * conocido (por ejemplo, al importarlo de un fichero). El número se
+     * reserva en {@link GeneradorCodigos} para que no se vuelva a asignar.
      *
-     * @throws IllegalStateException si el tipo de empleado no es reconocido
+     * @param numEmpleado Número de empleado, del rango que corresponda al tipo
+     * @param nss Número de la Seguridad Social
+     * @param fechaContratacion Fecha de contratación
+     * @param irpf IRPF entre 0.0 y 1.0
+     * @param cargo Cargo del empleado
+     * @param nombre Nombre completo
+     * @param sexo Sexo del empleado
+     * @param dni DNI del empleado
+     * @param fechaNac Fecha de nacimiento
+     * @param sueldo Sueldo bruto (debe ser >= 0)
+     * @throws IllegalArgumentException si el número no corresponde al tipo de
+     * empleado, o si el IRPF o el sueldo no son válidos
      */
-    private synchronized void asignarNumEmpleadoAutomatico() {
-        this.numEmpleado = (this instanceof Jefe) ? NEXT_CODIGO_JEFE++
-                : (this instanceof Empleado) ? NEXT_CODIGO_EMPLEADO++
-                        : lanzarExcepcionTipoNoReconocido();
+    Empleado(int numEmpleado, String nss, Fecha fechaContratacion, double irpf, String cargo,
+            String nombre, Sexo sexo, String dni, Fecha fechaNac, double sueldo) {
+        super(nombre, sexo, dni, fechaNac);
+        if (numEmpleado < GeneradorCodigos.CODIGO_INICIAL_EMPLEADO
+                || GeneradorCodigos.esCodigoJefe(numEmpleado) != (this instanceof Jefe)) {
+            throw new IllegalArgumentException("Número de empleado no válido para un "
+                    + getClass().getSimpleName() + ": " + numEmpleado);
+        }
+        if (irpf < IRPF_MINIMO || irpf > IRPF_MAXIMO) {
+            throw new IllegalArgumentException("El IRPF debe estar entre " + IRPF_MINIMO + " y " + IRPF_MAXIMO + ". Valor recibido: " + irpf);
+        }
+        if (sueldo < 0) {
+            throw new IllegalArgumentException("El sueldo no puede ser negativo: " + sueldo);
+        }
+        GeneradorCodigos.reservarCodigo(numEmpleado);
+        this.nss = nss;
+        this.numEmpleado = numEmpleado;
+        this.fechaContratacion = fechaContratacion;
+        this.irpf = Dinero.puntosBasicos(irpf);
+        this.cargo = Diccionario.CARGOS.codificar(cargo);
+        this.sueldo = Dinero.centimos(sueldo);
     }
 
     /**
-     * Método auxiliar que lanza una excepción para tipos de empleado no
-     * reconocidos.
+     * Asigna automáticamente el número de empleado según el tipo. Si es un
+     * Jefe, asigna códigos desde 200000000. Si es un Empleado normal, asigna
+     * códigos desde 100000000.
      *
-     * @return Nunca retorna (siempre lanza excepción)
-     * @throws IllegalStateException siempre
+     * @throws IllegalStateException si se ha agotado el rango de códigos del tipo
      */
-    private int lanzarExcepcionTipoNoReconocido() {
-        throw new IllegalStateException("Tipo de empleado no reconocido");
+    private void asignarNumEmpleadoAutomatico() {
+        this.numEmpleado = (this instanceof Jefe) ? GeneradorCodigos.siguienteCodigoJefe()
+                : GeneradorCodigos.siguienteCodigoEmpleado();
     }
 
     /**
@@ -222,6 +285,18 @@ public class Empleado extends Persona {
      */
     public void setFechaContratacion(Fecha fechaContratacion) {
         this.fechaContratacion = fechaContratacion;
+        notificarDatos();
+    }
+
+    /**
+     * Calcula la antigüedad del empleado en una fecha dada.
+     *
+     * @param hoy Fecha en la que se calcula la antigüedad
+     * @return Años completos trabajados en esa fecha, o -1 si no se conoce la fecha de contratación
+     */
+    public int calcularAntiguedad(Fecha hoy) {
+        Fecha contratacion = fechaContratacion;
+        return (contratacion == null) ? -1 : contratacion.añosEntre(hoy);
     }
 
     /**
@@ -230,11 +305,21 @@ public class Empleado extends Persona {
      * @return IRPF del empleado
      */
     public double getIrpf() {
+        return Dinero.tasa(irpf);
+    }
+
+    /**
+     * Obtiene el IRPF aplicable al empleado en puntos básicos.
+     *
+     * @return IRPF del empleado (1500 = 15 %)
+     */
+    public int getIrpfPuntosBasicos() {
         return irpf;
     }
 
     /**
-     * Establece el IRPF aplicable al empleado.
+     * Establece el IRPF aplicable al empleado, redondeado al punto básico
+     * (centésima de punto porcentual) más próximo.
      *
      * @param irpf Nuevo IRPF del empleado (debe estar entre 0.0 y 1.0)
      * @throws IllegalArgumentException si el IRPF está fuera del rango válido
@@ -243,7 +328,12 @@ public class Empleado extends Persona {
         if (irpf < IRPF_MINIMO || irpf > IRPF_MAXIMO) {
             throw new IllegalArgumentException("El IRPF debe estar entre " + IRPF_MINIMO + " y " + IRPF_MAXIMO + ". Valor recibido: " + irpf);
         }
-        this.irpf = irpf;
+        this.irpf = Dinero.puntosBasicos(irpf);
+        Registro r = registro;
+        if (r != null) {
+            r.actualizarTotales(this);
+        }
+        notificarDatos();
     }
 
     /**
@@ -252,6 +342,16 @@ public class Empleado extends Persona {
      * @return Cargo del empleado
      */
     public String getCargo() {
+        return Diccionario.CARGOS.texto(cargo);
+    }
+
+    /**
+     * Obtiene el código del cargo del empleado en {@link Diccionario#CARGOS}.
+     * Dos empleados tienen el mismo cargo si y solo si tienen el mismo código.
+     *
+     * @return Código del cargo, o Diccionario.SIN_CODIGO si no tiene
+     */
+    public int getCodigoCargo() {
         return cargo;
     }
 
@@ -261,7 +361,8 @@ public class Empleado extends Persona {
      * @param cargo Nuevo cargo del empleado
      */
     public void setCargo(String cargo) {
-        this.cargo = cargo;
+        this.cargo = Diccionario.CARGOS.codificar(cargo);
+        notificarDatos();
     }
 
     /**
@@ -270,11 +371,20 @@ public class Empleado extends Persona {
      * @return Sueldo del empleado
      */
     public double getSueldo() {
+        return Dinero.euros(sueldo);
+    }
+
+    /**
+     * Obtiene el sueldo bruto del empleado en céntimos.
+     *
+     * @return Sueldo del empleado en céntimos
+     */
+    public long getSueldoCentimos() {
         return sueldo;
     }
 
     /**
-     * Establece el sueldo bruto del empleado.
+     * Establece el sueldo bruto del empleado, redondeado al céntimo.
      *
      * @param sueldo Nuevo sueldo del empleado (debe ser >= 0)
      * @throws IllegalArgumentException si el sueldo es negativo
@@ -283,7 +393,249 @@ public class Empleado extends Persona {
         if (sueldo < 0) {
             throw new IllegalArgumentException("El sueldo no puede ser negativo: " + sueldo);
         }
-        this.sueldo = sueldo;
+        setSueldoCentimos(Dinero.centimos(sueldo));
+    }
+
+    /**
+     * Establece el sueldo bruto del empleado en céntimos.
+     *
+     * @param centimos Nuevo sueldo del empleado en céntimos (debe ser >= 0)
+     * @throws IllegalArgumentException si el sueldo es negativo
+     */
+    public void setSueldoCentimos(long centimos) {
+        long anterior = asignarSueldo(centimos);
+        notificarSueldo(anterior, centimos);
+    }
+
+    /**
+     * Suma una cantidad al sueldo de forma atómica: aunque varios hilos suban
+     * el sueldo a la vez, se aplican todas las subidas. La cantidad se
+     * redondea al céntimo antes de sumarla.
+     *
+     * @param incremento Cantidad a sumar (puede ser negativa)
+     * @return Sueldo después del cambio
+     * @throws IllegalArgumentException si el sueldo resultante es negativo
+     */
+    public double incrementarSueldo(double incremento) {
+        return Dinero.euros(incrementarSueldoCentimos(Dinero.centimos(incremento)));
+    }
+
+    /**
+     * Suma una cantidad en céntimos al sueldo de forma atómica.
+     *
+     * @param incremento Céntimos a sumar (puede ser negativo)
+     * @return Sueldo después del cambio, en céntimos
+     * @throws IllegalArgumentException si el sueldo resultante es negativo
+     */
+    public long incrementarSueldoCentimos(long incremento) {
+        long anterior = sumarSueldo(incremento);
+        notificarSueldo(anterior, anterior + incremento);
+        return anterior + incremento;
+    }
+
+    /**
+     * Cambia el sueldo solo si sigue siendo el esperado (comparación
+     * optimista): sirve para hacer cualquier cálculo sobre el sueldo leído y
+     * repetirlo si otro hilo lo ha cambiado entretanto. Los dos sueldos se
+     * redondean al céntimo.
+     *
+     * @param esperado Sueldo leído con getSueldo()
+     * @param sueldo Nuevo sueldo (debe ser >= 0)
+     * @return true si se ha cambiado, false si el sueldo ya no era el esperado
+     * @throws IllegalArgumentException si el nuevo sueldo es negativo
+     */
+    public boolean compararYAsignarSueldo(double esperado, double sueldo) {
+        if (sueldo < 0) {
+            throw new IllegalArgumentException("El sueldo no puede ser negativo: " + sueldo);
+        }
+        long anterior = Dinero.centimos(esperado);
+        long nuevo = Dinero.centimos(sueldo);
+        if (!SUELDO.compareAndSet(this, anterior, nuevo)) {
+            return false;
+        }
+        contabilizarEnJerarquia();
+        notificarSueldo(anterior, nuevo);
+        return true;
+    }
+
+    /**
+     * Calcula el sueldo neto del empleado: el bruto menos el IRPF y menos el
+     * descuento que le corresponde según las reglas de su registro (por
+     * defecto, 5% Jefes y 10% Empleados), cada uno redondeado al céntimo.
+     *
+     * @return Sueldo neto
+     * @see Nomina
+     */
+    public double calcularSueldoNeto() {
+        return Dinero.euros(Nomina.calcularNeto(this));
+    }
+
+    /**
+     * Cambia el sueldo sin avisar al registro. Lo usa {@link Registro} al
+     * restaurar descuentos, que avisa del sueldo y del contador
+     * en un único aviso. Los presupuestos de los jefes sí se actualizan.
+     *
+     * @param centimos Nuevo sueldo del empleado en céntimos (debe ser >= 0)
+     * @return Sueldo antes del cambio, en céntimos
+     * @throws IllegalArgumentException si el sueldo es negativo
+     */
+    long asignarSueldo(long centimos) {
+        if (centimos < 0) {
+            throw new IllegalArgumentException("El sueldo no puede ser negativo: " + Dinero.euros(centimos));
+        }
+        long anterior = SUELDO.getAndSet(this, centimos);
+        contabilizarEnJerarquia();
+        return anterior;
+    }
+
+    /**
+     * Suma céntimos al sueldo de forma atómica sin avisar al registro. Lo usa
+     * también {@link Registro} al deshacer descuentos.
+     *
+     * @param incremento Céntimos a sumar
+     * @return Sueldo antes del cambio, en céntimos
+     * @throws IllegalArgumentException si el sueldo resultante es negativo
+     */
+    long sumarSueldo(long incremento) {
+        while (true) {
+            long anterior = sueldo;
+            long nuevo = anterior + incremento;
+            if (nuevo < 0) {
+                throw new IllegalArgumentException("El sueldo no puede ser negativo: " + Dinero.euros(nuevo));
+            }
+            if (SUELDO.compareAndSet(this, anterior, nuevo)) {
+                contabilizarEnJerarquia();
+                return anterior;
+            }
+        }
+    }
+
+    /**
+     * Suma céntimos al sueldo de forma atómica sin avisar al registro, solo
+     * si no superan un tope sobre el sueldo al que se suman. La comprobación
+     * y la suma van en el mismo intento: si otro hilo cambia el sueldo
+     * entretanto, se repiten las dos. Lo usa {@link Jefe#subirSueldo(Empleado, double)}.
+     *
+     * @param incremento Céntimos a sumar (debe ser >= 0)
+     * @param puntosTope Tope en puntos básicos del sueldo, o {@link ReglasNomina#SIN_LIMITE}
+     * @return Sueldo antes del cambio, en céntimos, o -1 si el incremento supera el tope
+     */
+    long sumarSueldoConTope(long incremento, int puntosTope) {
+        while (true) {
+            long anterior = sueldo;
+            if (puntosTope != ReglasNomina.SIN_LIMITE && incremento > Dinero.porcentaje(anterior, puntosTope)) {
+                return -1;
+            }
+            if (SUELDO.compareAndSet(this, anterior, anterior + incremento)) {
+                contabilizarEnJerarquia();
+                return anterior;
+            }
+        }
+    }
+
+    /**
+     * Aplica un descuento al sueldo sin avisar al registro, repitiendo el
+     * cálculo si otro hilo cambia el sueldo a la vez. El nuevo sueldo es
+     * siempre {@link Dinero#descontar(long, int)} del anterior que se
+     * devuelve. Lo usa {@link Registro} en los descuentos.
+     *
+     * @param puntosBasicos Tasa del descuento en puntos básicos
+     * @return Sueldo antes del descuento, en céntimos
+     */
+    long descontarSueldo(int puntosBasicos) {
+        while (true) {
+            long anterior = sueldo;
+            if (SUELDO.compareAndSet(this, anterior, Dinero.descontar(anterior, puntosBasicos))) {
+                contabilizarEnJerarquia();
+                return anterior;
+            }
+        }
+    }
+
+    /**
+     * Avisa al registro del empleado de un cambio de sueldo. Lo usan también
+     * {@link Registro} cuando descuenta a un empleado dado de alta en otro y
+     * {@link Jefe} en las subidas de sueldo.
+     *
+     * @param anterior Sueldo antes del cambio, en céntimos
+     * @param nuevo Sueldo después del cambio, en céntimos
+     */
+    void notificarSueldo(long anterior, long nuevo) {
+        Registro r = registro;
+        if (r != null) {
+            r.notificarSueldo(this, anterior, nuevo);
+        }
+    }
+
+    /**
+     * Pone al día los presupuestos de los jefes tras un cambio de sueldo.
+     * Todos los cambios de sueldo pasan por aquí.
+     */
+    private void contabilizarEnJerarquia() {
+        if (superior != null) {
+            Jefe.contabilizarSueldo(this);
+        }
+    }
+
+    /**
+     * Obtiene el jefe del que depende el empleado.
+     *
+     * @return Jefe directo, o null si no depende de ninguno
+     */
+    public Jefe getSuperior() {
+        return superior;
+    }
+
+    /**
+     * Obtiene el registro en el que está dado de alta el empleado.
+     *
+     * @return Registro del empleado, o null si no está registrado
+     */
+    Registro getRegistro() {
+        return registro;
+    }
+
+    /**
+     * Establece el registro al que se avisará de los cambios. Solo lo usa
+     * {@link Registro} al dar de alta o de baja al empleado.
+     *
+     * @param registro Registro del empleado, o null al darlo de baja
+     */
+    void setRegistro(Registro registro) {
+        this.registro = registro;
+    }
+
+    /**
+     * Avisa al registro del empleado de que ha cambiado algún dato distinto
+     * del sueldo.
+     */
+    void notificarDatos() {
+        Registro r = registro;
+        if (r != null) {
+            r.notificarDatos(this);
+        }
+    }
+
+    /**
+     * Escribe todos los datos del empleado al final de un StringBuilder, con
+     * el mismo formato que {@link #toString()} pero sin crear Strings
+     * intermedios.
+     *
+     * @param sb Destino de los datos
+     * @return El mismo StringBuilder, para encadenar llamadas
+     */
+    @Override
+    public StringBuilder appendTo(StringBuilder sb) {
+        sb.append("Empleado ---> nss='").append(nss)
+                .append("', numEmpleado=").append(numEmpleado)
+                .append(", fechaContratacion=");
+        Fecha.appendTo(sb, fechaContratacion)
+                .append(", irpf=").append(getIrpf())
+                .append(", cargo='").append(getCargo())
+                .append("', ");
+        super.appendTo(sb)
+                .append(", sueldo=").append(getSueldo());
+        return sb;
     }
 
     /**
@@ -293,18 +645,21 @@ public class Empleado extends Persona {
      */
     @Override
     public String toString() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("Empleado ---> nss='").append(nss)
-                .append("', numEmpleado=").append(numEmpleado)
-                .append(", fechaContratacion=").append(fechaContratacion)
-                .append(", irpf=").append(irpf)
-                .append(", cargo='").append(cargo)
-                .append("', nombre='").append(getNombre())
-                .append("', sexo=").append(getSexo())
-                .append(", dni='").append(getDni())
-                .append("', fechaNac=").append(getFechaNac())
-                .append(", sueldo=").append(sueldo);
-        return sb.toString();
+        return appendTo(new StringBuilder(192)).toString();
+    }
+
+    /**
+     * Compara este empleado con otro por número de empleado. Es consistente
+     * con equals salvo entre un Empleado y un Jefe con el mismo número, que
+     * no pueden coexistir porque los números son únicos.
+     *
+     * @param otro Empleado a comparar (no puede ser null)
+     * @return Negativo, cero o positivo si el número de este empleado es
+     *         menor, igual o mayor que el del otro
+     */
+    @Override
+    public int compareTo(Empleado otro) {
+        return Integer.compare(numEmpleado, otro.numEmpleado);
     }
 
     /**
@@ -0,0 +1,252 @@
+package es.ejercicio2;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Clase EscritorListado que vuelca listados de empleados (una línea por
+ * empleado, con el formato de {@code toString()}) a un {@link Writer} o a un
+ * canal NIO, por ejemplo un {@code FileChannel}.
+ * <p>
+ * Todas las líneas se escriben con {@link Empleado#appendTo(StringBuilder)}
+ * sobre un único StringBuilder que se vacía cada vez que supera el tamaño
+ * del buffer, de modo que volcar un millón de empleados no crea un String
+ * por empleado. Al escribir en un canal, el texto se codifica en UTF-8 sobre
+ * un ByteBuffer directo que también se reutiliza.
+ * </p>
+ * <p>
+ * Nota: no es seguro entre hilos; cada hilo debe usar su propio escritor.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public final class EscritorListado implements Closeable, Flushable {
+
+    /** Tamaño por defecto del buffer, en caracteres */
+    public static final int TAMANO_BUFFER_POR_DEFECTO = 64 * 1024;
+
+    /** Texto pendiente de escribir */
+    private final StringBuilder texto;
+
+    /** Caracteres copiados del texto antes de escribirlos */
+    private final char[] caracteres;
+
+    /** Umbral a partir del cual se vacía el texto */
+    private final int umbral;
+
+    /** Destino de texto, o null si se escribe en un canal */
+    private final Writer escritor;
+
+    /** Destino binario, o null si se escribe en un Writer */
+    private final WritableByteChannel canal;
+
+    /** Codificador UTF-8 para el canal */
+    private final CharsetEncoder codificador;
+
+    /** Vista de los caracteres para el codificador */
+    private final CharBuffer entrada;
+
+    /** Bytes codificados pendientes de escribir en el canal */
+    private final ByteBuffer salida;
+
+    /**
+     * Constructor que escribe en un Writer con el buffer por defecto.
+     *
+     * @param escritor Destino del listado
+     */
+    public EscritorListado(Writer escritor) {
+        this(escritor, null, TAMANO_BUFFER_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor que escribe en un canal (por ejemplo un FileChannel)
+     * codificando en UTF-8, con el buffer por defecto.
+     *
+     * @param canal Destino del listado
+     */
+    public EscritorListado(WritableByteChannel canal) {
+        this(null, canal, TAMANO_BUFFER_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor común.
+     *
+     * @param escritor Destino de texto, o null
+     * @param canal Destino binario, o null
+     * @param tamanoBuffer Tamaño del buffer en caracteres
+     */
+    private EscritorListado(Writer escritor, WritableByteChannel canal, int tamanoBuffer) {
+        if (escritor == null && canal == null) {
+            throw new IllegalArgumentException("El destino del listado no puede ser null");
+        }
+        this.escritor = escritor;
+        this.canal = canal;
+        // Margen para la línea que hace superar el umbral
+        this.texto = new StringBuilder(tamanoBuffer + 1024);
+        this.umbral = tamanoBuffer;
+        this.caracteres = new char[tamanoBuffer + 1024];
+        if (canal != null) {
+            this.codificador = StandardCharsets.UTF_8.newEncoder();
+            this.entrada = CharBuffer.wrap(caracteres);
+            this.salida = ByteBuffer.allocateDirect(tamanoBuffer * 2);
+        } else {
+            this.codificador = null;
+            this.entrada = null;
+            this.salida = null;
+        }
+    }
+
+    /**
+     * Escribe la línea de un empleado.
+     *
+     * @param empleado Empleado a escribir (los null se ignoran)
+     * @throws IOException si falla la escritura en el destino
+     */
+    public void escribir(Empleado empleado) throws IOException {
+        if (empleado == null) return;
+        empleado.appendTo(texto);
+        terminarLinea();
+    }
+
+    /**
+     * Da acceso al buffer para escribir una línea con otro formato (por
+     * ejemplo CSV). Después de escribirla hay que llamar a {@link #terminarLinea()}.
+     *
+     * @return Buffer compartido
+     */
+    StringBuilder buffer() {
+        return texto;
+    }
+
+    /**
+     * Termina la línea escrita en el buffer y lo vacía si supera su tamaño.
+     *
+     * @throws IOException si falla la escritura en el destino
+     */
+    void terminarLinea() throws IOException {
+        texto.append('\n');
+        if (texto.length() >= umbral) {
+            vaciar();
+        }
+    }
+
+    /**
+     * Escribe la línea de cada empleado del array.
+     *
+     * @param empleados Empleados a escribir (los null se ignoran)
+     * @throws IOException si falla la escritura en el destino
+     */
+    public void escribir(Empleado[] empleados) throws IOException {
+        for (Empleado e : empleados) {
+            escribir(e);
+        }
+    }
+
+    /**
+     * Escribe la línea de cada empleado de una colección.
+     *
+     * @param empleados Empleados a escribir (los null se ignoran)
+     * @throws IOException si falla la escritura en el destino
+     */
+    public void escribir(Iterable<? extends Empleado> empleados) throws IOException {
+        for (Empleado e : empleados) {
+            escribir(e);
+        }
+    }
+
+    /**
+     * Escribe todos los empleados de un registro. Se trabaja sobre una copia
+     * de la lista de empleados para no bloquear el registro durante la
+     * escritura.
+     *
+     * @param registro Registro a volcar
+     * @throws IOException si falla la escritura en el destino
+     */
+    public void escribir(Registro registro) throws IOException {
+        escribir(registro.obtenerEmpleados());
+    }
+
+    /**
+     * Pasa el texto acumulado al destino.
+     *
+     * @throws IOException si falla la escritura en el destino
+     */
+    private void vaciar() throws IOException {
+        int longitud = texto.length();
+        if (longitud == 0) return;
+        texto.getChars(0, longitud, caracteres, 0);
+        texto.setLength(0);
+        if (escritor != null) {
+            escritor.write(caracteres, 0, longitud);
+            return;
+        }
+        entrada.clear().limit(longitud);
+        while (true) {
+            CoderResult resultado = codificador.encode(entrada, salida, false);
+            escribirSalida();
+            if (resultado.isUnderflow()) {
+                break;
+            }
+            if (resultado.isError()) {
+                resultado.throwException();
+            }
+        }
+        // Un par sustituto partido queda en la entrada; se conserva para la siguiente vez
+        if (entrada.hasRemaining()) {
+            texto.append(caracteres, entrada.position(), entrada.remaining());
+        }
+    }
+
+    /**
+     * Escribe en el canal todos los bytes codificados.
+     *
+     * @throws IOException si falla la escritura en el canal
+     */
+    private void escribirSalida() throws IOException {
+        salida.flip();
+        while (salida.hasRemaining()) {
+            canal.write(salida);
+        }
+        salida.clear();
+    }
+
+    /**
+     * Escribe todo el texto pendiente y vacía el destino.
+     *
+     * @throws IOException si falla la escritura en el destino
+     */
+    @Override
+    public void flush() throws IOException {
+        vaciar();
+        if (escritor != null) {
+            escritor.flush();
+        }
+    }
+
+    /**
+     * Escribe el texto pendiente y cierra el destino.
+     *
+     * @throws IOException si falla la escritura o el cierre del destino
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (escritor != null) {
+                escritor.close();
+            } else {
+                canal.close();
+            }
+        }
+    }
+}
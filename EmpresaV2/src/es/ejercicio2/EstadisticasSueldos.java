@@ -0,0 +1,353 @@
+package es.ejercicio2;
+
+import java.util.Collection;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Clase EstadisticasSueldos inmutable con las estadísticas de sueldos de un
+ * conjunto de empleados: número de empleados, total, media, máximo, mínimo,
+ * mediana y total de IRPF retenido.
+ * <p>
+ * Todas las estadísticas se obtienen en una sola pasada sobre los empleados,
+ * repartida con fork/join entre los núcleos disponibles cuando hay más de
+ * {@link #UMBRAL_SECUENCIAL} empleados. Las sumas se hacen en céntimos
+ * enteros (ver {@link Dinero}) y el IRPF de cada empleado se redondea al
+ * céntimo antes de sumarse, así que los totales son exactos y el resultado es
+ * siempre el mismo, se ejecute con los hilos que se ejecute. La mediana se
+ * obtiene con una selección en tiempo lineal sobre los sueldos copiados
+ * durante esa misma pasada.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public final class EstadisticasSueldos {
+
+    /** Número de empleados por debajo del cual el cálculo es secuencial */
+    public static final int UMBRAL_SECUENCIAL = 8192;
+
+    /** Número de empleados considerados (sin contar los null) */
+    private final int numEmpleados;
+
+    /** Suma de los sueldos brutos */
+    private final double total;
+
+    /** Sueldo máximo */
+    private final double maximo;
+
+    /** Sueldo mínimo */
+    private final double minimo;
+
+    /** Mediana de los sueldos */
+    private final double mediana;
+
+    /** Suma del IRPF de cada empleado, redondeado al céntimo */
+    private final double totalIrpf;
+
+    /**
+     * Constructor privado; las estadísticas se obtienen con calcular().
+     *
+     * @param numEmpleados Número de empleados considerados
+     * @param total Suma de sueldos
+     * @param maximo Sueldo máximo
+     * @param minimo Sueldo mínimo
+     * @param mediana Mediana de los sueldos
+     * @param totalIrpf Total de IRPF retenido
+     */
+    private EstadisticasSueldos(int numEmpleados, double total, double maximo, double minimo,
+            double mediana, double totalIrpf) {
+        this.numEmpleados = numEmpleados;
+        this.total = total;
+        this.maximo = maximo;
+        this.minimo = minimo;
+        this.mediana = mediana;
+        this.totalIrpf = totalIrpf;
+    }
+
+    /**
+     * Calcula las estadísticas de un array de empleados.
+     *
+     * @param empleados Empleados a considerar (se ignoran los null; puede ser null)
+     * @return Estadísticas de los sueldos
+     */
+    public static EstadisticasSueldos calcular(Empleado[] empleados) {
+        return calcular(empleados, true);
+    }
+
+    /**
+     * Calcula las estadísticas de una colección de empleados.
+     *
+     * @param empleados Empleados a considerar (se ignoran los null; puede ser null)
+     * @return Estadísticas de los sueldos
+     */
+    public static EstadisticasSueldos calcular(Collection<? extends Empleado> empleados) {
+        return calcular(empleados == null ? null : empleados.toArray(new Empleado[0]), true);
+    }
+
+    /**
+     * Calcula las estadísticas de un array de empleados.
+     *
+     * @param empleados Empleados a considerar (se ignoran los null; puede ser null)
+     * @param conMediana true para calcular también la mediana (necesita copiar los sueldos)
+     * @return Estadísticas de los sueldos (mediana 0.0 si no se ha pedido)
+     */
+    static EstadisticasSueldos calcular(Empleado[] empleados, boolean conMediana) {
+        if (empleados == null || empleados.length == 0) {
+            return new EstadisticasSueldos(0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        }
+        long[] sueldos = conMediana ? new long[empleados.length] : null;
+        Acumulador a = (empleados.length <= UMBRAL_SECUENCIAL)
+                ? Acumulador.recorrer(empleados, 0, empleados.length, sueldos)
+                : new Tarea(empleados, 0, empleados.length, sueldos).invoke();
+        if (a.numEmpleados == 0) {
+            return new EstadisticasSueldos(0, 0.0, 0.0, 0.0, 0.0, 0.0);
+        }
+        double mediana = 0.0;
+        if (conMediana) {
+            mediana = calcularMediana(compactar(sueldos, empleados, a.numEmpleados));
+        }
+        return new EstadisticasSueldos(a.numEmpleados, Dinero.euros(a.suma), Dinero.euros(a.maximo),
+                Dinero.euros(a.minimo), mediana, Dinero.euros(a.irpf));
+    }
+
+    /**
+     * Obtiene el número de empleados considerados.
+     *
+     * @return Número de empleados no null
+     */
+    public int getNumEmpleados() { return numEmpleados; }
+
+    /**
+     * Obtiene la suma de los sueldos brutos.
+     *
+     * @return Total de sueldos
+     */
+    public double getTotal() { return total; }
+
+    /**
+     * Obtiene el sueldo medio.
+     *
+     * @return Sueldo medio, o 0.0 si no hay empleados
+     */
+    public double getMedia() { return numEmpleados == 0 ? 0.0 : total / numEmpleados; }
+
+    /**
+     * Obtiene el sueldo máximo.
+     *
+     * @return Sueldo máximo, o 0.0 si no hay empleados
+     */
+    public double getMaximo() { return maximo; }
+
+    /**
+     * Obtiene el sueldo mínimo.
+     *
+     * @return Sueldo mínimo, o 0.0 si no hay empleados
+     */
+    public double getMinimo() { return minimo; }
+
+    /**
+     * Obtiene la mediana de los sueldos (media de los dos centrales si el
+     * número de empleados es par).
+     *
+     * @return Mediana, o 0.0 si no hay empleados
+     */
+    public double getMediana() { return mediana; }
+
+    /**
+     * Obtiene el total de IRPF retenido (suma de sueldo x IRPF, redondeado
+     * al céntimo empleado a empleado).
+     *
+     * @return Total de IRPF
+     */
+    public double getTotalIrpf() { return totalIrpf; }
+
+    /**
+     * Devuelve una representación en String de las estadísticas.
+     *
+     * @return String con todas las estadísticas
+     */
+    @Override
+    public String toString() {
+        return "EstadisticasSueldos ---> numEmpleados=" + numEmpleados + ", total=" + total
+                + ", media=" + getMedia() + ", maximo=" + maximo + ", minimo=" + minimo
+                + ", mediana=" + mediana + ", totalIrpf=" + totalIrpf;
+    }
+
+    /**
+     * Deja al principio del array los sueldos de los empleados no null. Solo
+     * hace falta si el array de empleados contenía algún null.
+     *
+     * @param sueldos Sueldos en céntimos copiados en la misma posición que su empleado
+     * @param empleados Empleados de origen
+     * @param numEmpleados Número de empleados no null
+     * @return Array con los sueldos válidos en las primeras numEmpleados posiciones
+     */
+    private static long[] compactar(long[] sueldos, Empleado[] empleados, int numEmpleados) {
+        if (numEmpleados == sueldos.length) {
+            return sueldos;
+        }
+        long[] compactos = new long[numEmpleados];
+        int j = 0;
+        for (int i = 0; i < empleados.length; i++) {
+            if (empleados[i] != null) compactos[j++] = sueldos[i];
+        }
+        return compactos;
+    }
+
+    /**
+     * Calcula la mediana con una selección rápida (quickselect) en tiempo
+     * lineal esperado. Reordena el array.
+     *
+     * @param v Sueldos en céntimos (al menos uno)
+     * @return Mediana de los sueldos, en euros
+     */
+    private static double calcularMediana(long[] v) {
+        int n = v.length;
+        int k = n / 2;
+        long superior = seleccionar(v, k);
+        if ((n & 1) == 1) {
+            return Dinero.euros(superior);
+        }
+        // Tras la selección, todos los de la izquierda de k son <= v[k]
+        long inferior = v[0];
+        for (int i = 1; i < k; i++) {
+            inferior = Math.max(inferior, v[i]);
+        }
+        return Dinero.euros(inferior + superior) / 2.0;
+    }
+
+    /**
+     * Coloca en la posición k el valor que ocuparía si el array estuviera
+     * ordenado, con los menores o iguales a su izquierda.
+     *
+     * @param v Array a reordenar
+     * @param k Posición buscada
+     * @return Valor de la posición k
+     */
+    private static long seleccionar(long[] v, int k) {
+        int izq = 0;
+        int der = v.length - 1;
+        while (izq < der) {
+            long pivote = v[(izq + der) >>> 1];
+            int i = izq;
+            int j = der;
+            while (i <= j) {
+                while (v[i] < pivote) i++;
+                while (v[j] > pivote) j--;
+                if (i <= j) {
+                    long t = v[i];
+                    v[i++] = v[j];
+                    v[j--] = t;
+                }
+            }
+            if (k <= j) {
+                der = j;
+            } else if (k >= i) {
+                izq = i;
+            } else {
+                break;
+            }
+        }
+        return v[k];
+    }
+
+    /**
+     * Resultado parcial de un tramo de empleados.
+     */
+    private static final class Acumulador {
+
+        /** Número de empleados no null del tramo */
+        private int numEmpleados;
+
+        /** Suma de sueldos, en céntimos */
+        private long suma;
+
+        /** Suma del IRPF de cada empleado, en céntimos */
+        private long irpf;
+
+        /** Sueldo máximo del tramo, en céntimos */
+        private long maximo = Long.MIN_VALUE;
+
+        /** Sueldo mínimo del tramo, en céntimos */
+        private long minimo = Long.MAX_VALUE;
+
+        /**
+         * Recorre secuencialmente un tramo del array.
+         *
+         * @param empleados Empleados
+         * @param desde Primera posición (incluida)
+         * @param hasta Última posición (excluida)
+         * @param sueldos Array donde copiar los sueldos para la mediana, o null
+         * @return Acumulador del tramo
+         */
+        static Acumulador recorrer(Empleado[] empleados, int desde, int hasta, long[] sueldos) {
+            Acumulador a = new Acumulador();
+            for (int i = desde; i < hasta; i++) {
+                Empleado e = empleados[i];
+                if (e == null) continue;
+                long sueldo = e.getSueldoCentimos();
+                a.numEmpleados++;
+                a.suma += sueldo;
+                a.irpf += Dinero.porcentaje(sueldo, e.getIrpfPuntosBasicos());
+                a.maximo = Math.max(a.maximo, sueldo);
+                a.minimo = Math.min(a.minimo, sueldo);
+                if (sueldos != null) sueldos[i] = sueldo;
+            }
+            return a;
+        }
+
+        /**
+         * Añade el resultado de otro tramo a este.
+         *
+         * @param otro Acumulador a combinar
+         * @return Este acumulador
+         */
+        Acumulador combinar(Acumulador otro) {
+            numEmpleados += otro.numEmpleados;
+            suma += otro.suma;
+            irpf += otro.irpf;
+            maximo = Math.max(maximo, otro.maximo);
+            minimo = Math.min(minimo, otro.minimo);
+            return this;
+        }
+    }
+
+    /**
+     * Tarea fork/join que divide el array en mitades hasta llegar al umbral.
+     */
+    private static final class Tarea extends RecursiveTask<Acumulador> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Empleados */
+        private final Empleado[] empleados;
+
+        /** Primera posición del tramo (incluida) */
+        private final int desde;
+
+        /** Última posición del tramo (excluida) */
+        private final int hasta;
+
+        /** Array donde copiar los sueldos para la mediana, o null */
+        private final long[] sueldos;
+
+        Tarea(Empleado[] empleados, int desde, int hasta, long[] sueldos) {
+            this.empleados = empleados;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.sueldos = sueldos;
+        }
+
+        @Override
+        protected Acumulador compute() {
+            if (hasta - desde <= UMBRAL_SECUENCIAL) {
+                return Acumulador.recorrer(empleados, desde, hasta, sueldos);
+            }
+            int medio = (desde + hasta) >>> 1;
+            Tarea izquierda = new Tarea(empleados, desde, medio, sueldos);
+            izquierda.fork();
+            Acumulador derecha = new Tarea(empleados, medio, hasta, sueldos).compute();
+            return izquierda.join().combinar(derecha);
+        }
+    }
+}
@@ -1,49 +1,237 @@
 package es.ejercicio2;
 
+import java.time.LocalDate;
+
 /**
  * Clase Fecha inmutable (solo lectura).
  * Representa una fecha simple con día, mes y año.
  * Una vez creada, sus valores no pueden modificarse.
- * 
+ * <p>
+ * Internamente se guarda como un único int con el número de días desde el
+ * 1970-01-01 (día epoch), de modo que comparar fechas, restarlas o calcular
+ * edades y antigüedades son operaciones de aritmética entera que no crean
+ * objetos. El día, el mes y el año se obtienen a partir del día epoch cuando
+ * se piden.
+ * </p>
+ * <p>
+ * Las fechas entre {@value #AÑO_CACHE_MINIMO} y {@value #AÑO_CACHE_MAXIMO}
+ * creadas con {@link #de(int, int, int)} o {@link #deDiaEpoch(int)} se
+ * comparten a través de una caché, lo que evita crear millones de objetos
+ * iguales cuando muchos empleados tienen la misma fecha (por ejemplo,
+ * contrataciones a día 1 de cada mes).
+ * </p>
+ *
  * @author diegowolder
- * @version 1.0
+ * @version 2.0
  */
-public final class Fecha {
+public final class Fecha implements Comparable<Fecha> {
 
-    /** Día del mes (1-31) */
-    private final int dia;
-    
-    /** Mes del año (1-12) */
-    private final int mes;
-    
-    /** Año */
-    private final int año;
+    /** Año máximo admitido (cuatro cifras, como en ISO 8601) */
+    public static final int AÑO_MAXIMO = 9999;
+
+    /** Primer año cuyas fechas se guardan en la caché */
+    public static final int AÑO_CACHE_MINIMO = 1900;
+
+    /** Último año (incluido) cuyas fechas se guardan en la caché */
+    public static final int AÑO_CACHE_MAXIMO = 2099;
+
+    /** Día epoch del 1 de enero del año 1, la primera fecha válida */
+    private static final int DIA_EPOCH_MINIMO = calcularDiaEpoch(1, 1, 1);
+
+    /** Día epoch del 31 de diciembre de AÑO_MAXIMO, la última fecha válida */
+    private static final int DIA_EPOCH_MAXIMO = calcularDiaEpoch(31, 12, AÑO_MAXIMO);
+
+    /** Día epoch de la primera fecha de la caché */
+    private static final int DIA_EPOCH_CACHE_MINIMO = calcularDiaEpoch(1, 1, AÑO_CACHE_MINIMO);
 
     /**
-     * Constructor que crea una fecha con validaciones básicas.
+     * Caché de fechas indexada por día epoch. Se rellena a medida que se piden
+     * fechas; si dos hilos crean la misma fecha a la vez, uno de los dos
+     * objetos se descarta, lo que es inofensivo porque Fecha es inmutable y su
+     * único campo es final.
+     */
+    private static final Fecha[] CACHE =
+            new Fecha[calcularDiaEpoch(31, 12, AÑO_CACHE_MAXIMO) - DIA_EPOCH_CACHE_MINIMO + 1];
+
+    /** Días desde el 1970-01-01 (negativo para fechas anteriores) */
+    private final int diaEpoch;
+
+    /**
+     * Constructor que crea una fecha comprobando que existe en el calendario
+     * gregoriano (meses de 30 y 31 días, febrero de 28 o 29 según el año).
      * 
-     * @param dia Día del mes (debe estar entre 1 y 31)
+     * @param dia Día del mes (debe existir en ese mes y año)
      * @param mes Mes del año (debe estar entre 1 y 12)
-     * @param año Año (debe ser mayor a 0)
+     * @param año Año (debe estar entre 1 y AÑO_MAXIMO)
      * @throws IllegalArgumentException si el mes, día o año están fuera de los rangos válidos
      */
     public Fecha(int dia, int mes, int año) {
+        validar(dia, mes, año);
+        this.diaEpoch = calcularDiaEpoch(dia, mes, año);
+    }
+
+    /**
+     * Constructor interno a partir de un día epoch ya validado.
+     *
+     * @param diaEpoch Días desde el 1970-01-01
+     */
+    private Fecha(int diaEpoch) {
+        this.diaEpoch = diaEpoch;
+    }
+
+    /**
+     * Obtiene la fecha indicada, reutilizando la instancia de la caché si la
+     * fecha está dentro de los años cacheados. Es preferible al constructor
+     * cuando se crean muchas fechas repetidas.
+     *
+     * @param dia Día del mes (debe existir en ese mes y año)
+     * @param mes Mes del año (debe estar entre 1 y 12)
+     * @param año Año (debe estar entre 1 y AÑO_MAXIMO)
+     * @return Fecha correspondiente
+     * @throws IllegalArgumentException si el mes, día o año están fuera de los rangos válidos
+     */
+    public static Fecha de(int dia, int mes, int año) {
+        validar(dia, mes, año);
+        return obtenerCacheada(calcularDiaEpoch(dia, mes, año));
+    }
+
+    /**
+     * Obtiene la fecha correspondiente a un día epoch (por ejemplo, leído de
+     * una columna o de un fichero), reutilizando la caché cuando es posible.
+     *
+     * @param diaEpoch Días desde el 1970-01-01
+     * @return Fecha correspondiente
+     * @throws IllegalArgumentException si el día epoch cae fuera de los años válidos
+     */
+    public static Fecha deDiaEpoch(int diaEpoch) {
+        if (diaEpoch < DIA_EPOCH_MINIMO || diaEpoch > DIA_EPOCH_MAXIMO) {
+            throw new IllegalArgumentException("Día epoch inválido: " + diaEpoch + ". Debe estar entre "
+                    + DIA_EPOCH_MINIMO + " y " + DIA_EPOCH_MAXIMO + ".");
+        }
+        return obtenerCacheada(diaEpoch);
+    }
+
+    /**
+     * Obtiene la fecha de hoy según la zona horaria del sistema.
+     *
+     * @return Fecha actual
+     */
+    public static Fecha hoy() {
+        return deDiaEpoch((int) LocalDate.now().toEpochDay());
+    }
+
+    /**
+     * Busca la fecha en la caché y la crea si aún no estaba.
+     *
+     * @param diaEpoch Día epoch ya validado
+     * @return Fecha compartida, o una nueva si está fuera de la caché
+     */
+    private static Fecha obtenerCacheada(int diaEpoch) {
+        int indice = diaEpoch - DIA_EPOCH_CACHE_MINIMO;
+        if (indice < 0 || indice >= CACHE.length) {
+            return new Fecha(diaEpoch);
+        }
+        Fecha fecha = CACHE[indice];
+        if (fecha == null) {
+            fecha = new Fecha(diaEpoch);
+            CACHE[indice] = fecha;
+        }
+        return fecha;
+    }
+
+    /**
+     * Comprueba que la fecha existe en el calendario.
+     *
+     * @param dia Día del mes
+     * @param mes Mes del año
+     * @param año Año
+     * @throws IllegalArgumentException si el mes, día o año están fuera de los rangos válidos
+     */
+    private static void validar(int dia, int mes, int año) {
         // Validación de año
-        if (año <= 0) {
-            throw new IllegalArgumentException("Año inválido: " + año + ". Debe ser mayor a 0.");
+        if (año <= 0 || año > AÑO_MAXIMO) {
+            throw new IllegalArgumentException("Año inválido: " + año + ". Debe estar entre 1 y " + AÑO_MAXIMO + ".");
         }
         // Validación de mes
         if (mes < 1 || mes > 12) {
             throw new IllegalArgumentException("Mes inválido: " + mes + ". Debe estar entre 1 y 12.");
         }
-        // Validación de día
-        if (dia < 1 || dia > 31) {
-            throw new IllegalArgumentException("Día inválido: " + dia + ". Debe estar entre 1 y 31.");
+        // Validación de día según el mes y el año
+        int diasMes = diasDelMes(mes, año);
+        if (dia < 1 || dia > diasMes) {
+            throw new IllegalArgumentException("Día inválido: " + dia + ". Debe estar entre 1 y " + diasMes + ".");
+        }
+    }
+
+    /**
+     * Indica si un año es bisiesto en el calendario gregoriano.
+     *
+     * @param año Año a comprobar
+     * @return true si es divisible entre 4 y no entre 100, o divisible entre 400
+     */
+    public static boolean esBisiesto(int año) {
+        return (año & 3) == 0 && (año % 100 != 0 || año % 400 == 0);
+    }
+
+    /**
+     * Obtiene el número de días de un mes.
+     *
+     * @param mes Mes del año (1-12)
+     * @param año Año, necesario para febrero
+     * @return Número de días del mes (28 a 31)
+     * @throws IllegalArgumentException si el mes no está entre 1 y 12
+     */
+    public static int diasDelMes(int mes, int año) {
+        switch (mes) {
+            case 2:
+                return esBisiesto(año) ? 29 : 28;
+            case 4: case 6: case 9: case 11:
+                return 30;
+            case 1: case 3: case 5: case 7: case 8: case 10: case 12:
+                return 31;
+            default:
+                throw new IllegalArgumentException("Mes inválido: " + mes + ". Debe estar entre 1 y 12.");
         }
-        
-        this.dia = dia;
-        this.mes = mes;
-        this.año = año;
+    }
+
+    /**
+     * Convierte día, mes y año en días desde el 1970-01-01, con el mismo
+     * criterio que {@code LocalDate.toEpochDay()}.
+     *
+     * @param dia Día del mes
+     * @param mes Mes del año
+     * @param año Año (positivo)
+     * @return Días desde 1970-01-01
+     */
+    private static int calcularDiaEpoch(int dia, int mes, int año) {
+        // Algoritmo days_from_civil (H. Hinnant): el año empieza en marzo
+        int a = (mes <= 2) ? año - 1 : año;
+        int era = a / 400;
+        int añoDeEra = a - era * 400;
+        int diaDelAño = (153 * (mes + (mes > 2 ? -3 : 9)) + 2) / 5 + dia - 1;
+        int diaDeEra = añoDeEra * 365 + añoDeEra / 4 - añoDeEra / 100 + diaDelAño;
+        return era * 146097 + diaDeEra - 719468;
+    }
+
+    /**
+     * Convierte el día epoch en día, mes y año empaquetados como
+     * {@code año * 10000 + mes * 100 + dia} (formato yyyymmdd).
+     *
+     * @return Fecha en formato yyyymmdd
+     */
+    private int aAñoMesDia() {
+        // Algoritmo civil_from_days (H. Hinnant), inverso de calcularDiaEpoch.
+        // Las fechas válidas empiezan en el año 1, así que z nunca es negativo.
+        int z = diaEpoch + 719468;
+        int era = z / 146097;
+        int diaDeEra = z - era * 146097;
+        int añoDeEra = (diaDeEra - diaDeEra / 1460 + diaDeEra / 36524 - diaDeEra / 146096) / 365;
+        int diaDelAño = diaDeEra - (365 * añoDeEra + añoDeEra / 4 - añoDeEra / 100);
+        int mp = (5 * diaDelAño + 2) / 153;
+        int d = diaDelAño - (153 * mp + 2) / 5 + 1;
+        int m = (mp < 10) ? mp + 3 : mp - 9;
+        int a = añoDeEra + era * 400 + (m <= 2 ? 1 : 0);
+        return a * 10000 + m * 100 + d;
     }
 
     /**
@@ -51,21 +239,111 @@ public final class Fecha {
      * 
      * @return Día del mes
      */
-    public int getDia() { return dia; }
+    public int getDia() { return aAñoMesDia() % 100; }
     
     /**
      * Obtiene el mes de la fecha.
      * 
      * @return Mes del año
      */
-    public int getMes() { return mes; }
+    public int getMes() { return aAñoMesDia() / 100 % 100; }
     
     /**
      * Obtiene el año de la fecha.
      * 
      * @return Año
      */
-    public int getAño() { return año; }
+    public int getAño() { return aAñoMesDia() / 10000; }
+
+    /**
+     * Obtiene el número de días transcurridos desde el 1970-01-01 (día epoch),
+     * con el mismo criterio que {@code LocalDate.toEpochDay()}. Permite guardar
+     * la fecha como un único int y comparar o restar fechas con aritmética entera.
+     *
+     * @return Días desde 1970-01-01 (negativo para fechas anteriores)
+     */
+    public int getDiaEpoch() {
+        return diaEpoch;
+    }
+
+    /**
+     * Calcula los días que van desde esta fecha hasta otra.
+     *
+     * @param otra Fecha final
+     * @return Número de días, negativo si la otra fecha es anterior
+     */
+    public int diasEntre(Fecha otra) {
+        return otra.diaEpoch - diaEpoch;
+    }
+
+    /**
+     * Calcula los años completos que van desde esta fecha hasta otra, con el
+     * criterio habitual para edades y antigüedades: el año se cumple el mismo
+     * día y mes (quien nace un 29 de febrero cumple el 1 de marzo en los años
+     * no bisiestos).
+     *
+     * @param otra Fecha final
+     * @return Años completos, negativo si la otra fecha es anterior
+     */
+    public int añosEntre(Fecha otra) {
+        if (otra.diaEpoch < diaEpoch) {
+            return -otra.añosEntre(this);
+        }
+        int desde = aAñoMesDia();
+        int hasta = otra.aAñoMesDia();
+        // En formato yyyymmdd los años completos salen de una resta entera
+        return (hasta - desde) / 10000;
+    }
+
+    /**
+     * Indica si esta fecha es posterior a otra.
+     *
+     * @param otra Fecha a comparar
+     * @return true si esta fecha es posterior, false si es igual o anterior
+     */
+    public boolean esMayor(Fecha otra) {
+        return diaEpoch > otra.diaEpoch;
+    }
+
+    /**
+     * Compara dos fechas por orden cronológico.
+     *
+     * @param otra Fecha a comparar
+     * @return Negativo, cero o positivo si esta fecha es anterior, igual o posterior
+     */
+    @Override
+    public int compareTo(Fecha otra) {
+        return Integer.compare(diaEpoch, otra.diaEpoch);
+    }
+
+    /**
+     * Escribe la fecha en formato ISO 8601 (yyyy-MM-dd) al final de un
+     * StringBuilder, cifra a cifra y sin crear Strings intermedios.
+     *
+     * @param sb Destino de la fecha
+     * @return El mismo StringBuilder, para encadenar llamadas
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        int amd = aAñoMesDia();
+        int dia = amd % 100;
+        int mes = amd / 100 % 100;
+        sb.append(amd / 10000).append('-');
+        sb.append((char) ('0' + mes / 10)).append((char) ('0' + mes % 10)).append('-');
+        sb.append((char) ('0' + dia / 10)).append((char) ('0' + dia % 10));
+        return sb;
+    }
+
+    /**
+     * Escribe una fecha que puede ser null, con el mismo resultado que
+     * {@code sb.append(fecha)} pero sin pasar por {@link #toString()}.
+     *
+     * @param sb Destino de la fecha
+     * @param fecha Fecha a escribir (puede ser null)
+     * @return El mismo StringBuilder, para encadenar llamadas
+     */
+    static StringBuilder appendTo(StringBuilder sb, Fecha fecha) {
+        return (fecha == null) ? sb.append("null") : fecha.appendTo(sb);
+    }
 
     /**
      * Devuelve una representación de la fecha en formato ISO 8601 (yyyy-MM-dd).
@@ -74,9 +352,7 @@ public final class Fecha {
      */
     @Override
     public String toString() {
-        String dd = (dia < 10) ? ("0" + dia) : String.valueOf(dia);
-        String mm = (mes < 10) ? ("0" + mes) : String.valueOf(mes);
-        return año + "-" + mm + "-" + dd;
+        return appendTo(new StringBuilder(10)).toString();
     }
 
     /**
@@ -91,20 +367,17 @@ public final class Fecha {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         Fecha fecha = (Fecha) obj;
-        return dia == fecha.dia && mes == fecha.mes && año == fecha.año;
+        return diaEpoch == fecha.diaEpoch;
     }
 
     /**
      * Genera un código hash para esta fecha.
      * 
-     * @return Código hash basado en día, mes y año
+     * @return Código hash basado en el día epoch
      */
     @Override
     public int hashCode() {
-        int result = dia;
-        result = 31 * result + mes;
-        result = 31 * result + año;
-        return result;
+        return diaEpoch;
     }
 }
 
@@ -0,0 +1,248 @@
+package es.ejercicio2;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Clase GeneradorCodigos que asigna números de empleado únicos de forma segura
+ * entre hilos. Cada instancia gestiona un rango de códigos [inicio, fin).
+ * Los hilos reservan bloques de códigos consecutivos sobre un contador atómico
+ * compartido y después los reparten localmente sin ninguna contención, de modo
+ * que el coste de sincronización se paga una vez por bloque y no por empleado.
+ * <p>
+ * Existen dos generadores globales: uno para empleados normales (desde
+ * 100000000) y otro para jefes (desde 200000000). El rango de empleados termina
+ * donde empieza el de jefes, por lo que cualquier intento de solaparlos se
+ * detecta y se rechaza con una excepción en lugar de producir duplicados.
+ * </p>
+ * <p>
+ * Nota: los códigos de un bloque que un hilo no llega a usar se pierden cuando
+ * el hilo termina. Con un solo hilo los códigos son estrictamente consecutivos.
+ * </p>
+ * <p>
+ * Los códigos asignados explícitamente (al importar un fichero o cargar una
+ * instantánea) se reservan con una marca de agua por rango: ningún hilo
+ * entrega ya un código igual o inferior a la marca, aunque lo tuviera en un
+ * bloque reservado antes de la importación.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public final class GeneradorCodigos {
+
+    /** Código inicial para empleados normales */
+    public static final int CODIGO_INICIAL_EMPLEADO = 100000000;
+
+    /** Código inicial para jefes (y límite superior de los empleados normales) */
+    public static final int CODIGO_INICIAL_JEFE = 200000000;
+
+    /** Número de códigos que reserva cada hilo de una sola vez */
+    public static final int TAMANO_BLOQUE_POR_DEFECTO = 1024;
+
+    /** Generador global de códigos para empleados normales */
+    private static final GeneradorCodigos EMPLEADOS = new GeneradorCodigos(
+            "Empleado", CODIGO_INICIAL_EMPLEADO, CODIGO_INICIAL_JEFE, TAMANO_BLOQUE_POR_DEFECTO);
+
+    /** Generador global de códigos para jefes */
+    private static final GeneradorCodigos JEFES = new GeneradorCodigos(
+            "Jefe", CODIGO_INICIAL_JEFE, Integer.MAX_VALUE, TAMANO_BLOQUE_POR_DEFECTO);
+
+    /** Nombre del rango, usado en los mensajes de error */
+    private final String nombre;
+
+    /** Primer código del rango (incluido) */
+    private final int inicio;
+
+    /** Último código del rango (excluido) */
+    private final int fin;
+
+    /** Tamaño de los bloques que reserva cada hilo */
+    private final int tamanoBloque;
+
+    /** Primer código del siguiente bloque libre, compartido entre hilos */
+    private final AtomicInteger siguienteBloque;
+
+    /** Mayor código reservado explícitamente (inicio - 1 si no hay ninguno) */
+    private final AtomicInteger reservadoHasta;
+
+    /** Bloque de códigos reservado por el hilo actual */
+    private final ThreadLocal<Bloque> bloqueLocal = ThreadLocal.withInitial(Bloque::new);
+
+    /**
+     * Bloque de códigos consecutivos reservado por un único hilo. Solo lo
+     * modifica su hilo propietario, por lo que no necesita sincronización.
+     */
+    private static final class Bloque {
+
+        /** Siguiente código a entregar */
+        private int siguiente;
+
+        /** Límite del bloque (excluido) */
+        private int limite;
+    }
+
+    /**
+     * Constructor que crea un generador para el rango [inicio, fin).
+     *
+     * @param nombre Nombre del rango (ej: "Empleado")
+     * @param inicio Primer código del rango (incluido)
+     * @param fin Último código del rango (excluido, debe ser mayor que inicio)
+     * @param tamanoBloque Número de códigos que reserva cada hilo (debe ser > 0)
+     * @throws IllegalArgumentException si el rango o el tamaño de bloque no son válidos
+     */
+    public GeneradorCodigos(String nombre, int inicio, int fin, int tamanoBloque) {
+        if (fin <= inicio) {
+            throw new IllegalArgumentException("Rango de códigos inválido: [" + inicio + ", " + fin + ")");
+        }
+        if (tamanoBloque <= 0) {
+            throw new IllegalArgumentException("El tamaño de bloque debe ser positivo: " + tamanoBloque);
+        }
+        this.nombre = nombre;
+        this.inicio = inicio;
+        this.fin = fin;
+        this.tamanoBloque = tamanoBloque;
+        this.siguienteBloque = new AtomicInteger(inicio);
+        this.reservadoHasta = new AtomicInteger(inicio - 1);
+    }
+
+    /**
+     * Obtiene el siguiente código libre de este generador. Si el bloque del
+     * hilo tiene códigos ya reservados explícitamente, se los salta.
+     *
+     * @return Código único dentro del rango
+     * @throws IllegalStateException si el rango se ha agotado
+     */
+    public int siguiente() {
+        Bloque bloque = bloqueLocal.get();
+        while (true) {
+            if (bloque.siguiente == bloque.limite) {
+                reservarBloque(bloque);
+            }
+            int reservado = reservadoHasta.get();
+            if (bloque.siguiente > reservado) {
+                return bloque.siguiente++;
+            }
+            bloque.siguiente = (reservado < bloque.limite) ? reservado + 1 : bloque.limite;
+        }
+    }
+
+    /**
+     * Reserva un nuevo bloque de códigos para el hilo actual. El bloque se
+     * recorta al final del rango para no invadir nunca el rango siguiente.
+     *
+     * @param bloque Bloque del hilo actual que se va a rellenar
+     * @throws IllegalStateException si el rango se ha agotado
+     */
+    private void reservarBloque(Bloque bloque) {
+        while (true) {
+            int primero = siguienteBloque.get();
+            if (primero >= fin) {
+                throw new IllegalStateException("Rango de códigos de " + nombre + " agotado [" + inicio + ", "
+                        + fin + "): el siguiente código solaparía con el rango contiguo");
+            }
+            int limite = (fin - primero <= tamanoBloque) ? fin : primero + tamanoBloque;
+            if (siguienteBloque.compareAndSet(primero, limite)) {
+                bloque.siguiente = primero;
+                bloque.limite = limite;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Obtiene el número de códigos que quedan sin reservar en el rango.
+     * Los códigos ya reservados por algún hilo no se cuentan como libres.
+     *
+     * @return Códigos pendientes de reservar
+     */
+    public long codigosDisponibles() {
+        return (long) fin - siguienteBloque.get();
+    }
+
+    /**
+     * Marca como usados todos los códigos del rango hasta el indicado
+     * (incluido), para que el generador no vuelva a entregarlo. Se usa al
+     * restaurar empleados con su número original, por ejemplo al importar un
+     * fichero. Los hilos que ya tuvieran esos códigos en sus bloques se los
+     * saltan, gracias a la marca de agua del rango.
+     *
+     * @param codigo Código que se quiere reservar
+     * @throws IllegalArgumentException si el código no pertenece al rango
+     */
+    void reservarHasta(int codigo) {
+        if (codigo < inicio || codigo >= fin) {
+            throw new IllegalArgumentException("Código de " + nombre + " fuera de rango [" + inicio + ", "
+                    + fin + "): " + codigo);
+        }
+        // Primero la marca, para que un bloque repartido entre medias también se salte el código
+        reservadoHasta.accumulateAndGet(codigo, Math::max);
+        while (true) {
+            int primero = siguienteBloque.get();
+            if (primero > codigo || siguienteBloque.compareAndSet(primero, codigo + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Vuelve a empezar el rango desde el principio. Los bloques que ya tengan
+     * reservados otros hilos no se anulan, por lo que solo debe usarse cuando
+     * ningún otro hilo esté generando códigos (pruebas y benchmarks).
+     */
+    void reiniciar() {
+        siguienteBloque.set(inicio);
+        reservadoHasta.set(inicio - 1);
+        Bloque bloque = bloqueLocal.get();
+        bloque.siguiente = bloque.limite;
+    }
+
+    /**
+     * Reinicia los generadores globales de empleados y jefes. Solo para
+     * pruebas y benchmarks que crean más empleados de los que caben en el rango.
+     */
+    static void reiniciarCodigos() {
+        EMPLEADOS.reiniciar();
+        JEFES.reiniciar();
+    }
+
+    /**
+     * Reserva en el generador global que le corresponda un código asignado
+     * explícitamente. Ver {@link #reservarHasta(int)}.
+     *
+     * @param codigo Código de empleado o de jefe
+     * @throws IllegalArgumentException si el código no pertenece a ningún rango
+     */
+    static void reservarCodigo(int codigo) {
+        (esCodigoJefe(codigo) ? JEFES : EMPLEADOS).reservarHasta(codigo);
+    }
+
+    /**
+     * Obtiene el siguiente código para un empleado normal.
+     *
+     * @return Código desde 100000000 y menor que 200000000
+     * @throws IllegalStateException si el código invadiría el rango de los jefes
+     */
+    public static int siguienteCodigoEmpleado() {
+        return EMPLEADOS.siguiente();
+    }
+
+    /**
+     * Obtiene el siguiente código para un jefe.
+     *
+     * @return Código desde 200000000
+     * @throws IllegalStateException si se han agotado los códigos de jefe
+     */
+    public static int siguienteCodigoJefe() {
+        return JEFES.siguiente();
+    }
+
+    /**
+     * Indica si un código pertenece al rango de los jefes.
+     *
+     * @param codigo Código a comprobar
+     * @return true si el código está en el rango de jefes, false en caso contrario
+     */
+    public static boolean esCodigoJefe(int codigo) {
+        return codigo >= CODIGO_INICIAL_JEFE;
+    }
+}
@@ -0,0 +1,1105 @@
+package es.ejercicio2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Clase IndicesPlantilla que mantiene índices secundarios sobre los
+ * empleados de un {@link Registro}, para responder a las consultas filtradas
+ * sin recorrer todo el registro:
+ * <ul>
+ * <li>Índices hash por departamento (de los jefes) y por cargo.</li>
+ * <li>Un mapa de bits que marca qué empleados son jefes.</li>
+ * <li>Un índice ordenado por sueldo para las consultas por rango y las de
+ * estadísticos de orden (mediana, percentiles y mejor pagados).</li>
+ * </ul>
+ * <p>
+ * Cada empleado ocupa una fila fija mientras está indexado y todos los
+ * índices trabajan con números de fila: los grupos de departamento y de
+ * cargo son arrays de filas (con la posición de cada fila dentro de su grupo
+ * para quitarla en tiempo constante) a los que se llega por el código del
+ * departamento o del cargo en {@link Diccionario}, sin calcular hashes de
+ * Strings, el mapa de bits tiene un bit por fila
+ * y el índice de sueldos es un treap cuyos nodos son las propias filas,
+ * guardado en arrays primitivos en lugar de un objeto por nodo. El treap se
+ * ordena por sueldo y, a igualdad de sueldo, por número de empleado, y cada
+ * nodo guarda el tamaño de su subárbol: así la posición de un sueldo, el
+ * empleado en una posición dada y los k mejor pagados se obtienen en
+ * O(log n + k) sin ordenar nada.
+ * </p>
+ * <p>
+ * Se mantiene en sincronía añadiéndolo como observador de un registro: las
+ * altas, bajas, cambios de sueldo y cambios de datos actualizan los índices.
+ * Es seguro entre hilos: las escrituras se serializan con un cerrojo propio
+ * y las consultas se hacen con bloqueo de lectura.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public class IndicesPlantilla implements ObservadorRegistro {
+
+    /** Fila o nodo inexistente */
+    private static final int NULO = -1;
+
+    /** Capacidad inicial por defecto */
+    private static final int CAPACIDAD_INICIAL = 16;
+
+    /** Enteros por nodo del treap (32 bytes, con uno libre) */
+    private static final int CAMPOS_NODO = 8;
+
+    /** Posición del hijo izquierdo dentro del nodo */
+    private static final int IZQUIERDO = 0;
+
+    /** Posición del hijo derecho dentro del nodo */
+    private static final int DERECHO = 1;
+
+    /** Posición de la prioridad dentro del nodo */
+    private static final int PRIORIDAD = 2;
+
+    /** Posición del número de empleado dentro del nodo */
+    private static final int NUM_EMPLEADO = 3;
+
+    /** Posición de la mitad alta de los bits del sueldo dentro del nodo */
+    private static final int SUELDO_ALTO = 4;
+
+    /** Posición de la mitad baja de los bits del sueldo dentro del nodo */
+    private static final int SUELDO_BAJO = 5;
+
+    /** Posición del tamaño del subárbol dentro del nodo */
+    private static final int TAMANO = 6;
+
+    /** Cerrojo que protege todos los índices */
+    private final StampedLock cerrojo = new StampedLock();
+
+    /** Fila de cada número de empleado (guarda fila + 1, 0 si no está) */
+    private final MapaContadores filaPorNumero = new MapaContadores();
+
+    /** Grupos de filas por código de departamento (null si nunca se ha usado) */
+    private Grupo[] porDepartamento = new Grupo[0];
+
+    /** Grupos de filas por código de cargo (null si nunca se ha usado) */
+    private Grupo[] porCargo = new Grupo[0];
+
+    /** Empleado de cada fila (null en las filas libres) */
+    private Empleado[] empleados;
+
+    /** Código del departamento con el que está indexada cada fila */
+    private int[] departamento;
+
+    /** Posición de cada fila dentro de su grupo de departamento */
+    private int[] posicionDepartamento;
+
+    /** Código del cargo con el que está indexada cada fila */
+    private int[] cargo;
+
+    /** Posición de cada fila dentro de su grupo de cargo */
+    private int[] posicionCargo;
+
+    /** Mapa de bits de las filas que son jefes */
+    private long[] jefes;
+
+    /** Número de jefes indexados */
+    private int numJefes;
+
+    /**
+     * Nodos del treap, con {@value #CAMPOS_NODO} enteros seguidos por fila:
+     * hijo izquierdo, hijo derecho, prioridad aleatoria (montículo de
+     * máximos), número de empleado (para desempatar sueldos iguales), los
+     * bits del sueldo con el que está colocada la fila y el número de nodos
+     * de su subárbol. Juntarlos hace que
+     * bajar por el árbol toque una sola línea de caché por nivel, en lugar
+     * de una por array.
+     */
+    private int[] nodos;
+
+    /** Raíz del treap de sueldos */
+    private int raiz = NULO;
+
+    /** Filas libres para reutilizar */
+    private int[] libres = new int[CAPACIDAD_INICIAL];
+
+    /** Número de filas libres */
+    private int numLibres;
+
+    /** Primera fila sin usar nunca */
+    private int siguienteFila;
+
+    /** Número de empleados indexados */
+    private int tamano;
+
+    /** Estado del generador de prioridades (xorshift) */
+    private int semilla = 0x2545F491;
+
+    /**
+     * Grupo de filas que comparten un valor de un índice hash.
+     */
+    private static final class Grupo {
+
+        /** Filas del grupo, sin orden */
+        private int[] filas = new int[4];
+
+        /** Número de filas del grupo */
+        private int tamano;
+    }
+
+    /**
+     * Constructor por defecto con capacidad inicial por defecto.
+     */
+    public IndicesPlantilla() {
+        this(CAPACIDAD_INICIAL);
+    }
+
+    /**
+     * Constructor que reserva espacio para un número de empleados.
+     *
+     * @param capacidadInicial Número de empleados a reservar (debe ser >= 0)
+     * @throws IllegalArgumentException si la capacidad es negativa
+     */
+    public IndicesPlantilla(int capacidadInicial) {
+        if (capacidadInicial < 0) {
+            throw new IllegalArgumentException("La capacidad no puede ser negativa: " + capacidadInicial);
+        }
+        asignarCapacidad(capacidadInicial);
+    }
+
+    /**
+     * Añade un empleado a los índices o, si ya estaba, vuelve a leer todos sus datos.
+     *
+     * @param empleado Empleado a indexar (no puede ser null)
+     */
+    public void agregar(Empleado empleado) {
+        long sello = cerrojo.writeLock();
+        try {
+            agregarBloqueado(empleado);
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Añade muchos empleados de una vez. Si los índices están vacíos, las
+     * filas se ordenan por el sueldo que se ha leído de cada empleado y el
+     * treap se construye directamente en tiempo lineal, sin una inserción
+     * por empleado.
+     *
+     * @param nuevos Empleados a indexar (se ignoran los null)
+     */
+    public void agregarTodos(Collection<? extends Empleado> nuevos) {
+        long sello = cerrojo.writeLock();
+        try {
+            if (tamano > 0) {
+                for (Empleado e : nuevos) {
+                    if (e != null) agregarBloqueado(e);
+                }
+                return;
+            }
+            if (capacidadFilas() - siguienteFila < nuevos.size()) {
+                asignarCapacidad(siguienteFila + nuevos.size());
+            }
+            int[] filas = new int[nuevos.size()];
+            int numFilas = 0;
+            List<Empleado> repetidos = new ArrayList<>(0);
+            for (Empleado e : nuevos) {
+                if (e == null) {
+                    continue;
+                }
+                if (buscarFila(e.getNumEmpleado()) >= 0) {
+                    repetidos.add(e);
+                } else {
+                    int fila = asignarFila(e);
+                    reindexarDatos(fila, e);
+                    filas[numFilas++] = fila;
+                }
+            }
+            ordenarFilas(filas, numFilas);
+            raiz = construirTreap(filas, numFilas);
+            for (Empleado e : repetidos) {
+                agregarBloqueado(e);
+            }
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Quita un empleado de todos los índices.
+     *
+     * @param numEmpleado Número del empleado
+     * @return true si el empleado estaba indexado, false en caso contrario
+     */
+    public boolean eliminar(int numEmpleado) {
+        long sello = cerrojo.writeLock();
+        try {
+            int fila = buscarFila(numEmpleado);
+            if (fila < 0) {
+                return false;
+            }
+            filaPorNumero.eliminar(numEmpleado);
+            raiz = borrar(raiz, fila);
+            quitarDeGrupo(porDepartamento, departamento, posicionDepartamento, fila);
+            quitarDeGrupo(porCargo, cargo, posicionCargo, fila);
+            marcarJefe(fila, false);
+            empleados[fila] = null;
+            if (numLibres == libres.length) {
+                libres = Arrays.copyOf(libres, libres.length << 1);
+            }
+            libres[numLibres++] = fila;
+            tamano--;
+            return true;
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Obtiene el número de empleados indexados.
+     *
+     * @return Número de empleados
+     */
+    public int tamano() {
+        long sello = cerrojo.readLock();
+        try {
+            return tamano;
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Obtiene los jefes de un departamento.
+     *
+     * @param nombreDepartamento Nombre del departamento
+     * @return Lista (sin orden definido) de los jefes del departamento; vacía si no hay ninguno
+     */
+    public List<Empleado> obtenerEmpleadosPorDepartamento(String nombreDepartamento) {
+        return obtenerGrupo(true, Diccionario.DEPARTAMENTOS.buscar(nombreDepartamento));
+    }
+
+    /**
+     * Obtiene los empleados con un cargo.
+     *
+     * @param nombreCargo Cargo a buscar
+     * @return Lista (sin orden definido) de los empleados con ese cargo; vacía si no hay ninguno
+     */
+    public List<Empleado> obtenerEmpleadosPorCargo(String nombreCargo) {
+        return obtenerGrupo(false, Diccionario.CARGOS.buscar(nombreCargo));
+    }
+
+    /**
+     * Obtiene todos los jefes.
+     *
+     * @return Lista de los jefes, en orden de fila
+     */
+    public List<Empleado> obtenerJefes() {
+        long sello = cerrojo.readLock();
+        try {
+            List<Empleado> resultado = new ArrayList<>(numJefes);
+            long[] bits = jefes;
+            for (int i = 0; i < bits.length; i++) {
+                long palabra = bits[i];
+                while (palabra != 0) {
+                    resultado.add(empleados[(i << 6) + Long.numberOfTrailingZeros(palabra)]);
+                    palabra &= palabra - 1;
+                }
+            }
+            return resultado;
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Obtiene el número de jefes indexados.
+     *
+     * @return Número de jefes
+     */
+    public int contarJefes() {
+        long sello = cerrojo.readLock();
+        try {
+            return numJefes;
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Obtiene los empleados con un sueldo estrictamente mayor que el indicado.
+     *
+     * @param sueldoMinimo Sueldo que hay que superar
+     * @return Lista de los empleados, de menor a mayor sueldo
+     */
+    public List<Empleado> obtenerEmpleadosConSueldoMayorA(double sueldoMinimo) {
+        return obtenerEmpleadosConSueldoEntre(Math.nextUp(sueldoMinimo), Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Obtiene los empleados con un sueldo dentro de un intervalo (ambos extremos incluidos).
+     *
+     * @param minimo Sueldo mínimo
+     * @param maximo Sueldo máximo
+     * @return Lista de los empleados, de menor a mayor sueldo; vacía si el intervalo está vacío
+     */
+    public List<Empleado> obtenerEmpleadosConSueldoEntre(double minimo, double maximo) {
+        long sello = cerrojo.readLock();
+        try {
+            List<Empleado> resultado = new ArrayList<>();
+            recoger(raiz, minimo, maximo, resultado);
+            return resultado;
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Cuenta los empleados con un sueldo estrictamente menor que el indicado,
+     * es decir, la posición que ocuparía ese sueldo en la lista ordenada.
+     *
+     * @param sueldo Sueldo de referencia
+     * @return Número de empleados que cobran menos
+     */
+    public int contarSueldosMenoresA(double sueldo) {
+        long sello = cerrojo.readLock();
+        try {
+            int cuenta = 0;
+            int t = raiz;
+            while (t != NULO) {
+                int n = t * CAMPOS_NODO;
+                if (Double.compare(sueldoNodo(n), sueldo) < 0) {
+                    cuenta += tamanoSubarbol(nodos[n + IZQUIERDO]) + 1;
+                    t = nodos[n + DERECHO];
+                } else {
+                    t = nodos[n + IZQUIERDO];
+                }
+            }
+            return cuenta;
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Obtiene el empleado que ocupa una posición en el orden por sueldo
+     * (a igualdad de sueldo, por número de empleado).
+     *
+     * @param posicion Posición, empezando en 0 por el sueldo más bajo
+     * @return Empleado en esa posición
+     * @throws IndexOutOfBoundsException si la posición no está entre 0 y tamano() - 1
+     */
+    public Empleado obtenerEmpleadoEnPosicion(int posicion) {
+        long sello = cerrojo.readLock();
+        try {
+            if (posicion < 0 || posicion >= tamano) {
+                throw new IndexOutOfBoundsException("Posición fuera de rango: " + posicion + " (hay " + tamano + ")");
+            }
+            return empleados[seleccionar(posicion)];
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Calcula la mediana de los sueldos indexados (media de los dos
+     * centrales si hay un número par), con el mismo criterio que
+     * {@link EstadisticasSueldos#getMediana()}.
+     *
+     * @return Mediana de los sueldos, o 0.0 si no hay empleados
+     */
+    public double calcularMedianaSueldos() {
+        long sello = cerrojo.readLock();
+        try {
+            if (tamano == 0) {
+                return 0.0;
+            }
+            double central = sueldoNodo(seleccionar(tamano >>> 1) * CAMPOS_NODO);
+            if ((tamano & 1) != 0) {
+                return central;
+            }
+            return (sueldoNodo(seleccionar((tamano >>> 1) - 1) * CAMPOS_NODO) + central) / 2.0;
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Calcula un percentil de los sueldos indexados por el método del rango
+     * más cercano: el sueldo más bajo que deja por debajo o igual al menos
+     * ese porcentaje de los empleados. El percentil 0 es el sueldo mínimo y
+     * el 100, el máximo.
+     *
+     * @param percentil Percentil a calcular, entre 0 y 100
+     * @return Sueldo del percentil, o 0.0 si no hay empleados
+     * @throws IllegalArgumentException si el percentil no está entre 0 y 100
+     */
+    public double calcularPercentilSueldo(double percentil) {
+        if (!(percentil >= 0.0 && percentil <= 100.0)) {
+            throw new IllegalArgumentException("El percentil debe estar entre 0 y 100: " + percentil);
+        }
+        long sello = cerrojo.readLock();
+        try {
+            if (tamano == 0) {
+                return 0.0;
+            }
+            int posicion = Math.max(0, (int) Math.ceil(percentil / 100.0 * tamano) - 1);
+            return sueldoNodo(seleccionar(Math.min(posicion, tamano - 1)) * CAMPOS_NODO);
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Obtiene los empleados mejor pagados.
+     *
+     * @param cuantos Número máximo de empleados a devolver (debe ser >= 0)
+     * @return Lista de hasta ese número de empleados, de mayor a menor sueldo
+     * @throws IllegalArgumentException si el número es negativo
+     */
+    public List<Empleado> obtenerMejorPagados(int cuantos) {
+        if (cuantos < 0) {
+            throw new IllegalArgumentException("El número de empleados no puede ser negativo: " + cuantos);
+        }
+        long sello = cerrojo.readLock();
+        try {
+            List<Empleado> resultado = new ArrayList<>(Math.min(cuantos, tamano));
+            recogerMayores(raiz, cuantos, resultado);
+            return resultado;
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Añade el empleado registrado a los índices.
+     *
+     * @param empleado Empleado registrado
+     */
+    @Override
+    public void empleadoRegistrado(Empleado empleado) {
+        agregar(empleado);
+    }
+
+    /**
+     * Carga en bloque los empleados que ya tenía el registro.
+     *
+     * @param empleados Empleados registrados
+     */
+    @Override
+    public void empleadosRegistrados(List<Empleado> empleados) {
+        agregarTodos(empleados);
+    }
+
+    /**
+     * Quita de los índices el empleado dado de baja.
+     *
+     * @param empleado Empleado eliminado
+     */
+    @Override
+    public void empleadoEliminado(Empleado empleado) {
+        eliminar(empleado.getNumEmpleado());
+    }
+
+    /**
+     * Recoloca el empleado en el índice de sueldos. Como en
+     * {@link PlantillaColumnar}, se lee el sueldo actual del empleado en
+     * lugar del valor del aviso, por si los avisos llegan desordenados.
+     *
+     * @param empleado Empleado modificado
+     * @param anterior Sueldo antes del cambio
+     * @param nuevo Sueldo después del cambio
+     */
+    @Override
+    public void sueldoModificado(Empleado empleado, double anterior, double nuevo) {
+        long sello = cerrojo.writeLock();
+        try {
+            int fila = buscarFila(empleado.getNumEmpleado());
+            if (fila >= 0) {
+                recolocarSueldo(fila, empleado.getSueldo());
+            }
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Vuelve a leer el departamento y el cargo del empleado.
+     *
+     * @param empleado Empleado modificado
+     */
+    @Override
+    public void datosModificados(Empleado empleado) {
+        long sello = cerrojo.writeLock();
+        try {
+            int fila = buscarFila(empleado.getNumEmpleado());
+            if (fila >= 0) {
+                reindexarDatos(fila, empleado);
+            }
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Obtiene los empleados de un grupo de un índice hash.
+     *
+     * @param porDepartamentos true para el índice de departamentos, false para el de cargos
+     * @param codigo Código del valor buscado, o Diccionario.SIN_CODIGO
+     * @return Lista de los empleados del grupo
+     */
+    private List<Empleado> obtenerGrupo(boolean porDepartamentos, int codigo) {
+        if (codigo == Diccionario.SIN_CODIGO) {
+            return new ArrayList<>(0);
+        }
+        long sello = cerrojo.readLock();
+        try {
+            Grupo[] indice = porDepartamentos ? porDepartamento : porCargo;
+            Grupo grupo = (codigo < indice.length) ? indice[codigo] : null;
+            if (grupo == null) {
+                return new ArrayList<>(0);
+            }
+            List<Empleado> resultado = new ArrayList<>(grupo.tamano);
+            for (int i = 0; i < grupo.tamano; i++) {
+                resultado.add(empleados[grupo.filas[i]]);
+            }
+            return resultado;
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Busca la fila de un empleado.
+     *
+     * @param num Número de empleado
+     * @return Fila del empleado, o -1 si no está
+     */
+    private int buscarFila(int num) {
+        return filaPorNumero.obtener(num) - 1;
+    }
+
+    /**
+     * Añade un empleado a los índices o vuelve a leer sus datos si ya
+     * estaba. Debe llamarse con el cerrojo de escritura tomado.
+     *
+     * @param empleado Empleado a indexar
+     */
+    private void agregarBloqueado(Empleado empleado) {
+        int fila = buscarFila(empleado.getNumEmpleado());
+        if (fila < 0) {
+            fila = asignarFila(empleado);
+            raiz = insertar(raiz, fila);
+        } else {
+            empleados[fila] = empleado;
+            recolocarSueldo(fila, empleado.getSueldo());
+        }
+        reindexarDatos(fila, empleado);
+    }
+
+    /**
+     * Asigna una fila a un empleado nuevo, reutilizando una libre si la hay,
+     * y la marca en el mapa de bits. El nodo queda preparado pero fuera del
+     * treap, y la fila fuera de los grupos. Debe llamarse con el cerrojo de
+     * escritura tomado.
+     *
+     * @param empleado Empleado a indexar
+     * @return Fila asignada
+     */
+    private int asignarFila(Empleado empleado) {
+        int fila;
+        if (numLibres > 0) {
+            fila = libres[--numLibres];
+        } else {
+            if (siguienteFila == capacidadFilas()) {
+                asignarCapacidad(Math.max(CAPACIDAD_INICIAL, capacidadFilas() << 1));
+            }
+            fila = siguienteFila++;
+        }
+        filaPorNumero.incrementar(empleado.getNumEmpleado(), fila + 1);
+        empleados[fila] = empleado;
+        departamento[fila] = Diccionario.SIN_CODIGO;
+        cargo[fila] = Diccionario.SIN_CODIGO;
+        semilla ^= semilla << 13;
+        semilla ^= semilla >>> 17;
+        semilla ^= semilla << 5;
+        int n = fila * CAMPOS_NODO;
+        nodos[n + IZQUIERDO] = NULO;
+        nodos[n + DERECHO] = NULO;
+        nodos[n + PRIORIDAD] = semilla;
+        nodos[n + NUM_EMPLEADO] = empleado.getNumEmpleado();
+        nodos[n + TAMANO] = 1;
+        asignarSueldo(n, empleado.getSueldo());
+        marcarJefe(fila, empleado instanceof Jefe);
+        tamano++;
+        return fila;
+    }
+
+    /**
+     * Construye el treap a partir de filas ya ordenadas por sueldo (árbol
+     * cartesiano): cada fila baja por el borde derecho del árbol hasta
+     * encontrar un nodo de mayor prioridad, y los nodos que deja atrás pasan
+     * a ser su subárbol izquierdo. Un nodo que sale del borde derecho ya no
+     * recibe más hijos, así que su tamaño se calcula en ese momento.
+     *
+     * @param filas Filas en el orden del treap
+     * @param numFilas Número de filas a usar
+     * @return Raíz del treap
+     */
+    private int construirTreap(int[] filas, int numFilas) {
+        int[] bordeDerecho = new int[numFilas];
+        int cima = 0;
+        for (int i = 0; i < numFilas; i++) {
+            int fila = filas[i];
+            int n = fila * CAMPOS_NODO;
+            int ultimo = NULO;
+            while (cima > 0 && nodos[bordeDerecho[cima - 1] * CAMPOS_NODO + PRIORIDAD] < nodos[n + PRIORIDAD]) {
+                ultimo = bordeDerecho[--cima];
+                actualizarTamano(ultimo);
+            }
+            nodos[n + IZQUIERDO] = ultimo;
+            if (cima > 0) {
+                nodos[bordeDerecho[cima - 1] * CAMPOS_NODO + DERECHO] = fila;
+            }
+            nodos[n + DERECHO] = NULO;
+            bordeDerecho[cima++] = fila;
+        }
+        for (int i = cima - 1; i >= 0; i--) {
+            actualizarTamano(bordeDerecho[i]);
+        }
+        return (cima == 0) ? NULO : bordeDerecho[0];
+    }
+
+    /**
+     * Ordena filas según el orden del treap con una ordenación por mezcla
+     * ascendente. Antes de ordenar se copia a arrays paralelos la clave de
+     * cada fila (los bits del sueldo del nodo, transformados para que se
+     * ordenen como enteros con signo, y el número de empleado), de modo que
+     * cada pasada recorre la memoria en secuencia en lugar de saltar de nodo
+     * en nodo. Se usan los sueldos guardados en los nodos, que no cambian
+     * durante la ordenación aunque cambien los de los empleados.
+     *
+     * @param filas Filas a ordenar
+     * @param numFilas Número de filas a ordenar
+     */
+    private void ordenarFilas(int[] filas, int numFilas) {
+        long[] claves = new long[numFilas];
+        int[] numeros = new int[numFilas];
+        for (int i = 0; i < numFilas; i++) {
+            int n = filas[i] * CAMPOS_NODO;
+            long bits = Double.doubleToRawLongBits(sueldoNodo(n));
+            claves[i] = bits ^ ((bits >> 63) & Long.MAX_VALUE);
+            numeros[i] = nodos[n + NUM_EMPLEADO];
+        }
+        long[] otrasClaves = new long[numFilas];
+        int[] otrosNumeros = new int[numFilas];
+        int[] otrasFilas = new int[numFilas];
+        long[] clavesOrigen = claves;
+        int[] numerosOrigen = numeros;
+        int[] filasOrigen = filas;
+        for (int ancho = 1; ancho < numFilas; ancho <<= 1) {
+            for (int inicio = 0; inicio < numFilas; inicio += ancho << 1) {
+                int medio = Math.min(inicio + ancho, numFilas);
+                int fin = Math.min(inicio + (ancho << 1), numFilas);
+                int i = inicio;
+                int j = medio;
+                int k = inicio;
+                while (i < medio && j < fin) {
+                    int c = Long.compare(clavesOrigen[j], clavesOrigen[i]);
+                    int o = (c < 0 || (c == 0 && numerosOrigen[j] < numerosOrigen[i])) ? j++ : i++;
+                    otrasClaves[k] = clavesOrigen[o];
+                    otrosNumeros[k] = numerosOrigen[o];
+                    otrasFilas[k++] = filasOrigen[o];
+                }
+                int resto = (i < medio) ? i : j;
+                int numResto = fin - k;
+                System.arraycopy(clavesOrigen, resto, otrasClaves, k, numResto);
+                System.arraycopy(numerosOrigen, resto, otrosNumeros, k, numResto);
+                System.arraycopy(filasOrigen, resto, otrasFilas, k, numResto);
+            }
+            long[] tc = clavesOrigen;
+            clavesOrigen = otrasClaves;
+            otrasClaves = tc;
+            int[] tn = numerosOrigen;
+            numerosOrigen = otrosNumeros;
+            otrosNumeros = tn;
+            int[] tf = filasOrigen;
+            filasOrigen = otrasFilas;
+            otrasFilas = tf;
+        }
+        if (filasOrigen != filas) {
+            System.arraycopy(filasOrigen, 0, filas, 0, numFilas);
+        }
+    }
+
+    /**
+     * Obtiene el número de filas que caben en las columnas actuales.
+     *
+     * @return Capacidad en filas
+     */
+    private int capacidadFilas() {
+        return empleados.length;
+    }
+
+    /**
+     * Actualiza los índices de departamento y de cargo de una fila si han
+     * cambiado. Debe llamarse con el cerrojo de escritura tomado.
+     *
+     * @param fila Fila del empleado
+     * @param empleado Empleado de la fila
+     */
+    private void reindexarDatos(int fila, Empleado empleado) {
+        int nuevoDepartamento = (empleado instanceof Jefe)
+                ? ((Jefe) empleado).getCodigoDepartamento() : Diccionario.SIN_CODIGO;
+        if (nuevoDepartamento != departamento[fila]) {
+            quitarDeGrupo(porDepartamento, departamento, posicionDepartamento, fila);
+            porDepartamento = ponerEnGrupo(porDepartamento, departamento, posicionDepartamento,
+                    fila, nuevoDepartamento);
+        }
+        int nuevoCargo = empleado.getCodigoCargo();
+        if (nuevoCargo != cargo[fila]) {
+            quitarDeGrupo(porCargo, cargo, posicionCargo, fila);
+            porCargo = ponerEnGrupo(porCargo, cargo, posicionCargo, fila, nuevoCargo);
+        }
+    }
+
+    /**
+     * Añade una fila a un grupo de un índice hash, ampliando el índice si el
+     * código es nuevo.
+     *
+     * @param indice Grupos del índice por código
+     * @param claves Columna con el código de cada fila en ese índice
+     * @param posiciones Columna con la posición de cada fila en su grupo
+     * @param fila Fila a añadir
+     * @param clave Código del grupo (si es Diccionario.SIN_CODIGO, la fila no se indexa)
+     * @return Grupos del índice (otro array si ha habido que ampliarlo)
+     */
+    private static Grupo[] ponerEnGrupo(Grupo[] indice, int[] claves, int[] posiciones,
+            int fila, int clave) {
+        claves[fila] = clave;
+        if (clave == Diccionario.SIN_CODIGO) {
+            return indice;
+        }
+        if (clave >= indice.length) {
+            indice = Arrays.copyOf(indice, Math.max(clave + 1, indice.length << 1));
+        }
+        Grupo grupo = indice[clave];
+        if (grupo == null) {
+            grupo = new Grupo();
+            indice[clave] = grupo;
+        }
+        if (grupo.tamano == grupo.filas.length) {
+            grupo.filas = Arrays.copyOf(grupo.filas, grupo.tamano << 1);
+        }
+        posiciones[fila] = grupo.tamano;
+        grupo.filas[grupo.tamano++] = fila;
+        return indice;
+    }
+
+    /**
+     * Quita una fila de su grupo de un índice hash, ocupando su hueco con la
+     * última fila del grupo. Los grupos vacíos se conservan, porque los
+     * códigos del diccionario no se liberan y son pocos.
+     *
+     * @param indice Grupos del índice por código
+     * @param claves Columna con el código de cada fila en ese índice
+     * @param posiciones Columna con la posición de cada fila en su grupo
+     * @param fila Fila a quitar
+     */
+    private static void quitarDeGrupo(Grupo[] indice, int[] claves, int[] posiciones, int fila) {
+        int clave = claves[fila];
+        if (clave == Diccionario.SIN_CODIGO) {
+            return;
+        }
+        claves[fila] = Diccionario.SIN_CODIGO;
+        Grupo grupo = indice[clave];
+        int posicion = posiciones[fila];
+        int ultima = grupo.filas[--grupo.tamano];
+        grupo.filas[posicion] = ultima;
+        posiciones[ultima] = posicion;
+    }
+
+    /**
+     * Marca o desmarca una fila como jefe en el mapa de bits.
+     *
+     * @param fila Fila a marcar
+     * @param esJefe true si la fila es de un jefe
+     */
+    private void marcarJefe(int fila, boolean esJefe) {
+        long bit = 1L << fila;
+        boolean marcado = (jefes[fila >>> 6] & bit) != 0;
+        if (esJefe && !marcado) {
+            jefes[fila >>> 6] |= bit;
+            numJefes++;
+        } else if (!esJefe && marcado) {
+            jefes[fila >>> 6] &= ~bit;
+            numJefes--;
+        }
+    }
+
+    /**
+     * Mueve una fila del treap a la posición de su nuevo sueldo. Debe
+     * llamarse con el cerrojo de escritura tomado.
+     *
+     * @param fila Fila del empleado
+     * @param nuevoSueldo Sueldo actual del empleado
+     */
+    private void recolocarSueldo(int fila, double nuevoSueldo) {
+        int n = fila * CAMPOS_NODO;
+        if (Double.compare(sueldoNodo(n), nuevoSueldo) == 0) {
+            return;
+        }
+        raiz = borrar(raiz, fila);
+        asignarSueldo(n, nuevoSueldo);
+        nodos[n + IZQUIERDO] = NULO;
+        nodos[n + DERECHO] = NULO;
+        nodos[n + TAMANO] = 1;
+        raiz = insertar(raiz, fila);
+    }
+
+    /**
+     * Indica si una fila va antes que otra en el orden del treap.
+     *
+     * @param a Primera fila
+     * @param b Segunda fila
+     * @return true si a tiene menor sueldo, o igual sueldo y menor número de empleado
+     */
+    private boolean menor(int a, int b) {
+        int na = a * CAMPOS_NODO;
+        int nb = b * CAMPOS_NODO;
+        int c = Double.compare(sueldoNodo(na), sueldoNodo(nb));
+        return c < 0 || (c == 0 && nodos[na + NUM_EMPLEADO] < nodos[nb + NUM_EMPLEADO]);
+    }
+
+    /**
+     * Obtiene el sueldo guardado en un nodo.
+     *
+     * @param n Posición del nodo en el array de nodos
+     * @return Sueldo del nodo
+     */
+    private double sueldoNodo(int n) {
+        return Double.longBitsToDouble(((long) nodos[n + SUELDO_ALTO] << 32) | (nodos[n + SUELDO_BAJO] & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Guarda el sueldo de un nodo.
+     *
+     * @param n Posición del nodo en el array de nodos
+     * @param valor Sueldo a guardar
+     */
+    private void asignarSueldo(int n, double valor) {
+        long bits = Double.doubleToRawLongBits(valor);
+        nodos[n + SUELDO_ALTO] = (int) (bits >>> 32);
+        nodos[n + SUELDO_BAJO] = (int) bits;
+    }
+
+    /**
+     * Inserta un nodo en un subárbol y restaura la prioridad con rotaciones.
+     *
+     * @param t Raíz del subárbol
+     * @param fila Nodo a insertar, sin hijos
+     * @return Nueva raíz del subárbol
+     */
+    private int insertar(int t, int fila) {
+        if (t == NULO) {
+            return fila;
+        }
+        int n = t * CAMPOS_NODO;
+        if (menor(fila, t)) {
+            int h = insertar(nodos[n + IZQUIERDO], fila);
+            nodos[n + IZQUIERDO] = h;
+            if (nodos[h * CAMPOS_NODO + PRIORIDAD] > nodos[n + PRIORIDAD]) {
+                return rotar(t, IZQUIERDO, DERECHO);
+            }
+        } else {
+            int h = insertar(nodos[n + DERECHO], fila);
+            nodos[n + DERECHO] = h;
+            if (nodos[h * CAMPOS_NODO + PRIORIDAD] > nodos[n + PRIORIDAD]) {
+                return rotar(t, DERECHO, IZQUIERDO);
+            }
+        }
+        nodos[n + TAMANO]++;
+        return t;
+    }
+
+    /**
+     * Quita un nodo de un subárbol que lo contiene.
+     *
+     * @param t Raíz del subárbol
+     * @param fila Nodo a quitar
+     * @return Nueva raíz del subárbol
+     */
+    private int borrar(int t, int fila) {
+        int n = t * CAMPOS_NODO;
+        if (t == fila) {
+            return unir(nodos[n + IZQUIERDO], nodos[n + DERECHO]);
+        }
+        int lado = menor(fila, t) ? IZQUIERDO : DERECHO;
+        nodos[n + lado] = borrar(nodos[n + lado], fila);
+        nodos[n + TAMANO]--;
+        return t;
+    }
+
+    /**
+     * Une dos subárboles en los que todas las claves del primero son menores
+     * que las del segundo.
+     *
+     * @param a Subárbol de claves menores
+     * @param b Subárbol de claves mayores
+     * @return Raíz del subárbol unido
+     */
+    private int unir(int a, int b) {
+        if (a == NULO) {
+            return b;
+        }
+        if (b == NULO) {
+            return a;
+        }
+        int na = a * CAMPOS_NODO;
+        int nb = b * CAMPOS_NODO;
+        if (nodos[na + PRIORIDAD] > nodos[nb + PRIORIDAD]) {
+            nodos[na + DERECHO] = unir(nodos[na + DERECHO], b);
+            actualizarTamano(a);
+            return a;
+        }
+        nodos[nb + IZQUIERDO] = unir(a, nodos[nb + IZQUIERDO]);
+        actualizarTamano(b);
+        return b;
+    }
+
+    /**
+     * Rota un nodo para subir uno de sus hijos a la raíz del subárbol. Con
+     * (IZQUIERDO, DERECHO) es una rotación a la derecha y con
+     * (DERECHO, IZQUIERDO), a la izquierda. El hijo que sube se queda con
+     * el tamaño que tenía el nodo rotado antes de la inserción en curso, más
+     * uno; el nodo rotado lo recalcula con sus nuevos hijos.
+     *
+     * @param t Nodo a rotar
+     * @param lado Lado del hijo que sube
+     * @param otro Lado contrario
+     * @return Nueva raíz del subárbol
+     */
+    private int rotar(int t, int lado, int otro) {
+        int n = t * CAMPOS_NODO;
+        int h = nodos[n + lado];
+        int nh = h * CAMPOS_NODO;
+        nodos[n + lado] = nodos[nh + otro];
+        nodos[nh + otro] = t;
+        nodos[nh + TAMANO] = nodos[n + TAMANO] + 1;
+        actualizarTamano(t);
+        return h;
+    }
+
+    /**
+     * Obtiene el tamaño de un subárbol.
+     *
+     * @param t Raíz del subárbol
+     * @return Número de nodos, 0 si el subárbol está vacío
+     */
+    private int tamanoSubarbol(int t) {
+        return (t == NULO) ? 0 : nodos[t * CAMPOS_NODO + TAMANO];
+    }
+
+    /**
+     * Recalcula el tamaño de un nodo a partir del de sus hijos.
+     *
+     * @param t Nodo a actualizar
+     */
+    private void actualizarTamano(int t) {
+        int n = t * CAMPOS_NODO;
+        nodos[n + TAMANO] = tamanoSubarbol(nodos[n + IZQUIERDO]) + tamanoSubarbol(nodos[n + DERECHO]) + 1;
+    }
+
+    /**
+     * Busca la fila que ocupa una posición en el orden del treap, bajando
+     * por el lado que indica el tamaño del subárbol izquierdo.
+     *
+     * @param posicion Posición, entre 0 y tamano - 1
+     * @return Fila en esa posición
+     */
+    private int seleccionar(int posicion) {
+        int t = raiz;
+        while (true) {
+            int n = t * CAMPOS_NODO;
+            int izquierdo = tamanoSubarbol(nodos[n + IZQUIERDO]);
+            if (posicion < izquierdo) {
+                t = nodos[n + IZQUIERDO];
+            } else if (posicion == izquierdo) {
+                return t;
+            } else {
+                posicion -= izquierdo + 1;
+                t = nodos[n + DERECHO];
+            }
+        }
+    }
+
+    /**
+     * Añade de mayor a menor los empleados de un subárbol hasta que la lista
+     * tenga el tamaño pedido, sin visitar más ramas de las necesarias.
+     *
+     * @param t Raíz del subárbol
+     * @param cuantos Tamaño máximo de la lista
+     * @param destino Lista de resultados
+     */
+    private void recogerMayores(int t, int cuantos, List<Empleado> destino) {
+        while (t != NULO && destino.size() < cuantos) {
+            int n = t * CAMPOS_NODO;
+            recogerMayores(nodos[n + DERECHO], cuantos, destino);
+            if (destino.size() < cuantos) {
+                destino.add(empleados[t]);
+            }
+            t = nodos[n + IZQUIERDO];
+        }
+    }
+
+    /**
+     * Añade en orden los empleados de un subárbol con sueldo dentro del
+     * intervalo, bajando solo por las ramas que pueden tener alguno.
+     *
+     * @param t Raíz del subárbol
+     * @param minimo Sueldo mínimo (incluido)
+     * @param maximo Sueldo máximo (incluido)
+     * @param destino Lista de resultados
+     */
+    private void recoger(int t, double minimo, double maximo, List<Empleado> destino) {
+        while (t != NULO) {
+            int n = t * CAMPOS_NODO;
+            double s = sueldoNodo(n);
+            boolean desdeMinimo = Double.compare(s, minimo) >= 0;
+            if (desdeMinimo) {
+                recoger(nodos[n + IZQUIERDO], minimo, maximo, destino);
+            }
+            if (Double.compare(s, maximo) > 0) {
+                return;
+            }
+            if (desdeMinimo) {
+                destino.add(empleados[t]);
+            }
+            t = nodos[n + DERECHO];
+        }
+    }
+
+    /**
+     * Amplía todas las columnas a una capacidad.
+     *
+     * @param capacidad Nueva capacidad
+     */
+    private void asignarCapacidad(int capacidad) {
+        if (empleados == null) {
+            empleados = new Empleado[capacidad];
+            departamento = new int[capacidad];
+            posicionDepartamento = new int[capacidad];
+            cargo = new int[capacidad];
+            posicionCargo = new int[capacidad];
+            nodos = new int[capacidad * CAMPOS_NODO];
+        } else {
+            empleados = Arrays.copyOf(empleados, capacidad);
+            departamento = Arrays.copyOf(departamento, capacidad);
+            posicionDepartamento = Arrays.copyOf(posicionDepartamento, capacidad);
+            cargo = Arrays.copyOf(cargo, capacidad);
+            posicionCargo = Arrays.copyOf(posicionCargo, capacidad);
+            nodos = Arrays.copyOf(nodos, capacidad * CAMPOS_NODO);
+        }
+        jefes = Arrays.copyOf((jefes == null) ? new long[0] : jefes, (capacidad + 63) >>> 6);
+    }
+}
@@ -0,0 +1,633 @@
+package es.ejercicio2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Clase Instantanea que guarda una copia binaria de una plantilla en un
+ * fichero y la vuelve a abrir proyectándolo en memoria
+ * ({@code MappedByteBuffer}), sin ejecutar ningún constructor de empleado.
+ * Las consultas se resuelven directamente sobre el fichero proyectado y los
+ * objetos {@link Empleado} o {@link Jefe} solo se crean cuando se piden.
+ * <p>
+ * Formato (little-endian):
+ * </p>
+ * <ul>
+ * <li>Cabecera de {@value #TAMANO_CABECERA} bytes: marca "EMPS", versión,
+ * tamaño de registro, número de registros, posición y longitud de la tabla
+ * de cadenas e indicadores (si algún empleado depende de un jefe).</li>
+ * <li>Un registro de {@value #TAMANO_REGISTRO} bytes por empleado, ordenados
+ * por número de empleado para buscarlos con búsqueda binaria: número, tipo,
+ * sexo, sueldo en céntimos, IRPF en puntos básicos, fechas como día epoch, posiciones de nombre, DNI, NSS,
+ * cargo y departamento en la tabla de cadenas, número de subordinados,
+ * número de descuentos y número de empleado de su jefe (0 si no tiene).</li>
+ * <li>Tabla de cadenas: cada cadena distinta aparece una sola vez, como su
+ * longitud en bytes seguida de sus bytes en UTF-8.</li>
+ * </ul>
+ * <p>
+ * Las instancias son inmutables y se pueden consultar desde varios hilos.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public final class Instantanea {
+
+    /** Versión del formato que escribe y lee esta clase */
+    public static final int VERSION = 3;
+
+    /** Marca de los ficheros de instantánea ("EMPS") */
+    private static final int MARCA = 0x454D5053;
+
+    /** Tamaño de la cabecera en bytes */
+    static final int TAMANO_CABECERA = 40;
+
+    /** Tamaño de cada registro en bytes */
+    static final int TAMANO_REGISTRO = 64;
+
+    /** Posición que indica una cadena null */
+    private static final int SIN_CADENA = -1;
+
+    /** Día epoch que indica una fecha null */
+    private static final int SIN_FECHA = Integer.MIN_VALUE;
+
+    /** Tipo de registro de un empleado normal */
+    private static final byte TIPO_EMPLEADO = 0;
+
+    /** Tipo de registro de un jefe */
+    private static final byte TIPO_JEFE = 1;
+
+    /** Número de jefe de un empleado que no depende de ninguno */
+    private static final int SIN_SUPERIOR = 0;
+
+    /** Indicador de cabecera: algún empleado depende de un jefe */
+    private static final int CON_JERARQUIA = 1;
+
+    /** Posibles valores del sexo, indexados por ordinal */
+    private static final Persona.Sexo[] SEXOS = Persona.Sexo.values();
+
+    // Posiciones de los campos dentro de la cabecera
+    private static final int CAB_MARCA = 0;
+    private static final int CAB_VERSION = 4;
+    private static final int CAB_TAMANO_REGISTRO = 8;
+    private static final int CAB_NUM_REGISTROS = 12;
+    private static final int CAB_INICIO_CADENAS = 16;
+    private static final int CAB_LONGITUD_CADENAS = 24;
+    private static final int CAB_INDICADORES = 32;
+
+    // Posiciones de los campos dentro de cada registro
+    private static final int REG_NUM_EMPLEADO = 0;
+    private static final int REG_TIPO = 4;
+    private static final int REG_SEXO = 5;
+    private static final int REG_SUELDO = 8;
+    private static final int REG_IRPF = 16;
+    private static final int REG_FECHA_NAC = 24;
+    private static final int REG_FECHA_CONTRATACION = 28;
+    private static final int REG_NOMBRE = 32;
+    private static final int REG_DNI = 36;
+    private static final int REG_NSS = 40;
+    private static final int REG_CARGO = 44;
+    private static final int REG_DEPARTAMENTO = 48;
+    private static final int REG_NUM_SUBORDINADOS = 52;
+    private static final int REG_NUM_DESCUENTOS = 56;
+    private static final int REG_SUPERIOR = 60;
+
+    /** Tamaño del buffer de escritura */
+    private static final int TAMANO_BUFFER = 1 << 20;
+
+    /** Contenido del fichero (solo se usan lecturas absolutas) */
+    private final ByteBuffer datos;
+
+    /** Número de registros */
+    private final int numRegistros;
+
+    /** Posición de la tabla de cadenas en el fichero */
+    private final int inicioCadenas;
+
+    /**
+     * Constructor interno a partir del contenido ya validado.
+     *
+     * @param datos Contenido del fichero
+     * @param numRegistros Número de registros
+     * @param inicioCadenas Posición de la tabla de cadenas
+     */
+    private Instantanea(ByteBuffer datos, int numRegistros, int inicioCadenas) {
+        this.datos = datos;
+        this.numRegistros = numRegistros;
+        this.inicioCadenas = inicioCadenas;
+    }
+
+    // ------------------------------------------------------------------
+    // Escritura
+    // ------------------------------------------------------------------
+
+    /**
+     * Guarda los empleados de un registro, con sus contadores de descuentos.
+     * El fichero se escribe primero con otro nombre y después se renombra, de
+     * modo que nunca queda una instantánea a medio escribir.
+     *
+     * @param registro Registro a guardar
+     * @param fichero Ruta del fichero de destino
+     * @return Número de empleados guardados
+     * @throws IOException si falla la escritura
+     */
+    public static int escribir(Registro registro, Path fichero) throws IOException {
+        List<Empleado> lista = registro.obtenerEmpleados();
+        Empleado[] empleados = lista.toArray(new Empleado[0]);
+        Arrays.sort(empleados, Comparator.comparingInt(Empleado::getNumEmpleado));
+        int[] descuentos = new int[empleados.length];
+        for (int i = 0; i < empleados.length; i++) {
+            descuentos[i] = registro.obtenerNumeroDescuentos(empleados[i]);
+        }
+        return escribir(empleados, descuentos, fichero);
+    }
+
+    /**
+     * Guarda una colección de empleados, sin descuentos.
+     *
+     * @param empleados Empleados a guardar (se ignoran los null)
+     * @param fichero Ruta del fichero de destino
+     * @return Número de empleados guardados
+     * @throws IOException si falla la escritura
+     * @throws IllegalArgumentException si hay dos empleados con el mismo número
+     */
+    public static int escribir(Collection<? extends Empleado> empleados, Path fichero) throws IOException {
+        Empleado[] ordenados = empleados.stream()
+                .filter(e -> e != null)
+                .sorted(Comparator.comparingInt(Empleado::getNumEmpleado))
+                .toArray(Empleado[]::new);
+        return escribir(ordenados, new int[ordenados.length], fichero);
+    }
+
+    /**
+     * Escribe los empleados ya ordenados por número.
+     *
+     * @param empleados Empleados ordenados por número de empleado
+     * @param descuentos Número de descuentos de cada empleado
+     * @param fichero Ruta del fichero de destino
+     * @return Número de empleados guardados
+     * @throws IOException si falla la escritura
+     */
+    private static int escribir(Empleado[] empleados, int[] descuentos, Path fichero) throws IOException {
+        for (int i = 1; i < empleados.length; i++) {
+            if (empleados[i].getNumEmpleado() == empleados[i - 1].getNumEmpleado()) {
+                throw new IllegalArgumentException("Número de empleado repetido: " + empleados[i].getNumEmpleado());
+            }
+        }
+        Path temporal = fichero.resolveSibling(fichero.getFileName() + ".tmp");
+        TablaCadenas cadenas = new TablaCadenas();
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            canal.position(TAMANO_CABECERA);
+            int indicadores = 0;
+            for (int i = 0; i < empleados.length; i++) {
+                if (buffer.remaining() < TAMANO_REGISTRO) {
+                    escribirBuffer(canal, buffer);
+                }
+                escribirRegistro(buffer, empleados[i], descuentos[i], cadenas);
+                if (empleados[i].getSuperior() != null) {
+                    indicadores |= CON_JERARQUIA;
+                }
+            }
+            escribirBuffer(canal, buffer);
+            long inicioCadenas = canal.position();
+            cadenas.escribir(canal);
+
+            buffer.clear();
+            buffer.putInt(CAB_MARCA, MARCA)
+                    .putInt(CAB_VERSION, VERSION)
+                    .putInt(CAB_TAMANO_REGISTRO, TAMANO_REGISTRO)
+                    .putInt(CAB_NUM_REGISTROS, empleados.length)
+                    .putLong(CAB_INICIO_CADENAS, inicioCadenas)
+                    .putLong(CAB_LONGITUD_CADENAS, cadenas.longitud())
+                    .putInt(CAB_INDICADORES, indicadores)
+                    .putInt(CAB_INDICADORES + 4, 0);
+            buffer.limit(TAMANO_CABECERA);
+            while (buffer.hasRemaining()) {
+                canal.write(buffer, buffer.position());
+            }
+            canal.force(true);
+        }
+        Files.move(temporal, fichero, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return empleados.length;
+    }
+
+    /**
+     * Escribe el registro de un empleado en el buffer.
+     *
+     * @param buffer Destino
+     * @param e Empleado
+     * @param numDescuentos Número de descuentos del empleado
+     * @param cadenas Tabla de cadenas en construcción
+     */
+    private static void escribirRegistro(ByteBuffer buffer, Empleado e, int numDescuentos, TablaCadenas cadenas) {
+        Jefe jefe = (e instanceof Jefe) ? (Jefe) e : null;
+        Jefe superior = e.getSuperior();
+        Persona.Sexo sexo = e.getSexo();
+        buffer.putInt(e.getNumEmpleado())
+                .put(jefe != null ? TIPO_JEFE : TIPO_EMPLEADO)
+                .put((byte) (sexo != null ? sexo.ordinal() : Persona.Sexo.DESCONOCIDO.ordinal()))
+                .putShort((short) 0)
+                .putLong(e.getSueldoCentimos())
+                .putInt(e.getIrpfPuntosBasicos())
+                .putInt(0)
+                .putInt(diaEpoch(e.getFechaNac()))
+                .putInt(diaEpoch(e.getFechaContratacion()))
+                .putInt(cadenas.posicion(e.getNombre()))
+                .putInt(cadenas.posicion(e.getDni()))
+                .putInt(cadenas.posicion(e.getNss()))
+                .putInt(cadenas.posicion(e.getCargo()))
+                .putInt(cadenas.posicion(jefe != null ? jefe.getDepartamento() : null))
+                .putInt(jefe != null ? jefe.getNumSubordinados() : 0)
+                .putInt(numDescuentos)
+                .putInt(superior != null ? superior.getNumEmpleado() : SIN_SUPERIOR);
+    }
+
+    /**
+     * Vuelca al canal el contenido del buffer y lo deja vacío.
+     *
+     * @param canal Destino
+     * @param buffer Buffer en modo escritura
+     * @throws IOException si falla la escritura
+     */
+    private static void escribirBuffer(FileChannel canal, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Convierte una fecha en día epoch.
+     *
+     * @param fecha Fecha (puede ser null)
+     * @return Día epoch, o SIN_FECHA si la fecha es null
+     */
+    private static int diaEpoch(Fecha fecha) {
+        return (fecha == null) ? SIN_FECHA : fecha.getDiaEpoch();
+    }
+
+    /**
+     * Tabla de cadenas en construcción. Las cadenas repetidas (cargos,
+     * departamentos...) se guardan una sola vez.
+     */
+    private static final class TablaCadenas {
+
+        /** Posición de cada cadena ya añadida */
+        private final Map<String, Integer> posiciones = new HashMap<>();
+
+        /** Contenido de la tabla */
+        private byte[] bytes = new byte[TAMANO_BUFFER];
+
+        /** Longitud ocupada de la tabla */
+        private int longitud;
+
+        /**
+         * Obtiene la posición de una cadena, añadiéndola si es nueva.
+         *
+         * @param cadena Cadena (puede ser null)
+         * @return Posición en la tabla, o SIN_CADENA si es null
+         */
+        int posicion(String cadena) {
+            if (cadena == null) {
+                return SIN_CADENA;
+            }
+            Integer posicion = posiciones.get(cadena);
+            if (posicion != null) {
+                return posicion;
+            }
+            byte[] utf8 = cadena.getBytes(StandardCharsets.UTF_8);
+            long nuevaLongitud = (long) longitud + 4 + utf8.length;
+            if (nuevaLongitud > Integer.MAX_VALUE - TAMANO_BUFFER) {
+                throw new IllegalStateException("La tabla de cadenas supera el tamaño máximo de una instantánea");
+            }
+            if (nuevaLongitud > bytes.length) {
+                bytes = Arrays.copyOf(bytes, (int) Math.min(Integer.MAX_VALUE - 8L,
+                        Math.max(nuevaLongitud, 2L * bytes.length)));
+            }
+            int inicio = longitud;
+            ByteBuffer.wrap(bytes, inicio, 4).order(ByteOrder.LITTLE_ENDIAN).putInt(utf8.length);
+            System.arraycopy(utf8, 0, bytes, inicio + 4, utf8.length);
+            longitud = (int) nuevaLongitud;
+            posiciones.put(cadena, inicio);
+            return inicio;
+        }
+
+        /**
+         * Obtiene la longitud de la tabla.
+         *
+         * @return Bytes ocupados
+         */
+        int longitud() {
+            return longitud;
+        }
+
+        /**
+         * Escribe la tabla al final del canal.
+         *
+         * @param canal Destino
+         * @throws IOException si falla la escritura
+         */
+        void escribir(FileChannel canal) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, longitud);
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------
+    // Lectura
+    // ------------------------------------------------------------------
+
+    /**
+     * Abre una instantánea proyectando el fichero en memoria. El fichero no
+     * se lee entero: el sistema operativo carga las páginas a medida que se
+     * consultan.
+     *
+     * @param fichero Ruta de la instantánea
+     * @return Instantanea de solo lectura
+     * @throws IOException si el fichero no se puede leer, no es una
+     * instantánea o es de una versión no soportada
+     */
+    public static Instantanea abrir(Path fichero) throws IOException {
+        ByteBuffer datos;
+        try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            if (tamano < TAMANO_CABECERA) {
+                throw new IOException("El fichero " + fichero + " no es una instantánea de empleados");
+            }
+            if (tamano > Integer.MAX_VALUE) {
+                throw new IOException("La instantánea " + fichero + " supera los 2 GB");
+            }
+            datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamano).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (datos.getInt(CAB_MARCA) != MARCA) {
+            throw new IOException("El fichero " + fichero + " no es una instantánea de empleados");
+        }
+        int version = datos.getInt(CAB_VERSION);
+        if (version != VERSION) {
+            throw new IOException("Versión de instantánea no soportada: " + version + " (se esperaba " + VERSION + ")");
+        }
+        int numRegistros = datos.getInt(CAB_NUM_REGISTROS);
+        long inicioCadenas = datos.getLong(CAB_INICIO_CADENAS);
+        long longitudCadenas = datos.getLong(CAB_LONGITUD_CADENAS);
+        if (datos.getInt(CAB_TAMANO_REGISTRO) != TAMANO_REGISTRO || numRegistros < 0
+                || inicioCadenas != TAMANO_CABECERA + (long) numRegistros * TAMANO_REGISTRO
+                || inicioCadenas + longitudCadenas != datos.capacity()) {
+            throw new IOException("La instantánea " + fichero + " está dañada");
+        }
+        return new Instantanea(datos, numRegistros, (int) inicioCadenas);
+    }
+
+    /**
+     * Obtiene el número de empleados de la instantánea.
+     *
+     * @return Número de empleados
+     */
+    public int getNumEmpleados() {
+        return numRegistros;
+    }
+
+    /**
+     * Busca un empleado por su número con una búsqueda binaria sobre el fichero.
+     *
+     * @param numEmpleado Número de empleado
+     * @return Índice del empleado en la instantánea, o -1 si no está
+     */
+    public int buscar(int numEmpleado) {
+        int indice = primerIndiceDesde(numEmpleado);
+        return (indice < numRegistros && getNumEmpleado(indice) == numEmpleado) ? indice : -1;
+    }
+
+    /**
+     * Busca el primer registro con número de empleado mayor o igual que el indicado.
+     *
+     * @param numEmpleado Número de empleado
+     * @return Índice del registro, o el número de registros si no hay ninguno
+     */
+    private int primerIndiceDesde(int numEmpleado) {
+        int bajo = 0;
+        int alto = numRegistros;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (getNumEmpleado(medio) < numEmpleado) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    /**
+     * Obtiene la posición en el fichero de un registro.
+     *
+     * @param indice Índice del registro
+     * @return Posición del registro
+     * @throws IndexOutOfBoundsException si el índice no es válido
+     */
+    private int posicion(int indice) {
+        if (indice < 0 || indice >= numRegistros) {
+            throw new IndexOutOfBoundsException("Índice " + indice + " fuera de [0, " + numRegistros + ")");
+        }
+        return TAMANO_CABECERA + indice * TAMANO_REGISTRO;
+    }
+
+    /**
+     * Obtiene el número de empleado de un registro.
+     *
+     * @param indice Índice del registro
+     * @return Número de empleado
+     */
+    public int getNumEmpleado(int indice) {
+        return datos.getInt(posicion(indice) + REG_NUM_EMPLEADO);
+    }
+
+    /**
+     * Indica si un registro corresponde a un jefe.
+     *
+     * @param indice Índice del registro
+     * @return true si es un jefe
+     */
+    public boolean esJefe(int indice) {
+        return datos.get(posicion(indice) + REG_TIPO) == TIPO_JEFE;
+    }
+
+    /**
+     * Obtiene el sueldo de un registro.
+     *
+     * @param indice Índice del registro
+     * @return Sueldo bruto
+     */
+    public double getSueldo(int indice) {
+        return Dinero.euros(datos.getLong(posicion(indice) + REG_SUELDO));
+    }
+
+    /**
+     * Obtiene el IRPF de un registro.
+     *
+     * @param indice Índice del registro
+     * @return IRPF entre 0.0 y 1.0
+     */
+    public double getIrpf(int indice) {
+        return Dinero.tasa(datos.getInt(posicion(indice) + REG_IRPF));
+    }
+
+    /**
+     * Suma o resta un registro de los totales de un {@link Registro}, sin
+     * crear el empleado.
+     *
+     * @param totales Totales del registro
+     * @param indice Índice del registro
+     * @param numero 1 para sumarlo, -1 para restarlo
+     */
+    void sumarA(TotalesRegistro totales, int indice, int numero) {
+        int p = posicion(indice);
+        boolean jefe = datos.get(p + REG_TIPO) == TIPO_JEFE;
+        int departamento = jefe
+                ? Diccionario.DEPARTAMENTOS.codificar(cadena(datos.getInt(p + REG_DEPARTAMENTO)))
+                : Diccionario.SIN_CODIGO;
+        totales.agregar(jefe ? PlantillaColumnar.TIPO_JEFE : PlantillaColumnar.TIPO_EMPLEADO,
+                numero * datos.getLong(p + REG_SUELDO), datos.getInt(p + REG_IRPF), departamento, numero);
+    }
+
+    /**
+     * Obtiene el número de empleado del jefe de un registro.
+     *
+     * @param indice Índice del registro
+     * @return Número del jefe, o 0 si no dependía de ninguno
+     */
+    public int getSuperior(int indice) {
+        return datos.getInt(posicion(indice) + REG_SUPERIOR);
+    }
+
+    /**
+     * Indica si algún empleado de la instantánea dependía de un jefe.
+     *
+     * @return true si hay que volver a montar el organigrama al cargarla
+     */
+    public boolean tieneJerarquia() {
+        return (datos.getInt(CAB_INDICADORES) & CON_JERARQUIA) != 0;
+    }
+
+    /**
+     * Obtiene el número de descuentos aplicados de un registro.
+     *
+     * @param indice Índice del registro
+     * @return Número de descuentos
+     */
+    public int getNumDescuentos(int indice) {
+        return datos.getInt(posicion(indice) + REG_NUM_DESCUENTOS);
+    }
+
+    /**
+     * Suma los sueldos de todos los empleados directamente sobre el fichero.
+     *
+     * @return Total de sueldos brutos
+     */
+    public double totalizarSueldos() {
+        long total = 0;
+        for (int i = 0, p = TAMANO_CABECERA + REG_SUELDO; i < numRegistros; i++, p += TAMANO_REGISTRO) {
+            total += datos.getLong(p);
+        }
+        return Dinero.euros(total);
+    }
+
+    /**
+     * Reserva en los generadores globales los números de empleado de la
+     * instantánea, para que los empleados creados después no repitan números
+     * de registros que todavía no se han materializado. Como los registros
+     * están ordenados, basta con reservar el último de cada rango.
+     */
+    void reservarCodigos() {
+        int primerJefe = primerIndiceDesde(GeneradorCodigos.CODIGO_INICIAL_JEFE);
+        if (primerJefe > 0) {
+            GeneradorCodigos.reservarCodigo(getNumEmpleado(primerJefe - 1));
+        }
+        if (primerJefe < numRegistros) {
+            GeneradorCodigos.reservarCodigo(getNumEmpleado(numRegistros - 1));
+        }
+    }
+
+    /**
+     * Busca un empleado y lo crea a partir de su registro.
+     *
+     * @param numEmpleado Número de empleado
+     * @return Nuevo objeto Empleado o Jefe, o null si no está en la instantánea
+     */
+    public Empleado obtenerEmpleado(int numEmpleado) {
+        int indice = buscar(numEmpleado);
+        return (indice < 0) ? null : materializar(indice);
+    }
+
+    /**
+     * Crea el Empleado o el Jefe de un registro, con su número original.
+     * Cada llamada crea un objeto nuevo.
+     *
+     * @param indice Índice del registro
+     * @return Empleado o Jefe
+     */
+    public Empleado materializar(int indice) {
+        int p = posicion(indice);
+        int numEmpleado = datos.getInt(p + REG_NUM_EMPLEADO);
+        int sexo = datos.get(p + REG_SEXO);
+        String nss = cadena(datos.getInt(p + REG_NSS));
+        Fecha fechaContratacion = fecha(datos.getInt(p + REG_FECHA_CONTRATACION));
+        double irpf = Dinero.tasa(datos.getInt(p + REG_IRPF));
+        String cargo = cadena(datos.getInt(p + REG_CARGO));
+        String nombre = cadena(datos.getInt(p + REG_NOMBRE));
+        String dni = cadena(datos.getInt(p + REG_DNI));
+        Fecha fechaNac = fecha(datos.getInt(p + REG_FECHA_NAC));
+        double sueldo = Dinero.euros(datos.getLong(p + REG_SUELDO));
+        Persona.Sexo s = (sexo >= 0 && sexo < SEXOS.length) ? SEXOS[sexo] : Persona.Sexo.DESCONOCIDO;
+        if (datos.get(p + REG_TIPO) == TIPO_JEFE) {
+            return new Jefe(numEmpleado, nss, fechaContratacion, irpf, cargo, nombre, s, dni, fechaNac, sueldo,
+                    cadena(datos.getInt(p + REG_DEPARTAMENTO)), datos.getInt(p + REG_NUM_SUBORDINADOS));
+        }
+        return new Empleado(numEmpleado, nss, fechaContratacion, irpf, cargo, nombre, s, dni, fechaNac, sueldo);
+    }
+
+    /**
+     * Lee una cadena de la tabla de cadenas.
+     *
+     * @param posicion Posición en la tabla, o SIN_CADENA
+     * @return Cadena, o null
+     */
+    private String cadena(int posicion) {
+        if (posicion == SIN_CADENA) {
+            return null;
+        }
+        int inicio = inicioCadenas + posicion;
+        byte[] utf8 = new byte[datos.getInt(inicio)];
+        for (int i = 0; i < utf8.length; i++) {
+            utf8[i] = datos.get(inicio + 4 + i);
+        }
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Convierte un día epoch guardado en Fecha.
+     *
+     * @param diaEpoch Día epoch, o SIN_FECHA
+     * @return Fecha (compartida si está en la caché), o null
+     */
+    private static Fecha fecha(int diaEpoch) {
+        return (diaEpoch == SIN_FECHA) ? null : Fecha.deDiaEpoch(diaEpoch);
+    }
+}
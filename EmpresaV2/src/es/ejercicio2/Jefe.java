@@ -1,27 +1,103 @@
 package es.ejercicio2;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
 /**
  * Clase Jefe que extiende Empleado.
  * Representa a un empleado con responsabilidades de dirección de departamento.
  * Los jefes tienen la capacidad de modificar sueldos de empleados bajo su supervisión.
+ * <p>
+ * Cada jefe tiene una lista de subordinados directos, que pueden ser a su vez
+ * jefes, formando un organigrama de varios niveles. El jefe mantiene al día,
+ * de forma incremental, la suma de los sueldos de sus subordinados directos
+ * (el presupuesto del departamento) y el número de empleados y la suma de
+ * sueldos de toda la estructura que depende de él. Cada cambio de sueldo,
+ * alta o baja de un subordinado suma la diferencia en su jefe y en los jefes
+ * de este hasta la raíz, así que consultar un presupuesto es O(1) y
+ * actualizarlo es O(profundidad del organigrama), sin recorrer empleados.
+ * Las sumas se llevan en céntimos, así que son exactas por muchos cambios
+ * que se acumulen.
+ * </p>
+ * <p>
+ * Los cambios de estructura (agregar o quitar subordinados) se serializan
+ * con un cerrojo común. Los cambios de sueldo no lo toman: suman la
+ * diferencia en los acumuladores de los jefes sin bloquearse entre sí, y
+ * solo toman en modo lectura uno de varios cerrojos repartidos por número
+ * de empleado, para que la cadena de superiores no cambie mientras la
+ * recorren. Un cambio de estructura toma todos esos cerrojos en modo
+ * escritura.
+ * </p>
  * 
  * @author diegowolder
  * @version 1.0
  */
 public class Jefe extends Empleado {
 
-    /** Departamento que dirige el jefe */
-    private String departamento;
+    /**
+     * Departamento que dirige el jefe, como código de
+     * {@link Diccionario#DEPARTAMENTOS}. Volatile para que
+     * {@link TotalesRegistro} lea siempre el último al contabilizarlo.
+     */
+    private volatile int departamento;
     
-    /** Número de empleados subordinados al jefe */
+    /**
+     * Número de empleados subordinados al jefe: los de la lista de
+     * subordinados y, si se ha fijado con setNumSubordinados() o viene de un
+     * fichero, los que no están en la jerarquía. Nunca es menor que el
+     * tamaño de la lista.
+     */
     private int numSubordinados;
 
+    /** Cerrojo común a los cambios de estructura de la jerarquía */
+    private static final Object JERARQUIA = new Object();
+
+    /** Bits del índice de franja */
+    private static final int BITS_FRANJAS = 5;
+
+    /** Número de cerrojos de los cambios de sueldo */
+    private static final int NUM_FRANJAS = 1 << BITS_FRANJAS;
+
+    /** Multiplicador para repartir los números de empleado entre franjas */
+    private static final int MULTIPLICADOR_FRANJAS = 0x9E3779B9;
+
+    /**
+     * Cerrojos de los cambios de sueldo: cada cambio toma el de su franja en
+     * modo lectura; los cambios de estructura los toman todos en modo escritura
+     */
+    private static final StampedLock[] FRANJAS = new StampedLock[NUM_FRANJAS];
+
+    static {
+        for (int i = 0; i < NUM_FRANJAS; i++) {
+            FRANJAS[i] = new StampedLock();
+        }
+    }
+
+    /** Acceso atómico al sueldo contabilizado de cada empleado */
+    private static final AtomicLongFieldUpdater<Empleado> CONTABILIZADO =
+            AtomicLongFieldUpdater.newUpdater(Empleado.class, "sueldoContabilizado");
+
+    /** Subordinados directos del jefe */
+    private final List<Empleado> subordinados = new ArrayList<>(0);
+
+    /** Suma de los sueldos de los subordinados directos, en céntimos */
+    private final LongAdder sueldosSubordinados = new LongAdder();
+
+    /** Suma de los sueldos de todos los empleados que dependen del jefe, a cualquier nivel, en céntimos */
+    private final LongAdder sueldosEstructura = new LongAdder();
+
+    /** Número de empleados que dependen del jefe, a cualquier nivel */
+    private int numEmpleadosEstructura;
+
     /**
      * Constructor por defecto que inicializa los atributos con valores por defecto.
      */
     public Jefe() {
         super();
-        this.departamento = null;
+        this.departamento = Diccionario.SIN_CODIGO;
         this.numSubordinados = 0;
     }
 
@@ -37,17 +113,56 @@ public class Jefe extends Empleado {
      */
     public Jefe(String nombre, Sexo sexo, Fecha fechaContratacion, double sueldo, String departamento) {
         super(nombre, sexo, fechaContratacion, sueldo);
-        this.departamento = departamento;
+        this.departamento = Diccionario.DEPARTAMENTOS.codificar(departamento);
         this.numSubordinados = 0;
         // numEmpleado ya se asignó automáticamente en el constructor de Empleado
     }
 
+    /**
+     * Constructor que restaura un jefe con un número de empleado ya conocido
+     * (por ejemplo, al importarlo de un fichero).
+     *
+     * @param numEmpleado Número de empleado, del rango de los jefes
+     * @param nss Número de la Seguridad Social
+     * @param fechaContratacion Fecha de contratación
+     * @param irpf IRPF entre 0.0 y 1.0
+     * @param cargo Cargo del jefe
+     * @param nombre Nombre completo
+     * @param sexo Sexo del jefe
+     * @param dni DNI del jefe
+     * @param fechaNac Fecha de nacimiento
+     * @param sueldo Sueldo bruto (debe ser >= 0)
+     * @param departamento Departamento que dirige el jefe
+     * @param numSubordinados Número de empleados subordinados guardado en el
+     *        fichero, que ya incluye los que se vuelvan a vincular con
+     *        {@link #restaurarSubordinado(Empleado)}
+     * @throws IllegalArgumentException si el número no es de jefe, o si el IRPF o el sueldo no son válidos
+     */
+    Jefe(int numEmpleado, String nss, Fecha fechaContratacion, double irpf, String cargo,
+            String nombre, Sexo sexo, String dni, Fecha fechaNac, double sueldo,
+            String departamento, int numSubordinados) {
+        super(numEmpleado, nss, fechaContratacion, irpf, cargo, nombre, sexo, dni, fechaNac, sueldo);
+        this.departamento = Diccionario.DEPARTAMENTOS.codificar(departamento);
+        this.numSubordinados = numSubordinados;
+    }
+
     /**
      * Obtiene el departamento que dirige el jefe.
      * 
      * @return Nombre del departamento
      */
     public String getDepartamento() {
+        return Diccionario.DEPARTAMENTOS.texto(departamento);
+    }
+
+    /**
+     * Obtiene el código del departamento del jefe en
+     * {@link Diccionario#DEPARTAMENTOS}. Dos jefes dirigen el mismo
+     * departamento si y solo si tienen el mismo código.
+     *
+     * @return Código del departamento, o Diccionario.SIN_CODIGO si no tiene
+     */
+    public int getCodigoDepartamento() {
         return departamento;
     }
 
@@ -57,7 +172,12 @@ public class Jefe extends Empleado {
      * @param departamento Nuevo nombre del departamento
      */
     public void setDepartamento(String departamento) {
-        this.departamento = departamento;
+        this.departamento = Diccionario.DEPARTAMENTOS.codificar(departamento);
+        Registro r = getRegistro();
+        if (r != null) {
+            r.actualizarTotales(this);
+        }
+        notificarDatos();
     }
 
     /**
@@ -70,57 +190,431 @@ public class Jefe extends Empleado {
     }
 
     /**
-     * Establece el número de empleados subordinados al jefe.
+     * Establece el número de empleados subordinados al jefe. Sirve para los
+     * jefes cuyos subordinados no están dados de alta en la jerarquía;
+     * agregarSubordinado() y eliminarSubordinado() lo actualizan solos, y
+     * los ficheros de {@link CodecCSV} e {@link Instantanea} guardan tanto
+     * el número como el jefe de cada empleado.
      * 
-     * @param numSubordinados Nuevo número de subordinados (debe ser >= 0)
-     * @throws IllegalArgumentException si el número de subordinados es negativo
+     * @param numSubordinados Nuevo número de subordinados (debe ser >= 0 y no menor que los subordinados agregados)
+     * @throws IllegalArgumentException si el número de subordinados es negativo o menor que los agregados
      */
     public void setNumSubordinados(int numSubordinados) {
         if (numSubordinados < 0) {
             throw new IllegalArgumentException("El número de subordinados no puede ser negativo: " + numSubordinados);
         }
-        this.numSubordinados = numSubordinados;
+        synchronized (JERARQUIA) {
+            if (numSubordinados < subordinados.size()) {
+                throw new IllegalArgumentException("El jefe ya tiene " + subordinados.size()
+                        + " subordinados agregados: " + numSubordinados);
+            }
+            this.numSubordinados = numSubordinados;
+        }
+    }
+
+    /**
+     * Añade un subordinado directo al jefe. Si el empleado dependía de otro
+     * jefe, se le traslada.
+     *
+     * @param empleado Empleado que pasa a depender del jefe
+     * @return true si se ha añadido, false si es null o ya era subordinado directo del jefe
+     * @throws IllegalArgumentException si el empleado es el propio jefe o uno de sus superiores
+     */
+    public boolean agregarSubordinado(Empleado empleado) {
+        return agregar(empleado, true);
     }
 
     /**
-     * Permite subir el sueldo solo a empleados que NO sean Jefe.
-     * Si se intenta aplicar sobre un Jefe, la operación se rechaza silenciosamente.
+     * Vuelve a vincular un subordinado al importar un fichero que guarda el
+     * jefe de cada empleado. No suma en el número de subordinados, que ya
+     * viene del fichero y los incluye; si el fichero traía menos, se sube al
+     * tamaño de la lista.
+     *
+     * @param empleado Empleado que dependía del jefe al guardar el fichero
+     * @throws IllegalArgumentException si el empleado es el propio jefe o uno de sus superiores
+     */
+    void restaurarSubordinado(Empleado empleado) {
+        synchronized (JERARQUIA) {
+            agregar(empleado, false);
+            if (numSubordinados < subordinados.size()) {
+                numSubordinados = subordinados.size();
+            }
+        }
+    }
+
+    /**
+     * Añade un subordinado directo al jefe, trasladándolo si dependía de otro.
+     *
+     * @param empleado Empleado que pasa a depender del jefe
+     * @param contar true para sumarlo al número de subordinados
+     * @return true si se ha añadido, false si es null o ya era subordinado directo del jefe
+     * @throws IllegalArgumentException si el empleado es el propio jefe o uno de sus superiores
+     */
+    private boolean agregar(Empleado empleado, boolean contar) {
+        if (empleado == null) {
+            return false;
+        }
+        synchronized (JERARQUIA) {
+            if (empleado.superior == this) {
+                return false;
+            }
+            for (Jefe j = this; j != null; j = j.superior) {
+                if (j == empleado) {
+                    throw new IllegalArgumentException("El empleado " + empleado.getNumEmpleado()
+                            + " es superior del jefe " + getNumEmpleado() + "; se crearía un ciclo");
+                }
+            }
+            long[] sellos = bloquearSueldos();
+            try {
+                if (empleado.superior != null) {
+                    desvincular(empleado);
+                }
+                vincular(this, empleado, contar);
+            } finally {
+                desbloquearSueldos(sellos);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Quita un subordinado directo del jefe. Los subordinados del empleado
+     * quitado, si es jefe, siguen dependiendo de él.
+     *
+     * @param empleado Empleado que deja de depender del jefe
+     * @return true si se ha quitado, false si no era subordinado directo del jefe
+     */
+    public boolean eliminarSubordinado(Empleado empleado) {
+        if (empleado == null) {
+            return false;
+        }
+        synchronized (JERARQUIA) {
+            if (empleado.superior != this) {
+                return false;
+            }
+            long[] sellos = bloquearSueldos();
+            try {
+                desvincular(empleado);
+            } finally {
+                desbloquearSueldos(sellos);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Obtiene los subordinados directos del jefe.
+     *
+     * @return Copia de la lista de subordinados (sin orden definido)
+     */
+    public List<Empleado> listarSubordinados() {
+        synchronized (JERARQUIA) {
+            return new ArrayList<>(subordinados);
+        }
+    }
+
+    /**
+     * Calcula el presupuesto del departamento: la suma de los sueldos de los
+     * subordinados directos del jefe. Se mantiene al día con cada cambio, así
+     * que no recorre a los subordinados.
+     *
+     * @return Suma de los sueldos de los subordinados directos
+     */
+    public double calcularPresupuestoDepartamento() {
+        return Dinero.euros(sueldosSubordinados.sum());
+    }
+
+    /**
+     * Calcula la suma de los sueldos de todos los empleados que dependen del
+     * jefe, directamente o a través de otros jefes (sin contar el suyo).
+     *
+     * @return Suma de los sueldos de la estructura del jefe
+     */
+    public double calcularPresupuestoEstructura() {
+        return Dinero.euros(sueldosEstructura.sum());
+    }
+
+    /**
+     * Cuenta los empleados que dependen del jefe, directamente o a través
+     * de otros jefes.
+     *
+     * @return Número de empleados de la estructura del jefe
+     */
+    public int contarEmpleadosEstructura() {
+        synchronized (JERARQUIA) {
+            return numEmpleadosEstructura;
+        }
+    }
+
+    /**
+     * Suma en los presupuestos de los jefes de un empleado la diferencia
+     * entre su sueldo actual y el que tenían contabilizado. Lo llama
+     * {@link Empleado} después de cada cambio de sueldo. No toma el cerrojo
+     * de la jerarquía: el sueldo contabilizado se avanza con una comparación
+     * atómica, así que cada diferencia se suma una sola vez aunque varios
+     * hilos cambien a la vez el sueldo del mismo empleado, y el último en
+     * terminar deja contabilizado el sueldo definitivo.
+     *
+     * @param empleado Empleado cuyo sueldo ha cambiado
+     */
+    static void contabilizarSueldo(Empleado empleado) {
+        StampedLock franja = FRANJAS[(empleado.getNumEmpleado() * MULTIPLICADOR_FRANJAS) >>> (Integer.SIZE - BITS_FRANJAS)];
+        long sello = franja.readLock();
+        try {
+            Jefe jefe = empleado.superior;
+            if (jefe == null) {
+                return;
+            }
+            while (true) {
+                long contabilizado = empleado.sueldoContabilizado;
+                long diferencia = empleado.getSueldoCentimos() - contabilizado;
+                if (diferencia == 0) {
+                    return;
+                }
+                if (CONTABILIZADO.compareAndSet(empleado, contabilizado, contabilizado + diferencia)) {
+                    jefe.sueldosSubordinados.add(diferencia);
+                    propagar(jefe, diferencia, 0);
+                    return;
+                }
+            }
+        } finally {
+            franja.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Quita un empleado de la lista de subordinados de su jefe, si tiene.
+     * Lo usa {@link Registro} al dar de baja al empleado.
+     *
+     * @param empleado Empleado dado de baja
+     */
+    static void desvincularDeSuperior(Empleado empleado) {
+        if (empleado.superior == null) {
+            return;
+        }
+        synchronized (JERARQUIA) {
+            if (empleado.superior != null) {
+                long[] sellos = bloquearSueldos();
+                try {
+                    desvincular(empleado);
+                } finally {
+                    desbloquearSueldos(sellos);
+                }
+            }
+        }
+    }
+
+    /**
+     * Toma en modo escritura todos los cerrojos de los cambios de sueldo,
+     * en orden, para que ningún cambio de sueldo recorra la jerarquía
+     * mientras cambia su estructura. Debe llamarse con el cerrojo de la
+     * jerarquía tomado.
+     *
+     * @return Sellos de los cerrojos
+     */
+    private static long[] bloquearSueldos() {
+        long[] sellos = new long[NUM_FRANJAS];
+        for (int i = 0; i < NUM_FRANJAS; i++) {
+            sellos[i] = FRANJAS[i].writeLock();
+        }
+        return sellos;
+    }
+
+    /**
+     * Libera los cerrojos tomados con {@link #bloquearSueldos()}, en orden inverso.
+     *
+     * @param sellos Sellos de los cerrojos
+     */
+    private static void desbloquearSueldos(long[] sellos) {
+        for (int i = NUM_FRANJAS - 1; i >= 0; i--) {
+            FRANJAS[i].unlockWrite(sellos[i]);
+        }
+    }
+
+    /**
+     * Añade un empleado sin jefe a los subordinados de un jefe y suma su
+     * sueldo y su estructura en toda la cadena de superiores. Debe llamarse
+     * con el cerrojo de la jerarquía y los de los sueldos tomados.
+     * <p>
+     * El jefe se publica antes de leer el sueldo: un cambio de sueldo que
+     * llegue entre medias ya ve el jefe y espera en su franja a que termine
+     * el vínculo, y entonces suma la diferencia con lo contabilizado. Si se
+     * publicara al final, lo vería sin jefe y su diferencia se perdería.
+     * </p>
+     *
+     * @param jefe Nuevo jefe
+     * @param empleado Empleado a añadir
+     * @param contar true para sumarlo al número de subordinados del jefe
+     */
+    private static void vincular(Jefe jefe, Empleado empleado, boolean contar) {
+        empleado.superior = jefe;
+        empleado.sueldoContabilizado = empleado.getSueldoCentimos();
+        empleado.posicionEnSuperior = jefe.subordinados.size();
+        jefe.subordinados.add(empleado);
+        if (contar) {
+            jefe.numSubordinados++;
+        }
+        jefe.sueldosSubordinados.add(empleado.sueldoContabilizado);
+        propagar(jefe, pesoSueldo(empleado), pesoEmpleados(empleado));
+    }
+
+    /**
+     * Quita un empleado de los subordinados de su jefe (ocupando su hueco con
+     * el último) y resta su sueldo y su estructura en toda la cadena de
+     * superiores. Debe llamarse con el cerrojo de la jerarquía y los de los
+     * sueldos tomados.
+     *
+     * @param empleado Empleado con jefe
+     */
+    private static void desvincular(Empleado empleado) {
+        Jefe jefe = empleado.superior;
+        List<Empleado> lista = jefe.subordinados;
+        Empleado ultimo = lista.remove(lista.size() - 1);
+        if (ultimo != empleado) {
+            lista.set(empleado.posicionEnSuperior, ultimo);
+            ultimo.posicionEnSuperior = empleado.posicionEnSuperior;
+        }
+        jefe.numSubordinados--;
+        jefe.sueldosSubordinados.add(-empleado.sueldoContabilizado);
+        propagar(jefe, -pesoSueldo(empleado), -pesoEmpleados(empleado));
+        empleado.superior = null;
+    }
+
+    /**
+     * Suma una diferencia en la estructura de un jefe y de todos sus
+     * superiores. El número de empleados solo cambia con el cerrojo de la
+     * jerarquía tomado.
+     *
+     * @param desde Primer jefe de la cadena
+     * @param sueldo Diferencia en la suma de sueldos, en céntimos
+     * @param empleados Diferencia en el número de empleados
+     */
+    private static void propagar(Jefe desde, long sueldo, int empleados) {
+        for (Jefe j = desde; j != null; j = j.superior) {
+            if (empleados != 0) {
+                j.numEmpleadosEstructura += empleados;
+            }
+            j.sueldosEstructura.add(sueldo);
+        }
+    }
+
+    /**
+     * Obtiene lo que aporta un empleado a la suma de sueldos de sus superiores.
+     *
+     * @param empleado Empleado
+     * @return Su sueldo contabilizado más, si es jefe, el de su estructura, en céntimos
+     */
+    private static long pesoSueldo(Empleado empleado) {
+        long peso = empleado.sueldoContabilizado;
+        if (empleado instanceof Jefe) {
+            peso += ((Jefe) empleado).sueldosEstructura.sum();
+        }
+        return peso;
+    }
+
+    /**
+     * Obtiene lo que aporta un empleado al número de empleados de sus superiores.
+     *
+     * @param empleado Empleado
+     * @return 1 más, si es jefe, el número de empleados de su estructura
+     */
+    private static int pesoEmpleados(Empleado empleado) {
+        return (empleado instanceof Jefe) ? 1 + ((Jefe) empleado).numEmpleadosEstructura : 1;
+    }
+
+    /**
+     * Sube el sueldo a un empleado si lo permiten las reglas de subida de su
+     * registro ({@link Registro#setReglasSubida(ReglasNomina)}). Con las
+     * reglas por defecto solo se sube a empleados que NO sean Jefe; si se
+     * intenta aplicar sobre un Jefe, la operación se rechaza silenciosamente.
+     * El incremento tampoco puede superar el tope que fijen las reglas.
+     * Si el registro del empleado (o el del jefe, si el empleado es null)
+     * tiene {@link Metricas}, se anotan la subida y, si se rechaza, el motivo.
      * 
      * @param empleado Empleado al que se le subirá el sueldo
-     * @param incremento Cantidad a incrementar en el sueldo del empleado (debe ser > 0)
+     * @param incremento Cantidad a incrementar en el sueldo del empleado (debe
+     *        ser de al menos un céntimo una vez redondeada)
      * @return true si la subida fue exitosa, false si fue rechazada
      */
     public boolean subirSueldo(Empleado empleado, double incremento) {
+        Metricas m = Registro.metricas((empleado != null) ? empleado : this);
+        long inicio = (m == null) ? Metricas.SIN_MEDIDA : m.iniciar();
         if (empleado == null) {
-            return false;
+            return rechazar(m, inicio, Metricas.Rechazo.EMPLEADO_NULO);
         }
-        if (empleado instanceof Jefe) {
-            // Rechazar la operación: no se sube sueldo a otro Jefe
-            return false;
+        int tope = Registro.puntosSubida(empleado);
+        if (tope == 0) {
+            // Rechazar la operación: las reglas no permiten subirle el sueldo
+            // (por defecto, no se sube sueldo a otro Jefe)
+            return rechazar(m, inicio, Metricas.Rechazo.NO_PERMITIDA);
         }
         if (incremento <= 0) {
             // No se permiten incrementos negativos o cero
-            return false;
+            return rechazar(m, inicio, Metricas.Rechazo.INCREMENTO_NO_POSITIVO);
+        }
+        long centimos = Dinero.centimos(incremento);
+        if (centimos <= 0) {
+            // Ni los que se quedan en cero al redondear al céntimo
+            return rechazar(m, inicio, Metricas.Rechazo.INCREMENTO_NO_POSITIVO);
+        }
+        // El tope se comprueba contra el mismo sueldo al que se suma
+        long anterior = empleado.sumarSueldoConTope(centimos, tope);
+        if (anterior < 0) {
+            // El incremento supera el tope de las reglas
+            return rechazar(m, inicio, Metricas.Rechazo.SUPERA_TOPE);
+        }
+        long nuevo = anterior + centimos;
+        empleado.notificarSueldo(anterior, nuevo);
+        Registro.auditarSubida(this, empleado, anterior, nuevo);
+        if (m != null) {
+            m.registrar(Metricas.Operacion.SUBIR_SUELDO, inicio);
         }
-        empleado.setSueldo(empleado.getSueldo() + incremento);
         return true;
     }
 
     /**
-     * Devuelve una representación en String de todos los datos del jefe.
-     * 
-     * @return String con los atributos específicos del jefe y heredados de Empleado
+     * Anota en las métricas, si hay, una subida de sueldo rechazada.
+     *
+     * @param m Métricas del registro, o null
+     * @param inicio Inicio de la subida según {@link Metricas#iniciar()}
+     * @param motivo Motivo del rechazo
+     * @return false, el resultado de la subida rechazada
+     */
+    private static boolean rechazar(Metricas m, long inicio, Metricas.Rechazo motivo) {
+        if (m != null) {
+            m.rechazar(motivo);
+            m.registrar(Metricas.Operacion.SUBIR_SUELDO, inicio);
+        }
+        return false;
+    }
+
+    /**
+     * Escribe los datos del jefe al final de un StringBuilder, con el mismo
+     * formato que {@link #toString()} pero sin crear Strings intermedios.
+     *
+     * @param sb Destino de los datos
+     * @return El mismo StringBuilder, para encadenar llamadas
      */
     @Override
-    public String toString() {
-        StringBuilder sb = new StringBuilder();
+    public StringBuilder appendTo(StringBuilder sb) {
         sb.append("Jefe ---> nombre='").append(getNombre())
           .append("', numEmpleado=").append(getNumEmpleado())
-          .append(", departamento='").append(departamento)
+          .append(", departamento='").append(getDepartamento())
           .append("', numSubordinados=").append(numSubordinados)
-          .append(", fechaContratacion=").append(getFechaContratacion())
+          .append(", fechaContratacion=");
+        Fecha.appendTo(sb, getFechaContratacion())
           .append(", sueldo=").append(getSueldo());
-        return sb.toString();
+        return sb;
+    }
+
+    /**
+     * Devuelve una representación en String de todos los datos del jefe.
+     * 
+     * @return String con los atributos específicos del jefe y heredados de Empleado
+     */
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(128)).toString();
     }
 }
 
@@ -0,0 +1,257 @@
+package es.ejercicio2;
+
+import java.util.Arrays;
+
+/**
+ * Clase MapaContadores que implementa una tabla hash de direccionamiento
+ * abierto de claves int a contadores int, sin autoboxing. Sigue el mismo
+ * esquema que {@link MapaEnteros} (sondeo lineal, borrado por desplazamiento
+ * hacia atrás y clave 0 guardada aparte) y, como ella, admite lecturas
+ * optimistas pero no escrituras concurrentes.
+ * Una clave ausente equivale a un contador a 0.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public class MapaContadores {
+
+    /** Capacidad mínima de la tabla */
+    private static final int CAPACIDAD_MINIMA = 16;
+
+    /** Capacidad máxima de la tabla (potencia de dos) */
+    private static final int CAPACIDAD_MAXIMA = 1 << 30;
+
+    /** Claves de la tabla (0 indica posición libre) */
+    private int[] claves;
+
+    /** Contadores de la tabla; la última posición guarda el de la clave 0 */
+    private int[] valores;
+
+    /** Indica si la clave 0 está presente */
+    private boolean contieneCero;
+
+    /** Número de entradas almacenadas */
+    private int tamano;
+
+    /** Número de entradas a partir del cual se duplica la capacidad */
+    private int umbral;
+
+    /** Factor de carga de la tabla */
+    private final float factorCarga;
+
+    /**
+     * Constructor por defecto con capacidad mínima y factor de carga por defecto.
+     */
+    public MapaContadores() {
+        this(CAPACIDAD_MINIMA, MapaEnteros.FACTOR_CARGA_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor que dimensiona la tabla para un número esperado de entradas.
+     *
+     * @param entradasEsperadas Número de entradas que se espera almacenar (debe ser >= 0)
+     * @param factorCarga Factor de carga (debe estar entre 0 y 1, sin incluirlos)
+     * @throws IllegalArgumentException si algún parámetro está fuera de rango
+     */
+    public MapaContadores(int entradasEsperadas, float factorCarga) {
+        if (entradasEsperadas < 0) {
+            throw new IllegalArgumentException("El número de entradas no puede ser negativo: " + entradasEsperadas);
+        }
+        if (!(factorCarga > 0 && factorCarga < 1)) {
+            throw new IllegalArgumentException("El factor de carga debe estar entre 0 y 1: " + factorCarga);
+        }
+        this.factorCarga = factorCarga;
+        asignarTablas(MapaEnteros.capacidadPara(entradasEsperadas, factorCarga));
+    }
+
+    /**
+     * Crea tablas vacías con la capacidad indicada.
+     *
+     * @param capacidad Capacidad de la tabla (potencia de dos)
+     */
+    private void asignarTablas(int capacidad) {
+        this.claves = new int[capacidad];
+        this.valores = new int[capacidad + 1];
+        this.umbral = Math.min(capacidad - 1, (int) (capacidad * factorCarga));
+    }
+
+    /**
+     * Obtiene el contador asociado a una clave.
+     * Se puede invocar sin bloqueo dentro de una lectura optimista.
+     *
+     * @param clave Clave a buscar
+     * @return Valor del contador, o 0 si la clave no existe
+     */
+    public int obtener(int clave) {
+        int[] c = claves;
+        int[] v = valores;
+        if (v.length != c.length + 1) {
+            // Tablas de distinta generación: solo ocurre en una lectura optimista
+            return 0;
+        }
+        if (clave == 0) {
+            return contieneCero ? v[c.length] : 0;
+        }
+        int mascara = c.length - 1;
+        int pos = MapaEnteros.mezclar(clave) & mascara;
+        for (int i = 0; i <= mascara; i++) {
+            int actual = c[pos];
+            if (actual == clave) {
+                return v[pos];
+            }
+            if (actual == 0) {
+                return 0;
+            }
+            pos = (pos + 1) & mascara;
+        }
+        return 0;
+    }
+
+    /**
+     * Suma una cantidad al contador de una clave, creándolo a 0 si no existía.
+     *
+     * @param clave Clave del contador
+     * @param delta Cantidad a sumar (puede ser negativa)
+     * @return Nuevo valor del contador
+     */
+    public int incrementar(int clave, int delta) {
+        int pos = posicion(clave);
+        if (pos >= 0) {
+            return valores[pos] += delta;
+        }
+        pos = -pos - 1;
+        valores[pos] = delta;
+        if (clave == 0) {
+            contieneCero = true;
+        } else {
+            claves[pos] = clave;
+        }
+        if (++tamano > umbral) {
+            redimensionar(claves.length << 1);
+        }
+        return delta;
+    }
+
+    /**
+     * Elimina el contador de una clave.
+     *
+     * @param clave Clave a eliminar
+     * @return Valor que tenía el contador, o 0 si la clave no existía
+     */
+    public int eliminar(int clave) {
+        int pos = posicion(clave);
+        if (pos < 0) {
+            return 0;
+        }
+        int anterior = valores[pos];
+        if (clave == 0) {
+            contieneCero = false;
+            valores[pos] = 0;
+        } else {
+            desplazarHaciaAtras(pos);
+        }
+        tamano--;
+        return anterior;
+    }
+
+    /**
+     * Obtiene el número de contadores almacenados.
+     *
+     * @return Número de entradas
+     */
+    public int tamano() {
+        return tamano;
+    }
+
+    /**
+     * Elimina todos los contadores conservando la capacidad actual.
+     */
+    public void limpiar() {
+        Arrays.fill(claves, 0);
+        Arrays.fill(valores, 0);
+        contieneCero = false;
+        tamano = 0;
+    }
+
+    /**
+     * Busca la posición de una clave.
+     *
+     * @param clave Clave a buscar
+     * @return Posición de la clave si existe, o (-posición libre - 1) si no existe
+     */
+    private int posicion(int clave) {
+        if (clave == 0) {
+            return contieneCero ? claves.length : -claves.length - 1;
+        }
+        int mascara = claves.length - 1;
+        int pos = MapaEnteros.mezclar(clave) & mascara;
+        int actual;
+        while ((actual = claves[pos]) != 0) {
+            if (actual == clave) {
+                return pos;
+            }
+            pos = (pos + 1) & mascara;
+        }
+        return -pos - 1;
+    }
+
+    /**
+     * Libera una posición desplazando hacia atrás las entradas siguientes del
+     * mismo grupo de sondeo.
+     *
+     * @param pos Posición a liberar
+     */
+    private void desplazarHaciaAtras(int pos) {
+        int mascara = claves.length - 1;
+        int hueco = pos;
+        int actual = pos;
+        while (true) {
+            actual = (actual + 1) & mascara;
+            int clave = claves[actual];
+            if (clave == 0) {
+                break;
+            }
+            int ideal = MapaEnteros.mezclar(clave) & mascara;
+            boolean movible = (hueco <= actual) ? (hueco >= ideal || ideal > actual)
+                    : (hueco >= ideal && ideal > actual);
+            if (movible) {
+                claves[hueco] = clave;
+                valores[hueco] = valores[actual];
+                hueco = actual;
+            }
+        }
+        claves[hueco] = 0;
+        valores[hueco] = 0;
+    }
+
+    /**
+     * Cambia la capacidad de la tabla y redistribuye todas las entradas.
+     *
+     * @param nuevaCapacidad Nueva capacidad (potencia de dos)
+     */
+    private void redimensionar(int nuevaCapacidad) {
+        if (nuevaCapacidad > CAPACIDAD_MAXIMA) {
+            throw new IllegalStateException("Capacidad máxima de la tabla superada: " + tamano + " entradas");
+        }
+        int[] clavesAnteriores = claves;
+        int[] valoresAnteriores = valores;
+        int[] nuevasClaves = new int[nuevaCapacidad];
+        int[] nuevosValores = new int[nuevaCapacidad + 1];
+        int mascara = nuevaCapacidad - 1;
+        for (int i = 0; i < clavesAnteriores.length; i++) {
+            int clave = clavesAnteriores[i];
+            if (clave != 0) {
+                int pos = MapaEnteros.mezclar(clave) & mascara;
+                while (nuevasClaves[pos] != 0) {
+                    pos = (pos + 1) & mascara;
+                }
+                nuevasClaves[pos] = clave;
+                nuevosValores[pos] = valoresAnteriores[i];
+            }
+        }
+        nuevosValores[nuevaCapacidad] = valoresAnteriores[clavesAnteriores.length];
+        this.claves = nuevasClaves;
+        this.valores = nuevosValores;
+        this.umbral = Math.min(nuevaCapacidad - 1, (int) (nuevaCapacidad * factorCarga));
+    }
+}
@@ -0,0 +1,345 @@
+package es.ejercicio2;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Clase MapaEnteros que implementa una tabla hash de direccionamiento abierto
+ * con claves int primitivas. Evita el autoboxing de la clave a Integer y los
+ * nodos encadenados de HashMap, por lo que las búsquedas por número de empleado
+ * no generan basura.
+ * <p>
+ * Usa sondeo lineal y borrado por desplazamiento hacia atrás (sin lápidas).
+ * La clave 0 se guarda aparte, en la última posición del array de valores,
+ * porque 0 marca las posiciones libres del array de claves.
+ * </p>
+ * <p>
+ * No es segura entre hilos: el llamante debe sincronizar las escrituras. Sí
+ * admite lecturas optimistas ({@code StampedLock.tryOptimisticRead}): el método
+ * {@link #obtener(int)} nunca falla ni se queda en bucle aunque la tabla se
+ * esté modificando, y el llamante solo tiene que validar el sello después.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ * @param <V> Tipo de los valores almacenados
+ */
+public class MapaEnteros<V> {
+
+    /** Factor de carga por defecto (proporción máxima de posiciones ocupadas) */
+    public static final float FACTOR_CARGA_POR_DEFECTO = 0.6f;
+
+    /** Capacidad mínima de la tabla */
+    private static final int CAPACIDAD_MINIMA = 16;
+
+    /** Capacidad máxima de la tabla (potencia de dos) */
+    private static final int CAPACIDAD_MAXIMA = 1 << 30;
+
+    /** Claves de la tabla (0 indica posición libre) */
+    private int[] claves;
+
+    /** Valores de la tabla; la última posición guarda el valor de la clave 0 */
+    private Object[] valores;
+
+    /** Indica si la clave 0 está presente */
+    private boolean contieneCero;
+
+    /** Número de entradas almacenadas */
+    private int tamano;
+
+    /** Número de entradas a partir del cual se duplica la capacidad */
+    private int umbral;
+
+    /** Factor de carga de la tabla */
+    private final float factorCarga;
+
+    /**
+     * Constructor por defecto con capacidad mínima y factor de carga por defecto.
+     */
+    public MapaEnteros() {
+        this(CAPACIDAD_MINIMA, FACTOR_CARGA_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor que dimensiona la tabla para un número esperado de entradas.
+     *
+     * @param entradasEsperadas Número de entradas que se espera almacenar (debe ser >= 0)
+     * @param factorCarga Factor de carga (debe estar entre 0 y 1, sin incluirlos)
+     * @throws IllegalArgumentException si algún parámetro está fuera de rango
+     */
+    public MapaEnteros(int entradasEsperadas, float factorCarga) {
+        if (entradasEsperadas < 0) {
+            throw new IllegalArgumentException("El número de entradas no puede ser negativo: " + entradasEsperadas);
+        }
+        if (!(factorCarga > 0 && factorCarga < 1)) {
+            throw new IllegalArgumentException("El factor de carga debe estar entre 0 y 1: " + factorCarga);
+        }
+        this.factorCarga = factorCarga;
+        asignarTablas(capacidadPara(entradasEsperadas, factorCarga));
+    }
+
+    /**
+     * Calcula la capacidad (potencia de dos) necesaria para un número de entradas.
+     *
+     * @param entradas Número de entradas
+     * @param factorCarga Factor de carga
+     * @return Capacidad de la tabla
+     */
+    static int capacidadPara(int entradas, float factorCarga) {
+        long necesaria = (long) Math.ceil(entradas / (double) factorCarga);
+        if (necesaria >= CAPACIDAD_MAXIMA) {
+            return CAPACIDAD_MAXIMA;
+        }
+        int capacidad = CAPACIDAD_MINIMA;
+        while (capacidad < necesaria) {
+            capacidad <<= 1;
+        }
+        return capacidad;
+    }
+
+    /**
+     * Dispersa una clave para repartir bien los números de empleado
+     * consecutivos entre las posiciones de la tabla.
+     *
+     * @param clave Clave a dispersar
+     * @return Valor hash de la clave
+     */
+    static int mezclar(int clave) {
+        int h = clave * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Crea tablas vacías con la capacidad indicada.
+     *
+     * @param capacidad Capacidad de la tabla (potencia de dos)
+     */
+    private void asignarTablas(int capacidad) {
+        this.claves = new int[capacidad];
+        this.valores = new Object[capacidad + 1];
+        this.umbral = Math.min(capacidad - 1, (int) (capacidad * factorCarga));
+    }
+
+    /**
+     * Obtiene el valor asociado a una clave.
+     * Se puede invocar sin bloqueo dentro de una lectura optimista.
+     *
+     * @param clave Clave a buscar
+     * @return Valor asociado, o null si la clave no existe
+     */
+    @SuppressWarnings("unchecked")
+    public V obtener(int clave) {
+        int[] c = claves;
+        Object[] v = valores;
+        if (v.length != c.length + 1) {
+            // Tablas de distinta generación: solo ocurre en una lectura optimista
+            return null;
+        }
+        if (clave == 0) {
+            return contieneCero ? (V) v[c.length] : null;
+        }
+        int mascara = c.length - 1;
+        int pos = mezclar(clave) & mascara;
+        for (int i = 0; i <= mascara; i++) {
+            int actual = c[pos];
+            if (actual == clave) {
+                return (V) v[pos];
+            }
+            if (actual == 0) {
+                return null;
+            }
+            pos = (pos + 1) & mascara;
+        }
+        return null;
+    }
+
+    /**
+     * Indica si la tabla contiene una clave.
+     *
+     * @param clave Clave a buscar
+     * @return true si la clave existe, false en caso contrario
+     */
+    public boolean contieneClave(int clave) {
+        return posicion(clave) >= 0;
+    }
+
+    /**
+     * Asocia un valor a una clave, sustituyendo el valor anterior si existía.
+     *
+     * @param clave Clave
+     * @param valor Valor a asociar
+     * @return Valor anterior, o null si la clave no existía
+     */
+    @SuppressWarnings("unchecked")
+    public V insertar(int clave, V valor) {
+        int pos = posicion(clave);
+        if (pos >= 0) {
+            V anterior = (V) valores[pos];
+            valores[pos] = valor;
+            return anterior;
+        }
+        pos = -pos - 1;
+        valores[pos] = valor;
+        if (clave == 0) {
+            contieneCero = true;
+        } else {
+            claves[pos] = clave;
+        }
+        if (++tamano > umbral) {
+            redimensionar(claves.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Elimina una clave de la tabla.
+     *
+     * @param clave Clave a eliminar
+     * @return Valor que tenía asociado, o null si la clave no existía
+     */
+    @SuppressWarnings("unchecked")
+    public V eliminar(int clave) {
+        int pos = posicion(clave);
+        if (pos < 0) {
+            return null;
+        }
+        V anterior = (V) valores[pos];
+        if (clave == 0) {
+            contieneCero = false;
+            valores[pos] = null;
+        } else {
+            desplazarHaciaAtras(pos);
+        }
+        tamano--;
+        return anterior;
+    }
+
+    /**
+     * Obtiene el número de entradas almacenadas.
+     *
+     * @return Número de entradas
+     */
+    public int tamano() {
+        return tamano;
+    }
+
+    /**
+     * Indica si la tabla está vacía.
+     *
+     * @return true si no hay entradas, false en caso contrario
+     */
+    public boolean estaVacio() {
+        return tamano == 0;
+    }
+
+    /**
+     * Elimina todas las entradas conservando la capacidad actual.
+     */
+    public void limpiar() {
+        Arrays.fill(claves, 0);
+        Arrays.fill(valores, null);
+        contieneCero = false;
+        tamano = 0;
+    }
+
+    /**
+     * Recorre todos los valores de la tabla.
+     *
+     * @param accion Acción a ejecutar con cada valor
+     */
+    @SuppressWarnings("unchecked")
+    public void paraCadaValor(Consumer<? super V> accion) {
+        int[] c = claves;
+        Object[] v = valores;
+        for (int i = 0; i < c.length; i++) {
+            if (c[i] != 0) {
+                accion.accept((V) v[i]);
+            }
+        }
+        if (contieneCero) {
+            accion.accept((V) v[c.length]);
+        }
+    }
+
+    /**
+     * Busca la posición de una clave.
+     *
+     * @param clave Clave a buscar
+     * @return Posición de la clave si existe, o (-posición libre - 1) si no existe
+     */
+    private int posicion(int clave) {
+        if (clave == 0) {
+            return contieneCero ? claves.length : -claves.length - 1;
+        }
+        int mascara = claves.length - 1;
+        int pos = mezclar(clave) & mascara;
+        int actual;
+        while ((actual = claves[pos]) != 0) {
+            if (actual == clave) {
+                return pos;
+            }
+            pos = (pos + 1) & mascara;
+        }
+        return -pos - 1;
+    }
+
+    /**
+     * Libera una posición desplazando hacia atrás las entradas siguientes del
+     * mismo grupo de sondeo, de forma que ninguna búsqueda se corte antes de tiempo.
+     *
+     * @param pos Posición a liberar
+     */
+    private void desplazarHaciaAtras(int pos) {
+        int mascara = claves.length - 1;
+        int hueco = pos;
+        int actual = pos;
+        while (true) {
+            actual = (actual + 1) & mascara;
+            int clave = claves[actual];
+            if (clave == 0) {
+                break;
+            }
+            int ideal = mezclar(clave) & mascara;
+            boolean movible = (hueco <= actual) ? (hueco >= ideal || ideal > actual)
+                    : (hueco >= ideal && ideal > actual);
+            if (movible) {
+                claves[hueco] = clave;
+                valores[hueco] = valores[actual];
+                hueco = actual;
+            }
+        }
+        claves[hueco] = 0;
+        valores[hueco] = null;
+    }
+
+    /**
+     * Cambia la capacidad de la tabla y redistribuye todas las entradas.
+     *
+     * @param nuevaCapacidad Nueva capacidad (potencia de dos)
+     */
+    private void redimensionar(int nuevaCapacidad) {
+        if (nuevaCapacidad > CAPACIDAD_MAXIMA) {
+            throw new IllegalStateException("Capacidad máxima de la tabla superada: " + tamano + " entradas");
+        }
+        int[] clavesAnteriores = claves;
+        Object[] valoresAnteriores = valores;
+        int[] nuevasClaves = new int[nuevaCapacidad];
+        Object[] nuevosValores = new Object[nuevaCapacidad + 1];
+        int mascara = nuevaCapacidad - 1;
+        for (int i = 0; i < clavesAnteriores.length; i++) {
+            int clave = clavesAnteriores[i];
+            if (clave != 0) {
+                int pos = mezclar(clave) & mascara;
+                while (nuevasClaves[pos] != 0) {
+                    pos = (pos + 1) & mascara;
+                }
+                nuevasClaves[pos] = clave;
+                nuevosValores[pos] = valoresAnteriores[i];
+            }
+        }
+        nuevosValores[nuevaCapacidad] = valoresAnteriores[clavesAnteriores.length];
+        this.claves = nuevasClaves;
+        this.valores = nuevosValores;
+        this.umbral = Math.min(nuevaCapacidad - 1, (int) (nuevaCapacidad * factorCarga));
+    }
+}
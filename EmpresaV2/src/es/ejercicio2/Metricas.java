@@ -0,0 +1,589 @@
+package es.ejercicio2;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Clase Metricas que cuenta y cronometra las operaciones de un
+ * {@link Registro} (altas, consultas, descuentos) y las subidas de sueldo de
+ * {@link Jefe#subirSueldo(Empleado, double)}, cuenta por qué motivo se
+ * rechaza cada subida y cuántas veces {@link Registro#conciliarTotales()}
+ * encuentra los totales descuadrados.
+ * <p>
+ * Se engancha a un registro con {@link Registro#setMetricas(Metricas)}. Los
+ * contadores son {@link LongAdder} y las latencias se guardan en un
+ * {@link Histograma} por operación, repartidos en varias franjas para que
+ * los hilos no compitan por las mismas posiciones de memoria. Se pueden
+ * desactivar y volver a activar en cualquier momento con
+ * {@link #setActivas(boolean)}: desactivadas, cada operación solo lee un
+ * campo volatile, sin llamar al reloj ni escribir nada.
+ * </p>
+ * <p>
+ * Las ejecuciones se cuentan todas, pero solo se cronometra una de cada
+ * {@link #getMuestreo()} (elegida al azar): leer el reloj dos veces por
+ * operación cuesta más que una consulta al registro, porque además impide
+ * que el procesador solape los fallos de caché de operaciones seguidas.
+ * Los percentiles de una muestra aleatoria son los mismos que los de todas
+ * las ejecuciones salvo en las colas más extremas; con un muestreo de 1 se
+ * cronometra todo.
+ * </p>
+ * <p>
+ * Se consultan desde el propio programa, con un volcado periódico en texto
+ * ({@link #iniciarVolcado(long, TimeUnit, Consumer)}) o por JMX
+ * ({@link #registrarMBean(String)}).
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public final class Metricas implements MetricasMXBean {
+
+    /**
+     * Operaciones medidas.
+     */
+    public enum Operacion {
+        /** Alta de un empleado en el registro */
+        REGISTRAR,
+        /** Consulta de un empleado por número */
+        OBTENER,
+        /** Descuento a un empleado */
+        DESCONTAR,
+        /** Descuento a un lote de empleados (se mide el lote entero) */
+        DESCONTAR_LOTE,
+        /** Subida de sueldo de un Jefe a un empleado, aceptada o no */
+        SUBIR_SUELDO,
+        /** Comparación de los totales del registro con un recorrido completo */
+        CONCILIAR
+    }
+
+    /**
+     * Motivos por los que se rechaza una subida de sueldo.
+     */
+    public enum Rechazo {
+        /** No se indicó el empleado */
+        EMPLEADO_NULO,
+        /** Las reglas de subida no permiten subir el sueldo a ese empleado */
+        NO_PERMITIDA,
+        /** El incremento es cero o negativo */
+        INCREMENTO_NO_POSITIVO,
+        /** El incremento supera el tope de las reglas de subida */
+        SUPERA_TOPE
+    }
+
+    /** Valor de inicio que indica que la operación no se anota (métricas desactivadas) */
+    public static final long SIN_MEDIDA = Long.MIN_VALUE;
+
+    /** Valor de inicio que indica que la operación se cuenta pero no se cronometra */
+    public static final long SIN_CRONOMETRO = Long.MIN_VALUE + 1;
+
+    /** Muestreo por defecto: se cronometra una de cada tantas operaciones */
+    public static final int MUESTREO_POR_DEFECTO = 16;
+
+    /** Operaciones, en el orden de los arrays */
+    private static final Operacion[] OPERACIONES = Operacion.values();
+
+    /** Motivos de rechazo, en el orden de los arrays */
+    private static final Rechazo[] RECHAZOS = Rechazo.values();
+
+    /** Si se están recogiendo las métricas */
+    private volatile boolean activas = true;
+
+    /** Máscara del muestreo (muestreo - 1, potencia de 2 menos 1) */
+    private volatile int mascaraMuestreo = MUESTREO_POR_DEFECTO - 1;
+
+    /** Número de ejecuciones de cada operación */
+    private final LongAdder[] ejecuciones = new LongAdder[OPERACIONES.length];
+
+    /** Histograma de latencias de cada operación (solo las cronometradas) */
+    private final Histograma[] latencias = new Histograma[OPERACIONES.length];
+
+    /** Número de rechazos de cada motivo */
+    private final LongAdder[] rechazos = new LongAdder[RECHAZOS.length];
+
+    /** Número de conciliaciones que han encontrado los totales descuadrados */
+    private final LongAdder descuadres = new LongAdder();
+
+    /** Ejecutor del volcado periódico (null si no hay) */
+    private ScheduledExecutorService volcado;
+
+    /** Nombre con el que está registrado el MBean (null si no lo está) */
+    private ObjectName nombreMBean;
+
+    /**
+     * Constructor de unas métricas activas y a cero.
+     */
+    public Metricas() {
+        for (int i = 0; i < latencias.length; i++) {
+            ejecuciones[i] = new LongAdder();
+            latencias[i] = new Histograma();
+        }
+        for (int i = 0; i < rechazos.length; i++) {
+            rechazos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Empieza a medir una operación.
+     *
+     * @return Instante de inicio en nanosegundos si la operación se
+     *         cronometra, SIN_CRONOMETRO si solo se cuenta o SIN_MEDIDA si
+     *         las métricas están desactivadas
+     */
+    public long iniciar() {
+        if (!activas) {
+            return SIN_MEDIDA;
+        }
+        int mascara = mascaraMuestreo;
+        if (mascara != 0 && (ThreadLocalRandom.current().nextInt() & mascara) != 0) {
+            return SIN_CRONOMETRO;
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Anota una ejecución de una operación y, si se cronometraba, su duración.
+     *
+     * @param operacion Operación ejecutada
+     * @param inicio Valor devuelto por {@link #iniciar()} al empezar la
+     *        operación (si es SIN_MEDIDA, no se anota nada)
+     */
+    public void registrar(Operacion operacion, long inicio) {
+        if (inicio == SIN_MEDIDA) {
+            return;
+        }
+        ejecuciones[operacion.ordinal()].increment();
+        if (inicio != SIN_CRONOMETRO) {
+            latencias[operacion.ordinal()].registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Anota el rechazo de una subida de sueldo.
+     *
+     * @param motivo Motivo del rechazo
+     */
+    public void rechazar(Rechazo motivo) {
+        if (activas) {
+            rechazos[motivo.ordinal()].increment();
+        }
+    }
+
+    /**
+     * Anota una conciliación que ha encontrado los totales del registro
+     * descuadrados.
+     */
+    public void anotarDescuadre() {
+        if (activas) {
+            descuadres.increment();
+        }
+    }
+
+    @Override
+    public boolean isActivas() {
+        return activas;
+    }
+
+    @Override
+    public void setActivas(boolean activas) {
+        this.activas = activas;
+    }
+
+    @Override
+    public int getMuestreo() {
+        return mascaraMuestreo + 1;
+    }
+
+    /**
+     * Cambia cada cuántas operaciones se cronometra una.
+     *
+     * @param muestreo Potencia de 2 entre 1 (cronometrar todas) y 2^30
+     * @throws IllegalArgumentException si no es una potencia de 2 positiva
+     */
+    @Override
+    public void setMuestreo(int muestreo) {
+        if (muestreo <= 0 || Integer.bitCount(muestreo) != 1) {
+            throw new IllegalArgumentException("El muestreo debe ser una potencia de 2 positiva: " + muestreo);
+        }
+        this.mascaraMuestreo = muestreo - 1;
+    }
+
+    /**
+     * Obtiene el número de veces que se ha ejecutado una operación.
+     *
+     * @param operacion Operación
+     * @return Número de ejecuciones anotadas
+     */
+    public long getNumero(Operacion operacion) {
+        return ejecuciones[operacion.ordinal()].sum();
+    }
+
+    /**
+     * Obtiene el histograma de latencias de las ejecuciones cronometradas
+     * de una operación.
+     *
+     * @param operacion Operación
+     * @return Histograma de la operación
+     */
+    public Histograma getLatencias(Operacion operacion) {
+        return latencias[operacion.ordinal()];
+    }
+
+    /**
+     * Obtiene el número de subidas rechazadas por un motivo.
+     *
+     * @param motivo Motivo de rechazo
+     * @return Número de rechazos
+     */
+    public long getRechazos(Rechazo motivo) {
+        return rechazos[motivo.ordinal()].sum();
+    }
+
+    @Override
+    public long getDescuadres() {
+        return descuadres.sum();
+    }
+
+    @Override
+    public Map<String, Long> getOperaciones() {
+        Map<String, Long> resultado = new LinkedHashMap<>();
+        for (Operacion o : OPERACIONES) {
+            resultado.put(o.name(), getNumero(o));
+        }
+        return resultado;
+    }
+
+    @Override
+    public Map<String, Long> getRechazos() {
+        Map<String, Long> resultado = new LinkedHashMap<>();
+        for (Rechazo r : RECHAZOS) {
+            resultado.put(r.name(), getRechazos(r));
+        }
+        return resultado;
+    }
+
+    @Override
+    public Map<String, Long> getLatenciasNanos() {
+        Map<String, Long> resultado = new LinkedHashMap<>();
+        for (Operacion o : OPERACIONES) {
+            Histograma h = latencias[o.ordinal()];
+            resultado.put(o.name() + ".media", Math.round(h.getMedia()));
+            resultado.put(o.name() + ".p50", h.percentil(50.0));
+            resultado.put(o.name() + ".p99", h.percentil(99.0));
+            resultado.put(o.name() + ".p999", h.percentil(99.9));
+            resultado.put(o.name() + ".max", h.getMaximo());
+        }
+        return resultado;
+    }
+
+    @Override
+    public String getResumen() {
+        return appendTo(new StringBuilder(512)).toString();
+    }
+
+    /**
+     * Escribe el resumen de las métricas al final de un StringBuilder: una
+     * línea por operación con su número de ejecuciones y sus latencias en
+     * nanosegundos, una línea con los rechazos y otra con los descuadres.
+     *
+     * @param sb Destino del resumen
+     * @return El mismo StringBuilder, para encadenar llamadas
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        sb.append("Metricas ---> activas=").append(activas).append('\n');
+        for (Operacion o : OPERACIONES) {
+            Histograma h = latencias[o.ordinal()];
+            sb.append(o.name()).append(": n=").append(getNumero(o))
+              .append(", media=").append(Math.round(h.getMedia()))
+              .append("ns, p50=").append(h.percentil(50.0))
+              .append("ns, p99=").append(h.percentil(99.0))
+              .append("ns, p999=").append(h.percentil(99.9))
+              .append("ns, max=").append(h.getMaximo()).append("ns\n");
+        }
+        sb.append("rechazos:");
+        for (Rechazo r : RECHAZOS) {
+            sb.append(' ').append(r.name()).append('=').append(getRechazos(r));
+        }
+        return sb.append("\ndescuadres: ").append(getDescuadres()).append('\n');
+    }
+
+    /**
+     * Pone a cero todos los contadores e histogramas. Las operaciones que se
+     * anoten mientras tanto pueden perderse o contarse.
+     */
+    @Override
+    public void reiniciar() {
+        for (int i = 0; i < latencias.length; i++) {
+            ejecuciones[i].reset();
+            latencias[i].reiniciar();
+        }
+        for (LongAdder r : rechazos) {
+            r.reset();
+        }
+        descuadres.reset();
+    }
+
+    /**
+     * Empieza a entregar el resumen de las métricas periódicamente a un
+     * destino (por ejemplo {@code System.out::print} o un log), desde un
+     * hilo daemon. Sustituye al volcado anterior si lo había.
+     *
+     * @param periodo Tiempo entre volcados (debe ser > 0)
+     * @param unidad Unidad del periodo
+     * @param destino Receptor de cada resumen
+     * @throws IllegalArgumentException si el periodo no es positivo o el destino es null
+     */
+    public synchronized void iniciarVolcado(long periodo, TimeUnit unidad, Consumer<String> destino) {
+        if (periodo <= 0) {
+            throw new IllegalArgumentException("El periodo debe ser positivo: " + periodo);
+        }
+        if (destino == null) {
+            throw new IllegalArgumentException("El destino no puede ser null");
+        }
+        detenerVolcado();
+        volcado = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Metricas-volcado");
+            t.setDaemon(true);
+            return t;
+        });
+        volcado.scheduleAtFixedRate(() -> destino.accept(getResumen()), periodo, periodo, unidad);
+    }
+
+    /**
+     * Detiene el volcado periódico, si lo había.
+     */
+    public synchronized void detenerVolcado() {
+        if (volcado != null) {
+            volcado.shutdownNow();
+            volcado = null;
+        }
+    }
+
+    /**
+     * Publica estas métricas en el servidor de MBeans de la plataforma con el
+     * nombre {@code es.ejercicio2:type=Metricas,name=<nombre>}. Sustituye al
+     * registro anterior de estas métricas si lo había.
+     *
+     * @param nombre Nombre que distingue estas métricas (por ejemplo, el del registro)
+     * @throws IllegalArgumentException si el nombre no es válido o ya está registrado
+     */
+    public synchronized void registrarMBean(String nombre) {
+        eliminarMBean();
+        try {
+            ObjectName objeto = new ObjectName("es.ejercicio2:type=Metricas,name=" + ObjectName.quote(nombre));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objeto);
+            nombreMBean = objeto;
+        } catch (JMException | NullPointerException e) {
+            throw new IllegalArgumentException("No se pueden publicar las métricas como '" + nombre + "'", e);
+        }
+    }
+
+    /**
+     * Retira estas métricas del servidor de MBeans, si estaban publicadas.
+     */
+    public synchronized void eliminarMBean() {
+        if (nombreMBean != null) {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            try {
+                servidor.unregisterMBean(nombreMBean);
+            } catch (JMException e) {
+                // Ya lo había retirado otro: no queda nada que hacer
+            }
+            nombreMBean = null;
+        }
+    }
+
+    /**
+     * Histograma de latencias con error relativo acotado, al estilo de
+     * HdrHistogram: los valores de cada potencia de 2 se reparten en
+     * {@value #SUBCUBETAS} cubetas iguales, así que cada valor se guarda con
+     * un error menor del 1/{@value #SUBCUBETAS} (6,25 %) desde 1 ns hasta
+     * siglos, en {@value #CUBETAS} contadores. Los contadores están
+     * repartidos en franjas que se asignan a los hilos por su identificador,
+     * de modo que hilos distintos casi nunca escriben en la misma línea de
+     * caché; las consultas suman todas las franjas.
+     */
+    public static final class Histograma {
+
+        /** Bits de subcubeta por potencia de 2 */
+        private static final int BITS_SUBCUBETA = 4;
+
+        /** Cubetas por potencia de 2 */
+        private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+
+        /** Número de cubetas (alcanza hasta Long.MAX_VALUE) */
+        private static final int CUBETAS = (Long.SIZE - BITS_SUBCUBETA + 1) * SUBCUBETAS;
+
+        /** Posición de la suma de valores en cada franja, tras las cubetas */
+        private static final int SUMA = CUBETAS;
+
+        /** Posición del valor máximo en cada franja */
+        private static final int MAXIMO = CUBETAS + 1;
+
+        /** Número de franjas (potencia de 2, según los núcleos disponibles) */
+        private static final int FRANJAS = Math.min(16,
+                Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+
+        /** Contadores de cada franja, más su suma y su máximo */
+        private final AtomicLongArray[] franjas = new AtomicLongArray[FRANJAS];
+
+        /**
+         * Constructor de un histograma vacío.
+         */
+        public Histograma() {
+            for (int i = 0; i < FRANJAS; i++) {
+                franjas[i] = new AtomicLongArray(CUBETAS + 2);
+            }
+        }
+
+        /**
+         * Anota un valor. Los valores negativos se anotan como 0.
+         *
+         * @param valor Valor a anotar (en nanosegundos)
+         */
+        public void registrar(long valor) {
+            long v = Math.max(0, valor);
+            int franja = (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 32) & (FRANJAS - 1);
+            AtomicLongArray f = franjas[franja];
+            f.incrementAndGet(cubeta(v));
+            f.addAndGet(SUMA, v);
+            long maximo = f.get(MAXIMO);
+            while (v > maximo && !f.compareAndSet(MAXIMO, maximo, v)) {
+                maximo = f.get(MAXIMO);
+            }
+        }
+
+        /**
+         * Obtiene el número de valores anotados.
+         *
+         * @return Número de valores
+         */
+        public long getNumero() {
+            long total = 0;
+            for (AtomicLongArray f : franjas) {
+                for (int c = 0; c < CUBETAS; c++) {
+                    total += f.get(c);
+                }
+            }
+            return total;
+        }
+
+        /**
+         * Obtiene la media exacta de los valores anotados.
+         *
+         * @return Media, o 0.0 si no hay valores
+         */
+        public double getMedia() {
+            long numero = getNumero();
+            if (numero == 0) {
+                return 0.0;
+            }
+            long suma = 0;
+            for (AtomicLongArray f : franjas) {
+                suma += f.get(SUMA);
+            }
+            return (double) suma / numero;
+        }
+
+        /**
+         * Obtiene el valor máximo anotado.
+         *
+         * @return Máximo exacto, o 0 si no hay valores
+         */
+        public long getMaximo() {
+            long maximo = 0;
+            for (AtomicLongArray f : franjas) {
+                maximo = Math.max(maximo, f.get(MAXIMO));
+            }
+            return maximo;
+        }
+
+        /**
+         * Obtiene un percentil de los valores anotados, redondeado al límite
+         * superior de su cubeta (sin pasar del máximo).
+         *
+         * @param percentil Percentil entre 0.0 y 100.0
+         * @return Valor del percentil, o 0 si no hay valores
+         * @throws IllegalArgumentException si el percentil no está entre 0 y 100
+         */
+        public long percentil(double percentil) {
+            if (!(percentil >= 0.0 && percentil <= 100.0)) {
+                throw new IllegalArgumentException("El percentil debe estar entre 0 y 100: " + percentil);
+            }
+            long[] cuentas = new long[CUBETAS];
+            long numero = 0;
+            for (AtomicLongArray f : franjas) {
+                for (int c = 0; c < CUBETAS; c++) {
+                    long n = f.get(c);
+                    cuentas[c] += n;
+                    numero += n;
+                }
+            }
+            if (numero == 0) {
+                return 0;
+            }
+            long objetivo = Math.max(1, (long) Math.ceil(percentil / 100.0 * numero));
+            long acumulado = 0;
+            for (int c = 0; c < CUBETAS; c++) {
+                acumulado += cuentas[c];
+                if (acumulado >= objetivo) {
+                    return Math.min(limiteSuperior(c), getMaximo());
+                }
+            }
+            return getMaximo();
+        }
+
+        /**
+         * Pone el histograma a cero.
+         */
+        public void reiniciar() {
+            for (AtomicLongArray f : franjas) {
+                for (int c = 0; c < CUBETAS + 2; c++) {
+                    f.set(c, 0);
+                }
+            }
+        }
+
+        /**
+         * Obtiene la cubeta de un valor: los valores menores que
+         * SUBCUBETAS tienen cubeta propia y los demás se agrupan por su bit
+         * más alto y los BITS_SUBCUBETA bits siguientes.
+         *
+         * @param valor Valor no negativo
+         * @return Cubeta del valor
+         */
+        private static int cubeta(long valor) {
+            if (valor < SUBCUBETAS) {
+                return (int) valor;
+            }
+            int exponente = 63 - Long.numberOfLeadingZeros(valor);
+            int desplazamiento = exponente - BITS_SUBCUBETA;
+            return ((desplazamiento + 1) << BITS_SUBCUBETA) + (int) ((valor >>> desplazamiento) & (SUBCUBETAS - 1));
+        }
+
+        /**
+         * Obtiene el mayor valor que cae en una cubeta.
+         *
+         * @param cubeta Cubeta
+         * @return Límite superior (incluido) de la cubeta
+         */
+        private static long limiteSuperior(int cubeta) {
+            if (cubeta < SUBCUBETAS) {
+                return cubeta;
+            }
+            int desplazamiento = (cubeta >>> BITS_SUBCUBETA) - 1;
+            long inicio = (long) (SUBCUBETAS + (cubeta & (SUBCUBETAS - 1))) << desplazamiento;
+            return inicio + (1L << desplazamiento) - 1;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package es.ejercicio2;
+
+import java.util.Map;
+
+/**
+ * Interfaz de gestión JMX de {@link Metricas}. Los contadores y latencias se
+ * publican como mapas cuyas claves son los nombres de las operaciones y de
+ * los motivos de rechazo, para que una consola JMX los muestre como tablas.
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public interface MetricasMXBean {
+
+    /**
+     * Indica si las métricas se están recogiendo.
+     *
+     * @return true si están activas
+     */
+    boolean isActivas();
+
+    /**
+     * Activa o desactiva la recogida de métricas.
+     *
+     * @param activas true para activarlas
+     */
+    void setActivas(boolean activas);
+
+    /**
+     * Obtiene cada cuántas operaciones se cronometra una.
+     *
+     * @return Muestreo (1 si se cronometran todas)
+     */
+    int getMuestreo();
+
+    /**
+     * Cambia cada cuántas operaciones se cronometra una.
+     *
+     * @param muestreo Potencia de 2 positiva
+     */
+    void setMuestreo(int muestreo);
+
+    /**
+     * Obtiene el número de veces que se ha ejecutado cada operación.
+     *
+     * @return Número de ejecuciones por nombre de operación
+     */
+    Map<String, Long> getOperaciones();
+
+    /**
+     * Obtiene el número de subidas de sueldo rechazadas por cada motivo.
+     *
+     * @return Número de rechazos por nombre de motivo
+     */
+    Map<String, Long> getRechazos();
+
+    /**
+     * Obtiene el número de conciliaciones que han encontrado los totales del
+     * registro descuadrados.
+     *
+     * @return Número de descuadres
+     */
+    long getDescuadres();
+
+    /**
+     * Obtiene las latencias de las ejecuciones cronometradas de cada
+     * operación en nanosegundos: media, percentiles 50, 99 y 99,9 y máximo,
+     * con claves como "OBTENER.p99".
+     *
+     * @return Latencias por operación y estadístico
+     */
+    Map<String, Long> getLatenciasNanos();
+
+    /**
+     * Obtiene un resumen en texto de todas las métricas.
+     *
+     * @return Resumen con una línea por operación, una de rechazos y una de descuadres
+     */
+    String getResumen();
+
+    /**
+     * Pone a cero todos los contadores e histogramas.
+     */
+    void reiniciar();
+}
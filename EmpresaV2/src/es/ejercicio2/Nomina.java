@@ -0,0 +1,263 @@
+package es.ejercicio2;
+
+import java.util.Collection;
+
+/**
+ * Clase Nomina inmutable con los totales de una liquidación de nóminas:
+ * sueldo bruto, IRPF retenido, descuentos y sueldo neto.
+ * <p>
+ * El neto de cada empleado es su bruto menos el IRPF y menos el descuento
+ * que le corresponde según las reglas de su registro (ver
+ * {@link Registro#setReglasDescuento(ReglasNomina)}), cada uno redondeado
+ * al céntimo por separado con {@link Dinero#porcentaje(long, int)}.
+ * </p>
+ * <p>
+ * Hay dos caminos con el mismo resultado: uno que recorre los objetos
+ * Empleado y otro por lotes sobre arrays primitivos paralelos (céntimos y
+ * puntos básicos). El de lotes comprueba primero, en una pasada sin saltos,
+ * que todos los valores están en el rango en el que el cálculo no puede
+ * desbordar; así el bucle principal queda sin comprobaciones ni saltos,
+ * con accesos consecutivos a los arrays y sumas independientes, que es la
+ * forma que el compilador JIT puede vectorizar. Si algún valor se sale del
+ * rango se usa el cálculo exacto fila a fila.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public final class Nomina {
+
+    /** Mitad del divisor de los puntos básicos, para redondear al más próximo */
+    private static final long MEDIO = Dinero.PUNTOS_BASICOS_TOTAL / 2;
+
+    /** Mayor sueldo en céntimos con el que el lote no puede desbordar */
+    static final long MAXIMO_LOTE = (Long.MAX_VALUE - MEDIO) / Dinero.PUNTOS_BASICOS_TOTAL;
+
+    /** Número de empleados liquidados */
+    private final int numEmpleados;
+
+    /** Suma de los sueldos brutos, en céntimos */
+    private final long totalBruto;
+
+    /** Suma del IRPF retenido, en céntimos */
+    private final long totalRetenido;
+
+    /** Suma de los descuentos, en céntimos */
+    private final long totalDescuentos;
+
+    /**
+     * Constructor privado; las nóminas se obtienen con calcular().
+     *
+     * @param numEmpleados Número de empleados liquidados
+     * @param totalBruto Suma de sueldos brutos en céntimos
+     * @param totalRetenido Suma del IRPF retenido en céntimos
+     * @param totalDescuentos Suma de los descuentos en céntimos
+     */
+    private Nomina(int numEmpleados, long totalBruto, long totalRetenido, long totalDescuentos) {
+        this.numEmpleados = numEmpleados;
+        this.totalBruto = totalBruto;
+        this.totalRetenido = totalRetenido;
+        this.totalDescuentos = totalDescuentos;
+    }
+
+    /**
+     * Calcula el sueldo neto a partir del bruto, el IRPF y el descuento.
+     *
+     * @param bruto Sueldo bruto en céntimos
+     * @param irpf IRPF en puntos básicos
+     * @param descuento Descuento en puntos básicos
+     * @return Sueldo neto en céntimos
+     * @throws ArithmeticException si el cálculo desborda un long
+     */
+    public static long calcularNeto(long bruto, int irpf, int descuento) {
+        return bruto - Dinero.porcentaje(bruto, irpf) - Dinero.porcentaje(bruto, descuento);
+    }
+
+    /**
+     * Calcula el sueldo neto de un empleado.
+     *
+     * @param empleado Empleado a liquidar (no puede ser null)
+     * @return Sueldo neto en céntimos
+     */
+    static long calcularNeto(Empleado empleado) {
+        return calcularNeto(empleado.getSueldoCentimos(), empleado.getIrpfPuntosBasicos(),
+                Registro.puntosDescuento(empleado, null));
+    }
+
+    /**
+     * Liquida un array de empleados recorriendo los objetos uno a uno.
+     *
+     * @param empleados Empleados a liquidar (se ignoran los null; puede ser null)
+     * @return Totales de la liquidación
+     */
+    public static Nomina calcular(Empleado[] empleados) {
+        if (empleados == null) {
+            return new Nomina(0, 0, 0, 0);
+        }
+        Fecha hoy = Fecha.hoy();
+        int num = 0;
+        long bruto = 0;
+        long retenido = 0;
+        long descuentos = 0;
+        for (Empleado e : empleados) {
+            if (e == null) continue;
+            long sueldo = e.getSueldoCentimos();
+            num++;
+            bruto += sueldo;
+            retenido += Dinero.porcentaje(sueldo, e.getIrpfPuntosBasicos());
+            descuentos += Dinero.porcentaje(sueldo, Registro.puntosDescuento(e, hoy));
+        }
+        return new Nomina(num, bruto, retenido, descuentos);
+    }
+
+    /**
+     * Liquida una colección de empleados recorriendo los objetos uno a uno.
+     *
+     * @param empleados Empleados a liquidar (se ignoran los null; puede ser null)
+     * @return Totales de la liquidación
+     */
+    public static Nomina calcular(Collection<? extends Empleado> empleados) {
+        return calcular(empleados == null ? null : empleados.toArray(new Empleado[0]));
+    }
+
+    /**
+     * Liquida por lotes las primeras filas de unos arrays paralelos.
+     *
+     * @param brutos Sueldos brutos en céntimos
+     * @param irpf IRPF de cada fila en puntos básicos
+     * @param descuentos Descuento de cada fila en puntos básicos
+     * @param netos Array donde dejar el neto de cada fila en céntimos, o null
+     * @param tamano Número de filas a liquidar
+     * @return Totales de la liquidación
+     * @throws IllegalArgumentException si tamano es negativo o mayor que algún array
+     * @throws ArithmeticException si el cálculo de alguna fila desborda un long
+     */
+    public static Nomina calcular(long[] brutos, int[] irpf, int[] descuentos, long[] netos, int tamano) {
+        if (tamano < 0 || tamano > brutos.length || tamano > irpf.length || tamano > descuentos.length
+                || (netos != null && tamano > netos.length)) {
+            throw new IllegalArgumentException("Tamaño de lote no válido: " + tamano);
+        }
+        if (!enRango(brutos, irpf, descuentos, tamano)) {
+            return calcularExacto(brutos, irpf, descuentos, netos, tamano);
+        }
+        long bruto = 0;
+        long retenido = 0;
+        long descontado = 0;
+        if (netos == null) {
+            for (int i = 0; i < tamano; i++) {
+                long b = brutos[i];
+                bruto += b;
+                retenido += (b * irpf[i] + MEDIO) / Dinero.PUNTOS_BASICOS_TOTAL;
+                descontado += (b * descuentos[i] + MEDIO) / Dinero.PUNTOS_BASICOS_TOTAL;
+            }
+        } else {
+            for (int i = 0; i < tamano; i++) {
+                long b = brutos[i];
+                long r = (b * irpf[i] + MEDIO) / Dinero.PUNTOS_BASICOS_TOTAL;
+                long d = (b * descuentos[i] + MEDIO) / Dinero.PUNTOS_BASICOS_TOTAL;
+                netos[i] = b - r - d;
+                bruto += b;
+                retenido += r;
+                descontado += d;
+            }
+        }
+        return new Nomina(tamano, bruto, retenido, descontado);
+    }
+
+    /**
+     * Obtiene el número de empleados liquidados.
+     *
+     * @return Número de empleados
+     */
+    public int getNumEmpleados() { return numEmpleados; }
+
+    /**
+     * Obtiene la suma de los sueldos brutos.
+     *
+     * @return Total bruto
+     */
+    public double getTotalBruto() { return Dinero.euros(totalBruto); }
+
+    /**
+     * Obtiene la suma del IRPF retenido.
+     *
+     * @return Total retenido
+     */
+    public double getTotalRetenido() { return Dinero.euros(totalRetenido); }
+
+    /**
+     * Obtiene la suma de los descuentos.
+     *
+     * @return Total de descuentos
+     */
+    public double getTotalDescuentos() { return Dinero.euros(totalDescuentos); }
+
+    /**
+     * Obtiene la suma de los sueldos netos.
+     *
+     * @return Total neto
+     */
+    public double getTotalNeto() { return Dinero.euros(totalBruto - totalRetenido - totalDescuentos); }
+
+    /**
+     * Devuelve una representación en String de los totales.
+     *
+     * @return String con todos los totales
+     */
+    @Override
+    public String toString() {
+        return "Nomina ---> numEmpleados=" + numEmpleados + ", totalBruto=" + getTotalBruto()
+                + ", totalRetenido=" + getTotalRetenido() + ", totalDescuentos=" + getTotalDescuentos()
+                + ", totalNeto=" + getTotalNeto();
+    }
+
+    /**
+     * Comprueba sin saltos que todos los sueldos están entre 0 y
+     * {@link #MAXIMO_LOTE} y todas las tasas entre 0 y el 100 %: cualquier
+     * valor fuera de rango deja negativa alguna de las restas y activa el
+     * bit de signo del acumulado.
+     *
+     * @param brutos Sueldos brutos en céntimos
+     * @param irpf IRPF en puntos básicos
+     * @param descuentos Descuentos en puntos básicos
+     * @param tamano Número de filas
+     * @return true si el lote se puede calcular sin comprobar desbordamientos
+     */
+    private static boolean enRango(long[] brutos, int[] irpf, int[] descuentos, int tamano) {
+        long fuera = 0;
+        int tasasFuera = 0;
+        for (int i = 0; i < tamano; i++) {
+            long b = brutos[i];
+            fuera |= b | (MAXIMO_LOTE - b);
+            tasasFuera |= irpf[i] | (Dinero.PUNTOS_BASICOS_TOTAL - irpf[i])
+                    | descuentos[i] | (Dinero.PUNTOS_BASICOS_TOTAL - descuentos[i]);
+        }
+        return (fuera | tasasFuera) >= 0;
+    }
+
+    /**
+     * Liquida fila a fila con comprobación de desbordamientos.
+     *
+     * @param brutos Sueldos brutos en céntimos
+     * @param irpf IRPF en puntos básicos
+     * @param descuentos Descuentos en puntos básicos
+     * @param netos Array donde dejar el neto de cada fila, o null
+     * @param tamano Número de filas
+     * @return Totales de la liquidación
+     */
+    private static Nomina calcularExacto(long[] brutos, int[] irpf, int[] descuentos, long[] netos, int tamano) {
+        long bruto = 0;
+        long retenido = 0;
+        long descontado = 0;
+        for (int i = 0; i < tamano; i++) {
+            long b = brutos[i];
+            long r = Dinero.porcentaje(b, irpf[i]);
+            long d = Dinero.porcentaje(b, descuentos[i]);
+            if (netos != null) netos[i] = b - r - d;
+            bruto += b;
+            retenido += r;
+            descontado += d;
+        }
+        return new Nomina(tamano, bruto, retenido, descontado);
+    }
+}
@@ -0,0 +1,81 @@
+package es.ejercicio2;
+
+import java.util.List;
+
+/**
+ * Interfaz ObservadorRegistro para las estructuras que se mantienen en
+ * sincronía con un {@link Registro} (almacenes columnares, índices, totales...).
+ * El registro avisa de las altas y bajas, y los empleados registrados avisan a
+ * su registro de cada cambio de sueldo o de datos.
+ * <p>
+ * Los avisos pueden llegar desde varios hilos a la vez, incluso mientras el
+ * registro tiene bloqueado el segmento del empleado, por lo que las
+ * implementaciones deben ser seguras entre hilos y no deben volver a
+ * modificar el registro desde el aviso.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public interface ObservadorRegistro {
+
+    /**
+     * Aviso de que un empleado se ha registrado.
+     *
+     * @param empleado Empleado registrado
+     */
+    default void empleadoRegistrado(Empleado empleado) { }
+
+    /**
+     * Aviso de la carga inicial al añadir el observador a un registro, con
+     * todos los empleados que ya estaban registrados. Por defecto se avisa
+     * de cada uno con {@link #empleadoRegistrado(Empleado)}; se puede
+     * sobrescribir para cargarlos en bloque.
+     *
+     * @param empleados Empleados registrados
+     */
+    default void empleadosRegistrados(List<Empleado> empleados) {
+        for (Empleado e : empleados) {
+            empleadoRegistrado(e);
+        }
+    }
+
+    /**
+     * Aviso de que un empleado se ha eliminado del registro.
+     *
+     * @param empleado Empleado eliminado
+     */
+    default void empleadoEliminado(Empleado empleado) { }
+
+    /**
+     * Aviso de que el sueldo de un empleado registrado ha cambiado.
+     *
+     * @param empleado Empleado modificado
+     * @param anterior Sueldo antes del cambio
+     * @param nuevo Sueldo después del cambio
+     */
+    default void sueldoModificado(Empleado empleado, double anterior, double nuevo) { }
+
+    /**
+     * Aviso de que un descuento del registro ha cambiado a la vez el sueldo
+     * y el contador de descuentos de un empleado. También se avisa al
+     * deshacer los descuentos de un lote que ha fallado, con el contador ya
+     * decrementado. Por defecto se trata como un cambio de sueldo más.
+     *
+     * @param empleado Empleado modificado
+     * @param anterior Sueldo antes del cambio
+     * @param nuevo Sueldo después del cambio
+     * @param numDescuentos Número de descuentos del empleado después del cambio
+     */
+    default void sueldoDescontado(Empleado empleado, double anterior, double nuevo, int numDescuentos) {
+        sueldoModificado(empleado, anterior, nuevo);
+    }
+
+    /**
+     * Aviso de que ha cambiado algún otro dato de un empleado registrado
+     * (IRPF, cargo, fecha de contratación, departamento...).
+     *
+     * @param empleado Empleado modificado
+     */
+    default void datosModificados(Empleado empleado) { }
+}
@@ -120,6 +120,35 @@ public abstract class Persona {
      */
     public void setFechaNac(Fecha fechaNac) { this.fechaNac = fechaNac; }
 
+    /**
+     * Calcula la edad de la persona en una fecha dada.
+     *
+     * @param hoy Fecha en la que se calcula la edad
+     * @return Años cumplidos en esa fecha, o -1 si no se conoce la fecha de nacimiento
+     */
+    public int calcularEdad(Fecha hoy) {
+        Fecha nacimiento = fechaNac;
+        return (nacimiento == null) ? -1 : nacimiento.añosEntre(hoy);
+    }
+
+    /**
+     * Escribe los datos personales al final de un StringBuilder, con el
+     * formato que usan las subclases en su representación en texto:
+     * {@code nombre='...', sexo=..., dni='...', fechaNac=...}.
+     * No crea Strings intermedios, por lo que sirve para volcar listados
+     * grandes reutilizando el mismo buffer.
+     *
+     * @param sb Destino de los datos
+     * @return El mismo StringBuilder, para encadenar llamadas
+     */
+    public StringBuilder appendTo(StringBuilder sb) {
+        sb.append("nombre='").append(nombre)
+                .append("', sexo=").append(sexo)
+                .append(", dni='").append(dni)
+                .append("', fechaNac=");
+        return Fecha.appendTo(sb, fechaNac);
+    }
+
 }
 
 /*
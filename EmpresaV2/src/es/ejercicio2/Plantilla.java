@@ -1,30 +1,33 @@
 package es.ejercicio2;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Clase utilitaria Plantilla con métodos estáticos.
  * Proporciona operaciones comunes sobre conjuntos de empleados,
  * como totalización de sueldos y aplicación de descuentos.
+ * Los métodos de registro de empleados son una fachada sobre un
+ * {@link Registro} por defecto; para tener varias empresas a la vez
+ * se pueden crear registros independientes.
  * Esta clase no puede ser instanciada.
  * 
  * @author diegowolder
- * @version 2.0
+ * @version 2.1
  */
 public final class Plantilla {
 
-    /** Porcentaje de descuento para jefes (5%) */
-    private static final double DESCUENTO_JEFE = 0.05;
-    
-    /** Porcentaje de descuento para empleados normales (10%) */
-    private static final double DESCUENTO_EMPLEADO = 0.10;
-    
-    /** HashMap para almacenar empleados por número de empleado */
-    private static final Map<Integer, Empleado> empleadosPorNumero = new HashMap<>();
-    
-    /** Map para controlar el número de descuentos aplicados por empleado */
-    private static final Map<Integer, Integer> descuentosPorEmpleado = new HashMap<>();
+    /** Registro de empleados por defecto sobre el que trabajan los métodos estáticos */
+    private static final Registro REGISTRO = new Registro();
+
+    /** Diario enganchado al registro por defecto, o null si no hay ninguno */
+    private static Diario diario;
+
+    /** Índices secundarios del registro por defecto, creados en la primera consulta */
+    private static volatile IndicesPlantilla indices;
 
     /**
      * Constructor privado para evitar instanciación de esta clase utilitaria.
@@ -32,15 +35,22 @@ public final class Plantilla {
     private Plantilla() { /* No instanciable */ }
     
     /**
-     * Registra un empleado en el HashMap por su número de empleado.
+     * Obtiene el registro de empleados por defecto.
+     * 
+     * @return Registro sobre el que operan los métodos estáticos de Plantilla
+     */
+    public static Registro obtenerRegistro() {
+        return REGISTRO;
+    }
+    
+    /**
+     * Registra un empleado en el registro por defecto por su número de empleado.
      * 
      * @param empleado Empleado a registrar (no puede ser null)
      * @return true si se registró correctamente, false si el empleado es null
      */
     public static boolean registrarEmpleado(Empleado empleado) {
-        if (empleado == null) return false;
-        empleadosPorNumero.put(empleado.getNumEmpleado(), empleado);
-        return true;
+        return REGISTRO.registrarEmpleado(empleado);
     }
     
     /**
@@ -50,35 +60,33 @@ public final class Plantilla {
      * @return Empleado correspondiente al número, o null si no existe
      */
     public static Empleado obtenerEmpleado(int numEmpleado) {
-        return empleadosPorNumero.get(numEmpleado);
+        return REGISTRO.obtenerEmpleado(numEmpleado);
     }
     
     /**
-     * Elimina un empleado del HashMap por su número de empleado.
+     * Elimina un empleado del registro por defecto por su número de empleado.
      * 
      * @param numEmpleado Número del empleado a eliminar
      * @return Empleado eliminado, o null si no existía
      */
     public static Empleado eliminarEmpleado(int numEmpleado) {
-        descuentosPorEmpleado.remove(numEmpleado);
-        return empleadosPorNumero.remove(numEmpleado);
+        return REGISTRO.eliminarEmpleado(numEmpleado);
     }
     
     /**
      * Obtiene el número total de empleados registrados.
      * 
-     * @return Número de empleados en el HashMap
+     * @return Número de empleados en el registro por defecto
      */
     public static int obtenerNumeroEmpleados() {
-        return empleadosPorNumero.size();
+        return REGISTRO.obtenerNumeroEmpleados();
     }
     
     /**
      * Limpia todos los empleados registrados.
      */
     public static void limpiarEmpleados() {
-        empleadosPorNumero.clear();
-        descuentosPorEmpleado.clear();
+        REGISTRO.limpiarEmpleados();
     }
 
     /**
@@ -88,25 +96,153 @@ public final class Plantilla {
      * @return Total de sueldos brutos, o 0.0 si el array es nulo o está vacío
      */
     public static double totalizarSueldos(Empleado[] empleados) {
-        double total = 0.0;
-        if (empleados == null) return total;
+        long total = 0;
+        if (empleados == null) return 0.0;
         for (Empleado e : empleados) {
-            if (e != null) total += e.getSueldo();
+            if (e != null) total += e.getSueldoCentimos();
         }
-        return total;
+        return Dinero.euros(total);
     }
     
     /**
-     * Calcula la suma total de todos los sueldos de los empleados registrados en el HashMap.
+     * Obtiene la suma total de todos los sueldos de los empleados registrados,
+     * sin recorrerlos (ver {@link Registro#getTotales()}).
      * 
      * @return Total de sueldos brutos de todos los empleados registrados
      */
     public static double totalizarSueldos() {
-        double total = 0.0;
-        for (Empleado e : empleadosPorNumero.values()) {
-            if (e != null) total += e.getSueldo();
-        }
-        return total;
+        return REGISTRO.totalizarSueldos();
+    }
+    
+    /**
+     * Calcula todas las estadísticas de sueldos de un array de empleados
+     * (media, máximo, mínimo, mediana y total de IRPF) en una sola pasada
+     * paralela.
+     * 
+     * @param empleados Array de empleados (se ignoran los null)
+     * @return Estadísticas de los sueldos
+     */
+    public static EstadisticasSueldos calcularEstadisticas(Empleado[] empleados) {
+        return EstadisticasSueldos.calcular(empleados);
+    }
+    
+    /**
+     * Calcula todas las estadísticas de sueldos de los empleados registrados.
+     * 
+     * @return Estadísticas de los sueldos de los empleados registrados
+     */
+    public static EstadisticasSueldos calcularEstadisticas() {
+        return REGISTRO.calcularEstadisticas();
+    }
+    
+    /**
+     * Liquida las nóminas de un array de empleados: sueldo bruto, IRPF
+     * retenido, descuentos por tipo y sueldo neto.
+     * 
+     * @param empleados Array de empleados (se ignoran los null)
+     * @return Totales de la liquidación
+     */
+    public static Nomina calcularNomina(Empleado[] empleados) {
+        return Nomina.calcular(empleados);
+    }
+    
+    /**
+     * Liquida las nóminas de todos los empleados registrados.
+     * 
+     * @return Totales de la liquidación de los empleados registrados
+     */
+    public static Nomina calcularNomina() {
+        return REGISTRO.calcularNomina();
+    }
+    
+    /**
+     * Cambia las reglas con las que se elige el porcentaje de descuento de
+     * cada empleado en descontarPorcentaje().
+     * 
+     * @param reglas Nuevas reglas (no puede ser null)
+     * @throws IllegalArgumentException si las reglas son null
+     */
+    public static void setReglasDescuento(ReglasNomina reglas) {
+        REGISTRO.setReglasDescuento(reglas);
+    }
+    
+    /**
+     * Cambia las reglas con las que los Jefes pueden subir el sueldo a los
+     * empleados registrados.
+     * 
+     * @param reglas Nuevas reglas (no puede ser null)
+     * @throws IllegalArgumentException si las reglas son null
+     */
+    public static void setReglasSubida(ReglasNomina reglas) {
+        REGISTRO.setReglasSubida(reglas);
+    }
+    
+    /**
+     * Cambia la auditoría de los descuentos y subidas de sueldo de la plantilla.
+     * 
+     * @param auditoria Nueva auditoría, o null para no auditar
+     */
+    public static void setAuditoria(Auditoria auditoria) {
+        REGISTRO.setAuditoria(auditoria);
+    }
+    
+    /**
+     * Cambia las métricas de las operaciones de la plantilla. Ver {@link Metricas}.
+     * 
+     * @param metricas Nuevas métricas, o null para no medir
+     */
+    public static void setMetricas(Metricas metricas) {
+        REGISTRO.setMetricas(metricas);
+    }
+    
+    /**
+     * Calcula el sueldo medio de los empleados.
+     * 
+     * @param empleados Array de empleados (se ignoran los null)
+     * @return Sueldo medio, o 0.0 si el array es nulo o está vacío
+     */
+    public static double calcularSueldoPromedio(Empleado[] empleados) {
+        return EstadisticasSueldos.calcular(empleados, false).getMedia();
+    }
+    
+    /**
+     * Obtiene el sueldo más alto de los empleados.
+     * 
+     * @param empleados Array de empleados (se ignoran los null)
+     * @return Sueldo máximo, o 0.0 si el array es nulo o está vacío
+     */
+    public static double obtenerSueldoMaximo(Empleado[] empleados) {
+        return EstadisticasSueldos.calcular(empleados, false).getMaximo();
+    }
+    
+    /**
+     * Obtiene el sueldo más bajo de los empleados.
+     * 
+     * @param empleados Array de empleados (se ignoran los null)
+     * @return Sueldo mínimo, o 0.0 si el array es nulo o está vacío
+     */
+    public static double obtenerSueldoMinimo(Empleado[] empleados) {
+        return EstadisticasSueldos.calcular(empleados, false).getMinimo();
+    }
+    
+    /**
+     * Calcula la mediana de los sueldos de los empleados.
+     * 
+     * @param empleados Array de empleados (se ignoran los null)
+     * @return Mediana de los sueldos, o 0.0 si el array es nulo o está vacío
+     */
+    public static double calcularMedianaSueldos(Empleado[] empleados) {
+        return EstadisticasSueldos.calcular(empleados).getMediana();
+    }
+    
+    /**
+     * Calcula el total de IRPF retenido (suma de sueldo x IRPF de cada empleado).
+     * 
+     * @param empleados Array de empleados (se ignoran los null)
+     * @return Total de IRPF, o 0.0 si el array es nulo o está vacío
+     */
+    public static double calcularTotalIRPF(Empleado[] empleados) {
+        return EstadisticasSueldos.calcular(empleados, false).getTotalIrpf();
     }
     
     /**
@@ -118,9 +254,7 @@ public final class Plantilla {
      * @return true si no se ha aplicado ningún descuento aún, false en caso contrario
      */
     public static boolean controlDescontarPorcentaje(Empleado empleado) {
-        if (empleado == null) return false;
-        Integer numDescuentos = descuentosPorEmpleado.get(empleado.getNumEmpleado());
-        return numDescuentos == null || numDescuentos == 0;
+        return REGISTRO.controlDescontarPorcentaje(empleado);
     }
     
     /**
@@ -130,36 +264,306 @@ public final class Plantilla {
      * @return Número de descuentos aplicados, o 0 si no se ha aplicado ninguno
      */
     public static int obtenerNumeroDescuentos(Empleado empleado) {
-        if (empleado == null) return 0;
-        Integer numDescuentos = descuentosPorEmpleado.get(empleado.getNumEmpleado());
-        return numDescuentos == null ? 0 : numDescuentos;
+        return REGISTRO.obtenerNumeroDescuentos(empleado);
     }
     
     /**
-     * Aplica un descuento porcentual al sueldo del empleado según su tipo.
-     * Los Jefes tienen un descuento del 5%, los Empleados normales del 10%.
-     * Registra el descuento aplicado en el Map de control.
+     * Aplica un descuento porcentual al sueldo del empleado según las reglas
+     * de descuento (por defecto, los Jefes tienen un descuento del 5% y los
+     * Empleados normales del 10%).
+     * Registra el descuento aplicado en el control del registro por defecto.
      * 
      * @param empleado Empleado al que se le aplicará el descuento (puede ser null)
      */
     public static void descontarPorcentaje(Empleado empleado) {
-        if (empleado == null) return;  
-        
-        double descuento;
-        if (empleado instanceof Jefe) {
-            descuento = DESCUENTO_JEFE;
-        } else if (empleado instanceof Empleado) {
-            descuento = DESCUENTO_EMPLEADO;
-        } else {
-            descuento = 0.0;
+        REGISTRO.descontarPorcentaje(empleado);
+    }
+    
+    /**
+     * Aplica el descuento a todos los empleados de una colección en una sola
+     * operación: o se descuenta a todos o, si algo falla, a ninguno.
+     * 
+     * @param empleados Empleados a descontar (se ignoran los null)
+     * @return Número de descuentos aplicados
+     */
+    public static int descontarPorcentaje(Collection<? extends Empleado> empleados) {
+        return REGISTRO.descontarPorcentaje(empleados);
+    }
+    
+    /**
+     * Aplica el descuento a todos los empleados de un array en una sola
+     * operación: o se descuenta a todos o, si algo falla, a ninguno.
+     * 
+     * @param empleados Empleados a descontar (se ignoran los null)
+     * @return Número de descuentos aplicados
+     */
+    public static int descontarPorcentaje(Empleado[] empleados) {
+        return REGISTRO.descontarPorcentaje(empleados);
+    }
+    
+    /**
+     * Aplica el descuento a todos los empleados registrados en una sola operación.
+     * 
+     * @return Número de descuentos aplicados
+     */
+    public static int descontarPorcentajeTodos() {
+        return REGISTRO.descontarPorcentajeTodos();
+    }
+
+    /**
+     * Obtiene los jefes de un departamento del registro por defecto.
+     * La primera consulta filtrada crea los índices secundarios
+     * ({@link IndicesPlantilla}); a partir de ahí se mantienen al día con
+     * cada alta, baja y cambio de sueldo.
+     *
+     * @param departamento Nombre del departamento
+     * @return Lista de los jefes del departamento; vacía si no hay ninguno
+     */
+    public static List<Empleado> obtenerEmpleadosPorDepartamento(String departamento) {
+        return obtenerIndices().obtenerEmpleadosPorDepartamento(departamento);
+    }
+
+    /**
+     * Obtiene los empleados del registro por defecto que tienen un cargo.
+     *
+     * @param cargo Cargo a buscar
+     * @return Lista de los empleados con ese cargo; vacía si no hay ninguno
+     */
+    public static List<Empleado> obtenerEmpleadosPorCargo(String cargo) {
+        return obtenerIndices().obtenerEmpleadosPorCargo(cargo);
+    }
+
+    /**
+     * Obtiene los jefes del registro por defecto.
+     *
+     * @return Lista de los jefes
+     */
+    public static List<Empleado> obtenerJefes() {
+        return obtenerIndices().obtenerJefes();
+    }
+
+    /**
+     * Obtiene los empleados del registro por defecto con un sueldo mayor que el indicado.
+     *
+     * @param sueldo Sueldo que hay que superar
+     * @return Lista de los empleados, de menor a mayor sueldo
+     */
+    public static List<Empleado> obtenerEmpleadosConSueldoMayorA(double sueldo) {
+        return obtenerIndices().obtenerEmpleadosConSueldoMayorA(sueldo);
+    }
+
+    /**
+     * Calcula la mediana de los sueldos del registro por defecto con el
+     * índice de sueldos, sin copiar ni ordenar los sueldos.
+     *
+     * @return Mediana de los sueldos, o 0.0 si no hay empleados
+     */
+    public static double calcularMedianaSueldos() {
+        return obtenerIndices().calcularMedianaSueldos();
+    }
+
+    /**
+     * Calcula un percentil de los sueldos del registro por defecto. Ver
+     * {@link IndicesPlantilla#calcularPercentilSueldo(double)}.
+     *
+     * @param percentil Percentil a calcular, entre 0 y 100 (p. ej. 90 o 99)
+     * @return Sueldo del percentil, o 0.0 si no hay empleados
+     * @throws IllegalArgumentException si el percentil no está entre 0 y 100
+     */
+    public static double calcularPercentilSueldo(double percentil) {
+        return obtenerIndices().calcularPercentilSueldo(percentil);
+    }
+
+    /**
+     * Obtiene los empleados mejor pagados del registro por defecto.
+     *
+     * @param cuantos Número máximo de empleados a devolver (debe ser >= 0)
+     * @return Lista de los empleados, de mayor a menor sueldo
+     * @throws IllegalArgumentException si el número es negativo
+     */
+    public static List<Empleado> obtenerMejorPagados(int cuantos) {
+        return obtenerIndices().obtenerMejorPagados(cuantos);
+    }
+
+    /**
+     * Ordena un array de empleados por sueldo, de menor a mayor, sin
+     * modificar el array. Ver {@link VistaOrdenada}.
+     *
+     * @param empleados Array de empleados (se ignoran los null)
+     * @return Vista de los empleados ordenados por sueldo
+     */
+    public static List<Empleado> ordenarPorSueldo(Empleado[] empleados) {
+        return VistaOrdenada.porSueldo(empleados);
+    }
+
+    /**
+     * Ordena un array de empleados por antigüedad, de menor a mayor, sin
+     * modificar el array. Los empleados sin fecha de contratación quedan al
+     * final. Ver {@link VistaOrdenada}.
+     *
+     * @param empleados Array de empleados (se ignoran los null)
+     * @return Vista de los empleados ordenados por antigüedad
+     */
+    public static List<Empleado> ordenarPorAntiguedad(Empleado[] empleados) {
+        return VistaOrdenada.porAntiguedad(empleados);
+    }
+
+    /**
+     * Ordena un array de empleados por nombre, sin modificar el array. Ver
+     * {@link VistaOrdenada}.
+     *
+     * @param empleados Array de empleados (se ignoran los null)
+     * @return Vista de los empleados ordenados por nombre
+     */
+    public static List<Empleado> ordenarPorNombre(Empleado[] empleados) {
+        return VistaOrdenada.porNombre(empleados);
+    }
+
+    /**
+     * Obtiene los índices secundarios del registro por defecto, creándolos
+     * y enganchándolos al registro la primera vez.
+     *
+     * @return Índices del registro por defecto
+     */
+    private static IndicesPlantilla obtenerIndices() {
+        IndicesPlantilla i = indices;
+        if (i == null) {
+            synchronized (Plantilla.class) {
+                i = indices;
+                if (i == null) {
+                    i = new IndicesPlantilla(REGISTRO.obtenerNumeroEmpleados());
+                    REGISTRO.agregarObservador(i);
+                    indices = i;
+                }
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Exporta un array de empleados a un fichero CSV. Ver {@link CodecCSV}.
+     *
+     * @param empleados Empleados a exportar (se ignoran los null)
+     * @param rutaArchivo Ruta del fichero, que se crea o se sobrescribe
+     * @return Número de empleados exportados
+     * @throws IOException si falla la escritura
+     */
+    public static int exportarDatosCSV(Empleado[] empleados, String rutaArchivo) throws IOException {
+        return CodecCSV.exportar(Arrays.asList(empleados), Paths.get(rutaArchivo));
+    }
+
+    /**
+     * Exporta todos los empleados del registro por defecto a un fichero CSV.
+     *
+     * @param rutaArchivo Ruta del fichero, que se crea o se sobrescribe
+     * @return Número de empleados exportados
+     * @throws IOException si falla la escritura
+     */
+    public static int exportarDatosCSV(String rutaArchivo) throws IOException {
+        return CodecCSV.exportar(REGISTRO, Paths.get(rutaArchivo));
+    }
+
+    /**
+     * Importa un fichero CSV y registra sus empleados en el registro por
+     * defecto, con sus números de empleado originales.
+     *
+     * @param rutaArchivo Ruta del fichero CSV
+     * @return Número de empleados importados
+     * @throws IOException si falla la lectura
+     * @throws IllegalArgumentException si el contenido del fichero no es válido
+     */
+    public static int importarDatosCSV(String rutaArchivo) throws IOException {
+        return CodecCSV.importar(Paths.get(rutaArchivo), REGISTRO);
+    }
+
+    /**
+     * Guarda el registro por defecto en una instantánea binaria. Ver {@link Instantanea}.
+     *
+     * @param rutaArchivo Ruta del fichero, que se sustituye si ya existe
+     * @return Número de empleados guardados
+     * @throws IOException si falla la escritura
+     */
+    public static int guardarInstantanea(String rutaArchivo) throws IOException {
+        return Instantanea.escribir(REGISTRO, Paths.get(rutaArchivo));
+    }
+
+    /**
+     * Carga una instantánea binaria en el registro por defecto, que debe
+     * estar vacío. Los empleados se crean a medida que se consultan.
+     *
+     * @param rutaArchivo Ruta de la instantánea
+     * @return Número de empleados de la instantánea
+     * @throws IOException si el fichero no se puede leer o no es una instantánea válida
+     * @throws IllegalStateException si el registro por defecto no está vacío
+     */
+    public static int cargarInstantanea(String rutaArchivo) throws IOException {
+        return REGISTRO.cargarInstantanea(Instantanea.abrir(Paths.get(rutaArchivo)));
+    }
+
+    /**
+     * Carga una instantánea binaria en un almacén fuera del heap, sin pasar
+     * por el registro por defecto, para consultar plantillas que no caben
+     * como objetos. Ver {@link PlantillaDirecta}.
+     *
+     * @param rutaArchivo Ruta de la instantánea
+     * @return Almacén con los empleados de la instantánea
+     * @throws IOException si el fichero no se puede leer o no es una instantánea válida
+     */
+    public static PlantillaDirecta cargarPlantillaDirecta(String rutaArchivo) throws IOException {
+        return PlantillaDirecta.desde(Instantanea.abrir(Paths.get(rutaArchivo)));
+    }
+
+    /**
+     * Recupera los cambios anotados en un diario y lo engancha al registro
+     * por defecto para seguir anotando. Para recuperar el estado tras una
+     * caída, cargar antes la última instantánea compactada. Ver {@link Diario}.
+     *
+     * @param rutaDiario Ruta del diario (se crea si no existe)
+     * @return Número de entradas del diario aplicadas al registro
+     * @throws IOException si el diario no se puede leer o no es válido
+     * @throws IllegalStateException si ya hay un diario activo
+     */
+    public static synchronized int activarDiario(String rutaDiario) throws IOException {
+        if (diario != null) {
+            throw new IllegalStateException("Ya hay un diario activo");
+        }
+        int aplicadas = Diario.reproducir(Paths.get(rutaDiario), REGISTRO);
+        diario = Diario.abrir(Paths.get(rutaDiario));
+        REGISTRO.agregarObservador(diario);
+        return aplicadas;
+    }
+
+    /**
+     * Guarda el registro por defecto en una instantánea y vacía el diario activo.
+     *
+     * @param rutaInstantanea Ruta de la instantánea, que se sustituye si ya existe
+     * @return Número de empleados guardados
+     * @throws IOException si falla la escritura
+     * @throws IllegalStateException si no hay ningún diario activo
+     */
+    public static synchronized int compactarDiario(String rutaInstantanea) throws IOException {
+        if (diario == null) {
+            throw new IllegalStateException("No hay ningún diario activo");
+        }
+        return diario.compactar(REGISTRO, Paths.get(rutaInstantanea));
+    }
+
+    /**
+     * Desengancha el diario activo del registro por defecto y lo cierra
+     * tras volcar las entradas pendientes. No hace nada si no hay diario.
+     *
+     * @throws IOException si no se han podido escribir las entradas pendientes
+     */
+    public static synchronized void cerrarDiario() throws IOException {
+        if (diario == null) {
+            return;
+        }
+        REGISTRO.eliminarObservador(diario);
+        try {
+            diario.close();
+        } finally {
+            diario = null;
         }
-        
-        empleado.setSueldo(empleado.getSueldo() * (1.0 - descuento));
-        
-        // Registrar el descuento aplicado
-        int numEmpleado = empleado.getNumEmpleado();
-        Integer numDescuentos = descuentosPorEmpleado.get(numEmpleado);
-        descuentosPorEmpleado.put(numEmpleado, numDescuentos == null ? 1 : numDescuentos + 1);
     }
 }
 
@@ -0,0 +1,645 @@
+package es.ejercicio2;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Clase PlantillaColumnar que guarda los datos de nómina de los empleados en
+ * columnas (arrays primitivos paralelos) en lugar de un objeto por empleado:
+ * sueldo, IRPF, fecha de contratación (como día epoch), tipo (Jefe/Empleado)
+ * y código de departamento (el de {@link Diccionario#DEPARTAMENTOS}). Los totales, medias, máximos y mínimos se calculan
+ * recorriendo un único long[] contiguo de céntimos, sin seguir un puntero por
+ * empleado, y las sumas son exactas (ver {@link Dinero}).
+ * <p>
+ * Se puede usar sola (añadiendo filas con datos primitivos) o mantenerse en
+ * sincronía con los objetos Empleado añadiéndola como observador de un
+ * {@link Registro}. Las filas no tienen un orden fijo: al eliminar una fila
+ * se ocupa su hueco con la última.
+ * </p>
+ * <p>
+ * Es segura entre hilos: las escrituras se serializan con un cerrojo propio y
+ * las consultas se hacen con bloqueo de lectura.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public class PlantillaColumnar implements ObservadorRegistro {
+
+    /** Tipo de fila para empleados normales */
+    public static final byte TIPO_EMPLEADO = 0;
+
+    /** Tipo de fila para jefes */
+    public static final byte TIPO_JEFE = 1;
+
+    /** Valor de la columna de fecha cuando el empleado no tiene fecha de contratación */
+    public static final int SIN_FECHA = Integer.MIN_VALUE;
+
+    /** Valor de la columna de departamento cuando el empleado no tiene departamento */
+    public static final int SIN_DEPARTAMENTO = Diccionario.SIN_CODIGO;
+
+    /** Capacidad inicial por defecto */
+    private static final int CAPACIDAD_INICIAL = 16;
+
+    /** Cerrojo que protege todas las columnas */
+    private final StampedLock cerrojo = new StampedLock();
+
+    /** Fila de cada número de empleado */
+    private final MapaContadores filaPorNumero = new MapaContadores();
+
+    /** Columna de números de empleado */
+    private int[] numEmpleado;
+
+    /** Columna de tipos (TIPO_EMPLEADO o TIPO_JEFE) */
+    private byte[] tipo;
+
+    /** Columna de sueldos brutos, en céntimos */
+    private long[] sueldo;
+
+    /** Columna de IRPF, en puntos básicos */
+    private int[] irpf;
+
+    /** Columna del descuento de cada fila según las reglas, en puntos básicos */
+    private int[] descuento;
+
+    /** Reglas con las que se calcula la columna de descuentos */
+    private ReglasNomina reglasDescuento = ReglasNomina.DESCUENTOS;
+
+    /** Columna de fechas de contratación como día epoch */
+    private int[] fechaContratacion;
+
+    /** Columna de códigos de departamento */
+    private int[] departamento;
+
+    /** Número de filas ocupadas */
+    private int tamano;
+
+    /**
+     * Constructor por defecto con capacidad inicial por defecto.
+     */
+    public PlantillaColumnar() {
+        this(CAPACIDAD_INICIAL);
+    }
+
+    /**
+     * Constructor que reserva espacio para un número de filas.
+     *
+     * @param capacidadInicial Número de filas a reservar (debe ser >= 0)
+     * @throws IllegalArgumentException si la capacidad es negativa
+     */
+    public PlantillaColumnar(int capacidadInicial) {
+        if (capacidadInicial < 0) {
+            throw new IllegalArgumentException("La capacidad no puede ser negativa: " + capacidadInicial);
+        }
+        numEmpleado = new int[capacidadInicial];
+        tipo = new byte[capacidadInicial];
+        sueldo = new long[capacidadInicial];
+        irpf = new int[capacidadInicial];
+        descuento = new int[capacidadInicial];
+        fechaContratacion = new int[capacidadInicial];
+        departamento = new int[capacidadInicial];
+    }
+
+    /**
+     * Crea un almacén columnar con los empleados de un array.
+     *
+     * @param empleados Empleados a cargar (se ignoran los null)
+     * @return Almacén con una fila por empleado
+     */
+    public static PlantillaColumnar desde(Empleado[] empleados) {
+        return desde(Arrays.asList(empleados));
+    }
+
+    /**
+     * Crea un almacén columnar con los empleados de una colección.
+     *
+     * @param empleados Empleados a cargar (se ignoran los null)
+     * @return Almacén con una fila por empleado
+     */
+    public static PlantillaColumnar desde(Collection<? extends Empleado> empleados) {
+        PlantillaColumnar columnar = new PlantillaColumnar(empleados.size());
+        for (Empleado e : empleados) {
+            if (e != null) columnar.agregar(e);
+        }
+        return columnar;
+    }
+
+    /**
+     * Añade o actualiza la fila de un empleado a partir del objeto.
+     *
+     * @param empleado Empleado a añadir (no puede ser null)
+     */
+    public void agregar(Empleado empleado) {
+        Fecha fecha = empleado.getFechaContratacion();
+        int codigo = (empleado instanceof Jefe) ? ((Jefe) empleado).getCodigoDepartamento() : SIN_DEPARTAMENTO;
+        long sello = cerrojo.writeLock();
+        try {
+            escribirFila(empleado.getNumEmpleado(),
+                    (empleado instanceof Jefe) ? TIPO_JEFE : TIPO_EMPLEADO,
+                    empleado.getSueldoCentimos(), empleado.getIrpfPuntosBasicos(),
+                    (fecha == null) ? SIN_FECHA : fecha.getDiaEpoch(),
+                    codigo);
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Añade o actualiza una fila a partir de datos primitivos, sin necesidad
+     * de tener un objeto Empleado.
+     *
+     * @param numEmpleado Número de empleado
+     * @param tipo TIPO_EMPLEADO o TIPO_JEFE
+     * @param sueldo Sueldo bruto
+     * @param irpf IRPF entre 0.0 y 1.0
+     * @param diaEpochContratacion Fecha de contratación como día epoch, o SIN_FECHA
+     * @param codigoDepartamento Código de departamento (ver
+     *        {@link #codigoDepartamento(String)}), o SIN_DEPARTAMENTO
+     * @throws IllegalArgumentException si el sueldo no se puede expresar en
+     *         céntimos, el IRPF no está entre 0.0 y 1.0 o el código de
+     *         departamento no está registrado
+     */
+    public void agregar(int numEmpleado, byte tipo, double sueldo, double irpf,
+            int diaEpochContratacion, int codigoDepartamento) {
+        if (codigoDepartamento != SIN_DEPARTAMENTO) {
+            Diccionario.DEPARTAMENTOS.texto(codigoDepartamento);
+        }
+        long centimos = Dinero.centimos(sueldo);
+        int puntosBasicos = Dinero.puntosBasicos(irpf);
+        long sello = cerrojo.writeLock();
+        try {
+            escribirFila(numEmpleado, tipo, centimos, puntosBasicos, diaEpochContratacion, codigoDepartamento);
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Elimina la fila de un empleado, ocupando su hueco con la última fila.
+     *
+     * @param numEmpleado Número del empleado a eliminar
+     * @return true si la fila existía, false en caso contrario
+     */
+    public boolean eliminar(int numEmpleado) {
+        long sello = cerrojo.writeLock();
+        try {
+            int fila = buscarFila(numEmpleado);
+            if (fila < 0) {
+                return false;
+            }
+            filaPorNumero.eliminar(numEmpleado);
+            int ultima = --tamano;
+            if (fila != ultima) {
+                this.numEmpleado[fila] = this.numEmpleado[ultima];
+                this.tipo[fila] = this.tipo[ultima];
+                this.sueldo[fila] = this.sueldo[ultima];
+                this.irpf[fila] = this.irpf[ultima];
+                this.descuento[fila] = this.descuento[ultima];
+                this.fechaContratacion[fila] = this.fechaContratacion[ultima];
+                this.departamento[fila] = this.departamento[ultima];
+                filaPorNumero.incrementar(this.numEmpleado[fila], fila - ultima);
+            }
+            return true;
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Cambia el sueldo de una fila.
+     *
+     * @param numEmpleado Número del empleado
+     * @param nuevoSueldo Nuevo sueldo bruto
+     * @return true si la fila existía, false en caso contrario
+     * @throws IllegalArgumentException si el sueldo no se puede expresar en céntimos
+     */
+    public boolean actualizarSueldo(int numEmpleado, double nuevoSueldo) {
+        return actualizarSueldoCentimos(numEmpleado, Dinero.centimos(nuevoSueldo));
+    }
+
+    /**
+     * Cambia el sueldo de una fila, expresado en céntimos.
+     *
+     * @param numEmpleado Número del empleado
+     * @param nuevoSueldo Nuevo sueldo bruto, en céntimos
+     * @return true si la fila existía, false en caso contrario
+     */
+    public boolean actualizarSueldoCentimos(int numEmpleado, long nuevoSueldo) {
+        long sello = cerrojo.writeLock();
+        try {
+            int fila = buscarFila(numEmpleado);
+            if (fila < 0) {
+                return false;
+            }
+            sueldo[fila] = nuevoSueldo;
+            if (!reglasDescuento.soloPorTipo()) {
+                descuento[fila] = evaluarDescuento(fila);
+            }
+            return true;
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Obtiene el código numérico de un departamento, asignándole uno nuevo si
+     * todavía no lo tenía. Es el mismo código que guardan los Jefes de ese
+     * departamento.
+     *
+     * @param nombreDepartamento Nombre del departamento (puede ser null)
+     * @return Código del departamento, o SIN_DEPARTAMENTO si el nombre es null
+     */
+    public int codigoDepartamento(String nombreDepartamento) {
+        return Diccionario.DEPARTAMENTOS.codificar(nombreDepartamento);
+    }
+
+    /**
+     * Obtiene el número de filas del almacén.
+     *
+     * @return Número de empleados almacenados
+     */
+    public int tamano() {
+        long sello = cerrojo.readLock();
+        try {
+            return tamano;
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Calcula la suma de todos los sueldos.
+     *
+     * @return Total de sueldos brutos
+     */
+    public double totalizarSueldos() {
+        long sello = cerrojo.readLock();
+        try {
+            long[] s = sueldo;
+            long total = 0;
+            for (int i = 0, n = tamano; i < n; i++) {
+                total += s[i];
+            }
+            return Dinero.euros(total);
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Calcula la suma de los sueldos de un tipo de empleado.
+     *
+     * @param tipoEmpleado TIPO_EMPLEADO o TIPO_JEFE
+     * @return Total de sueldos brutos de ese tipo
+     */
+    public double totalizarSueldos(byte tipoEmpleado) {
+        long sello = cerrojo.readLock();
+        try {
+            long[] s = sueldo;
+            byte[] t = tipo;
+            long total = 0;
+            for (int i = 0, n = tamano; i < n; i++) {
+                total += (t[i] == tipoEmpleado) ? s[i] : 0;
+            }
+            return Dinero.euros(total);
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Calcula la suma de los sueldos de un departamento.
+     *
+     * @param nombreDepartamento Nombre del departamento
+     * @return Total de sueldos brutos del departamento, o 0.0 si no existe
+     */
+    public double totalizarSueldosDepartamento(String nombreDepartamento) {
+        int c = Diccionario.DEPARTAMENTOS.buscar(nombreDepartamento);
+        if (c == SIN_DEPARTAMENTO) {
+            return 0.0;
+        }
+        long sello = cerrojo.readLock();
+        try {
+            long[] s = sueldo;
+            int[] d = departamento;
+            long total = 0;
+            for (int i = 0, n = tamano; i < n; i++) {
+                total += (d[i] == c) ? s[i] : 0;
+            }
+            return Dinero.euros(total);
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Calcula la suma de los sueldos de cada departamento en una sola pasada,
+     * acumulando en un array indexado por el código de departamento en lugar
+     * de buscar cada nombre en un mapa.
+     *
+     * @return Total de sueldos brutos por nombre de departamento, en orden de
+     *         código; los empleados sin departamento no se incluyen
+     */
+    public Map<String, Double> totalizarSueldosPorDepartamento() {
+        long[] totales;
+        boolean[] presentes;
+        long sello = cerrojo.readLock();
+        try {
+            int codigos = Diccionario.DEPARTAMENTOS.tamano();
+            totales = new long[codigos];
+            presentes = new boolean[codigos];
+            long[] s = sueldo;
+            int[] d = departamento;
+            for (int i = 0, n = tamano; i < n; i++) {
+                int c = d[i];
+                if (c != SIN_DEPARTAMENTO) {
+                    totales[c] += s[i];
+                    presentes[c] = true;
+                }
+            }
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+        Map<String, Double> resultado = new LinkedHashMap<>();
+        for (int c = 0; c < totales.length; c++) {
+            if (presentes[c]) {
+                resultado.put(Diccionario.DEPARTAMENTOS.texto(c), Dinero.euros(totales[c]));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Calcula el sueldo medio.
+     *
+     * @return Sueldo medio, o 0.0 si el almacén está vacío
+     */
+    public double calcularSueldoPromedio() {
+        long sello = cerrojo.readLock();
+        try {
+            if (tamano == 0) {
+                return 0.0;
+            }
+            long[] s = sueldo;
+            long total = 0;
+            for (int i = 0, n = tamano; i < n; i++) {
+                total += s[i];
+            }
+            return Dinero.euros(total) / tamano;
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Obtiene el sueldo más alto.
+     *
+     * @return Sueldo máximo, o 0.0 si el almacén está vacío
+     */
+    public double obtenerSueldoMaximo() {
+        long sello = cerrojo.readLock();
+        try {
+            if (tamano == 0) {
+                return 0.0;
+            }
+            long[] s = sueldo;
+            long maximo = s[0];
+            for (int i = 1, n = tamano; i < n; i++) {
+                maximo = Math.max(maximo, s[i]);
+            }
+            return Dinero.euros(maximo);
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Obtiene el sueldo más bajo.
+     *
+     * @return Sueldo mínimo, o 0.0 si el almacén está vacío
+     */
+    public double obtenerSueldoMinimo() {
+        long sello = cerrojo.readLock();
+        try {
+            if (tamano == 0) {
+                return 0.0;
+            }
+            long[] s = sueldo;
+            long minimo = s[0];
+            for (int i = 1, n = tamano; i < n; i++) {
+                minimo = Math.min(minimo, s[i]);
+            }
+            return Dinero.euros(minimo);
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Calcula el total de IRPF retenido (suma de sueldo x IRPF de cada fila,
+     * redondeado al céntimo fila a fila).
+     *
+     * @return Total de IRPF
+     */
+    public double calcularTotalIRPF() {
+        long sello = cerrojo.readLock();
+        try {
+            long[] s = sueldo;
+            int[] r = irpf;
+            long total = 0;
+            for (int i = 0, n = tamano; i < n; i++) {
+                total += Dinero.porcentaje(s[i], r[i]);
+            }
+            return Dinero.euros(total);
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Cambia las reglas de descuento y vuelve a calcular la columna de
+     * descuentos. Las reglas se evalúan con los datos de cada fila: el
+     * departamento es el de la columna de departamentos y la antigüedad se
+     * calcula con la fecha del día en que se escribe la fila.
+     *
+     * @param reglas Nuevas reglas (no puede ser null)
+     * @throws IllegalArgumentException si las reglas son null
+     */
+    public void setReglasDescuento(ReglasNomina reglas) {
+        if (reglas == null) {
+            throw new IllegalArgumentException("Las reglas no pueden ser null");
+        }
+        long sello = cerrojo.writeLock();
+        try {
+            reglasDescuento = reglas;
+            for (int i = 0; i < tamano; i++) {
+                descuento[i] = evaluarDescuento(i);
+            }
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Liquida las nóminas de todas las filas por lotes sobre las columnas,
+     * sin recorrer ningún objeto.
+     *
+     * @return Totales bruto, retenido, descontado y neto
+     * @see Nomina#calcular(long[], int[], int[], long[], int)
+     */
+    public Nomina calcularNomina() {
+        long sello = cerrojo.readLock();
+        try {
+            return Nomina.calcular(sueldo, irpf, descuento, null, tamano);
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Cuenta los empleados contratados entre dos fechas (ambas incluidas)
+     * recorriendo solo la columna de días epoch, sin crear ningún objeto Fecha.
+     *
+     * @param desde Primera fecha del intervalo
+     * @param hasta Última fecha del intervalo
+     * @return Número de empleados contratados en el intervalo
+     */
+    public int contarContratadosEntre(Fecha desde, Fecha hasta) {
+        int primero = desde.getDiaEpoch();
+        int ultimo = hasta.getDiaEpoch();
+        long sello = cerrojo.readLock();
+        try {
+            int[] f = fechaContratacion;
+            int cuenta = 0;
+            for (int i = 0, n = tamano; i < n; i++) {
+                int dia = f[i];
+                if (dia >= primero && dia <= ultimo) {
+                    cuenta++;
+                }
+            }
+            return cuenta;
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Añade la fila del empleado registrado.
+     *
+     * @param empleado Empleado registrado
+     */
+    @Override
+    public void empleadoRegistrado(Empleado empleado) {
+        agregar(empleado);
+    }
+
+    /**
+     * Elimina la fila del empleado dado de baja.
+     *
+     * @param empleado Empleado eliminado
+     */
+    @Override
+    public void empleadoEliminado(Empleado empleado) {
+        eliminar(empleado.getNumEmpleado());
+    }
+
+    /**
+     * Actualiza el sueldo de la fila. Se lee el sueldo actual del empleado en
+     * lugar de usar el valor del aviso, de modo que si llegan avisos
+     * desordenados desde varios hilos la fila acaba con el último valor.
+     *
+     * @param empleado Empleado modificado
+     * @param anterior Sueldo antes del cambio
+     * @param nuevo Sueldo después del cambio
+     */
+    @Override
+    public void sueldoModificado(Empleado empleado, double anterior, double nuevo) {
+        actualizarSueldoCentimos(empleado.getNumEmpleado(), empleado.getSueldoCentimos());
+    }
+
+    /**
+     * Vuelve a leer todos los datos de la fila del empleado.
+     *
+     * @param empleado Empleado modificado
+     */
+    @Override
+    public void datosModificados(Empleado empleado) {
+        agregar(empleado);
+    }
+
+    /**
+     * Escribe una fila, reutilizando la del empleado si ya existía.
+     * Debe llamarse con el cerrojo de escritura tomado.
+     *
+     * @param num Número de empleado
+     * @param tipoFila TIPO_EMPLEADO o TIPO_JEFE
+     * @param sueldoFila Sueldo bruto, en céntimos
+     * @param irpfFila IRPF, en puntos básicos
+     * @param diaEpoch Fecha de contratación como día epoch, o SIN_FECHA
+     * @param codigoDepartamento Código de departamento, o SIN_DEPARTAMENTO
+     */
+    private void escribirFila(int num, byte tipoFila, long sueldoFila, int irpfFila,
+            int diaEpoch, int codigoDepartamento) {
+        int fila = buscarFila(num);
+        if (fila < 0) {
+            if (tamano == numEmpleado.length) {
+                crecer();
+            }
+            fila = tamano++;
+            filaPorNumero.incrementar(num, fila + 1);
+        }
+        numEmpleado[fila] = num;
+        tipo[fila] = tipoFila;
+        sueldo[fila] = sueldoFila;
+        irpf[fila] = irpfFila;
+        descuento[fila] = evaluarDescuento(fila);
+        fechaContratacion[fila] = diaEpoch;
+        departamento[fila] = codigoDepartamento;
+    }
+
+    /**
+     * Evalúa las reglas de descuento con los datos de una fila.
+     * Debe llamarse con el cerrojo de escritura tomado.
+     *
+     * @param fila Fila a evaluar
+     * @return Descuento en puntos básicos
+     */
+    private int evaluarDescuento(int fila) {
+        boolean jefe = tipo[fila] == TIPO_JEFE;
+        if (reglasDescuento.soloPorTipo()) {
+            return reglasDescuento.evaluar(jefe, SIN_DEPARTAMENTO, -1, 0);
+        }
+        int f = fechaContratacion[fila];
+        return reglasDescuento.evaluar(jefe, departamento[fila],
+                (f == SIN_FECHA) ? -1 : Fecha.deDiaEpoch(f).añosEntre(Fecha.hoy()),
+                sueldo[fila]);
+    }
+
+    /**
+     * Busca la fila de un empleado. El índice guarda fila + 1 para que el 0
+     * (contador ausente) signifique que el empleado no está.
+     *
+     * @param num Número de empleado
+     * @return Fila del empleado, o -1 si no está
+     */
+    private int buscarFila(int num) {
+        return filaPorNumero.obtener(num) - 1;
+    }
+
+    /**
+     * Duplica la capacidad de todas las columnas.
+     */
+    private void crecer() {
+        int capacidad = Math.max(CAPACIDAD_INICIAL, numEmpleado.length << 1);
+        numEmpleado = Arrays.copyOf(numEmpleado, capacidad);
+        tipo = Arrays.copyOf(tipo, capacidad);
+        sueldo = Arrays.copyOf(sueldo, capacidad);
+        irpf = Arrays.copyOf(irpf, capacidad);
+        descuento = Arrays.copyOf(descuento, capacidad);
+        fechaContratacion = Arrays.copyOf(fechaContratacion, capacidad);
+        departamento = Arrays.copyOf(departamento, capacidad);
+    }
+}
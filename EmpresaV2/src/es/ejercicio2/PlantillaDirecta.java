@@ -0,0 +1,1177 @@
+package es.ejercicio2;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Clase PlantillaDirecta que guarda los empleados fuera del heap, en bloques
+ * de memoria directa ({@code ByteBuffer.allocateDirect}), para plantillas de
+ * decenas de millones de personas. En lugar de un objeto Empleado por
+ * persona (con sus Fecha y sus String, varios cientos de bytes cada uno que
+ * el recolector de basura tiene que recorrer), cada empleado ocupa un
+ * registro de {@value #TAMANO_FILA} bytes con un formato fijo: número, tipo,
+ * sexo, sueldo en céntimos, IRPF en puntos básicos, fechas como día epoch,
+ * posiciones de nombre, DNI y NSS en una tabla de cadenas (también fuera
+ * del heap), códigos de cargo y departamento en {@link Diccionario} y número
+ * de subordinados. En el heap solo
+ * quedan los arrays primitivos del índice por número de empleado.
+ * <p>
+ * Los datos se consultan con una {@link Vista}: un objeto reutilizable que se
+ * coloca sobre una fila y ofrece los mismos métodos de lectura que
+ * {@link Empleado} y {@link Jefe} sin crear ningún objeto (salvo los String
+ * y Fecha que se piden). Los totales se calculan recorriendo los bloques.
+ * </p>
+ * <p>
+ * Se puede llenar a partir de objetos Empleado, de una {@link Instantanea} o
+ * mantenerse en sincronía con un {@link Registro} añadiéndola como
+ * observador. Como en {@link PlantillaColumnar}, las filas no tienen un
+ * orden fijo (al eliminar una se ocupa su hueco con la última). Al cambiar
+ * un texto se añade el nuevo al final de la tabla de cadenas y el anterior
+ * deja de usarse; se lleva la cuenta de los bytes que ya no usa ninguna
+ * fila y, cuando son más de la mitad de la tabla, se compacta copiando solo
+ * los textos vivos a bloques nuevos y corrigiendo las posiciones de cada
+ * fila.
+ * </p>
+ * <p>
+ * Es segura entre hilos: las escrituras se serializan con un cerrojo propio,
+ * los totales se calculan con bloqueo de lectura y los campos numéricos de
+ * la vista se leen con lectura optimista.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public class PlantillaDirecta implements ObservadorRegistro {
+
+    /** Tamaño de cada registro en bytes */
+    static final int TAMANO_FILA = 56;
+
+    /** Bits del número de filas de cada bloque */
+    private static final int BITS_BLOQUE = 16;
+
+    /** Número de filas de cada bloque */
+    private static final int FILAS_POR_BLOQUE = 1 << BITS_BLOQUE;
+
+    /** Máscara para obtener la fila dentro del bloque */
+    private static final int MASCARA_BLOQUE = FILAS_POR_BLOQUE - 1;
+
+    /** Bits del tamaño de cada bloque de cadenas */
+    private static final int BITS_BLOQUE_CADENAS = 22;
+
+    /** Tamaño de cada bloque de cadenas en bytes */
+    private static final int TAMANO_BLOQUE_CADENAS = 1 << BITS_BLOQUE_CADENAS;
+
+    /**
+     * Bits de alineación de las cadenas: las posiciones se guardan divididas
+     * entre 8, de modo que un int alcanza 16 GB de tabla de cadenas
+     */
+    private static final int BITS_ALINEACION = 3;
+
+    /**
+     * Bytes sin usar a partir de los cuales se plantea compactar la tabla de
+     * cadenas (solo se compacta si además son la mitad de la tabla)
+     */
+    private static final long UMBRAL_COMPACTACION = TAMANO_BLOQUE_CADENAS;
+
+    /** Posición que indica una cadena null */
+    private static final int SIN_CADENA = -1;
+
+    /** Posibles valores del sexo, indexados por ordinal */
+    private static final Persona.Sexo[] SEXOS = Persona.Sexo.values();
+
+    // Posiciones de los campos dentro de cada registro
+    private static final int REG_NUM_EMPLEADO = 0;
+    private static final int REG_TIPO = 4;
+    private static final int REG_SEXO = 5;
+    private static final int REG_SUELDO = 8;
+    private static final int REG_IRPF = 16;
+    private static final int REG_FECHA_NAC = 20;
+    private static final int REG_FECHA_CONTRATACION = 24;
+    private static final int REG_NOMBRE = 28;
+    private static final int REG_DNI = 32;
+    private static final int REG_NSS = 36;
+    private static final int REG_CARGO = 40;
+    private static final int REG_DEPARTAMENTO = 44;
+    private static final int REG_NUM_SUBORDINADOS = 48;
+
+    /** Cerrojo que protege los bloques, la tabla de cadenas y el índice */
+    private final StampedLock cerrojo = new StampedLock();
+
+    /** Fila de cada número de empleado (guardada como fila + 1) */
+    private final MapaContadores filaPorNumero = new MapaContadores();
+
+    /** Bloques de registros; solo se reservan los que se usan */
+    private ByteBuffer[] bloques = new ByteBuffer[0];
+
+    /** Bloques de la tabla de cadenas */
+    private ByteBuffer[] bloquesCadenas = new ByteBuffer[0];
+
+    /** Número de bloques de cadenas reservados */
+    private int numBloquesCadenas;
+
+    /** Posición en la tabla de cadenas donde se escribirá la siguiente */
+    private long finCadenas;
+
+    /** Bytes de la tabla de cadenas que ya no usa ninguna fila */
+    private long bytesMuertos;
+
+    /** Número de filas ocupadas */
+    private int tamano;
+
+    /**
+     * Constructor de un almacén vacío. Los bloques se reservan a medida que
+     * se añaden empleados.
+     */
+    public PlantillaDirecta() {
+    }
+
+    /**
+     * Crea un almacén con los empleados de una colección.
+     *
+     * @param empleados Empleados a cargar (se ignoran los null)
+     * @return Almacén con una fila por empleado
+     */
+    public static PlantillaDirecta desde(Collection<? extends Empleado> empleados) {
+        PlantillaDirecta directa = new PlantillaDirecta();
+        for (Empleado e : empleados) {
+            if (e != null) directa.agregar(e);
+        }
+        return directa;
+    }
+
+    /**
+     * Crea un almacén con los empleados de una instantánea. Cada registro se
+     * convierte en un objeto de vida corta que se descarta nada más
+     * copiarlo, así que la plantilla completa nunca está en el heap.
+     *
+     * @param instantanea Instantánea a cargar
+     * @return Almacén con una fila por empleado de la instantánea
+     */
+    public static PlantillaDirecta desde(Instantanea instantanea) {
+        PlantillaDirecta directa = new PlantillaDirecta();
+        for (int i = 0, n = instantanea.getNumEmpleados(); i < n; i++) {
+            directa.agregar(instantanea.materializar(i));
+        }
+        return directa;
+    }
+
+    /**
+     * Añade o actualiza la fila de un empleado a partir del objeto. Los
+     * textos que no han cambiado conservan su posición en la tabla de cadenas.
+     *
+     * @param empleado Empleado a añadir (no puede ser null)
+     * @throws IllegalArgumentException si algún texto supera el tamaño de un
+     *         bloque de cadenas
+     * @throws IllegalStateException si la tabla de cadenas está llena
+     */
+    public void agregar(Empleado empleado) {
+        boolean jefe = empleado instanceof Jefe;
+        String nombre = empleado.getNombre();
+        String dni = empleado.getDni();
+        String nss = empleado.getNss();
+        int cargo = empleado.getCodigoCargo();
+        int departamento = jefe ? ((Jefe) empleado).getCodigoDepartamento() : Diccionario.SIN_CODIGO;
+        int num = empleado.getNumEmpleado();
+        long sello = cerrojo.writeLock();
+        try {
+            int fila = filaPorNumero.obtener(num) - 1;
+            boolean nueva = fila < 0;
+            if (nueva) {
+                fila = tamano;
+                if ((fila >>> BITS_BLOQUE) == bloques.length || bloques[fila >>> BITS_BLOQUE] == null) {
+                    reservarBloque(fila >>> BITS_BLOQUE);
+                }
+            }
+            ByteBuffer b = bloques[fila >>> BITS_BLOQUE];
+            int p = (fila & MASCARA_BLOQUE) * TAMANO_FILA;
+            // Los textos se escriben antes de ocupar la fila por si la tabla se llena
+            int posNombre = cadena(b, p + REG_NOMBRE, nueva, nombre);
+            int posDni = cadena(b, p + REG_DNI, nueva, dni);
+            int posNss = cadena(b, p + REG_NSS, nueva, nss);
+            Fecha nacimiento = empleado.getFechaNac();
+            Fecha contratacion = empleado.getFechaContratacion();
+            b.putInt(p + REG_NUM_EMPLEADO, num);
+            b.put(p + REG_TIPO, jefe ? PlantillaColumnar.TIPO_JEFE : PlantillaColumnar.TIPO_EMPLEADO);
+            b.put(p + REG_SEXO, (byte) empleado.getSexo().ordinal());
+            b.putLong(p + REG_SUELDO, empleado.getSueldoCentimos());
+            b.putInt(p + REG_IRPF, empleado.getIrpfPuntosBasicos());
+            b.putInt(p + REG_FECHA_NAC, (nacimiento == null) ? PlantillaColumnar.SIN_FECHA : nacimiento.getDiaEpoch());
+            b.putInt(p + REG_FECHA_CONTRATACION,
+                    (contratacion == null) ? PlantillaColumnar.SIN_FECHA : contratacion.getDiaEpoch());
+            if (!nueva) {
+                liberarCadena(b.getInt(p + REG_NOMBRE), posNombre);
+                liberarCadena(b.getInt(p + REG_DNI), posDni);
+                liberarCadena(b.getInt(p + REG_NSS), posNss);
+            }
+            b.putInt(p + REG_NOMBRE, posNombre);
+            b.putInt(p + REG_DNI, posDni);
+            b.putInt(p + REG_NSS, posNss);
+            b.putInt(p + REG_CARGO, cargo);
+            b.putInt(p + REG_DEPARTAMENTO, departamento);
+            b.putInt(p + REG_NUM_SUBORDINADOS, jefe ? ((Jefe) empleado).getNumSubordinados() : 0);
+            if (nueva) {
+                tamano++;
+                filaPorNumero.incrementar(num, fila + 1);
+            }
+            compactarSiHaceFalta();
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Elimina la fila de un empleado, ocupando su hueco con la última fila.
+     *
+     * @param numEmpleado Número del empleado a eliminar
+     * @return true si la fila existía, false en caso contrario
+     */
+    public boolean eliminar(int numEmpleado) {
+        long sello = cerrojo.writeLock();
+        try {
+            int fila = filaPorNumero.obtener(numEmpleado) - 1;
+            if (fila < 0) {
+                return false;
+            }
+            filaPorNumero.eliminar(numEmpleado);
+            ByteBuffer b = bloques[fila >>> BITS_BLOQUE];
+            int p = (fila & MASCARA_BLOQUE) * TAMANO_FILA;
+            liberarCadena(b.getInt(p + REG_NOMBRE), SIN_CADENA);
+            liberarCadena(b.getInt(p + REG_DNI), SIN_CADENA);
+            liberarCadena(b.getInt(p + REG_NSS), SIN_CADENA);
+            int ultima = --tamano;
+            if (fila != ultima) {
+                ByteBuffer destino = bloques[fila >>> BITS_BLOQUE];
+                ByteBuffer origen = bloques[ultima >>> BITS_BLOQUE];
+                int d = (fila & MASCARA_BLOQUE) * TAMANO_FILA;
+                int o = (ultima & MASCARA_BLOQUE) * TAMANO_FILA;
+                for (int i = 0; i < TAMANO_FILA; i += 8) {
+                    destino.putLong(d + i, origen.getLong(o + i));
+                }
+                filaPorNumero.incrementar(destino.getInt(d + REG_NUM_EMPLEADO), fila - ultima);
+            }
+            compactarSiHaceFalta();
+            return true;
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Cambia el sueldo de una fila, expresado en céntimos.
+     *
+     * @param numEmpleado Número del empleado
+     * @param nuevoSueldo Nuevo sueldo bruto, en céntimos
+     * @return true si la fila existía, false en caso contrario
+     */
+    public boolean actualizarSueldoCentimos(int numEmpleado, long nuevoSueldo) {
+        long sello = cerrojo.writeLock();
+        try {
+            int fila = filaPorNumero.obtener(numEmpleado) - 1;
+            if (fila < 0) {
+                return false;
+            }
+            bloques[fila >>> BITS_BLOQUE].putLong((fila & MASCARA_BLOQUE) * TAMANO_FILA + REG_SUELDO, nuevoSueldo);
+            return true;
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Elimina todas las filas y libera los bloques, que el recolector de
+     * basura devuelve al sistema cuando deja de haber referencias a ellos.
+     */
+    public void limpiar() {
+        long sello = cerrojo.writeLock();
+        try {
+            filaPorNumero.limpiar();
+            bloques = new ByteBuffer[0];
+            bloquesCadenas = new ByteBuffer[0];
+            numBloquesCadenas = 0;
+            finCadenas = 0;
+            bytesMuertos = 0;
+            tamano = 0;
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Obtiene el número de filas del almacén.
+     *
+     * @return Número de empleados almacenados
+     */
+    public int tamano() {
+        long sello = cerrojo.readLock();
+        try {
+            return tamano;
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Obtiene la memoria directa reservada por el almacén.
+     *
+     * @return Bytes reservados fuera del heap
+     */
+    public long getBytesReservados() {
+        long sello = cerrojo.readLock();
+        try {
+            long total = (long) numBloquesCadenas * TAMANO_BLOQUE_CADENAS;
+            for (ByteBuffer b : bloques) {
+                if (b != null) total += b.capacity();
+            }
+            return total;
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Crea una vista sin colocar, para usarla con {@link Vista#mover(int)} o
+     * {@link Vista#moverAFila(int)}. Una misma vista se puede reutilizar
+     * para recorrer todas las filas.
+     *
+     * @return Vista nueva
+     */
+    public Vista crearVista() {
+        return new Vista(this);
+    }
+
+    /**
+     * Busca un empleado y crea el objeto Empleado o Jefe a partir de su fila.
+     *
+     * @param numEmpleado Número de empleado
+     * @return Nuevo objeto Empleado o Jefe, o null si no está en el almacén
+     */
+    public Empleado obtenerEmpleado(int numEmpleado) {
+        Vista vista = crearVista();
+        return vista.mover(numEmpleado) ? vista.materializar() : null;
+    }
+
+    /**
+     * Calcula la suma de todos los sueldos recorriendo los bloques.
+     *
+     * @return Total de sueldos brutos
+     */
+    public double totalizarSueldos() {
+        long sello = cerrojo.readLock();
+        try {
+            return Dinero.euros(sumarSueldos());
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Calcula la suma de los sueldos de un tipo de empleado.
+     *
+     * @param tipoEmpleado PlantillaColumnar.TIPO_EMPLEADO o PlantillaColumnar.TIPO_JEFE
+     * @return Total de sueldos brutos de ese tipo
+     */
+    public double totalizarSueldos(byte tipoEmpleado) {
+        long sello = cerrojo.readLock();
+        try {
+            long total = 0;
+            for (int i = 0, n = tamano; i < n; i += FILAS_POR_BLOQUE) {
+                ByteBuffer b = bloques[i >>> BITS_BLOQUE];
+                int fin = Math.min(n - i, FILAS_POR_BLOQUE) * TAMANO_FILA;
+                for (int p = 0; p < fin; p += TAMANO_FILA) {
+                    total += (b.get(p + REG_TIPO) == tipoEmpleado) ? b.getLong(p + REG_SUELDO) : 0;
+                }
+            }
+            return Dinero.euros(total);
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Calcula el sueldo medio.
+     *
+     * @return Sueldo medio, o 0.0 si el almacén está vacío
+     */
+    public double calcularSueldoPromedio() {
+        long sello = cerrojo.readLock();
+        try {
+            return (tamano == 0) ? 0.0 : Dinero.euros(sumarSueldos()) / tamano;
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Obtiene el sueldo más alto.
+     *
+     * @return Sueldo máximo, o 0.0 si el almacén está vacío
+     */
+    public double obtenerSueldoMaximo() {
+        long sello = cerrojo.readLock();
+        try {
+            if (tamano == 0) {
+                return 0.0;
+            }
+            long maximo = Long.MIN_VALUE;
+            for (int i = 0, n = tamano; i < n; i += FILAS_POR_BLOQUE) {
+                ByteBuffer b = bloques[i >>> BITS_BLOQUE];
+                int fin = Math.min(n - i, FILAS_POR_BLOQUE) * TAMANO_FILA;
+                for (int p = REG_SUELDO; p < fin; p += TAMANO_FILA) {
+                    maximo = Math.max(maximo, b.getLong(p));
+                }
+            }
+            return Dinero.euros(maximo);
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Obtiene el sueldo más bajo.
+     *
+     * @return Sueldo mínimo, o 0.0 si el almacén está vacío
+     */
+    public double obtenerSueldoMinimo() {
+        long sello = cerrojo.readLock();
+        try {
+            if (tamano == 0) {
+                return 0.0;
+            }
+            long minimo = Long.MAX_VALUE;
+            for (int i = 0, n = tamano; i < n; i += FILAS_POR_BLOQUE) {
+                ByteBuffer b = bloques[i >>> BITS_BLOQUE];
+                int fin = Math.min(n - i, FILAS_POR_BLOQUE) * TAMANO_FILA;
+                for (int p = REG_SUELDO; p < fin; p += TAMANO_FILA) {
+                    minimo = Math.min(minimo, b.getLong(p));
+                }
+            }
+            return Dinero.euros(minimo);
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Calcula el total de IRPF retenido (suma de sueldo x IRPF de cada fila,
+     * redondeado al céntimo fila a fila).
+     *
+     * @return Total de IRPF
+     */
+    public double calcularTotalIRPF() {
+        long sello = cerrojo.readLock();
+        try {
+            long total = 0;
+            for (int i = 0, n = tamano; i < n; i += FILAS_POR_BLOQUE) {
+                ByteBuffer b = bloques[i >>> BITS_BLOQUE];
+                int fin = Math.min(n - i, FILAS_POR_BLOQUE) * TAMANO_FILA;
+                for (int p = 0; p < fin; p += TAMANO_FILA) {
+                    total += Dinero.porcentaje(b.getLong(p + REG_SUELDO), b.getInt(p + REG_IRPF));
+                }
+            }
+            return Dinero.euros(total);
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Cuenta los empleados contratados entre dos fechas (ambas incluidas)
+     * sin crear ningún objeto Fecha.
+     *
+     * @param desde Primera fecha del intervalo
+     * @param hasta Última fecha del intervalo
+     * @return Número de empleados contratados en el intervalo
+     */
+    public int contarContratadosEntre(Fecha desde, Fecha hasta) {
+        int primero = desde.getDiaEpoch();
+        int ultimo = hasta.getDiaEpoch();
+        long sello = cerrojo.readLock();
+        try {
+            int cuenta = 0;
+            for (int i = 0, n = tamano; i < n; i += FILAS_POR_BLOQUE) {
+                ByteBuffer b = bloques[i >>> BITS_BLOQUE];
+                int fin = Math.min(n - i, FILAS_POR_BLOQUE) * TAMANO_FILA;
+                for (int p = REG_FECHA_CONTRATACION; p < fin; p += TAMANO_FILA) {
+                    int dia = b.getInt(p);
+                    if (dia >= primero && dia <= ultimo) {
+                        cuenta++;
+                    }
+                }
+            }
+            return cuenta;
+        } finally {
+            cerrojo.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Añade la fila del empleado registrado.
+     *
+     * @param empleado Empleado registrado
+     */
+    @Override
+    public void empleadoRegistrado(Empleado empleado) {
+        agregar(empleado);
+    }
+
+    /**
+     * Elimina la fila del empleado dado de baja.
+     *
+     * @param empleado Empleado eliminado
+     */
+    @Override
+    public void empleadoEliminado(Empleado empleado) {
+        eliminar(empleado.getNumEmpleado());
+    }
+
+    /**
+     * Actualiza el sueldo de la fila con el sueldo actual del empleado, de
+     * modo que si llegan avisos desordenados la fila acaba con el último.
+     *
+     * @param empleado Empleado modificado
+     * @param anterior Sueldo antes del cambio
+     * @param nuevo Sueldo después del cambio
+     */
+    @Override
+    public void sueldoModificado(Empleado empleado, double anterior, double nuevo) {
+        actualizarSueldoCentimos(empleado.getNumEmpleado(), empleado.getSueldoCentimos());
+    }
+
+    /**
+     * Vuelve a escribir todos los datos de la fila del empleado.
+     *
+     * @param empleado Empleado modificado
+     */
+    @Override
+    public void datosModificados(Empleado empleado) {
+        agregar(empleado);
+    }
+
+    /**
+     * Suma los sueldos de todas las filas.
+     * Debe llamarse con el cerrojo tomado.
+     *
+     * @return Total en céntimos
+     */
+    private long sumarSueldos() {
+        long total = 0;
+        for (int i = 0, n = tamano; i < n; i += FILAS_POR_BLOQUE) {
+            ByteBuffer b = bloques[i >>> BITS_BLOQUE];
+            int fin = Math.min(n - i, FILAS_POR_BLOQUE) * TAMANO_FILA;
+            for (int p = REG_SUELDO; p < fin; p += TAMANO_FILA) {
+                total += b.getLong(p);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Reserva un bloque de registros.
+     * Debe llamarse con el cerrojo de escritura tomado.
+     *
+     * @param indice Índice del bloque
+     */
+    private void reservarBloque(int indice) {
+        if (indice == bloques.length) {
+            bloques = Arrays.copyOf(bloques, Math.max(4, bloques.length << 1));
+        }
+        bloques[indice] = ByteBuffer.allocateDirect(FILAS_POR_BLOQUE * TAMANO_FILA).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Obtiene la posición de un texto para escribirlo en una fila: si la fila
+     * ya existía y el texto no ha cambiado se conserva la posición actual; si
+     * no, se añade a la tabla de cadenas.
+     * Debe llamarse con el cerrojo de escritura tomado.
+     *
+     * @param b Bloque de la fila
+     * @param campo Posición del campo en el bloque
+     * @param nueva Indica si la fila se está creando
+     * @param texto Texto a guardar (puede ser null)
+     * @return Posición del texto, o SIN_CADENA si es null
+     */
+    private int cadena(ByteBuffer b, int campo, boolean nueva, String texto) {
+        if (texto == null) {
+            return SIN_CADENA;
+        }
+        if (!nueva) {
+            int actual = b.getInt(campo);
+            if (actual != SIN_CADENA && texto.equals(leerCadena(actual))) {
+                return actual;
+            }
+        }
+        return escribirCadena(texto);
+    }
+
+    /**
+     * Añade un texto al final de la tabla de cadenas, como su longitud en
+     * bytes seguida de sus bytes en UTF-8. Un texto nunca queda partido entre
+     * dos bloques.
+     * Debe llamarse con el cerrojo de escritura tomado.
+     *
+     * @param texto Texto a añadir
+     * @return Posición del texto dividida entre 8
+     * @throws IllegalArgumentException si el texto no cabe en un bloque
+     * @throws IllegalStateException si la tabla de cadenas está llena
+     */
+    private int escribirCadena(String texto) {
+        return escribirUtf8(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Añade un texto ya codificado al final de la tabla de cadenas.
+     * Debe llamarse con el cerrojo de escritura tomado.
+     *
+     * @param utf8 Bytes del texto en UTF-8
+     * @return Posición del texto dividida entre 8
+     * @throws IllegalArgumentException si el texto no cabe en un bloque
+     * @throws IllegalStateException si la tabla de cadenas está llena
+     */
+    private int escribirUtf8(byte[] utf8) {
+        int longitud = 4 + utf8.length;
+        if (longitud > TAMANO_BLOQUE_CADENAS) {
+            throw new IllegalArgumentException("Texto demasiado largo: " + utf8.length + " bytes");
+        }
+        long inicio = finCadenas;
+        int desplazamiento = (int) (inicio & (TAMANO_BLOQUE_CADENAS - 1));
+        if (desplazamiento + longitud > TAMANO_BLOQUE_CADENAS) {
+            inicio += TAMANO_BLOQUE_CADENAS - desplazamiento;
+            desplazamiento = 0;
+        }
+        if ((inicio >>> BITS_ALINEACION) > Integer.MAX_VALUE) {
+            throw new IllegalStateException("La tabla de cadenas supera el tamaño máximo");
+        }
+        int indice = (int) (inicio >>> BITS_BLOQUE_CADENAS);
+        if (indice == numBloquesCadenas) {
+            if (indice == bloquesCadenas.length) {
+                bloquesCadenas = Arrays.copyOf(bloquesCadenas, Math.max(4, bloquesCadenas.length << 1));
+            }
+            bloquesCadenas[indice] = ByteBuffer.allocateDirect(TAMANO_BLOQUE_CADENAS).order(ByteOrder.nativeOrder());
+            numBloquesCadenas++;
+        }
+        ByteBuffer bloque = bloquesCadenas[indice];
+        bloque.putInt(desplazamiento, utf8.length);
+        ByteBuffer destino = bloque.duplicate();
+        destino.position(desplazamiento + 4);
+        destino.put(utf8);
+        // La siguiente cadena empieza alineada a 8 bytes
+        long alineacion = (1L << BITS_ALINEACION) - 1;
+        finCadenas = (inicio + longitud + alineacion) & ~alineacion;
+        return (int) (inicio >>> BITS_ALINEACION);
+    }
+
+    /**
+     * Lee un texto de la tabla de cadenas.
+     * Debe llamarse con el cerrojo tomado.
+     *
+     * @param posicion Posición del texto dividida entre 8, o SIN_CADENA
+     * @return Texto, o null
+     */
+    private String leerCadena(int posicion) {
+        if (posicion == SIN_CADENA) {
+            return null;
+        }
+        return new String(leerUtf8(bloquesCadenas, posicion), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lee los bytes en UTF-8 de un texto de una tabla de cadenas.
+     *
+     * @param tabla Bloques de la tabla de cadenas
+     * @param posicion Posición del texto dividida entre 8
+     * @return Bytes del texto
+     */
+    private static byte[] leerUtf8(ByteBuffer[] tabla, int posicion) {
+        long inicio = (long) posicion << BITS_ALINEACION;
+        ByteBuffer bloque = tabla[(int) (inicio >>> BITS_BLOQUE_CADENAS)];
+        int desplazamiento = (int) (inicio & (TAMANO_BLOQUE_CADENAS - 1));
+        byte[] utf8 = new byte[bloque.getInt(desplazamiento)];
+        ByteBuffer origen = bloque.duplicate();
+        origen.position(desplazamiento + 4);
+        origen.get(utf8);
+        return utf8;
+    }
+
+    /**
+     * Anota como sin usar el texto que tenía un campo de una fila, si se
+     * sustituye por otro. Debe llamarse con el cerrojo de escritura tomado.
+     *
+     * @param anterior Posición del texto que tenía el campo, o SIN_CADENA
+     * @param nueva Posición del texto que pasa a tener, o SIN_CADENA
+     */
+    private void liberarCadena(int anterior, int nueva) {
+        if (anterior == SIN_CADENA || anterior == nueva) {
+            return;
+        }
+        long inicio = (long) anterior << BITS_ALINEACION;
+        int longitud = bloquesCadenas[(int) (inicio >>> BITS_BLOQUE_CADENAS)]
+                .getInt((int) (inicio & (TAMANO_BLOQUE_CADENAS - 1)));
+        long alineacion = (1L << BITS_ALINEACION) - 1;
+        bytesMuertos += (4 + longitud + alineacion) & ~alineacion;
+    }
+
+    /**
+     * Compacta la tabla de cadenas si más de la mitad de sus bytes (y al
+     * menos {@link #UMBRAL_COMPACTACION}) ya no los usa ninguna fila: copia
+     * los textos vivos, fila a fila, a una tabla nueva y corrige sus
+     * posiciones en las filas. Los bloques anteriores los libera el
+     * recolector de basura. Como cada compactación deja la tabla sin huecos,
+     * su coste se reparte entre los cambios que los crearon.
+     * Debe llamarse con el cerrojo de escritura tomado.
+     */
+    private void compactarSiHaceFalta() {
+        if (bytesMuertos < UMBRAL_COMPACTACION || bytesMuertos * 2 < finCadenas) {
+            return;
+        }
+        ByteBuffer[] anteriores = bloquesCadenas;
+        bloquesCadenas = new ByteBuffer[0];
+        numBloquesCadenas = 0;
+        finCadenas = 0;
+        bytesMuertos = 0;
+        for (int fila = 0; fila < tamano; fila++) {
+            ByteBuffer b = bloques[fila >>> BITS_BLOQUE];
+            int p = (fila & MASCARA_BLOQUE) * TAMANO_FILA;
+            moverCadena(anteriores, b, p + REG_NOMBRE);
+            moverCadena(anteriores, b, p + REG_DNI);
+            moverCadena(anteriores, b, p + REG_NSS);
+        }
+    }
+
+    /**
+     * Copia el texto de un campo de una fila desde la tabla de cadenas
+     * anterior a la actual y guarda su nueva posición en la fila.
+     *
+     * @param anteriores Bloques de la tabla de cadenas anterior
+     * @param b Bloque de la fila
+     * @param campo Posición del campo en el bloque
+     */
+    private void moverCadena(ByteBuffer[] anteriores, ByteBuffer b, int campo) {
+        int posicion = b.getInt(campo);
+        if (posicion != SIN_CADENA) {
+            b.putInt(campo, escribirUtf8(leerUtf8(anteriores, posicion)));
+        }
+    }
+
+    /**
+     * Convierte un día epoch guardado en Fecha.
+     *
+     * @param diaEpoch Día epoch, o SIN_FECHA
+     * @return Fecha (compartida si está en la caché), o null
+     */
+    private static Fecha fecha(int diaEpoch) {
+        return (diaEpoch == PlantillaColumnar.SIN_FECHA) ? null : Fecha.deDiaEpoch(diaEpoch);
+    }
+
+    /**
+     * Vista reutilizable (flyweight) sobre una fila del almacén, con los
+     * mismos métodos de lectura que {@link Empleado} y {@link Jefe}. No
+     * guarda ningún dato: cada método lee la fila en el momento, así que
+     * recorrer millones de filas con una sola vista no crea objetos.
+     * <p>
+     * La vista apunta a una fila, no a un empleado: si se elimina algún
+     * empleado del almacén, su hueco lo ocupa la última fila y la vista
+     * puede quedar sobre otro empleado o fuera del almacén. Se vuelve a
+     * colocar con {@link #mover(int)}.
+     * </p>
+     */
+    public static final class Vista {
+
+        /** Almacén al que pertenece la vista */
+        private final PlantillaDirecta almacen;
+
+        /** Fila sobre la que está la vista, o -1 */
+        private int fila = -1;
+
+        /**
+         * Constructor privado: usar {@link PlantillaDirecta#crearVista()}.
+         *
+         * @param almacen Almacén de la vista
+         */
+        private Vista(PlantillaDirecta almacen) {
+            this.almacen = almacen;
+        }
+
+        /**
+         * Coloca la vista sobre la fila de un empleado.
+         *
+         * @param numEmpleado Número de empleado
+         * @return true si el empleado está en el almacén (si no, la vista
+         *         queda sin colocar)
+         */
+        public boolean mover(int numEmpleado) {
+            long sello = almacen.cerrojo.readLock();
+            try {
+                fila = almacen.filaPorNumero.obtener(numEmpleado) - 1;
+                return fila >= 0;
+            } finally {
+                almacen.cerrojo.unlockRead(sello);
+            }
+        }
+
+        /**
+         * Coloca la vista sobre una fila, para recorrer el almacén de 0 a
+         * {@link PlantillaDirecta#tamano()} - 1.
+         *
+         * @param fila Fila
+         * @throws IndexOutOfBoundsException si la fila no existe
+         */
+        public void moverAFila(int fila) {
+            long sello = almacen.cerrojo.readLock();
+            try {
+                if (fila < 0 || fila >= almacen.tamano) {
+                    throw new IndexOutOfBoundsException("Fila " + fila + " fuera de [0, " + almacen.tamano + ")");
+                }
+                this.fila = fila;
+            } finally {
+                almacen.cerrojo.unlockRead(sello);
+            }
+        }
+
+        /**
+         * Obtiene la fila sobre la que está la vista.
+         *
+         * @return Fila, o -1 si no está colocada
+         */
+        public int getFila() {
+            return fila;
+        }
+
+        /**
+         * Obtiene el número de empleado.
+         *
+         * @return Número de empleado
+         */
+        public int getNumEmpleado() {
+            return (int) leer(REG_NUM_EMPLEADO, 4);
+        }
+
+        /**
+         * Indica si la fila es de un jefe.
+         *
+         * @return true si es un Jefe
+         */
+        public boolean esJefe() {
+            return leer(REG_TIPO, 1) == PlantillaColumnar.TIPO_JEFE;
+        }
+
+        /**
+         * Obtiene el sexo.
+         *
+         * @return Sexo del empleado
+         */
+        public Persona.Sexo getSexo() {
+            int sexo = (int) leer(REG_SEXO, 1);
+            return (sexo >= 0 && sexo < SEXOS.length) ? SEXOS[sexo] : Persona.Sexo.DESCONOCIDO;
+        }
+
+        /**
+         * Obtiene el sueldo bruto.
+         *
+         * @return Sueldo del empleado
+         */
+        public double getSueldo() {
+            return Dinero.euros(leer(REG_SUELDO, 8));
+        }
+
+        /**
+         * Obtiene el sueldo bruto en céntimos.
+         *
+         * @return Sueldo del empleado en céntimos
+         */
+        public long getSueldoCentimos() {
+            return leer(REG_SUELDO, 8);
+        }
+
+        /**
+         * Obtiene el IRPF.
+         *
+         * @return IRPF entre 0.0 y 1.0
+         */
+        public double getIrpf() {
+            return Dinero.tasa((int) leer(REG_IRPF, 4));
+        }
+
+        /**
+         * Obtiene el IRPF en puntos básicos.
+         *
+         * @return IRPF del empleado (1500 = 15 %)
+         */
+        public int getIrpfPuntosBasicos() {
+            return (int) leer(REG_IRPF, 4);
+        }
+
+        /**
+         * Obtiene la fecha de nacimiento.
+         *
+         * @return Fecha de nacimiento, o null
+         */
+        public Fecha getFechaNac() {
+            return fecha((int) leer(REG_FECHA_NAC, 4));
+        }
+
+        /**
+         * Obtiene la fecha de contratación.
+         *
+         * @return Fecha de contratación, o null
+         */
+        public Fecha getFechaContratacion() {
+            return fecha((int) leer(REG_FECHA_CONTRATACION, 4));
+        }
+
+        /**
+         * Calcula la antigüedad en una fecha dada sin crear ningún objeto Fecha.
+         *
+         * @param hoy Fecha en la que se calcula la antigüedad
+         * @return Años completos trabajados en esa fecha, o -1 si no se conoce
+         *         la fecha de contratación
+         */
+        public int calcularAntiguedad(Fecha hoy) {
+            int dia = (int) leer(REG_FECHA_CONTRATACION, 4);
+            return (dia == PlantillaColumnar.SIN_FECHA) ? -1 : Fecha.deDiaEpoch(dia).añosEntre(hoy);
+        }
+
+        /**
+         * Obtiene el número de subordinados (0 si no es un jefe).
+         *
+         * @return Número de subordinados
+         */
+        public int getNumSubordinados() {
+            return (int) leer(REG_NUM_SUBORDINADOS, 4);
+        }
+
+        /**
+         * Obtiene el nombre.
+         *
+         * @return Nombre, o null
+         */
+        public String getNombre() {
+            return leerTexto(REG_NOMBRE);
+        }
+
+        /**
+         * Obtiene el DNI.
+         *
+         * @return DNI, o null
+         */
+        public String getDni() {
+            return leerTexto(REG_DNI);
+        }
+
+        /**
+         * Obtiene el número de la Seguridad Social.
+         *
+         * @return NSS, o null
+         */
+        public String getNss() {
+            return leerTexto(REG_NSS);
+        }
+
+        /**
+         * Obtiene el cargo.
+         *
+         * @return Cargo, o null
+         */
+        public String getCargo() {
+            return Diccionario.CARGOS.texto((int) leer(REG_CARGO, 4));
+        }
+
+        /**
+         * Obtiene el código del cargo en {@link Diccionario#CARGOS}.
+         *
+         * @return Código del cargo, o Diccionario.SIN_CODIGO si no tiene
+         */
+        public int getCodigoCargo() {
+            return (int) leer(REG_CARGO, 4);
+        }
+
+        /**
+         * Obtiene el departamento que dirige (solo jefes).
+         *
+         * @return Departamento, o null si no es un jefe
+         */
+        public String getDepartamento() {
+            return Diccionario.DEPARTAMENTOS.texto((int) leer(REG_DEPARTAMENTO, 4));
+        }
+
+        /**
+         * Obtiene el código del departamento en {@link Diccionario#DEPARTAMENTOS}.
+         *
+         * @return Código del departamento, o Diccionario.SIN_CODIGO si no es un jefe
+         */
+        public int getCodigoDepartamento() {
+            return (int) leer(REG_DEPARTAMENTO, 4);
+        }
+
+        /**
+         * Crea el Empleado o el Jefe de la fila, con su número original.
+         * Cada llamada crea un objeto nuevo.
+         *
+         * @return Empleado o Jefe
+         * @throws IllegalStateException si la vista no está sobre una fila
+         */
+        public Empleado materializar() {
+            long sello = almacen.cerrojo.readLock();
+            try {
+                ByteBuffer b = bloque();
+                int p = (fila & MASCARA_BLOQUE) * TAMANO_FILA;
+                int numEmpleado = b.getInt(p + REG_NUM_EMPLEADO);
+                int sexo = b.get(p + REG_SEXO);
+                Persona.Sexo s = (sexo >= 0 && sexo < SEXOS.length) ? SEXOS[sexo] : Persona.Sexo.DESCONOCIDO;
+                String nss = almacen.leerCadena(b.getInt(p + REG_NSS));
+                Fecha fechaContratacion = fecha(b.getInt(p + REG_FECHA_CONTRATACION));
+                double irpf = Dinero.tasa(b.getInt(p + REG_IRPF));
+                String cargo = Diccionario.CARGOS.texto(b.getInt(p + REG_CARGO));
+                String nombre = almacen.leerCadena(b.getInt(p + REG_NOMBRE));
+                String dni = almacen.leerCadena(b.getInt(p + REG_DNI));
+                Fecha fechaNac = fecha(b.getInt(p + REG_FECHA_NAC));
+                double sueldo = Dinero.euros(b.getLong(p + REG_SUELDO));
+                if (b.get(p + REG_TIPO) == PlantillaColumnar.TIPO_JEFE) {
+                    return new Jefe(numEmpleado, nss, fechaContratacion, irpf, cargo, nombre, s, dni, fechaNac,
+                            sueldo, Diccionario.DEPARTAMENTOS.texto(b.getInt(p + REG_DEPARTAMENTO)),
+                            b.getInt(p + REG_NUM_SUBORDINADOS));
+                }
+                return new Empleado(numEmpleado, nss, fechaContratacion, irpf, cargo, nombre, s, dni, fechaNac, sueldo);
+            } finally {
+                almacen.cerrojo.unlockRead(sello);
+            }
+        }
+
+        /**
+         * Escribe los datos de la fila al final de un StringBuilder, con el
+         * mismo formato que {@link Empleado#appendTo(StringBuilder)} o
+         * {@link Jefe#appendTo(StringBuilder)}.
+         *
+         * @param sb Destino de los datos
+         * @return El mismo StringBuilder, para encadenar llamadas
+         * @throws IllegalStateException si la vista no está sobre una fila
+         */
+        public StringBuilder appendTo(StringBuilder sb) {
+            long sello = almacen.cerrojo.readLock();
+            try {
+                ByteBuffer b = bloque();
+                int p = (fila & MASCARA_BLOQUE) * TAMANO_FILA;
+                String nombre = almacen.leerCadena(b.getInt(p + REG_NOMBRE));
+                Fecha contratacion = fecha(b.getInt(p + REG_FECHA_CONTRATACION));
+                double sueldo = Dinero.euros(b.getLong(p + REG_SUELDO));
+                if (b.get(p + REG_TIPO) == PlantillaColumnar.TIPO_JEFE) {
+                    sb.append("Jefe ---> nombre='").append(nombre)
+                      .append("', numEmpleado=").append(b.getInt(p + REG_NUM_EMPLEADO))
+                      .append(", departamento='").append(Diccionario.DEPARTAMENTOS.texto(b.getInt(p + REG_DEPARTAMENTO)))
+                      .append("', numSubordinados=").append(b.getInt(p + REG_NUM_SUBORDINADOS))
+                      .append(", fechaContratacion=");
+                    return Fecha.appendTo(sb, contratacion).append(", sueldo=").append(sueldo);
+                }
+                int sexo = b.get(p + REG_SEXO);
+                sb.append("Empleado ---> nss='").append(almacen.leerCadena(b.getInt(p + REG_NSS)))
+                  .append("', numEmpleado=").append(b.getInt(p + REG_NUM_EMPLEADO))
+                  .append(", fechaContratacion=");
+                Fecha.appendTo(sb, contratacion)
+                  .append(", irpf=").append(Dinero.tasa(b.getInt(p + REG_IRPF)))
+                  .append(", cargo='").append(Diccionario.CARGOS.texto(b.getInt(p + REG_CARGO)))
+                  .append("', nombre='").append(nombre)
+                  .append("', sexo=").append((sexo >= 0 && sexo < SEXOS.length) ? SEXOS[sexo] : Persona.Sexo.DESCONOCIDO)
+                  .append(", dni='").append(almacen.leerCadena(b.getInt(p + REG_DNI)))
+                  .append("', fechaNac=");
+                return Fecha.appendTo(sb, fecha(b.getInt(p + REG_FECHA_NAC))).append(", sueldo=").append(sueldo);
+            } finally {
+                almacen.cerrojo.unlockRead(sello);
+            }
+        }
+
+        /**
+         * Devuelve una representación en String de la fila, igual que la del
+         * Empleado o Jefe correspondiente.
+         *
+         * @return String con todos los datos de la fila
+         */
+        @Override
+        public String toString() {
+            return appendTo(new StringBuilder(192)).toString();
+        }
+
+        /**
+         * Lee un campo numérico de la fila con lectura optimista: si algún
+         * escritor ha modificado el almacén durante la lectura, se repite
+         * con el bloqueo de lectura.
+         *
+         * @param campo Posición del campo en el registro
+         * @param ancho Ancho del campo en bytes (1, 4 u 8)
+         * @return Valor del campo
+         * @throws IllegalStateException si la vista no está sobre una fila
+         */
+        private long leer(int campo, int ancho) {
+            StampedLock cerrojo = almacen.cerrojo;
+            long sello = cerrojo.tryOptimisticRead();
+            if (sello != 0) {
+                int f = fila;
+                ByteBuffer[] bloques = almacen.bloques;
+                int indice = f >>> BITS_BLOQUE;
+                if (f >= 0 && f < almacen.tamano && indice < bloques.length && bloques[indice] != null) {
+                    long valor = leerCampo(bloques[indice], (f & MASCARA_BLOQUE) * TAMANO_FILA + campo, ancho);
+                    if (cerrojo.validate(sello)) {
+                        return valor;
+                    }
+                }
+            }
+            sello = cerrojo.readLock();
+            try {
+                return leerCampo(bloque(), (fila & MASCARA_BLOQUE) * TAMANO_FILA + campo, ancho);
+            } finally {
+                cerrojo.unlockRead(sello);
+            }
+        }
+
+        /**
+         * Lee un texto de la fila.
+         *
+         * @param campo Posición del campo en el registro
+         * @return Texto, o null
+         * @throws IllegalStateException si la vista no está sobre una fila
+         */
+        private String leerTexto(int campo) {
+            long sello = almacen.cerrojo.readLock();
+            try {
+                return almacen.leerCadena(bloque().getInt((fila & MASCARA_BLOQUE) * TAMANO_FILA + campo));
+            } finally {
+                almacen.cerrojo.unlockRead(sello);
+            }
+        }
+
+        /**
+         * Obtiene el bloque de la fila de la vista.
+         * Debe llamarse con el cerrojo tomado.
+         *
+         * @return Bloque de la fila
+         * @throws IllegalStateException si la vista no está sobre una fila
+         */
+        private ByteBuffer bloque() {
+            if (fila < 0 || fila >= almacen.tamano) {
+                throw new IllegalStateException("La vista no está sobre ninguna fila del almacén");
+            }
+            return almacen.bloques[fila >>> BITS_BLOQUE];
+        }
+
+        /**
+         * Lee un campo de un bloque.
+         *
+         * @param b Bloque
+         * @param posicion Posición del campo en el bloque
+         * @param ancho Ancho del campo en bytes (1, 4 u 8)
+         * @return Valor del campo
+         */
+        private static long leerCampo(ByteBuffer b, int posicion, int ancho) {
+            switch (ancho) {
+                case 1:
+                    return b.get(posicion);
+                case 4:
+                    return b.getInt(posicion);
+                default:
+                    return b.getLong(posicion);
+            }
+        }
+    }
+}
@@ -1,5 +1,11 @@
 package es.ejercicio2;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Collections;
+
 /**
  * Clase de prueba para demostrar la funcionalidad del HashMap en Plantilla.
  * Prueba el registro, búsqueda y gestión de empleados mediante HashMap.
@@ -110,7 +116,39 @@ public class PlantillaHashMapTest {
         Plantilla.limpiarEmpleados();
         System.out.println("Empleados después de limpiar: " + Plantilla.obtenerNumeroEmpleados());
         System.out.printf("Total de sueldos después de limpiar: %.2f€\n", Plantilla.totalizarSueldos());
-        
+
+        System.out.println("\n--- 9. REGISTROS INDEPENDIENTES ---");
+        Registro registroA = new Registro();
+        Registro registroB = new Registro();
+        registroA.registrarEmpleado(emp1);
+        registroA.registrarEmpleado(emp2);
+        registroB.registrarEmpleado(emp4);
+        System.out.println("Empleados en registro A (debe ser 2): " + registroA.obtenerNumeroEmpleados());
+        System.out.println("Empleados en registro B (debe ser 1): " + registroB.obtenerNumeroEmpleados());
+        System.out.println("Empleados en registro por defecto (debe ser 0): " + Plantilla.obtenerNumeroEmpleados());
+        registroA.descontarPorcentaje(emp1);
+        System.out.println("Descuentos de " + emp1.getNombre() + " en A (debe ser 1): " + registroA.obtenerNumeroDescuentos(emp1));
+        System.out.println("Descuentos de " + emp1.getNombre() + " en B (debe ser 0): " + registroB.obtenerNumeroDescuentos(emp1));
+
+        System.out.println("\n--- 10. IMPORTACIÓN Y ALTA POSTERIOR ---");
+        try {
+            // Se importa un empleado con el número que le tocaría al siguiente que se cree
+            Empleado plantillaCsv = new Empleado("Importado", Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1, 2020), 1500);
+            int numImportado = plantillaCsv.getNumEmpleado() + 1;
+            ByteArrayOutputStream csv = new ByteArrayOutputStream();
+            CodecCSV.exportar(Collections.singletonList(plantillaCsv), Channels.newChannel(csv));
+            String contenido = csv.toString("UTF-8").replace(
+                    String.valueOf(plantillaCsv.getNumEmpleado()), String.valueOf(numImportado));
+            Registro registroC = new Registro();
+            CodecCSV.importar(Channels.newChannel(new ByteArrayInputStream(contenido.getBytes("UTF-8"))), registroC);
+            Empleado nuevo = new Empleado("Nuevo", Persona.Sexo.DESCONOCIDO, Fecha.de(1, 1, 2024), 1200);
+            registroC.registrarEmpleado(nuevo);
+            System.out.println("Número importado: " + numImportado + ", número del nuevo: " + nuevo.getNumEmpleado());
+            System.out.println("Empleados en registro C (debe ser 2): " + registroC.obtenerNumeroEmpleados());
+        } catch (IOException e) {
+            System.out.println("Error en la importación: " + e.getMessage());
+        }
+
         System.out.println("\n=== FIN DE PRUEBAS ===");
     }
 }
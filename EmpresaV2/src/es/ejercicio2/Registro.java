@@ -0,0 +1,1289 @@
+package es.ejercicio2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.IntStream;
+
+/**
+ * Clase Registro que almacena los empleados de una empresa por su número de
+ * empleado junto con el control de descuentos aplicados.
+ * A diferencia de los antiguos mapas estáticos de Plantilla, se pueden crear
+ * tantos registros como empresas o clientes haya, y todos admiten lecturas y
+ * escrituras concurrentes sin un bloqueo global: las operaciones de registro,
+ * eliminación y descuento son atómicas por número de empleado.
+ * <p>
+ * Internamente los empleados se reparten en segmentos, cada uno con sus
+ * propias tablas de claves int primitivas ({@link MapaEnteros} y
+ * {@link MapaContadores}) y su propio {@link StampedLock}. Las búsquedas se
+ * hacen con lectura optimista, sin escribir en memoria compartida ni crear
+ * objetos Integer.
+ * </p>
+ * <p>
+ * Se le pueden añadir observadores ({@link ObservadorRegistro}) que reciben
+ * las altas, bajas y cambios de los empleados registrados. Un empleado solo
+ * avisa al último registro en el que se dio de alta.
+ * </p>
+ * <p>
+ * Un registro vacío se puede cargar desde una {@link Instantanea}: los
+ * empleados se crean a partir del fichero la primera vez que se consultan, y
+ * las operaciones que recorren todo el registro los crean todos de una vez.
+ * </p>
+ * <p>
+ * El total de sueldos, el de IRPF, el número de empleados de cada tipo y el
+ * total de sueldos de cada departamento se mantienen al día con cada cambio
+ * ({@link TotalesRegistro}), así que consultarlos no recorre el registro.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.2
+ */
+public class Registro {
+
+    /** Número de segmentos por defecto */
+    private static final int NUM_SEGMENTOS_POR_DEFECTO = 64;
+
+    /** Tamaño de lote a partir del cual los descuentos se aplican en paralelo */
+    private static final int UMBRAL_LOTE_PARALELO = 4096;
+
+    /** Multiplicador para repartir los números de empleado entre segmentos */
+    private static final long MULTIPLICADOR_SEGMENTOS = 0x9E3779B97F4A7C15L;
+
+    /** Segmentos del registro */
+    private final Segmento[] segmentos;
+
+    /** Máscara para obtener el índice de segmento */
+    private final int mascaraSegmentos;
+
+    /** Observadores del registro (se sustituye el array entero al modificarlo) */
+    private volatile ObservadorRegistro[] observadores = new ObservadorRegistro[0];
+
+    /** Instantánea de la que aún quedan empleados por crear (null si no hay) */
+    private volatile Base base;
+
+    /** Reglas con el porcentaje de descuento de cada empleado */
+    private volatile ReglasNomina reglasDescuento = ReglasNomina.DESCUENTOS;
+
+    /** Reglas con el tope de subida de sueldo de cada empleado */
+    private volatile ReglasNomina reglasSubida = ReglasNomina.SUBIDAS;
+
+    /** Auditoría de los cambios de sueldo (null si no hay) */
+    private volatile Auditoria auditoria;
+
+    /** Métricas de las operaciones (null si no hay) */
+    private volatile Metricas metricas;
+
+    /** Totales de los empleados registrados, mantenidos con cada cambio */
+    private final TotalesRegistro totales = new TotalesRegistro();
+
+    /** Tarea de conciliación periódica de los totales (null si no hay) */
+    private ScheduledExecutorService conciliacion;
+
+    /**
+     * Porción independiente del registro con sus propias tablas y su cerrojo.
+     * El empleado y su contador de descuentos siempre caen en el mismo
+     * segmento, así que se modifican juntos bajo el mismo cerrojo.
+     */
+    private static final class Segmento {
+
+        /** Cerrojo del segmento */
+        private final StampedLock cerrojo = new StampedLock();
+
+        /** Empleados del segmento por número de empleado */
+        private final MapaEnteros<Empleado> empleadosPorNumero = new MapaEnteros<>();
+
+        /** Número de descuentos aplicados por empleado */
+        private final MapaContadores descuentosPorEmpleado = new MapaContadores();
+    }
+
+    /**
+     * Instantánea cargada en el registro junto con el control de qué
+     * empleados suyos ya se han creado (o sustituido) en los segmentos.
+     * Cada empleado de la instantánea se incorpora como mucho una vez, así
+     * que uno que se elimina después no vuelve a aparecer.
+     */
+    private static final class Base {
+
+        /** Instantánea de origen */
+        private final Instantanea instantanea;
+
+        /** Un bit por empleado de la instantánea: 1 si ya se ha incorporado */
+        private final AtomicLongArray incorporados;
+
+        /** Número de empleados de la instantánea aún sin incorporar */
+        private final AtomicInteger pendientes;
+
+        /**
+         * Constructor.
+         *
+         * @param instantanea Instantánea de origen
+         */
+        Base(Instantanea instantanea) {
+            this.instantanea = instantanea;
+            this.incorporados = new AtomicLongArray((instantanea.getNumEmpleados() + 63) >>> 6);
+            this.pendientes = new AtomicInteger(instantanea.getNumEmpleados());
+        }
+
+        /**
+         * Marca un empleado de la instantánea como incorporado.
+         *
+         * @param indice Índice del empleado en la instantánea
+         * @return true si no estaba incorporado y lo ha marcado esta llamada
+         */
+        boolean marcar(int indice) {
+            int palabra = indice >>> 6;
+            long bit = 1L << indice;
+            while (true) {
+                long actual = incorporados.get(palabra);
+                if ((actual & bit) != 0) {
+                    return false;
+                }
+                if (incorporados.compareAndSet(palabra, actual, actual | bit)) {
+                    pendientes.decrementAndGet();
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Indica si un empleado de la instantánea ya se ha incorporado.
+         *
+         * @param indice Índice del empleado en la instantánea
+         * @return true si ya está incorporado
+         */
+        boolean incorporado(int indice) {
+            return (incorporados.get(indice >>> 6) & (1L << indice)) != 0;
+        }
+    }
+
+    /**
+     * Constructor por defecto con el número de segmentos por defecto.
+     */
+    public Registro() {
+        this(NUM_SEGMENTOS_POR_DEFECTO);
+    }
+
+    /**
+     * Constructor que indica el número de segmentos. Más segmentos permiten
+     * más escrituras simultáneas a costa de algo más de memoria.
+     *
+     * @param numSegmentos Número de segmentos (se redondea a potencia de dos, debe ser > 0)
+     * @throws IllegalArgumentException si el número de segmentos no es positivo
+     */
+    public Registro(int numSegmentos) {
+        if (numSegmentos <= 0) {
+            throw new IllegalArgumentException("El número de segmentos debe ser positivo: " + numSegmentos);
+        }
+        int n = Integer.highestOneBit(numSegmentos);
+        if (n < numSegmentos) {
+            n <<= 1;
+        }
+        this.segmentos = new Segmento[n];
+        for (int i = 0; i < n; i++) {
+            segmentos[i] = new Segmento();
+        }
+        this.mascaraSegmentos = n - 1;
+    }
+
+    /**
+     * Obtiene el segmento al que pertenece un número de empleado. Usa los bits
+     * altos de una multiplicación de 64 bits, independientes de los bits bajos
+     * con los que cada tabla elige posición.
+     *
+     * @param numEmpleado Número de empleado
+     * @return Segmento correspondiente
+     */
+    private Segmento segmento(int numEmpleado) {
+        return segmentos[indiceSegmento(numEmpleado)];
+    }
+
+    /**
+     * Obtiene el índice del segmento al que pertenece un número de empleado.
+     *
+     * @param numEmpleado Número de empleado
+     * @return Índice del segmento
+     */
+    private int indiceSegmento(int numEmpleado) {
+        return (int) ((numEmpleado * MULTIPLICADOR_SEGMENTOS) >>> 32) & mascaraSegmentos;
+    }
+
+    /**
+     * Registra un empleado por su número de empleado. Si ya había un empleado
+     * con el mismo número, se sustituye.
+     *
+     * @param empleado Empleado a registrar (no puede ser null)
+     * @return true si se registró correctamente, false si el empleado es null
+     */
+    public boolean registrarEmpleado(Empleado empleado) {
+        if (empleado == null) return false;
+        Metricas m = metricas;
+        long inicio = (m == null) ? Metricas.SIN_MEDIDA : m.iniciar();
+        int numEmpleado = empleado.getNumEmpleado();
+        Segmento s = segmento(numEmpleado);
+        long sello = s.cerrojo.writeLock();
+        try {
+            // Si sustituye a uno de la instantánea, se incorpora antes para darlo de baja
+            incorporarSiFalta(s, numEmpleado);
+            Empleado anterior = s.empleadosPorNumero.insertar(numEmpleado, empleado);
+            if (anterior != empleado) {
+                if (anterior != null) {
+                    darDeBaja(anterior);
+                }
+                empleado.setRegistro(this);
+                totales.agregar(empleado);
+                for (ObservadorRegistro o : observadores) {
+                    o.empleadoRegistrado(empleado);
+                }
+            }
+        } finally {
+            s.cerrojo.unlockWrite(sello);
+        }
+        if (m != null) {
+            m.registrar(Metricas.Operacion.REGISTRAR, inicio);
+        }
+        return true;
+    }
+
+    /**
+     * Obtiene un empleado por su número de empleado.
+     *
+     * @param numEmpleado Número del empleado a buscar
+     * @return Empleado correspondiente al número, o null si no existe
+     */
+    public Empleado obtenerEmpleado(int numEmpleado) {
+        Metricas m = metricas;
+        long inicio = (m == null) ? Metricas.SIN_MEDIDA : m.iniciar();
+        Segmento s = segmento(numEmpleado);
+        long sello = s.cerrojo.tryOptimisticRead();
+        Empleado empleado = s.empleadosPorNumero.obtener(numEmpleado);
+        if (!s.cerrojo.validate(sello)) {
+            sello = s.cerrojo.readLock();
+            try {
+                empleado = s.empleadosPorNumero.obtener(numEmpleado);
+            } finally {
+                s.cerrojo.unlockRead(sello);
+            }
+        }
+        if (empleado == null && estaEnBase(numEmpleado)) {
+            sello = s.cerrojo.writeLock();
+            try {
+                empleado = incorporarSiFalta(s, numEmpleado);
+            } finally {
+                s.cerrojo.unlockWrite(sello);
+            }
+        }
+        if (m != null) {
+            m.registrar(Metricas.Operacion.OBTENER, inicio);
+        }
+        return empleado;
+    }
+
+    /**
+     * Elimina un empleado y su control de descuentos. Ambos se eliminan bajo
+     * el mismo cerrojo que los descuentos, por lo que nunca queda un contador
+     * huérfano de un empleado ya eliminado.
+     *
+     * @param numEmpleado Número del empleado a eliminar
+     * @return Empleado eliminado, o null si no existía
+     */
+    public Empleado eliminarEmpleado(int numEmpleado) {
+        Segmento s = segmento(numEmpleado);
+        long sello = s.cerrojo.writeLock();
+        try {
+            incorporarSiFalta(s, numEmpleado);
+            s.descuentosPorEmpleado.eliminar(numEmpleado);
+            Empleado eliminado = s.empleadosPorNumero.eliminar(numEmpleado);
+            if (eliminado != null) {
+                darDeBaja(eliminado);
+            }
+            return eliminado;
+        } finally {
+            s.cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Obtiene el número total de empleados registrados.
+     *
+     * @return Número de empleados en el registro
+     */
+    public int obtenerNumeroEmpleados() {
+        int total = 0;
+        for (Segmento s : segmentos) {
+            long sello = s.cerrojo.readLock();
+            try {
+                total += s.empleadosPorNumero.tamano();
+            } finally {
+                s.cerrojo.unlockRead(sello);
+            }
+        }
+        Base b = base;
+        return (b != null) ? total + b.pendientes.get() : total;
+    }
+
+    /**
+     * Obtiene una copia de los empleados registrados. Cada segmento se copia
+     * de forma consistente, aunque otros hilos sigan modificando el registro.
+     *
+     * @return Lista con los empleados registrados en el momento de la llamada
+     */
+    public List<Empleado> obtenerEmpleados() {
+        incorporarTodos();
+        List<Empleado> empleados = new ArrayList<>();
+        for (Segmento s : segmentos) {
+            long sello = s.cerrojo.readLock();
+            try {
+                s.empleadosPorNumero.paraCadaValor(empleados::add);
+            } finally {
+                s.cerrojo.unlockRead(sello);
+            }
+        }
+        return empleados;
+    }
+
+    /**
+     * Limpia todos los empleados registrados y sus descuentos, con el
+     * registro bloqueado para que los totales queden a cero.
+     */
+    public void limpiarEmpleados() {
+        long[] sellos = bloquearTodos();
+        try {
+            Base b = base;
+            base = null;
+            if (b != null) {
+                // Los empleados de la instantánea sin crear se marcan para que nadie los cree ya
+                for (int i = 0; i < b.instantanea.getNumEmpleados(); i++) {
+                    if (b.marcar(i)) {
+                        b.instantanea.sumarA(totales, i, -1);
+                    }
+                }
+            }
+            for (Segmento s : segmentos) {
+                s.empleadosPorNumero.paraCadaValor(this::darDeBaja);
+                s.empleadosPorNumero.limpiar();
+                s.descuentosPorEmpleado.limpiar();
+            }
+        } finally {
+            desbloquearTodos(sellos);
+        }
+    }
+
+    /**
+     * Obtiene la suma total de los sueldos de los empleados registrados.
+     * No recorre el registro: el total se mantiene con cada alta, baja y
+     * cambio de sueldo (ver {@link #getTotales()}).
+     *
+     * @return Total de sueldos brutos de todos los empleados registrados
+     */
+    public double totalizarSueldos() {
+        return totales.getTotalSueldos();
+    }
+
+    /**
+     * Obtiene los totales de los empleados registrados (sueldos, IRPF,
+     * empleados de cada tipo y sueldos de cada departamento), que se
+     * mantienen al día con cada cambio.
+     *
+     * @return Totales del registro
+     */
+    public TotalesRegistro getTotales() {
+        return totales;
+    }
+
+    /**
+     * Compara los totales mantenidos con los de un recorrido completo del
+     * registro (incluidos los empleados de una instantánea aún sin crear) y
+     * cuenta un descuadre en los totales ({@link TotalesRegistro#getNumDescuadres()})
+     * y en las métricas, si las hay, cuando no coinciden. No corrige los
+     * totales. Mientras dura el recorrido el registro queda bloqueado para
+     * escritura, pero los cambios de sueldo no toman esos cerrojos: uno que
+     * llegue a la vez puede dar un descuadre pasajero.
+     *
+     * @return true si los totales cuadraban, false si se ha contado un descuadre
+     */
+    public boolean conciliarTotales() {
+        Metricas m = metricas;
+        long inicio = (m == null) ? Metricas.SIN_MEDIDA : m.iniciar();
+        TotalesRegistro esperados = new TotalesRegistro();
+        boolean cuadran;
+        long[] sellos = bloquearTodos();
+        try {
+            for (Segmento s : segmentos) {
+                s.empleadosPorNumero.paraCadaValor(esperados::sumarDatos);
+            }
+            Base b = base;
+            if (b != null) {
+                for (int i = 0; i < b.instantanea.getNumEmpleados(); i++) {
+                    if (!b.incorporado(i)) {
+                        b.instantanea.sumarA(esperados, i, 1);
+                    }
+                }
+            }
+            cuadran = totales.comprobar(esperados);
+        } finally {
+            desbloquearTodos(sellos);
+        }
+        if (m != null) {
+            if (!cuadran) {
+                m.anotarDescuadre();
+            }
+            m.registrar(Metricas.Operacion.CONCILIAR, inicio);
+        }
+        return cuadran;
+    }
+
+    /**
+     * Concilia los totales periódicamente ({@link #conciliarTotales()}) en
+     * un hilo demonio, sustituyendo la conciliación periódica anterior si
+     * la había.
+     *
+     * @param periodo Periodo entre conciliaciones (debe ser > 0)
+     * @param unidad Unidad del periodo (no puede ser null)
+     * @throws IllegalArgumentException si el periodo no es positivo o la unidad es null
+     */
+    public synchronized void iniciarConciliacion(long periodo, TimeUnit unidad) {
+        if (periodo <= 0 || unidad == null) {
+            throw new IllegalArgumentException("El periodo de conciliación debe ser positivo: " + periodo + " " + unidad);
+        }
+        detenerConciliacion();
+        conciliacion = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "conciliacion-totales");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        conciliacion.scheduleAtFixedRate(this::conciliarTotales, periodo, periodo, unidad);
+    }
+
+    /**
+     * Detiene la conciliación periódica de los totales, si la había.
+     */
+    public synchronized void detenerConciliacion() {
+        if (conciliacion != null) {
+            conciliacion.shutdownNow();
+            conciliacion = null;
+        }
+    }
+
+    /**
+     * Calcula las estadísticas de sueldos (media, máximo, mínimo, mediana,
+     * total de IRPF...) de los empleados registrados en una sola pasada.
+     *
+     * @return Estadísticas de los empleados registrados
+     */
+    public EstadisticasSueldos calcularEstadisticas() {
+        return EstadisticasSueldos.calcular(obtenerEmpleados());
+    }
+
+    /**
+     * Liquida las nóminas de todos los empleados registrados.
+     *
+     * @return Totales bruto, retenido, descontado y neto
+     */
+    public Nomina calcularNomina() {
+        return Nomina.calcular(obtenerEmpleados());
+    }
+
+    /**
+     * Verifica si un empleado aún no ha recibido descuentos.
+     *
+     * @param empleado Empleado a verificar
+     * @return true si no se ha aplicado ningún descuento aún, false en caso contrario
+     */
+    public boolean controlDescontarPorcentaje(Empleado empleado) {
+        return empleado != null && obtenerNumeroDescuentos(empleado) == 0;
+    }
+
+    /**
+     * Obtiene el número de descuentos aplicados a un empleado.
+     *
+     * @param empleado Empleado a consultar
+     * @return Número de descuentos aplicados, o 0 si no se ha aplicado ninguno
+     */
+    public int obtenerNumeroDescuentos(Empleado empleado) {
+        if (empleado == null) return 0;
+        int numEmpleado = empleado.getNumEmpleado();
+        Segmento s = segmento(numEmpleado);
+        long sello = s.cerrojo.tryOptimisticRead();
+        int numDescuentos = s.descuentosPorEmpleado.obtener(numEmpleado);
+        if (!s.cerrojo.validate(sello)) {
+            sello = s.cerrojo.readLock();
+            try {
+                numDescuentos = s.descuentosPorEmpleado.obtener(numEmpleado);
+            } finally {
+                s.cerrojo.unlockRead(sello);
+            }
+        }
+        if (numDescuentos == 0 && estaEnBase(numEmpleado)) {
+            sello = s.cerrojo.writeLock();
+            try {
+                incorporarSiFalta(s, numEmpleado);
+                numDescuentos = s.descuentosPorEmpleado.obtener(numEmpleado);
+            } finally {
+                s.cerrojo.unlockWrite(sello);
+            }
+        }
+        return numDescuentos;
+    }
+
+    /**
+     * Aplica un descuento porcentual al sueldo del empleado según las reglas
+     * de descuento ({@link #setReglasDescuento(ReglasNomina)}; por defecto, 5%
+     * a los Jefes y 10% a los Empleados normales) y lo anota en el control
+     * de descuentos. El cambio de sueldo y el contador se actualizan juntos
+     * bajo el cerrojo del segmento del empleado, de forma que dos descuentos
+     * simultáneos sobre el mismo empleado nunca se pierden; el sueldo se
+     * descuenta de forma atómica, así que tampoco se pierde una subida que
+     * llegue a la vez por {@link Empleado#incrementarSueldo(double)}. El
+     * descuento se redondea al céntimo (ver {@link Dinero#descontar(long, int)}).
+     *
+     * @param empleado Empleado al que se le aplicará el descuento (puede ser null)
+     */
+    public void descontarPorcentaje(Empleado empleado) {
+        if (empleado == null) return;
+        Metricas m = metricas;
+        long inicio = (m == null) ? Metricas.SIN_MEDIDA : m.iniciar();
+        int descuento = reglasDescuento.evaluar(empleado);
+        int numEmpleado = empleado.getNumEmpleado();
+        Segmento s = segmento(numEmpleado);
+        long sello = s.cerrojo.writeLock();
+        try {
+            incorporarSiFalta(s, numEmpleado);
+            int numDescuentos = s.descuentosPorEmpleado.incrementar(numEmpleado, 1);
+            long anterior = empleado.descontarSueldo(descuento);
+            avisarDescuento(empleado, anterior, Dinero.descontar(anterior, descuento), numDescuentos);
+        } finally {
+            s.cerrojo.unlockWrite(sello);
+        }
+        if (m != null) {
+            m.registrar(Metricas.Operacion.DESCONTAR, inicio);
+        }
+    }
+
+    /**
+     * Aplica el descuento a todos los empleados de una colección como una
+     * única operación: o se descuenta a todos o, si algo falla, no se
+     * descuenta a ninguno. Ver {@link #descontarPorcentaje(Empleado[])}.
+     *
+     * @param empleados Empleados a descontar (se ignoran los null)
+     * @return Número de descuentos aplicados
+     */
+    public int descontarPorcentaje(Collection<? extends Empleado> empleados) {
+        if (empleados == null) return 0;
+        return descontarPorcentaje(empleados.toArray(new Empleado[0]));
+    }
+
+    /**
+     * Aplica el descuento a todos los empleados de un array como una única
+     * operación. Los empleados se agrupan por segmento y cada segmento se
+     * procesa una sola vez con su cerrojo tomado, en paralelo con los demás
+     * si el lote es grande. Todos los cerrojos implicados se mantienen hasta
+     * el final: si falla algún empleado se restauran los sueldos y contadores
+     * de todo el lote, de modo que nadie llega a ver el lote a medias.
+     * Si un empleado aparece varias veces, se le descuenta varias veces.
+     *
+     * @param empleados Empleados a descontar (se ignoran los null)
+     * @return Número de descuentos aplicados
+     */
+    public int descontarPorcentaje(Empleado[] empleados) {
+        if (empleados == null) return 0;
+        incorporarTodos();
+        // Reparto por segmento con una ordenación por conteo
+        int[] inicioGrupo = new int[segmentos.length + 1];
+        int total = 0;
+        for (Empleado e : empleados) {
+            if (e != null) {
+                inicioGrupo[indiceSegmento(e.getNumEmpleado()) + 1]++;
+                total++;
+            }
+        }
+        if (total == 0) return 0;
+        Metricas m = metricas;
+        long inicio = (m == null) ? Metricas.SIN_MEDIDA : m.iniciar();
+        for (int i = 0; i < segmentos.length; i++) {
+            inicioGrupo[i + 1] += inicioGrupo[i];
+        }
+        Empleado[] ordenados = new Empleado[total];
+        int[] siguiente = Arrays.copyOf(inicioGrupo, segmentos.length);
+        for (Empleado e : empleados) {
+            if (e != null) {
+                ordenados[siguiente[indiceSegmento(e.getNumEmpleado())]++] = e;
+            }
+        }
+        long[] sellos = new long[segmentos.length];
+        for (int i = 0; i < segmentos.length; i++) {
+            if (inicioGrupo[i + 1] > inicioGrupo[i]) {
+                sellos[i] = segmentos[i].cerrojo.writeLock();
+            }
+        }
+        try {
+            aplicarDescuentos(ordenados, inicioGrupo);
+        } finally {
+            for (int i = segmentos.length - 1; i >= 0; i--) {
+                if (sellos[i] != 0L) {
+                    segmentos[i].cerrojo.unlockWrite(sellos[i]);
+                }
+            }
+        }
+        if (m != null) {
+            m.registrar(Metricas.Operacion.DESCONTAR_LOTE, inicio);
+        }
+        return total;
+    }
+
+    /**
+     * Aplica el descuento a todos los empleados registrados como una única
+     * operación, con las mismas garantías que
+     * {@link #descontarPorcentaje(Empleado[])}.
+     *
+     * @return Número de descuentos aplicados
+     */
+    public int descontarPorcentajeTodos() {
+        Metricas m = metricas;
+        long inicio = (m == null) ? Metricas.SIN_MEDIDA : m.iniciar();
+        incorporarTodos();
+        long[] sellos = bloquearTodos();
+        try {
+            int[] inicioGrupo = new int[segmentos.length + 1];
+            for (int i = 0; i < segmentos.length; i++) {
+                inicioGrupo[i + 1] = inicioGrupo[i] + segmentos[i].empleadosPorNumero.tamano();
+            }
+            Empleado[] ordenados = new Empleado[inicioGrupo[segmentos.length]];
+            int[] siguiente = {0};
+            for (Segmento s : segmentos) {
+                s.empleadosPorNumero.paraCadaValor(e -> ordenados[siguiente[0]++] = e);
+            }
+            aplicarDescuentos(ordenados, inicioGrupo);
+            return ordenados.length;
+        } finally {
+            desbloquearTodos(sellos);
+            if (m != null) {
+                m.registrar(Metricas.Operacion.DESCONTAR_LOTE, inicio);
+            }
+        }
+    }
+
+    /**
+     * Aplica los descuentos de un lote ya agrupado por segmento. Debe
+     * llamarse con los cerrojos de todos los segmentos del lote tomados.
+     * Si algún grupo falla, se deshacen también los grupos que terminaron bien.
+     *
+     * @param ordenados Empleados del lote agrupados por segmento
+     * @param inicioGrupo Posición de inicio del grupo de cada segmento (con un extremo final)
+     */
+    private void aplicarDescuentos(Empleado[] ordenados, int[] inicioGrupo) {
+        long[] importesDescontados = new long[ordenados.length];
+        int[] aplicados = Arrays.copyOf(inicioGrupo, segmentos.length);
+        ReglasNomina reglas = reglasDescuento;
+        Fecha hoy = Fecha.hoy();
+        IntStream grupos = IntStream.range(0, segmentos.length)
+                .filter(i -> inicioGrupo[i + 1] > inicioGrupo[i]);
+        if (ordenados.length >= UMBRAL_LOTE_PARALELO) {
+            grupos = grupos.parallel();
+        }
+        AtomicReference<Throwable> fallo = new AtomicReference<>();
+        grupos.forEach(i -> {
+            MapaContadores descuentos = segmentos[i].descuentosPorEmpleado;
+            try {
+                for (int j = inicioGrupo[i]; j < inicioGrupo[i + 1] && fallo.get() == null; j++) {
+                    Empleado e = ordenados[j];
+                    int numDescuentos = descuentos.incrementar(e.getNumEmpleado(), 1);
+                    aplicados[i] = j + 1;
+                    int puntosBasicos = reglas.evaluar(e, hoy);
+                    long anterior = e.descontarSueldo(puntosBasicos);
+                    long nuevo = Dinero.descontar(anterior, puntosBasicos);
+                    // Se guarda antes de avisar: si un observador falla, el sueldo ya ha cambiado
+                    importesDescontados[j] = anterior - nuevo;
+                    avisarDescuento(e, anterior, nuevo, numDescuentos);
+                }
+            } catch (RuntimeException | Error ex) {
+                fallo.compareAndSet(null, ex);
+            }
+        });
+        // Todos los grupos han terminado: ya se puede deshacer sin carreras
+        Throwable ex = fallo.get();
+        if (ex != null) {
+            deshacerDescuentos(ordenados, inicioGrupo, aplicados, importesDescontados);
+            if (ex instanceof Error) {
+                throw (Error) ex;
+            }
+            throw (RuntimeException) ex;
+        }
+    }
+
+    /**
+     * Deshace los descuentos ya aplicados de un lote, en orden inverso,
+     * devolviendo a cada empleado el importe que se le descontó. Los cambios
+     * de sueldo no toman el cerrojo del segmento, así que no se vuelve al
+     * sueldo anterior: se respetan las subidas que otros hilos hayan hecho
+     * mientras tanto.
+     *
+     * @param ordenados Empleados del lote agrupados por segmento
+     * @param inicioGrupo Posición de inicio del grupo de cada segmento
+     * @param aplicados Posición (excluida) hasta la que se aplicó cada grupo
+     * @param importesDescontados Céntimos descontados a cada empleado (0 si no llegó a descontarse)
+     */
+    private void deshacerDescuentos(Empleado[] ordenados, int[] inicioGrupo, int[] aplicados,
+            long[] importesDescontados) {
+        for (int i = 0; i < segmentos.length; i++) {
+            MapaContadores descuentos = segmentos[i].descuentosPorEmpleado;
+            for (int j = aplicados[i] - 1; j >= inicioGrupo[i]; j--) {
+                Empleado e = ordenados[j];
+                int numDescuentos = descuentos.incrementar(e.getNumEmpleado(), -1);
+                if (numDescuentos == 0) {
+                    descuentos.eliminar(e.getNumEmpleado());
+                }
+                devolverDescuento(e, importesDescontados[j], numDescuentos);
+            }
+        }
+    }
+
+    /**
+     * Obtiene las reglas de descuento de los empleados registrados.
+     *
+     * @return Reglas de descuento
+     */
+    public ReglasNomina getReglasDescuento() {
+        return reglasDescuento;
+    }
+
+    /**
+     * Cambia las reglas de descuento. Los descuentos ya aplicados no cambian.
+     *
+     * @param reglas Nuevas reglas (no puede ser null)
+     * @throws IllegalArgumentException si las reglas son null
+     */
+    public void setReglasDescuento(ReglasNomina reglas) {
+        if (reglas == null) {
+            throw new IllegalArgumentException("Las reglas no pueden ser null");
+        }
+        this.reglasDescuento = reglas;
+    }
+
+    /**
+     * Obtiene las reglas de subida de sueldo de los empleados registrados.
+     *
+     * @return Reglas de subida
+     */
+    public ReglasNomina getReglasSubida() {
+        return reglasSubida;
+    }
+
+    /**
+     * Cambia las reglas de subida de sueldo que aplica
+     * {@link Jefe#subirSueldo(Empleado, double)} a los empleados registrados.
+     *
+     * @param reglas Nuevas reglas (no puede ser null)
+     * @throws IllegalArgumentException si las reglas son null
+     */
+    public void setReglasSubida(ReglasNomina reglas) {
+        if (reglas == null) {
+            throw new IllegalArgumentException("Las reglas no pueden ser null");
+        }
+        this.reglasSubida = reglas;
+    }
+
+    /**
+     * Obtiene la auditoría de los cambios de sueldo del registro.
+     *
+     * @return Auditoría, o null si no hay
+     */
+    public Auditoria getAuditoria() {
+        return auditoria;
+    }
+
+    /**
+     * Cambia la auditoría en la que se anotan los descuentos de este registro
+     * y las subidas de sueldo a sus empleados. La auditoría no se cierra al
+     * quitarla o sustituirla.
+     *
+     * @param auditoria Nueva auditoría, o null para no auditar
+     */
+    public void setAuditoria(Auditoria auditoria) {
+        this.auditoria = auditoria;
+    }
+
+    /**
+     * Obtiene las métricas de las operaciones del registro.
+     *
+     * @return Métricas, o null si no hay
+     */
+    public Metricas getMetricas() {
+        return metricas;
+    }
+
+    /**
+     * Cambia las métricas en las que se anotan las altas, consultas y
+     * descuentos de este registro y las subidas de sueldo a sus empleados.
+     * Sin métricas, cada operación solo comprueba este campo; para dejar de
+     * medir un momento sin perder lo acumulado basta con
+     * {@link Metricas#setActivas(boolean)}.
+     *
+     * @param metricas Nuevas métricas, o null para no medir
+     */
+    public void setMetricas(Metricas metricas) {
+        this.metricas = metricas;
+    }
+
+    /**
+     * Añade un observador al registro. El observador recibe primero un aviso
+     * con todos los empleados ya registrados
+     * ({@link ObservadorRegistro#empleadosRegistrados(List)}) y después
+     * todos los cambios.
+     * Mientras se hace esa carga inicial el registro queda bloqueado para
+     * escritura, por lo que conviene añadir los observadores al principio.
+     *
+     * @param observador Observador a añadir (no puede ser null)
+     * @throws IllegalArgumentException si el observador es null
+     */
+    public void agregarObservador(ObservadorRegistro observador) {
+        if (observador == null) {
+            throw new IllegalArgumentException("El observador no puede ser null");
+        }
+        incorporarTodos();
+        long[] sellos = bloquearTodos();
+        try {
+            synchronized (this) {
+                ObservadorRegistro[] actuales = observadores;
+                ObservadorRegistro[] nuevos = Arrays.copyOf(actuales, actuales.length + 1);
+                nuevos[actuales.length] = observador;
+                observadores = nuevos;
+            }
+            int total = 0;
+            for (Segmento s : segmentos) {
+                total += s.empleadosPorNumero.tamano();
+            }
+            List<Empleado> registrados = new ArrayList<>(total);
+            for (Segmento s : segmentos) {
+                s.empleadosPorNumero.paraCadaValor(registrados::add);
+            }
+            observador.empleadosRegistrados(registrados);
+        } finally {
+            desbloquearTodos(sellos);
+        }
+    }
+
+    /**
+     * Carga una instantánea en el registro, que debe estar vacío. Los
+     * empleados no se crean ahora, sino la primera vez que se consultan (o
+     * todos a la vez en la primera operación que recorre el registro), con
+     * su número de empleado y su contador de descuentos originales. Si el
+     * registro ya tiene observadores, o si la instantánea guarda de qué jefe
+     * depende cada empleado, se crean todos en el momento para avisarles o
+     * para volver a montar el organigrama. Los totales del registro se
+     * actualizan en el momento.
+     *
+     * @param instantanea Instantánea a cargar (no puede ser null)
+     * @return Número de empleados de la instantánea
+     * @throws IllegalStateException si el registro no está vacío
+     */
+    public int cargarInstantanea(Instantanea instantanea) {
+        long[] sellos = bloquearTodos();
+        try {
+            boolean vacio = base == null;
+            for (Segmento s : segmentos) {
+                vacio &= s.empleadosPorNumero.estaVacio();
+            }
+            if (!vacio) {
+                throw new IllegalStateException("El registro debe estar vacío para cargar una instantánea");
+            }
+            Base b = new Base(instantanea);
+            instantanea.reservarCodigos();
+            // Los totales incluyen desde ya a todos los empleados, creados o no
+            for (int i = 0; i < instantanea.getNumEmpleados(); i++) {
+                instantanea.sumarA(totales, i, 1);
+            }
+            if (observadores.length == 0 && !instantanea.tieneJerarquia()) {
+                base = b;
+            } else {
+                for (int i = 0; i < instantanea.getNumEmpleados(); i++) {
+                    incorporar(segmento(instantanea.getNumEmpleado(i)), b, i);
+                }
+                restaurarJerarquia(instantanea);
+            }
+        } finally {
+            desbloquearTodos(sellos);
+        }
+        return instantanea.getNumEmpleados();
+    }
+
+    /**
+     * Vuelve a vincular cada empleado de una instantánea ya incorporada con
+     * su jefe, si este también está en el registro. Debe llamarse con los
+     * cerrojos de escritura de todos los segmentos tomados.
+     *
+     * @param instantanea Instantánea cargada
+     */
+    private void restaurarJerarquia(Instantanea instantanea) {
+        for (int i = 0; i < instantanea.getNumEmpleados(); i++) {
+            int numSuperior = instantanea.getSuperior(i);
+            if (numSuperior == 0) {
+                continue;
+            }
+            Empleado superior = segmento(numSuperior).empleadosPorNumero.obtener(numSuperior);
+            if (superior instanceof Jefe) {
+                int numEmpleado = instantanea.getNumEmpleado(i);
+                ((Jefe) superior).restaurarSubordinado(segmento(numEmpleado).empleadosPorNumero.obtener(numEmpleado));
+            }
+        }
+    }
+
+    /**
+     * Indica si hay una instantánea cargada que contiene ese número de
+     * empleado, sin tomar ningún cerrojo. Evita bloquear el segmento al
+     * buscar números que no existen.
+     *
+     * @param numEmpleado Número de empleado
+     * @return true si puede haber un empleado pendiente de incorporar
+     */
+    private boolean estaEnBase(int numEmpleado) {
+        Base b = base;
+        return b != null && b.instantanea.buscar(numEmpleado) >= 0;
+    }
+
+    /**
+     * Incorpora a los segmentos el empleado de la instantánea con ese número,
+     * si lo hay y aún no se ha incorporado. Debe llamarse con el cerrojo de
+     * escritura del segmento tomado.
+     *
+     * @param s Segmento del número de empleado
+     * @param numEmpleado Número de empleado
+     * @return Empleado incorporado, o el que ya estaba en el segmento, o null
+     */
+    private Empleado incorporarSiFalta(Segmento s, int numEmpleado) {
+        Empleado empleado = s.empleadosPorNumero.obtener(numEmpleado);
+        Base b = base;
+        if (empleado != null || b == null) {
+            return empleado;
+        }
+        int indice = b.instantanea.buscar(numEmpleado);
+        if (indice < 0) {
+            return null;
+        }
+        empleado = incorporar(s, b, indice);
+        if (b.pendientes.get() == 0 && base == b) {
+            base = null;
+        }
+        return empleado;
+    }
+
+    /**
+     * Crea un empleado de la instantánea y lo inserta en su segmento con su
+     * contador de descuentos. No lo suma a los totales, que ya lo incluyen
+     * desde que se cargó la instantánea. Debe llamarse con el cerrojo de
+     * escritura del segmento tomado.
+     *
+     * @param s Segmento del empleado
+     * @param b Instantánea de origen
+     * @param indice Índice del empleado en la instantánea
+     * @return Empleado creado, o null si ya se había incorporado antes
+     */
+    private Empleado incorporar(Segmento s, Base b, int indice) {
+        if (!b.marcar(indice)) {
+            return null;
+        }
+        Empleado empleado = b.instantanea.materializar(indice);
+        totales.adoptar(empleado);
+        int numEmpleado = empleado.getNumEmpleado();
+        s.empleadosPorNumero.insertar(numEmpleado, empleado);
+        int numDescuentos = b.instantanea.getNumDescuentos(indice);
+        if (numDescuentos > 0) {
+            s.descuentosPorEmpleado.incrementar(numEmpleado, numDescuentos);
+        }
+        empleado.setRegistro(this);
+        for (ObservadorRegistro o : observadores) {
+            o.empleadoRegistrado(empleado);
+        }
+        return empleado;
+    }
+
+    /**
+     * Incorpora todos los empleados pendientes de la instantánea cargada,
+     * antes de una operación que recorre todo el registro.
+     */
+    private void incorporarTodos() {
+        Base b = base;
+        if (b == null) return;
+        long[] sellos = bloquearTodos();
+        try {
+            if (base == b) {
+                Instantanea instantanea = b.instantanea;
+                for (int i = 0; i < instantanea.getNumEmpleados(); i++) {
+                    incorporar(segmento(instantanea.getNumEmpleado(i)), b, i);
+                }
+                base = null;
+            }
+        } finally {
+            desbloquearTodos(sellos);
+        }
+    }
+
+    /**
+     * Toma el cerrojo de escritura de todos los segmentos, en orden.
+     *
+     * @return Sellos de los cerrojos
+     */
+    private long[] bloquearTodos() {
+        long[] sellos = new long[segmentos.length];
+        for (int i = 0; i < segmentos.length; i++) {
+            sellos[i] = segmentos[i].cerrojo.writeLock();
+        }
+        return sellos;
+    }
+
+    /**
+     * Libera los cerrojos tomados con {@link #bloquearTodos()}, en orden inverso.
+     *
+     * @param sellos Sellos de los cerrojos
+     */
+    private void desbloquearTodos(long[] sellos) {
+        for (int i = segmentos.length - 1; i >= 0; i--) {
+            segmentos[i].cerrojo.unlockWrite(sellos[i]);
+        }
+    }
+
+    /**
+     * Quita un observador del registro.
+     *
+     * @param observador Observador a quitar
+     * @return true si el observador estaba en el registro, false en caso contrario
+     */
+    public synchronized boolean eliminarObservador(ObservadorRegistro observador) {
+        ObservadorRegistro[] actuales = observadores;
+        for (int i = 0; i < actuales.length; i++) {
+            if (actuales[i] == observador) {
+                ObservadorRegistro[] nuevos = new ObservadorRegistro[actuales.length - 1];
+                System.arraycopy(actuales, 0, nuevos, 0, i);
+                System.arraycopy(actuales, i + 1, nuevos, i, actuales.length - i - 1);
+                observadores = nuevos;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Actualiza los totales y avisa a los observadores de un cambio de
+     * sueldo. Lo invoca el propio empleado desde
+     * {@link Empleado#setSueldo(double)}.
+     *
+     * @param empleado Empleado modificado
+     * @param anterior Sueldo antes del cambio, en céntimos
+     * @param nuevo Sueldo después del cambio, en céntimos
+     */
+    void notificarSueldo(Empleado empleado, long anterior, long nuevo) {
+        totales.contabilizar(empleado);
+        ObservadorRegistro[] actuales = observadores;
+        if (actuales.length > 0) {
+            double euroAnterior = Dinero.euros(anterior);
+            double euroNuevo = Dinero.euros(nuevo);
+            for (ObservadorRegistro o : actuales) {
+                o.sueldoModificado(empleado, euroAnterior, euroNuevo);
+            }
+        }
+    }
+
+    /**
+     * Actualiza los totales tras un cambio de IRPF de un empleado o de
+     * departamento de un jefe registrado. Lo invoca el propio empleado desde
+     * {@link Empleado#setIrpf(double)} o {@link Jefe#setDepartamento(String)},
+     * antes de avisar del cambio de datos.
+     *
+     * @param empleado Empleado modificado
+     */
+    void actualizarTotales(Empleado empleado) {
+        totales.contabilizar(empleado);
+    }
+
+    /**
+     * Avisa de un cambio de sueldo por un descuento, o al deshacerlo o
+     * restaurarlo, ya aplicado al empleado: actualiza los totales y avisa a
+     * los observadores del sueldo y del contador en un único aviso. Si el
+     * empleado está dado de alta en otro registro, el cambio de sueldo se le
+     * avisa a ese registro como un cambio normal. Debe llamarse con el
+     * cerrojo del segmento del empleado tomado y el contador ya actualizado.
+     *
+     * @param empleado Empleado descontado
+     * @param anterior Sueldo antes del cambio, en céntimos
+     * @param nuevo Sueldo después del cambio, en céntimos
+     * @param numDescuentos Número de descuentos del empleado tras el cambio
+     */
+    private void avisarDescuento(Empleado empleado, long anterior, long nuevo, int numDescuentos) {
+        if (empleado.getRegistro() != this) {
+            empleado.notificarSueldo(anterior, nuevo);
+            auditar(auditoria, empleado, anterior, nuevo);
+            return;
+        }
+        totales.contabilizar(empleado);
+        auditar(auditoria, empleado, anterior, nuevo);
+        for (ObservadorRegistro o : observadores) {
+            o.sueldoDescontado(empleado, Dinero.euros(anterior), Dinero.euros(nuevo), numDescuentos);
+        }
+    }
+
+    /**
+     * Devuelve de forma atómica el importe descontado a un empleado al
+     * deshacer un descuento y avisa del cambio. Debe llamarse con el cerrojo
+     * del segmento del empleado tomado y el contador ya actualizado.
+     *
+     * @param empleado Empleado descontado
+     * @param importe Céntimos que se le descontaron
+     * @param numDescuentos Número de descuentos del empleado tras el cambio
+     */
+    private void devolverDescuento(Empleado empleado, long importe, int numDescuentos) {
+        long anterior = empleado.sumarSueldo(importe);
+        avisarDescuento(empleado, anterior, anterior + importe, numDescuentos);
+    }
+
+    /**
+     * Cambia el sueldo de un empleado al restaurar un descuento y avisa del
+     * cambio. Debe llamarse con el cerrojo del segmento del empleado tomado y
+     * el contador ya actualizado.
+     *
+     * @param empleado Empleado descontado
+     * @param sueldo Nuevo sueldo, en céntimos
+     * @param numDescuentos Número de descuentos del empleado tras el cambio
+     */
+    private void cambiarSueldoDescontado(Empleado empleado, long sueldo, int numDescuentos) {
+        long anterior = empleado.asignarSueldo(sueldo);
+        avisarDescuento(empleado, anterior, sueldo, numDescuentos);
+    }
+
+    /**
+     * Restaura el sueldo y el contador de descuentos de un empleado
+     * registrado, por ejemplo al reproducir un {@link Diario}. Los
+     * observadores reciben el cambio como un descuento.
+     *
+     * @param empleado Empleado registrado en este registro
+     * @param sueldo Sueldo a restaurar, en céntimos (debe ser >= 0)
+     * @param numDescuentos Número de descuentos a restaurar (debe ser >= 0)
+     * @throws IllegalArgumentException si el sueldo es negativo
+     */
+    void restaurarDescuentos(Empleado empleado, long sueldo, int numDescuentos) {
+        int numEmpleado = empleado.getNumEmpleado();
+        Segmento s = segmento(numEmpleado);
+        long sello = s.cerrojo.writeLock();
+        try {
+            incorporarSiFalta(s, numEmpleado);
+            MapaContadores descuentos = s.descuentosPorEmpleado;
+            if (numDescuentos == 0) {
+                descuentos.eliminar(numEmpleado);
+            } else {
+                descuentos.incrementar(numEmpleado, numDescuentos - descuentos.obtener(numEmpleado));
+            }
+            cambiarSueldoDescontado(empleado, sueldo, numDescuentos);
+        } finally {
+            s.cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Avisa a los observadores de un cambio en otros datos del empleado.
+     *
+     * @param empleado Empleado modificado
+     */
+    void notificarDatos(Empleado empleado) {
+        for (ObservadorRegistro o : observadores) {
+            o.datosModificados(empleado);
+        }
+    }
+
+    /**
+     * Desvincula un empleado eliminado del registro y de su jefe, lo resta
+     * de los totales y avisa a los observadores.
+     * Debe llamarse con el cerrojo de su segmento tomado.
+     *
+     * @param empleado Empleado eliminado
+     */
+    private void darDeBaja(Empleado empleado) {
+        if (empleado.getRegistro() == this) {
+            empleado.setRegistro(null);
+        }
+        totales.quitar(empleado);
+        Jefe.desvincularDeSuperior(empleado);
+        for (ObservadorRegistro o : observadores) {
+            o.empleadoEliminado(empleado);
+        }
+    }
+
+    /**
+     * Obtiene el porcentaje de descuento que corresponde a un empleado según
+     * las reglas de su registro, o las reglas por defecto si no está dado de
+     * alta en ninguno.
+     *
+     * @param empleado Empleado a consultar (no puede ser null)
+     * @param hoy Fecha para la antigüedad, o null para la de hoy
+     * @return Porcentaje de descuento en puntos básicos
+     */
+    static int puntosDescuento(Empleado empleado, Fecha hoy) {
+        Registro registro = empleado.getRegistro();
+        ReglasNomina reglas = (registro == null) ? ReglasNomina.DESCUENTOS : registro.reglasDescuento;
+        return (hoy == null) ? reglas.evaluar(empleado) : reglas.evaluar(empleado, hoy);
+    }
+
+    /**
+     * Obtiene el tope de subida de sueldo de un empleado según las reglas de
+     * su registro, o las reglas por defecto si no está dado de alta en ninguno.
+     *
+     * @param empleado Empleado a consultar (no puede ser null)
+     * @return Tope en puntos básicos del sueldo, 0 si no se le puede subir o
+     *         {@link ReglasNomina#SIN_LIMITE}
+     */
+    static int puntosSubida(Empleado empleado) {
+        Registro registro = empleado.getRegistro();
+        ReglasNomina reglas = (registro == null) ? ReglasNomina.SUBIDAS : registro.reglasSubida;
+        return reglas.evaluar(empleado);
+    }
+
+    /**
+     * Obtiene las métricas del registro de un empleado.
+     *
+     * @param empleado Empleado (no puede ser null)
+     * @return Métricas de su registro, o null si no está dado de alta en
+     *         ninguno o el registro no tiene métricas
+     */
+    static Metricas metricas(Empleado empleado) {
+        Registro registro = empleado.getRegistro();
+        return (registro == null) ? null : registro.metricas;
+    }
+
+    /**
+     * Anota en la auditoría, si hay, un descuento hecho por el sistema (o
+     * deshecho, si el sueldo nuevo es mayor).
+     *
+     * @param auditoria Auditoría del registro, o null
+     * @param empleado Empleado descontado
+     * @param anterior Sueldo antes del cambio, en céntimos
+     * @param nuevo Sueldo después del cambio, en céntimos
+     */
+    private static void auditar(Auditoria auditoria, Empleado empleado, long anterior, long nuevo) {
+        if (auditoria != null) {
+            auditoria.registrar(Auditoria.Operacion.DESCUENTO, Auditoria.ACTOR_SISTEMA,
+                    empleado.getNumEmpleado(), anterior, nuevo);
+        }
+    }
+
+    /**
+     * Anota en la auditoría del registro de un empleado, si hay, una subida
+     * de sueldo hecha por un Jefe.
+     *
+     * @param jefe Jefe que sube el sueldo
+     * @param empleado Empleado al que se le sube
+     * @param anterior Sueldo antes de la subida, en céntimos
+     * @param nuevo Sueldo después de la subida, en céntimos
+     */
+    static void auditarSubida(Jefe jefe, Empleado empleado, long anterior, long nuevo) {
+        Registro registro = empleado.getRegistro();
+        Auditoria a = (registro == null) ? null : registro.auditoria;
+        if (a != null) {
+            a.registrar(Auditoria.Operacion.SUBIDA, jefe.getNumEmpleado(), empleado.getNumEmpleado(), anterior, nuevo);
+        }
+    }
+}
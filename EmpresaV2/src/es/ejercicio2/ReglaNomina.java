@@ -0,0 +1,239 @@
+package es.ejercicio2;
+
+/**
+ * Clase ReglaNomina inmutable que declara como datos una regla de descuento
+ * o de subida de sueldo: unas condiciones sobre el empleado y el valor, en
+ * puntos básicos, que se aplica cuando se cumplen todas.
+ * <p>
+ * Las condiciones posibles son el tipo de empleado, el departamento (el
+ * del Jefe, o el del superior para un Empleado), un intervalo de años de
+ * antigüedad según la fecha de contratación y un intervalo de sueldo bruto.
+ * Una condición que no se declara no restringe nada. Cada método con...()
+ * devuelve una regla nueva con esa condición añadida, de modo que las
+ * reglas se pueden declarar encadenando llamadas:
+ * </p>
+ * <pre>
+ * new ReglaNomina(750).paraTipo(ReglaNomina.Tipo.EMPLEADO)
+ *                     .conDepartamento("Ventas")
+ *                     .conAntiguedadEntre(10, 99)
+ * </pre>
+ * <p>
+ * Las reglas se agrupan y se compilan en una {@link ReglasNomina}.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public final class ReglaNomina {
+
+    /**
+     * Tipos de empleado a los que se puede limitar una regla.
+     */
+    public enum Tipo {
+        /** Cualquier empleado */
+        TODOS,
+        /** Solo empleados que no son Jefes */
+        EMPLEADO,
+        /** Solo Jefes */
+        JEFE
+    }
+
+    /** Tipo de empleado al que se aplica */
+    private final Tipo tipo;
+
+    /** Departamento al que se aplica, o null para cualquiera */
+    private final String departamento;
+
+    /** Antigüedad mínima en años (incluida) */
+    private final int antiguedadMinima;
+
+    /** Antigüedad máxima en años (incluida) */
+    private final int antiguedadMaxima;
+
+    /** Sueldo mínimo en céntimos (incluido) */
+    private final long sueldoMinimo;
+
+    /** Sueldo máximo en céntimos (incluido) */
+    private final long sueldoMaximo;
+
+    /** Valor de la regla en puntos básicos */
+    private final int valor;
+
+    /**
+     * Constructor de una regla sin condiciones.
+     *
+     * @param valor Valor en puntos básicos (debe ser >= 0)
+     * @throws IllegalArgumentException si el valor es negativo
+     */
+    public ReglaNomina(int valor) {
+        this(Tipo.TODOS, null, Integer.MIN_VALUE, Integer.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, valor);
+    }
+
+    /**
+     * Constructor con todos los campos.
+     *
+     * @param tipo Tipo de empleado
+     * @param departamento Departamento, o null
+     * @param antiguedadMinima Antigüedad mínima en años
+     * @param antiguedadMaxima Antigüedad máxima en años
+     * @param sueldoMinimo Sueldo mínimo en céntimos
+     * @param sueldoMaximo Sueldo máximo en céntimos
+     * @param valor Valor en puntos básicos
+     * @throws IllegalArgumentException si el valor es negativo
+     */
+    private ReglaNomina(Tipo tipo, String departamento, int antiguedadMinima, int antiguedadMaxima,
+            long sueldoMinimo, long sueldoMaximo, int valor) {
+        if (valor < 0) {
+            throw new IllegalArgumentException("El valor de la regla no puede ser negativo: " + valor);
+        }
+        this.tipo = tipo;
+        this.departamento = departamento;
+        this.antiguedadMinima = antiguedadMinima;
+        this.antiguedadMaxima = antiguedadMaxima;
+        this.sueldoMinimo = sueldoMinimo;
+        this.sueldoMaximo = sueldoMaximo;
+        this.valor = valor;
+    }
+
+    /**
+     * Devuelve una copia de la regla limitada a un tipo de empleado.
+     *
+     * @param tipo Tipo de empleado (no puede ser null)
+     * @return Regla nueva
+     * @throws IllegalArgumentException si el tipo es null
+     */
+    public ReglaNomina paraTipo(Tipo tipo) {
+        if (tipo == null) {
+            throw new IllegalArgumentException("El tipo no puede ser null");
+        }
+        return new ReglaNomina(tipo, departamento, antiguedadMinima, antiguedadMaxima,
+                sueldoMinimo, sueldoMaximo, valor);
+    }
+
+    /**
+     * Devuelve una copia de la regla limitada a un departamento.
+     *
+     * @param departamento Nombre del departamento, o null para cualquiera
+     * @return Regla nueva
+     */
+    public ReglaNomina conDepartamento(String departamento) {
+        return new ReglaNomina(tipo, departamento, antiguedadMinima, antiguedadMaxima,
+                sueldoMinimo, sueldoMaximo, valor);
+    }
+
+    /**
+     * Devuelve una copia de la regla limitada a un intervalo de antigüedad.
+     * Los empleados sin fecha de contratación no cumplen esta condición.
+     *
+     * @param minima Años mínimos de antigüedad (incluidos, debe ser >= 0)
+     * @param maxima Años máximos de antigüedad (incluidos)
+     * @return Regla nueva
+     * @throws IllegalArgumentException si el intervalo no es válido
+     */
+    public ReglaNomina conAntiguedadEntre(int minima, int maxima) {
+        if (minima < 0 || maxima < minima) {
+            throw new IllegalArgumentException("Intervalo de antigüedad no válido: " + minima + " - " + maxima);
+        }
+        return new ReglaNomina(tipo, departamento, minima, maxima, sueldoMinimo, sueldoMaximo, valor);
+    }
+
+    /**
+     * Devuelve una copia de la regla limitada a un intervalo de sueldo bruto.
+     *
+     * @param minimo Sueldo mínimo (incluido)
+     * @param maximo Sueldo máximo (incluido)
+     * @return Regla nueva
+     * @throws IllegalArgumentException si el intervalo no es válido
+     */
+    public ReglaNomina conSueldoEntre(double minimo, double maximo) {
+        long desde = Dinero.centimos(minimo);
+        long hasta = Dinero.centimos(maximo);
+        if (hasta < desde) {
+            throw new IllegalArgumentException("Intervalo de sueldo no válido: " + minimo + " - " + maximo);
+        }
+        return new ReglaNomina(tipo, departamento, antiguedadMinima, antiguedadMaxima, desde, hasta, valor);
+    }
+
+    /**
+     * Obtiene el tipo de empleado al que se aplica la regla.
+     *
+     * @return Tipo de empleado
+     */
+    public Tipo getTipo() { return tipo; }
+
+    /**
+     * Obtiene el departamento al que se aplica la regla.
+     *
+     * @return Nombre del departamento, o null si se aplica a cualquiera
+     */
+    public String getDepartamento() { return departamento; }
+
+    /**
+     * Indica si la regla tiene condición de antigüedad.
+     *
+     * @return true si la regla depende de la fecha de contratación
+     */
+    public boolean tieneAntiguedad() { return antiguedadMinima != Integer.MIN_VALUE; }
+
+    /**
+     * Obtiene la antigüedad mínima de la regla.
+     *
+     * @return Años mínimos, o Integer.MIN_VALUE si no hay condición
+     */
+    public int getAntiguedadMinima() { return antiguedadMinima; }
+
+    /**
+     * Obtiene la antigüedad máxima de la regla.
+     *
+     * @return Años máximos, o Integer.MAX_VALUE si no hay condición
+     */
+    public int getAntiguedadMaxima() { return antiguedadMaxima; }
+
+    /**
+     * Indica si la regla tiene condición de sueldo.
+     *
+     * @return true si la regla depende del sueldo
+     */
+    public boolean tieneSueldo() { return sueldoMinimo != Long.MIN_VALUE || sueldoMaximo != Long.MAX_VALUE; }
+
+    /**
+     * Obtiene el sueldo mínimo de la regla.
+     *
+     * @return Sueldo mínimo en céntimos, o Long.MIN_VALUE si no hay condición
+     */
+    public long getSueldoMinimo() { return sueldoMinimo; }
+
+    /**
+     * Obtiene el sueldo máximo de la regla.
+     *
+     * @return Sueldo máximo en céntimos, o Long.MAX_VALUE si no hay condición
+     */
+    public long getSueldoMaximo() { return sueldoMaximo; }
+
+    /**
+     * Obtiene el valor de la regla.
+     *
+     * @return Valor en puntos básicos
+     */
+    public int getValor() { return valor; }
+
+    /**
+     * Devuelve una representación en String de la regla.
+     *
+     * @return String con las condiciones y el valor
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("ReglaNomina ---> tipo=").append(tipo);
+        if (departamento != null) {
+            sb.append(", departamento='").append(departamento).append('\'');
+        }
+        if (tieneAntiguedad()) {
+            sb.append(", antiguedad=").append(antiguedadMinima).append('-').append(antiguedadMaxima);
+        }
+        if (tieneSueldo()) {
+            sb.append(", sueldo=").append(Dinero.euros(sueldoMinimo)).append('-').append(Dinero.euros(sueldoMaximo));
+        }
+        return sb.append(", valor=").append(valor).toString();
+    }
+}
@@ -0,0 +1,349 @@
+package es.ejercicio2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Clase ReglasNomina inmutable con un conjunto de {@link ReglaNomina}
+ * compilado en una tabla de decisión plana. Al evaluar un empleado se
+ * aplica la primera regla, en el orden en que se declararon, cuyas
+ * condiciones cumple; si no cumple ninguna, el valor por defecto.
+ * <p>
+ * Al compilar, las condiciones se copian en arrays paralelos (un array por
+ * campo, una posición por regla) y los departamentos se sustituyen por
+ * sus códigos de {@link Diccionario#DEPARTAMENTOS}, los mismos que guardan
+ * los Jefes, así que comprobar el departamento es comparar dos ints. Para cada tipo de empleado se precalcula la lista de
+ * reglas que le pueden aplicar, cortada en la primera que no tiene más
+ * condiciones que el tipo. Si esa primera regla ya es incondicional, el
+ * resultado del tipo es una constante y evaluar un empleado cuesta lo mismo
+ * que un instanceof con dos ramas. En el resto de casos las condiciones de
+ * cada regla se comprueban de la más barata a la más cara (sueldo,
+ * antigüedad, departamento), y la antigüedad y el departamento del empleado
+ * se calculan como mucho una vez y solo si se llega a una regla que los usa.
+ * </p>
+ * <p>
+ * Las tablas {@link #DESCUENTOS} y {@link #SUBIDAS} reproducen las reglas
+ * fijas de la plantilla: un 5% de descuento a los Jefes y un 10% al resto, y
+ * ninguna subida a otro Jefe.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public final class ReglasNomina {
+
+    /** Valor de subida sin tope: se permite cualquier incremento */
+    public static final int SIN_LIMITE = Integer.MAX_VALUE;
+
+    /** Descuentos por defecto: 5% a los Jefes, 10% a los demás empleados */
+    public static final ReglasNomina DESCUENTOS = compilar(Collections.singletonList(
+            new ReglaNomina(500).paraTipo(ReglaNomina.Tipo.JEFE)), 1000);
+
+    /**
+     * Subidas por defecto, como tope en puntos básicos del sueldo actual:
+     * ninguna a los Jefes y sin límite a los demás empleados
+     */
+    public static final ReglasNomina SUBIDAS = compilar(Collections.singletonList(
+            new ReglaNomina(0).paraTipo(ReglaNomina.Tipo.JEFE)), SIN_LIMITE);
+
+    /** Posición de las tablas por tipo para los empleados normales */
+    private static final int EMPLEADO = 0;
+
+    /** Posición de las tablas por tipo para los Jefes */
+    private static final int JEFE = 1;
+
+    /** Marca de tipo sin resultado constante */
+    private static final int VARIABLE = -1;
+
+    /** Código de departamento que no restringe la regla */
+    private static final int CUALQUIERA = -2;
+
+    /** Código de departamento aún sin calcular */
+    private static final int PENDIENTE = -3;
+
+    /** Reglas tal como se declararon */
+    private final List<ReglaNomina> reglas;
+
+    /** Valor cuando no se cumple ninguna regla */
+    private final int valorPorDefecto;
+
+    /** Código de departamento de cada regla, o CUALQUIERA */
+    private final int[] departamento;
+
+    /** Antigüedad mínima de cada regla */
+    private final int[] antiguedadMinima;
+
+    /** Antigüedad máxima de cada regla */
+    private final int[] antiguedadMaxima;
+
+    /** Sueldo mínimo en céntimos de cada regla */
+    private final long[] sueldoMinimo;
+
+    /** Sueldo máximo en céntimos de cada regla */
+    private final long[] sueldoMaximo;
+
+    /** Valor de cada regla */
+    private final int[] valor;
+
+    /** Reglas candidatas de cada tipo, en orden */
+    private final int[][] candidatas;
+
+    /** Resultado constante de cada tipo, o VARIABLE */
+    private final int[] constante;
+
+    /**
+     * Constructor privado; las tablas se obtienen con compilar().
+     *
+     * @param reglas Reglas en orden
+     * @param valorPorDefecto Valor cuando no se cumple ninguna regla
+     */
+    private ReglasNomina(List<ReglaNomina> reglas, int valorPorDefecto) {
+        int n = reglas.size();
+        this.reglas = Collections.unmodifiableList(new ArrayList<>(reglas));
+        this.valorPorDefecto = valorPorDefecto;
+        departamento = new int[n];
+        antiguedadMinima = new int[n];
+        antiguedadMaxima = new int[n];
+        sueldoMinimo = new long[n];
+        sueldoMaximo = new long[n];
+        valor = new int[n];
+        for (int i = 0; i < n; i++) {
+            ReglaNomina r = reglas.get(i);
+            String nombre = r.getDepartamento();
+            departamento[i] = (nombre == null) ? CUALQUIERA : Diccionario.DEPARTAMENTOS.codificar(nombre);
+            antiguedadMinima[i] = r.getAntiguedadMinima();
+            antiguedadMaxima[i] = r.getAntiguedadMaxima();
+            sueldoMinimo[i] = r.getSueldoMinimo();
+            sueldoMaximo[i] = r.getSueldoMaximo();
+            valor[i] = r.getValor();
+        }
+        candidatas = new int[2][];
+        constante = new int[2];
+        compilarTipo(EMPLEADO, ReglaNomina.Tipo.EMPLEADO);
+        compilarTipo(JEFE, ReglaNomina.Tipo.JEFE);
+    }
+
+    /**
+     * Compila una lista de reglas.
+     *
+     * @param reglas Reglas en orden de prioridad (no puede ser null ni contener null)
+     * @param valorPorDefecto Valor cuando no se cumple ninguna regla (debe ser >= 0)
+     * @return Tabla de decisión compilada
+     * @throws IllegalArgumentException si la lista es null o contiene null, o
+     *         el valor por defecto es negativo
+     */
+    public static ReglasNomina compilar(List<ReglaNomina> reglas, int valorPorDefecto) {
+        if (reglas == null || reglas.contains(null)) {
+            throw new IllegalArgumentException("La lista de reglas no puede ser null ni contener null");
+        }
+        if (valorPorDefecto < 0) {
+            throw new IllegalArgumentException("El valor por defecto no puede ser negativo: " + valorPorDefecto);
+        }
+        return new ReglasNomina(reglas, valorPorDefecto);
+    }
+
+    /**
+     * Evalúa las reglas para un empleado, con la antigüedad a día de hoy.
+     *
+     * @param empleado Empleado a evaluar (no puede ser null)
+     * @return Valor de la primera regla que cumple, o el valor por defecto
+     */
+    public int evaluar(Empleado empleado) {
+        int t = (empleado instanceof Jefe) ? JEFE : EMPLEADO;
+        int c = constante[t];
+        return (c != VARIABLE) ? c : evaluarFilas(t, empleado, null);
+    }
+
+    /**
+     * Evalúa las reglas para un empleado, con la antigüedad en una fecha.
+     *
+     * @param empleado Empleado a evaluar (no puede ser null)
+     * @param hoy Fecha con la que se calcula la antigüedad (no puede ser null)
+     * @return Valor de la primera regla que cumple, o el valor por defecto
+     */
+    public int evaluar(Empleado empleado, Fecha hoy) {
+        int t = (empleado instanceof Jefe) ? JEFE : EMPLEADO;
+        int c = constante[t];
+        return (c != VARIABLE) ? c : evaluarFilas(t, empleado, hoy);
+    }
+
+    /**
+     * Evalúa las reglas a partir de datos primitivos, sin necesidad de tener
+     * un objeto Empleado.
+     *
+     * @param jefe true si es un Jefe
+     * @param nombreDepartamento Departamento, o null
+     * @param antiguedad Años de antigüedad, o -1 si no se conoce la fecha de contratación
+     * @param sueldo Sueldo bruto en céntimos
+     * @return Valor de la primera regla que cumple, o el valor por defecto
+     */
+    public int evaluar(boolean jefe, String nombreDepartamento, int antiguedad, long sueldo) {
+        return evaluar(jefe, Diccionario.DEPARTAMENTOS.buscar(nombreDepartamento), antiguedad, sueldo);
+    }
+
+    /**
+     * Evalúa las reglas a partir de datos primitivos, con el departamento
+     * ya codificado.
+     *
+     * @param jefe true si es un Jefe
+     * @param codigoDepartamento Código del departamento en
+     *        {@link Diccionario#DEPARTAMENTOS}, o Diccionario.SIN_CODIGO
+     * @param antiguedad Años de antigüedad, o -1 si no se conoce la fecha de contratación
+     * @param sueldo Sueldo bruto en céntimos
+     * @return Valor de la primera regla que cumple, o el valor por defecto
+     */
+    public int evaluar(boolean jefe, int codigoDepartamento, int antiguedad, long sueldo) {
+        int t = jefe ? JEFE : EMPLEADO;
+        int c = constante[t];
+        if (c != VARIABLE) {
+            return c;
+        }
+        return recorrer(candidatas[t], codigoDepartamento, antiguedad, sueldo);
+    }
+
+    /**
+     * Indica si el resultado solo depende del tipo de empleado.
+     *
+     * @return true si la tabla se resuelve con el tipo
+     */
+    public boolean soloPorTipo() {
+        return constante[EMPLEADO] != VARIABLE && constante[JEFE] != VARIABLE;
+    }
+
+    /**
+     * Obtiene las reglas tal como se declararon.
+     *
+     * @return Lista no modificable de reglas
+     */
+    public List<ReglaNomina> getReglas() { return reglas; }
+
+    /**
+     * Obtiene el valor cuando no se cumple ninguna regla.
+     *
+     * @return Valor por defecto en puntos básicos
+     */
+    public int getValorPorDefecto() { return valorPorDefecto; }
+
+    /**
+     * Devuelve una representación en String de la tabla.
+     *
+     * @return String con las reglas y el valor por defecto
+     */
+    @Override
+    public String toString() {
+        return "ReglasNomina ---> reglas=" + reglas + ", valorPorDefecto=" + valorPorDefecto;
+    }
+
+    /**
+     * Precalcula las candidatas y el resultado constante de un tipo.
+     *
+     * @param t Posición del tipo en las tablas
+     * @param tipo Tipo de empleado
+     */
+    private void compilarTipo(int t, ReglaNomina.Tipo tipo) {
+        int[] indices = new int[reglas.size()];
+        int n = 0;
+        for (int i = 0; i < reglas.size(); i++) {
+            ReglaNomina r = reglas.get(i);
+            if (r.getTipo() != ReglaNomina.Tipo.TODOS && r.getTipo() != tipo) {
+                continue;
+            }
+            indices[n++] = i;
+            if (departamento[i] == CUALQUIERA && !r.tieneAntiguedad() && !r.tieneSueldo()) {
+                // Las reglas siguientes nunca se llegan a aplicar a este tipo
+                break;
+            }
+        }
+        candidatas[t] = Arrays.copyOf(indices, n);
+        if (n == 0) {
+            constante[t] = valorPorDefecto;
+        } else if (n == 1 && departamento[indices[0]] == CUALQUIERA
+                && !reglas.get(indices[0]).tieneAntiguedad() && !reglas.get(indices[0]).tieneSueldo()) {
+            constante[t] = valor[indices[0]];
+        } else {
+            constante[t] = VARIABLE;
+        }
+    }
+
+    /**
+     * Recorre las candidatas de un tipo hasta la primera que cumple el
+     * empleado. La antigüedad y el departamento se calculan la primera vez
+     * que una regla los necesita, porque obligan a leer otros objetos (la
+     * fecha de contratación, el superior y su departamento).
+     *
+     * @param t Posición del tipo en las tablas
+     * @param empleado Empleado a evaluar
+     * @param hoy Fecha para la antigüedad, o null para la de hoy
+     * @return Valor de la primera regla que cumple, o el valor por defecto
+     */
+    private int evaluarFilas(int t, Empleado empleado, Fecha hoy) {
+        long sueldo = empleado.getSueldoCentimos();
+        int antiguedad = 0;
+        boolean conAntiguedad = false;
+        int codigo = PENDIENTE;
+        for (int i : candidatas[t]) {
+            if (sueldo < sueldoMinimo[i] || sueldo > sueldoMaximo[i]) {
+                continue;
+            }
+            if (antiguedadMinima[i] != Integer.MIN_VALUE) {
+                if (!conAntiguedad) {
+                    antiguedad = empleado.calcularAntiguedad(hoy != null ? hoy : Fecha.hoy());
+                    conAntiguedad = true;
+                }
+                if (antiguedad < antiguedadMinima[i] || antiguedad > antiguedadMaxima[i]) {
+                    continue;
+                }
+            }
+            int d = departamento[i];
+            if (d != CUALQUIERA) {
+                if (codigo == PENDIENTE) {
+                    codigo = codigoDepartamento(empleado);
+                }
+                if (d != codigo) {
+                    continue;
+                }
+            }
+            return valor[i];
+        }
+        return valorPorDefecto;
+    }
+
+    /**
+     * Recorre las filas candidatas de la tabla hasta la primera que cumple.
+     *
+     * @param filas Índices de las reglas candidatas
+     * @param codigo Código del departamento del empleado
+     * @param antiguedad Años de antigüedad, o -1 si no se conocen
+     * @param sueldo Sueldo en céntimos
+     * @return Valor de la primera regla que cumple, o el valor por defecto
+     */
+    private int recorrer(int[] filas, int codigo, int antiguedad, long sueldo) {
+        for (int i : filas) {
+            int d = departamento[i];
+            if (sueldo >= sueldoMinimo[i] && sueldo <= sueldoMaximo[i]
+                    && (antiguedadMinima[i] == Integer.MIN_VALUE
+                        || (antiguedad >= antiguedadMinima[i] && antiguedad <= antiguedadMaxima[i]))
+                    && (d == CUALQUIERA || d == codigo)) {
+                return valor[i];
+            }
+        }
+        return valorPorDefecto;
+    }
+
+    /**
+     * Obtiene el código del departamento de un empleado: el suyo si es Jefe,
+     * o el de su superior si lo tiene.
+     *
+     * @param empleado Empleado a consultar
+     * @return Código del departamento, o Diccionario.SIN_CODIGO si no tiene
+     */
+    private static int codigoDepartamento(Empleado empleado) {
+        if (empleado instanceof Jefe) {
+            return ((Jefe) empleado).getCodigoDepartamento();
+        }
+        Jefe superior = empleado.getSuperior();
+        return (superior == null) ? Diccionario.SIN_CODIGO : superior.getCodigoDepartamento();
+    }
+}
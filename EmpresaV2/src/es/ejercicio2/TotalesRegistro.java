@@ -0,0 +1,431 @@
+package es.ejercicio2;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Clase TotalesRegistro con los agregados de un {@link Registro} que se
+ * mantienen al día con cada cambio en lugar de recalcularse recorriendo
+ * todos los empleados: total de sueldos brutos, número de empleados de cada
+ * tipo, total de IRPF (el de cada empleado redondeado al céntimo, como en
+ * {@link EstadisticasSueldos}) y total de sueldos de cada departamento (el
+ * de los jefes, como en {@link PlantillaColumnar}). Consultarlos cuesta lo
+ * mismo con diez empleados que con diez millones.
+ * <p>
+ * El registro los actualiza en las altas y bajas y en cada cambio de
+ * sueldo, de IRPF o de departamento. Son {@link LongAdder}, repartidos en
+ * celdas, así que los hilos que cambian sueldos a la vez no compiten por la
+ * misma posición de memoria. La contrapartida es que una consulta hecha
+ * mientras otros hilos cambian sueldos no es una foto exacta de un instante.
+ * </p>
+ * <p>
+ * Los cambios de sueldo, IRPF y departamento no toman ningún cerrojo. Para
+ * que los totales no se descuadren cuando a un mismo empleado se le cambian
+ * a la vez el sueldo y el IRPF (o el departamento), cada empleado guarda la
+ * {@link Aportacion} con la que está sumado: sueldo, IRPF y departamento
+ * leídos juntos. Tras cada cambio se sustituye con una comparación atómica
+ * por la de los datos actuales y se suma a los totales la diferencia entre
+ * las dos, repitiendo mientras los datos sigan cambiando. Así los totales
+ * son siempre la suma de aportaciones coherentes, y en cuanto terminan los
+ * cambios coinciden con los datos de los empleados, sin necesidad de
+ * recorrerlos para corregirlos.
+ * </p>
+ * <p>
+ * Un empleado dado de alta en otro registro sin darse de baja en este deja
+ * de seguirse aquí: sigue sumado con los datos que tenía, y se resta con
+ * ellos cuando se le da de baja.
+ * </p>
+ * <p>
+ * Como red de seguridad, el registro puede comparar de vez en cuando los
+ * totales con un recorrido completo ({@link Registro#conciliarTotales()},
+ * o periódicamente con
+ * {@link Registro#iniciarConciliacion(long, java.util.concurrent.TimeUnit)}).
+ * La comparación solo cuenta los descuadres ({@link #getNumDescuadres()});
+ * nunca modifica los totales.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public final class TotalesRegistro {
+
+    /** Suma de los sueldos brutos, en céntimos */
+    private final LongAdder sueldos = new LongAdder();
+
+    /** Suma del IRPF de cada empleado, en céntimos */
+    private final LongAdder irpf = new LongAdder();
+
+    /** Número de empleados de cada tipo (PlantillaColumnar.TIPO_EMPLEADO o TIPO_JEFE) */
+    private final LongAdder[] porTipo = {new LongAdder(), new LongAdder()};
+
+    /** Suma de los sueldos de los jefes de cada código de departamento (null si nunca se ha usado) */
+    private volatile LongAdder[] porDepartamento = new LongAdder[0];
+
+    /** Número de comparaciones con un recorrido completo que no han cuadrado */
+    private final AtomicLong descuadres = new AtomicLong();
+
+    /** Aportaciones de los empleados que han pasado a seguirse en otros totales */
+    private final Map<Empleado, Aportacion> cedidas = new ConcurrentHashMap<>();
+
+    /** Acceso atómico a la aportación de cada empleado */
+    private static final AtomicReferenceFieldUpdater<Empleado, Aportacion> APORTACION =
+            AtomicReferenceFieldUpdater.newUpdater(Empleado.class, Aportacion.class, "aportacion");
+
+    /**
+     * Datos con los que un empleado está sumado en unos totales, leídos
+     * juntos para que el IRPF y el departamento correspondan al mismo sueldo.
+     * Es inmutable: cada cambio crea una nueva.
+     */
+    static final class Aportacion {
+
+        /** Totales en los que está sumada */
+        final TotalesRegistro totales;
+
+        /** Sueldo en céntimos */
+        final long sueldo;
+
+        /** IRPF en puntos básicos */
+        final int puntosIrpf;
+
+        /** Código del departamento, o Diccionario.SIN_CODIGO */
+        final int departamento;
+
+        /**
+         * Constructor de una aportación.
+         *
+         * @param totales Totales en los que está sumada
+         * @param sueldo Sueldo en céntimos
+         * @param puntosIrpf IRPF en puntos básicos
+         * @param departamento Código del departamento, o Diccionario.SIN_CODIGO
+         */
+        Aportacion(TotalesRegistro totales, long sueldo, int puntosIrpf, int departamento) {
+            this.totales = totales;
+            this.sueldo = sueldo;
+            this.puntosIrpf = puntosIrpf;
+            this.departamento = departamento;
+        }
+
+        /**
+         * Obtiene el IRPF de la aportación, redondeado al céntimo.
+         *
+         * @return IRPF en céntimos
+         */
+        long irpf() {
+            return Dinero.porcentaje(sueldo, puntosIrpf);
+        }
+    }
+
+    /**
+     * Constructor de unos totales a cero. Solo los crea {@link Registro}.
+     */
+    TotalesRegistro() {
+    }
+
+    /**
+     * Obtiene el total de sueldos brutos.
+     *
+     * @return Total de sueldos brutos
+     */
+    public double getTotalSueldos() {
+        return Dinero.euros(sueldos.sum());
+    }
+
+    /**
+     * Obtiene el total de sueldos brutos en céntimos.
+     *
+     * @return Total de sueldos brutos en céntimos
+     */
+    public long getTotalSueldosCentimos() {
+        return sueldos.sum();
+    }
+
+    /**
+     * Obtiene el total del IRPF retenido, sumando el de cada empleado
+     * redondeado al céntimo.
+     *
+     * @return Total de IRPF
+     */
+    public double getTotalIrpf() {
+        return Dinero.euros(irpf.sum());
+    }
+
+    /**
+     * Obtiene el número de empleados registrados.
+     *
+     * @return Número de empleados (de todos los tipos)
+     */
+    public long getNumEmpleados() {
+        return porTipo[PlantillaColumnar.TIPO_EMPLEADO].sum() + porTipo[PlantillaColumnar.TIPO_JEFE].sum();
+    }
+
+    /**
+     * Obtiene el número de empleados registrados de un tipo.
+     *
+     * @param tipo PlantillaColumnar.TIPO_EMPLEADO o PlantillaColumnar.TIPO_JEFE
+     * @return Número de empleados de ese tipo
+     * @throws IllegalArgumentException si el tipo no existe
+     */
+    public long getNumEmpleados(byte tipo) {
+        if (tipo != PlantillaColumnar.TIPO_EMPLEADO && tipo != PlantillaColumnar.TIPO_JEFE) {
+            throw new IllegalArgumentException("Tipo de empleado desconocido: " + tipo);
+        }
+        return porTipo[tipo].sum();
+    }
+
+    /**
+     * Obtiene el total de sueldos de los jefes de un departamento.
+     *
+     * @param nombreDepartamento Nombre del departamento
+     * @return Total de sueldos brutos del departamento, o 0.0 si no existe
+     */
+    public double getTotalSueldosDepartamento(String nombreDepartamento) {
+        int codigo = Diccionario.DEPARTAMENTOS.buscar(nombreDepartamento);
+        LongAdder[] d = porDepartamento;
+        if (codigo == Diccionario.SIN_CODIGO || codigo >= d.length || d[codigo] == null) {
+            return 0.0;
+        }
+        return Dinero.euros(d[codigo].sum());
+    }
+
+    /**
+     * Obtiene el total de sueldos de los jefes de cada departamento.
+     *
+     * @return Total de sueldos brutos por nombre de departamento, en orden
+     *         de código; solo los departamentos que han tenido algún jefe
+     */
+    public Map<String, Double> getTotalSueldosPorDepartamento() {
+        LongAdder[] d = porDepartamento;
+        Map<String, Double> resultado = new LinkedHashMap<>();
+        for (int c = 0; c < d.length; c++) {
+            if (d[c] != null) {
+                resultado.put(Diccionario.DEPARTAMENTOS.texto(c), Dinero.euros(d[c].sum()));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene el número de veces que la comparación con un recorrido
+     * completo ha encontrado los totales descuadrados.
+     *
+     * @return Número de descuadres detectados
+     */
+    public long getNumDescuadres() {
+        return descuadres.get();
+    }
+
+    /**
+     * Suma un empleado dado de alta. Si se seguía en otros totales, esos se
+     * quedan con la aportación que tenía.
+     *
+     * @param empleado Empleado registrado
+     */
+    void agregar(Empleado empleado) {
+        porTipo[tipo(empleado)].increment();
+        Aportacion anterior = APORTACION.getAndSet(empleado, new Aportacion(this, 0, 0, Diccionario.SIN_CODIGO));
+        if (anterior != null && anterior.totales != this) {
+            anterior.totales.cedidas.put(empleado, anterior);
+        }
+        contabilizar(empleado);
+    }
+
+    /**
+     * Empieza a seguir a un empleado que ya está sumado con sus datos
+     * actuales (por ejemplo, el de una instantánea, que se suma al cargarla).
+     * Debe llamarse antes de que el empleado sea visible para otros hilos.
+     *
+     * @param empleado Empleado recién creado
+     */
+    void adoptar(Empleado empleado) {
+        APORTACION.set(empleado, aportacion(empleado));
+    }
+
+    /**
+     * Resta un empleado dado de baja, con la aportación con la que estaba
+     * sumado.
+     *
+     * @param empleado Empleado eliminado
+     */
+    void quitar(Empleado empleado) {
+        porTipo[tipo(empleado)].decrement();
+        while (true) {
+            Aportacion actual = empleado.aportacion;
+            if (actual == null || actual.totales != this) {
+                Aportacion cedida = cedidas.remove(empleado);
+                if (cedida != null) {
+                    restar(cedida);
+                }
+                return;
+            }
+            if (APORTACION.compareAndSet(empleado, actual, null)) {
+                restar(actual);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Suma o resta un empleado a partir de sus datos.
+     *
+     * @param tipo Tipo del empleado
+     * @param sueldo Sueldo en céntimos (negativo para restar)
+     * @param puntosIrpf IRPF en puntos básicos
+     * @param codigoDepartamento Código del departamento, o Diccionario.SIN_CODIGO
+     * @param numero 1 para sumar el empleado, -1 para restarlo
+     */
+    void agregar(byte tipo, long sueldo, int puntosIrpf, int codigoDepartamento, int numero) {
+        sueldos.add(sueldo);
+        irpf.add(numero * Dinero.porcentaje(numero * sueldo, puntosIrpf));
+        porTipo[tipo].add(numero);
+        if (codigoDepartamento != Diccionario.SIN_CODIGO) {
+            departamento(codigoDepartamento).add(sueldo);
+        }
+    }
+
+    /**
+     * Suma los datos actuales de un empleado sin seguirlo. Sirve para
+     * calcular los totales esperados en un recorrido completo.
+     *
+     * @param empleado Empleado recorrido
+     */
+    void sumarDatos(Empleado empleado) {
+        Aportacion datos = aportacion(empleado);
+        agregar(tipo(empleado), datos.sueldo, datos.puntosIrpf, datos.departamento, 1);
+    }
+
+    /**
+     * Compara estos totales con los de un recorrido completo y, si no
+     * coinciden, cuenta un descuadre. No corrige nada: los cambios de sueldo
+     * no toman los cerrojos del recorrido, así que un descuadre puede ser
+     * solo un cambio que llegó a la vez, y sumar la diferencia podría
+     * descuadrar unos totales que estaban bien.
+     *
+     * @param esperados Totales del recorrido completo
+     * @return true si coinciden, false si se ha contado un descuadre
+     */
+    boolean comprobar(TotalesRegistro esperados) {
+        boolean cuadran = sueldos.sum() == esperados.sueldos.sum() && irpf.sum() == esperados.irpf.sum();
+        for (int t = 0; t < porTipo.length; t++) {
+            cuadran &= porTipo[t].sum() == esperados.porTipo[t].sum();
+        }
+        LongAdder[] actual = porDepartamento;
+        LongAdder[] esperado = esperados.porDepartamento;
+        for (int c = 0, codigos = Math.max(actual.length, esperado.length); c < codigos; c++) {
+            cuadran &= suma(actual, c) == suma(esperado, c);
+        }
+        if (!cuadran) {
+            descuadres.incrementAndGet();
+        }
+        return cuadran;
+    }
+
+    /**
+     * Obtiene el total de un código de departamento, sin crearlo.
+     *
+     * @param totales Totales por código de departamento
+     * @param codigo Código del departamento
+     * @return Total, o 0 si no hay
+     */
+    private static long suma(LongAdder[] totales, int codigo) {
+        return (codigo < totales.length && totales[codigo] != null) ? totales[codigo].sum() : 0;
+    }
+
+    /**
+     * Contabiliza un cambio de sueldo, IRPF o departamento de un empleado
+     * seguido en estos totales: sustituye su aportación por la de sus datos
+     * actuales y suma la diferencia, hasta que la aportación coincide con
+     * los datos. Si otro hilo cambia el empleado a la vez, la comparación
+     * atómica hace que cada diferencia se sume una sola vez.
+     *
+     * @param empleado Empleado modificado
+     */
+    void contabilizar(Empleado empleado) {
+        while (true) {
+            Aportacion anterior = empleado.aportacion;
+            if (anterior == null || anterior.totales != this) {
+                return;
+            }
+            Aportacion nueva = aportacion(empleado);
+            if (nueva.sueldo == anterior.sueldo && nueva.puntosIrpf == anterior.puntosIrpf
+                    && nueva.departamento == anterior.departamento) {
+                return;
+            }
+            if (APORTACION.compareAndSet(empleado, anterior, nueva)) {
+                sueldos.add(nueva.sueldo - anterior.sueldo);
+                irpf.add(nueva.irpf() - anterior.irpf());
+                if (anterior.departamento != Diccionario.SIN_CODIGO) {
+                    departamento(anterior.departamento).add(-anterior.sueldo);
+                }
+                if (nueva.departamento != Diccionario.SIN_CODIGO) {
+                    departamento(nueva.departamento).add(nueva.sueldo);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resta de los totales una aportación que deja de contarse.
+     *
+     * @param aportacion Aportación del empleado dado de baja
+     */
+    private void restar(Aportacion aportacion) {
+        sueldos.add(-aportacion.sueldo);
+        irpf.add(-aportacion.irpf());
+        if (aportacion.departamento != Diccionario.SIN_CODIGO) {
+            departamento(aportacion.departamento).add(-aportacion.sueldo);
+        }
+    }
+
+    /**
+     * Lee los datos actuales de un empleado como una aportación a estos totales.
+     *
+     * @param empleado Empleado
+     * @return Aportación con su sueldo, IRPF y departamento
+     */
+    private Aportacion aportacion(Empleado empleado) {
+        return new Aportacion(this, empleado.getSueldoCentimos(), empleado.getIrpfPuntosBasicos(),
+                (empleado instanceof Jefe) ? ((Jefe) empleado).getCodigoDepartamento() : Diccionario.SIN_CODIGO);
+    }
+
+    /**
+     * Obtiene el tipo de un empleado en los totales por tipo.
+     *
+     * @param empleado Empleado
+     * @return PlantillaColumnar.TIPO_EMPLEADO o PlantillaColumnar.TIPO_JEFE
+     */
+    private static byte tipo(Empleado empleado) {
+        return (empleado instanceof Jefe) ? PlantillaColumnar.TIPO_JEFE : PlantillaColumnar.TIPO_EMPLEADO;
+    }
+
+    /**
+     * Obtiene el total de un código de departamento, creándolo si hace falta.
+     *
+     * @param codigo Código del departamento
+     * @return Total del departamento
+     */
+    private LongAdder departamento(int codigo) {
+        LongAdder[] d = porDepartamento;
+        if (codigo < d.length && d[codigo] != null) {
+            return d[codigo];
+        }
+        synchronized (this) {
+            d = porDepartamento;
+            if (codigo >= d.length) {
+                d = Arrays.copyOf(d, Math.max(codigo + 1, d.length << 1));
+            } else if (d[codigo] != null) {
+                return d[codigo];
+            } else {
+                d = d.clone();
+            }
+            LongAdder total = new LongAdder();
+            d[codigo] = total;
+            porDepartamento = d;
+            return total;
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package es.ejercicio2;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Clase VistaOrdenada que presenta los empleados de un array ordenados por
+ * un criterio (sueldo, antigüedad, nombre o número de empleado) sin copiar
+ * ni mover los empleados: la vista guarda el array original y una
+ * permutación de sus posiciones.
+ * <p>
+ * En lugar de ordenar los objetos con un Comparator, que en cada comparación
+ * sigue dos punteros hasta los campos a comparar, la clave de cada empleado
+ * se copia una sola vez a un long[] (los céntimos del sueldo, el día epoch
+ * de la fecha de contratación o los primeros caracteres del nombre) y se
+ * ordenan las posiciones con una ordenación por base (radix LSD) de 8 bits
+ * por pasada sobre esas claves. Las pasadas en las que todas las claves
+ * tienen el mismo byte se saltan, así que los sueldos en céntimos se ordenan
+ * en tres o cuatro pasadas. Con muchos empleados, la extracción de las
+ * claves se reparte entre los núcleos disponibles.
+ * </p>
+ * <p>
+ * Los nombres se ordenan como {@link String#compareTo(String)}: la clave
+ * contiene los tres siguientes caracteres del nombre y, en los grupos de
+ * nombres con la misma clave, se vuelve a ordenar con los tres siguientes
+ * (radix MSD por bloques de caracteres). Los grupos pequeños se terminan de
+ * ordenar por inserción.
+ * </p>
+ * <p>
+ * La ordenación es estable: los empleados con la misma clave conservan el
+ * orden que tenían en el array. Los elementos null del array no forman parte
+ * de la vista. La vista no se puede modificar y no se reordena si cambian
+ * los datos de los empleados o el contenido del array.
+ * </p>
+ *
+ * @author diegowolder
+ * @version 1.0
+ */
+public final class VistaOrdenada extends AbstractList<Empleado> implements RandomAccess {
+
+    /** Número de empleados a partir del cual las claves se extraen en paralelo */
+    public static final int UMBRAL_PARALELO = 1 << 16;
+
+    /** Tamaño de grupo por debajo del cual se ordena por inserción */
+    private static final int UMBRAL_INSERCION = 24;
+
+    /** Bits de cada dígito de la ordenación por base */
+    private static final int BITS_DIGITO = 8;
+
+    /** Número de valores de cada dígito */
+    private static final int VALORES_DIGITO = 1 << BITS_DIGITO;
+
+    /** Número de dígitos de una clave */
+    private static final int DIGITOS = Long.SIZE / BITS_DIGITO;
+
+    /** Caracteres del nombre que entran en cada clave */
+    private static final int CARACTERES_CLAVE = 3;
+
+    /** Bits de cada carácter en la clave (uno más que un char, para marcar el final) */
+    private static final int BITS_CARACTER = 17;
+
+    /** Bit de la clave de nombre que distingue un nombre (aunque sea vacío) de null */
+    private static final long NO_NULO = 1L << (CARACTERES_CLAVE * BITS_CARACTER);
+
+    /** Máscara del último carácter de una clave de nombre */
+    private static final long MASCARA_CARACTER = (1L << BITS_CARACTER) - 1;
+
+    /** Array ordenado (no se copia) */
+    private final Empleado[] empleados;
+
+    /** Posición en el array de cada elemento de la vista */
+    private final int[] orden;
+
+    /**
+     * Constructor privado; las vistas se crean con los métodos por...().
+     *
+     * @param empleados Array original
+     * @param orden Posiciones del array en orden
+     */
+    private VistaOrdenada(Empleado[] empleados, int[] orden) {
+        this.empleados = empleados;
+        this.orden = orden;
+    }
+
+    /**
+     * Ordena los empleados por sueldo, de menor a mayor.
+     *
+     * @param empleados Array de empleados (null equivale a un array vacío)
+     * @return Vista de los empleados ordenados por sueldo
+     */
+    public static VistaOrdenada porSueldo(Empleado[] empleados) {
+        int[] orden = posiciones(empleados);
+        long[] claves = new long[orden.length];
+        if (orden.length >= UMBRAL_PARALELO) {
+            Arrays.parallelSetAll(claves, i -> empleados[orden[i]].getSueldoCentimos());
+        } else {
+            for (int i = 0; i < orden.length; i++) {
+                claves[i] = empleados[orden[i]].getSueldoCentimos();
+            }
+        }
+        ordenar(claves, orden, 0, orden.length, new long[orden.length], new int[orden.length]);
+        return new VistaOrdenada(empleados, orden);
+    }
+
+    /**
+     * Ordena los empleados por antigüedad, de menor a mayor (de la fecha de
+     * contratación más reciente a la más antigua). Los empleados sin fecha
+     * de contratación quedan al final.
+     *
+     * @param empleados Array de empleados (null equivale a un array vacío)
+     * @return Vista de los empleados ordenados por antigüedad
+     */
+    public static VistaOrdenada porAntiguedad(Empleado[] empleados) {
+        int[] orden = posiciones(empleados);
+        long[] claves = new long[orden.length];
+        if (orden.length >= UMBRAL_PARALELO) {
+            Arrays.parallelSetAll(claves, i -> claveAntiguedad(empleados[orden[i]]));
+        } else {
+            for (int i = 0; i < orden.length; i++) {
+                claves[i] = claveAntiguedad(empleados[orden[i]]);
+            }
+        }
+        ordenar(claves, orden, 0, orden.length, new long[orden.length], new int[orden.length]);
+        return new VistaOrdenada(empleados, orden);
+    }
+
+    /**
+     * Ordena los empleados por nombre según {@link String#compareTo(String)}.
+     * Los empleados sin nombre quedan al principio.
+     *
+     * @param empleados Array de empleados (null equivale a un array vacío)
+     * @return Vista de los empleados ordenados por nombre
+     */
+    public static VistaOrdenada porNombre(Empleado[] empleados) {
+        int[] orden = posiciones(empleados);
+        int n = orden.length;
+        String[] nombres = new String[n];
+        long[] claves = new long[n];
+        if (n >= UMBRAL_PARALELO) {
+            Arrays.parallelSetAll(nombres, i -> empleados[orden[i]].getNombre());
+            Arrays.parallelSetAll(claves, i -> claveNombre(nombres[i], 0));
+        } else {
+            for (int i = 0; i < n; i++) {
+                nombres[i] = empleados[orden[i]].getNombre();
+                claves[i] = claveNombre(nombres[i], 0);
+            }
+        }
+        // Se ordenan posiciones de nombres[] y después se traducen a posiciones del array
+        int[] indices = new int[n];
+        for (int i = 0; i < n; i++) {
+            indices[i] = i;
+        }
+        ordenarNombres(nombres, claves, indices, 0, n, 0, new long[n], new int[n]);
+        int[] resultado = new int[n];
+        for (int i = 0; i < n; i++) {
+            resultado[i] = orden[indices[i]];
+        }
+        return new VistaOrdenada(empleados, resultado);
+    }
+
+    /**
+     * Ordena los empleados por número de empleado, el orden natural de
+     * {@link Empleado#compareTo(Empleado)}.
+     *
+     * @param empleados Array de empleados (null equivale a un array vacío)
+     * @return Vista de los empleados ordenados por número de empleado
+     */
+    public static VistaOrdenada porNumEmpleado(Empleado[] empleados) {
+        int[] orden = posiciones(empleados);
+        long[] claves = new long[orden.length];
+        for (int i = 0; i < orden.length; i++) {
+            claves[i] = empleados[orden[i]].getNumEmpleado();
+        }
+        ordenar(claves, orden, 0, orden.length, new long[orden.length], new int[orden.length]);
+        return new VistaOrdenada(empleados, orden);
+    }
+
+    /**
+     * Obtiene el empleado que ocupa una posición de la vista.
+     *
+     * @param posicion Posición en la vista
+     * @return Empleado en esa posición
+     * @throws IndexOutOfBoundsException si la posición no existe
+     */
+    @Override
+    public Empleado get(int posicion) {
+        return empleados[orden[posicion]];
+    }
+
+    /**
+     * Obtiene el número de empleados de la vista.
+     *
+     * @return Número de empleados (sin contar los null del array)
+     */
+    @Override
+    public int size() {
+        return orden.length;
+    }
+
+    /**
+     * Obtiene la posición en el array original del empleado que ocupa una
+     * posición de la vista.
+     *
+     * @param posicion Posición en la vista
+     * @return Posición en el array original
+     * @throws IndexOutOfBoundsException si la posición no existe
+     */
+    public int getIndice(int posicion) {
+        return orden[posicion];
+    }
+
+    /**
+     * Obtiene las posiciones de los elementos no null de un array.
+     *
+     * @param empleados Array de empleados (puede ser null)
+     * @return Posiciones en orden creciente
+     */
+    private static int[] posiciones(Empleado[] empleados) {
+        if (empleados == null) {
+            return new int[0];
+        }
+        int[] orden = new int[empleados.length];
+        int n = 0;
+        for (int i = 0; i < empleados.length; i++) {
+            if (empleados[i] != null) {
+                orden[n++] = i;
+            }
+        }
+        return (n == orden.length) ? orden : Arrays.copyOf(orden, n);
+    }
+
+    /**
+     * Calcula la clave de antigüedad de un empleado: el día epoch de la fecha
+     * de contratación cambiado de signo, para que las fechas recientes vayan
+     * primero.
+     *
+     * @param empleado Empleado
+     * @return Clave, o Long.MAX_VALUE si no tiene fecha de contratación
+     */
+    private static long claveAntiguedad(Empleado empleado) {
+        Fecha fecha = empleado.getFechaContratacion();
+        return (fecha == null) ? Long.MAX_VALUE : -(long) fecha.getDiaEpoch();
+    }
+
+    /**
+     * Calcula la clave de un bloque de caracteres de un nombre. Cada carácter
+     * se guarda más uno en {@value #BITS_CARACTER} bits, de modo que un 0
+     * indica que el nombre ya ha terminado y los nombres más cortos van
+     * antes, como en String.compareTo.
+     *
+     * @param nombre Nombre (puede ser null)
+     * @param desde Posición del primer carácter del bloque
+     * @return Clave del bloque, o 0 si el nombre es null
+     */
+    private static long claveNombre(String nombre, int desde) {
+        if (nombre == null) {
+            return 0;
+        }
+        long clave = NO_NULO;
+        for (int i = 0; i < CARACTERES_CLAVE; i++) {
+            int c = desde + i;
+            clave |= (long) ((c < nombre.length()) ? nombre.charAt(c) + 1 : 0)
+                    << ((CARACTERES_CLAVE - 1 - i) * BITS_CARACTER);
+        }
+        return clave;
+    }
+
+    /**
+     * Ordena un tramo de nombres por bloques de caracteres: ordena el tramo
+     * por la clave del bloque y vuelve a ordenar, con el bloque siguiente,
+     * cada grupo de nombres que comparten la clave y no han terminado.
+     *
+     * @param nombres Nombres
+     * @param claves Claves del bloque actual (se modifican)
+     * @param indices Posiciones en nombres[] que se ordenan
+     * @param desde Inicio del tramo
+     * @param hasta Fin del tramo (exclusivo)
+     * @param caracter Posición del primer carácter del bloque actual
+     * @param auxClaves Array auxiliar para las claves
+     * @param auxIndices Array auxiliar para las posiciones
+     */
+    private static void ordenarNombres(String[] nombres, long[] claves, int[] indices, int desde, int hasta,
+            int caracter, long[] auxClaves, int[] auxIndices) {
+        if (hasta - desde <= UMBRAL_INSERCION) {
+            insertarNombres(nombres, indices, desde, hasta, caracter);
+            return;
+        }
+        ordenar(claves, indices, desde, hasta, auxClaves, auxIndices);
+        int inicio = desde;
+        while (inicio < hasta) {
+            long clave = claves[inicio];
+            int fin = inicio + 1;
+            while (fin < hasta && claves[fin] == clave) {
+                fin++;
+            }
+            // Si el último carácter del bloque es 0, los nombres del grupo ya han terminado y son iguales
+            if (fin - inicio > 1 && (clave & MASCARA_CARACTER) != 0) {
+                int siguiente = caracter + CARACTERES_CLAVE;
+                for (int i = inicio; i < fin; i++) {
+                    claves[i] = claveNombre(nombres[indices[i]], siguiente);
+                }
+                ordenarNombres(nombres, claves, indices, inicio, fin, siguiente, auxClaves, auxIndices);
+            }
+            inicio = fin;
+        }
+    }
+
+    /**
+     * Ordena por inserción un tramo pequeño de nombres que coinciden en los
+     * caracteres anteriores a una posición.
+     *
+     * @param nombres Nombres
+     * @param indices Posiciones en nombres[] que se ordenan
+     * @param desde Inicio del tramo
+     * @param hasta Fin del tramo (exclusivo)
+     * @param caracter Posición desde la que los nombres pueden ser distintos
+     */
+    private static void insertarNombres(String[] nombres, int[] indices, int desde, int hasta, int caracter) {
+        for (int i = desde + 1; i < hasta; i++) {
+            int indice = indices[i];
+            String nombre = nombres[indice];
+            int j = i - 1;
+            while (j >= desde && compararNombres(nombres[indices[j]], nombre, caracter) > 0) {
+                indices[j + 1] = indices[j];
+                j--;
+            }
+            indices[j + 1] = indice;
+        }
+    }
+
+    /**
+     * Compara dos nombres como String.compareTo, con null antes que
+     * cualquier nombre, sabiendo que coinciden antes de una posición.
+     *
+     * @param a Primer nombre
+     * @param b Segundo nombre
+     * @param caracter Posición desde la que pueden ser distintos
+     * @return Negativo, cero o positivo según a vaya antes, igual o después que b
+     */
+    private static int compararNombres(String a, String b, int caracter) {
+        if (a == null || b == null) {
+            return (a == null) ? ((b == null) ? 0 : -1) : 1;
+        }
+        int fin = Math.min(a.length(), b.length());
+        for (int i = caracter; i < fin; i++) {
+            int d = a.charAt(i) - b.charAt(i);
+            if (d != 0) {
+                return d;
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    /**
+     * Ordena un tramo de claves, y sus posiciones con ellas, con una
+     * ordenación por base LSD de {@value #BITS_DIGITO} bits por pasada.
+     * Los histogramas de todos los dígitos se calculan en una sola lectura
+     * de las claves, y las pasadas de los dígitos en los que todas las
+     * claves coinciden se saltan. Las claves se comparan con signo.
+     *
+     * @param claves Claves a ordenar
+     * @param indices Posiciones que acompañan a las claves
+     * @param desde Inicio del tramo
+     * @param hasta Fin del tramo (exclusivo)
+     * @param auxClaves Array auxiliar para las claves (al menos del tamaño del tramo)
+     * @param auxIndices Array auxiliar para las posiciones (al menos del tamaño del tramo)
+     */
+    private static void ordenar(long[] claves, int[] indices, int desde, int hasta,
+            long[] auxClaves, int[] auxIndices) {
+        int n = hasta - desde;
+        if (n < 2) {
+            return;
+        }
+        int[] cuentas = new int[DIGITOS * VALORES_DIGITO];
+        for (int i = desde; i < hasta; i++) {
+            long clave = claves[i] ^ Long.MIN_VALUE;
+            for (int d = 0; d < DIGITOS; d++) {
+                cuentas[(d << BITS_DIGITO) + (int) ((clave >>> (d * BITS_DIGITO)) & (VALORES_DIGITO - 1))]++;
+            }
+        }
+        long[] origenClaves = claves;
+        int[] origenIndices = indices;
+        int origen = desde;
+        long[] destinoClaves = auxClaves;
+        int[] destinoIndices = auxIndices;
+        int destino = 0;
+        for (int d = 0; d < DIGITOS; d++) {
+            int base = d << BITS_DIGITO;
+            int desplazamiento = d * BITS_DIGITO;
+            int primero = (int) (((origenClaves[origen] ^ Long.MIN_VALUE) >>> desplazamiento) & (VALORES_DIGITO - 1));
+            if (cuentas[base + primero] == n) {
+                continue;
+            }
+            int suma = destino;
+            for (int v = 0; v < VALORES_DIGITO; v++) {
+                int c = cuentas[base + v];
+                cuentas[base + v] = suma;
+                suma += c;
+            }
+            for (int i = origen, fin = origen + n; i < fin; i++) {
+                long clave = origenClaves[i];
+                int p = cuentas[base + (int) (((clave ^ Long.MIN_VALUE) >>> desplazamiento) & (VALORES_DIGITO - 1))]++;
+                destinoClaves[p] = clave;
+                destinoIndices[p] = origenIndices[i];
+            }
+            long[] tc = origenClaves;
+            origenClaves = destinoClaves;
+            destinoClaves = tc;
+            int[] ti = origenIndices;
+            origenIndices = destinoIndices;
+            destinoIndices = ti;
+            int to = origen;
+            origen = destino;
+            destino = to;
+        }
+        if (origenClaves != claves) {
+            System.arraycopy(origenClaves, origen, claves, desde, n);
+            System.arraycopy(origenIndices, origen, indices, desde, n);
+        }
+    }
+}